@@ -3,9 +3,9 @@
  */
 package org.apache.aingle.file;
 
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.ByteBuffer;
 
 import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
@@ -44,9 +44,8 @@ public class BZip2Codec extends Codec {
 
   @Override
   public ByteBuffer decompress(ByteBuffer compressedData) throws IOException {
-    ByteArrayInputStream bais = new ByteArrayInputStream(compressedData.array(), computeOffset(compressedData),
-        compressedData.remaining());
-    try (BZip2CompressorInputStream inputStream = new BZip2CompressorInputStream(bais)) {
+    InputStream bytesIn = asInputStream(compressedData);
+    try (BZip2CompressorInputStream inputStream = new BZip2CompressorInputStream(bytesIn)) {
       ByteArrayOutputStream baos = new ByteArrayOutputStream();
 
       int readCount = -1;
@@ -0,0 +1,73 @@
+/*
+
+ */
+package org.apache.aingle.file;
+
+/**
+ * A predicate on the {@link BlockStatistics statistics} of blocks, used by
+ * {@link DataFileReader#setBlockFilter(BlockFilter)} to skip the blocks that
+ * cannot contain any record of interest without reading them.
+ * <p/>
+ * A filter must be conservative: blocks without statistics for the fields it
+ * tests must be kept.
+ */
+public interface BlockFilter {
+
+  /** Return false if no record of the block can be of interest. */
+  boolean mightMatch(BlockStatistics block);
+
+  /**
+   * Keep blocks that may hold a value of <i>field</i> between <i>min</i> and
+   * <i>max</i>, inclusive. A null bound is unbounded.
+   */
+  static BlockFilter between(String field, Object min, Object max) {
+    return block -> {
+      if (!block.hasStatistics(field)) {
+        return true;
+      }
+      Object blockMin = block.getMin(field);
+      if (blockMin == null) { // all null
+        return false;
+      }
+      return (max == null || block.compare(field, blockMin, max) <= 0)
+          && (min == null || block.compare(field, block.getMax(field), min) >= 0);
+    };
+  }
+
+  /** Keep blocks that may hold <i>value</i> in <i>field</i>. */
+  static BlockFilter equalTo(String field, Object value) {
+    if (value == null) {
+      return isNull(field);
+    }
+    return between(field, value, value);
+  }
+
+  /** Keep blocks that may hold records where <i>field</i> is null. */
+  static BlockFilter isNull(String field) {
+    return block -> !block.hasStatistics(field) || block.getNullCount(field) > 0;
+  }
+
+  /** Keep blocks that all of <i>filters</i> keep. */
+  static BlockFilter and(BlockFilter... filters) {
+    return block -> {
+      for (BlockFilter filter : filters) {
+        if (!filter.mightMatch(block)) {
+          return false;
+        }
+      }
+      return true;
+    };
+  }
+
+  /** Keep blocks that any of <i>filters</i> keep. */
+  static BlockFilter or(BlockFilter... filters) {
+    return block -> {
+      for (BlockFilter filter : filters) {
+        if (filter.mightMatch(block)) {
+          return true;
+        }
+      }
+      return false;
+    };
+  }
+}
@@ -0,0 +1,371 @@
+/*
+
+ */
+package org.apache.aingle.file;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+
+import org.apache.aingle.AIngleRuntimeException;
+import org.apache.aingle.Conversion;
+import org.apache.aingle.Conversions;
+import org.apache.aingle.LogicalType;
+import org.apache.aingle.Schema;
+import org.apache.aingle.generic.GenericData;
+import org.apache.aingle.generic.GenericDatumReader;
+import org.apache.aingle.generic.GenericDatumWriter;
+import org.apache.aingle.io.BinaryDecoder;
+import org.apache.aingle.io.BinaryEncoder;
+import org.apache.aingle.io.DecoderFactory;
+import org.apache.aingle.io.EncoderFactory;
+
+/**
+ * The index of the blocks of a data file, written after its last block.
+ * <p/>
+ * The index is written as a block of zero entries, compressed with the codec of
+ * the file, so that readers that don't know about it stop there. It is followed
+ * by a footer of {@link #FOOTER_SIZE} bytes: the position of the index block as
+ * a big-endian long, then {@link #MAGIC}. Files with an index have the
+ * {@link DataFileConstants#INDEX} metadata, the comma-separated names of the
+ * fields statistics are collected for, which may be empty.
+ * <p/>
+ * The uncompressed index holds the number of blocks followed, for each block,
+ * by its position, its record count and for each field its null count, or -1 if
+ * unknown, then if known whether the field has non-null values and if so their
+ * minimum and maximum, in the binary encoding of the field.
+ */
+final class BlockIndex {
+  static final byte[] MAGIC = new byte[] { (byte) 'A', (byte) 'I', (byte) 'd', (byte) 'x' };
+  static final int FOOTER_SIZE = 8 + MAGIC.length;
+
+  private final Fields fields;
+  private final List<BlockStatistics> blocks;
+  private final long[] offsets;
+  private final long[] firstRecords;
+  private final long recordCount;
+  private final long offset;
+
+  private BlockIndex(Fields fields, List<BlockStatistics> blocks, long offset) {
+    this.fields = fields;
+    this.blocks = Collections.unmodifiableList(blocks);
+    this.offsets = new long[blocks.size()];
+    this.firstRecords = new long[blocks.size()];
+    long records = 0;
+    for (int i = 0; i < offsets.length; i++) {
+      offsets[i] = blocks.get(i).getOffset();
+      firstRecords[i] = records;
+      records += blocks.get(i).getRecordCount();
+    }
+    this.recordCount = records;
+    this.offset = offset;
+  }
+
+  /** Return the position of the index, the end of the data blocks. */
+  long getOffset() {
+    return offset;
+  }
+
+  List<BlockStatistics> getBlocks() {
+    return blocks;
+  }
+
+  /** Return the block starting at <i>position</i>, or -1 if none does. */
+  int find(long position) {
+    int i = Arrays.binarySearch(offsets, position);
+    return i >= 0 ? i : -1;
+  }
+
+  /** Return the total number of records of the blocks. */
+  long getRecordCount() {
+    return recordCount;
+  }
+
+  /** Return the number of records of the blocks before block <i>i</i>. */
+  long getFirstRecord(int i) {
+    return firstRecords[i];
+  }
+
+  /**
+   * Return the block holding record number <i>record</i>, counting from zero, or
+   * -1 if it is past the last block.
+   */
+  int findRecord(long record) {
+    if (record >= recordCount) {
+      return -1;
+    }
+    int i = Arrays.binarySearch(firstRecords, record);
+    if (i < 0) {
+      return -i - 2; // the last block starting before the record
+    }
+    while (blocks.get(i).getRecordCount() == 0) {
+      i++; // empty blocks share their first record with the next
+    }
+    return i;
+  }
+
+  /**
+   * Read the index at the end of <i>in</i>, or return null if there is none. The
+   * position of <i>in</i> is left anywhere.
+   */
+  static BlockIndex read(DataFileReader.SeekableInputStream in, Schema schema, String fieldNames, Codec codec,
+      byte[] sync) throws IOException {
+    long length = in.length();
+    if (fieldNames == null || length < FOOTER_SIZE) {
+      return null;
+    }
+    byte[] footer = new byte[FOOTER_SIZE];
+    in.seek(length - FOOTER_SIZE);
+    BinaryDecoder vin = DecoderFactory.get().binaryDecoder(in, null);
+    vin.readFixed(footer);
+    if (!Arrays.equals(MAGIC, Arrays.copyOfRange(footer, 8, FOOTER_SIZE))) {
+      return null; // not closed, or truncated
+    }
+    long offset = ByteBuffer.wrap(footer).getLong();
+    if (offset < 0 || offset > length - FOOTER_SIZE) {
+      throw new IOException("Invalid block index position: " + offset);
+    }
+    in.seek(offset);
+    vin = DecoderFactory.get().binaryDecoder(in, vin);
+    long count = vin.readLong();
+    long size = vin.readLong();
+    if (count != 0 || size < 0 || size > length - offset) {
+      throw new IOException("Invalid block index at " + offset);
+    }
+    byte[] data = new byte[(int) size];
+    vin.readFixed(data);
+    byte[] indexSync = new byte[DataFileConstants.SYNC_SIZE];
+    vin.readFixed(indexSync);
+    if (!Arrays.equals(sync, indexSync)) {
+      throw new IOException("Invalid sync!");
+    }
+    ByteBuffer index = codec.decompress(ByteBuffer.wrap(data));
+    return decode(DecoderFactory.get().binaryDecoder(index, null), new Fields(schema, fieldNames), offset);
+  }
+
+  private static BlockIndex decode(BinaryDecoder in, Fields fields, long offset) throws IOException {
+    int n = fields.names.length;
+    List<BlockStatistics> blocks = new ArrayList<>();
+    for (long count = in.readArrayStart(); count != 0; count = in.arrayNext()) {
+      for (long i = 0; i < count; i++) {
+        long blockOffset = in.readLong();
+        long recordCount = in.readLong();
+        Object[] mins = new Object[n];
+        Object[] maxs = new Object[n];
+        long[] nullCounts = new long[n];
+        for (int f = 0; f < n; f++) {
+          nullCounts[f] = in.readLong();
+          if (nullCounts[f] >= 0 && in.readBoolean()) {
+            mins[f] = fields.readers.get(f).read(null, in);
+            maxs[f] = fields.readers.get(f).read(null, in);
+          }
+        }
+        blocks.add(new BlockStatistics(fields, blockOffset, recordCount, mins, maxs, nullCounts));
+      }
+    }
+    return new BlockIndex(fields, blocks, offset);
+  }
+
+  /** The fields statistics are collected for. */
+  static final class Fields {
+    final String[] names;
+    final int[] positions;
+    final Schema[] schemas;
+    final List<GenericDatumReader<Object>> readers;
+    final List<GenericDatumWriter<Object>> writers;
+
+    Fields(Schema schema, String fieldNames) {
+      this.names = fieldNames.isEmpty() ? new String[0] : fieldNames.split(",");
+      this.positions = new int[names.length];
+      this.schemas = new Schema[names.length];
+      this.readers = new ArrayList<>(names.length);
+      this.writers = new ArrayList<>(names.length);
+      if (names.length > 0 && schema.getType() != Schema.Type.RECORD) {
+        throw new AIngleRuntimeException("Statistics can only be collected for the fields of records: " + schema);
+      }
+      for (int i = 0; i < names.length; i++) {
+        Schema.Field field = schema.getField(names[i]);
+        if (field == null) {
+          throw new AIngleRuntimeException("No field named " + names[i] + " in " + schema.getFullName());
+        }
+        positions[i] = field.pos();
+        schemas[i] = valueSchema(field);
+        readers.add(new GenericDatumReader<>(schemas[i]));
+        writers.add(new GenericDatumWriter<>(schemas[i]));
+      }
+    }
+
+    int indexOf(String field) {
+      for (int i = 0; i < names.length; i++) {
+        if (names[i].equals(field)) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    private static Schema valueSchema(Schema.Field field) {
+      Schema schema = field.schema();
+      if (schema.getType() == Schema.Type.UNION && schema.getTypes().size() == 2) {
+        List<Schema> types = schema.getTypes();
+        if (types.get(0).getType() == Schema.Type.NULL) {
+          schema = types.get(1);
+        } else if (types.get(1).getType() == Schema.Type.NULL) {
+          schema = types.get(0);
+        }
+      }
+      switch (schema.getType()) {
+      case BOOLEAN:
+      case INT:
+      case LONG:
+      case FLOAT:
+      case DOUBLE:
+      case STRING:
+      case BYTES:
+      case ENUM:
+      case FIXED:
+        return schema;
+      default:
+        throw new AIngleRuntimeException("Cannot collect statistics for field " + field.name() + " of type " + schema);
+      }
+    }
+  }
+
+  /**
+   * Collects the statistics of the blocks of a file as it is written. Entries are
+   * added as blocks are completed, and get their position when the blocks are
+   * written out.
+   */
+  static final class Collector {
+    private final Fields fields;
+    private final String fieldNames;
+    /** The data model to get field values with, or null if none. */
+    private final GenericData data;
+    private final List<BlockStatistics> blocks = new ArrayList<>();
+    private final Queue<BlockStatistics> unwritten = new ArrayDeque<>();
+
+    // statistics of the current block
+    private final Object[] mins;
+    private final Object[] maxs;
+    private final long[] nullCounts;
+    private boolean unknown;
+
+    Collector(Schema schema, String fieldNames, GenericData data, BlockIndex existing) {
+      this.fields = new Fields(schema, fieldNames);
+      this.fieldNames = fieldNames;
+      this.data = data;
+      this.mins = new Object[fields.names.length];
+      this.maxs = new Object[fields.names.length];
+      this.nullCounts = new long[fields.names.length];
+      this.unknown = data == null;
+      if (existing != null) {
+        blocks.addAll(existing.blocks);
+      }
+    }
+
+    /** Return the names of the fields, to store in the metadata of the file. */
+    String getFieldNames() {
+      return fieldNames;
+    }
+
+    /** Add a record to the current block. */
+    void add(Object datum) {
+      if (unknown) {
+        return;
+      }
+      for (int i = 0; i < mins.length; i++) {
+        Schema schema = fields.schemas[i];
+        Object value = data.getField(datum, fields.names[i], fields.positions[i]);
+        if (value == null) {
+          nullCounts[i]++;
+          continue;
+        }
+        value = toRaw(schema, value);
+        if (mins[i] == null || GenericData.get().compare(value, mins[i], schema) < 0) {
+          mins[i] = copy(schema, value);
+        }
+        if (maxs[i] == null || GenericData.get().compare(value, maxs[i], schema) > 0) {
+          maxs[i] = copy(schema, value);
+        }
+      }
+    }
+
+    /** Add a record whose fields are not known to the current block. */
+    void addUnknown() {
+      unknown = true;
+    }
+
+    private Object toRaw(Schema schema, Object value) {
+      LogicalType logicalType = schema.getLogicalType();
+      if (logicalType == null) {
+        return value;
+      }
+      Conversion<?> conversion = data.getConversionByClass(value.getClass(), logicalType);
+      return conversion == null ? value : Conversions.convertToRawType(value, schema, logicalType, conversion);
+    }
+
+    private static Object copy(Schema schema, Object value) {
+      // strings and bytes may be reused by the caller
+      return GenericData.get().deepCopy(schema, value);
+    }
+
+    /** Complete the current block, of <i>count</i> records. */
+    void finishBlock(long count) {
+      if (unknown) {
+        Arrays.fill(nullCounts, -1);
+      }
+      unwritten.add(new BlockStatistics(fields, -1, count, mins.clone(), maxs.clone(), nullCounts.clone()));
+      Arrays.fill(mins, null);
+      Arrays.fill(maxs, null);
+      Arrays.fill(nullCounts, 0);
+      unknown = data == null;
+    }
+
+    /** Add a block of <i>count</i> records whose fields are not known. */
+    void unknownBlock(long count) {
+      unknown = true;
+      finishBlock(count);
+    }
+
+    /** Record the position of the oldest completed block not yet written. */
+    void blockWritten(long offset) {
+      blocks.add(unwritten.remove().withOffset(offset));
+    }
+
+    /** Return the index of the blocks written, uncompressed. */
+    ByteBuffer encode() throws IOException {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      BinaryEncoder e = EncoderFactory.get().directBinaryEncoder(out, null);
+      e.writeArrayStart();
+      e.setItemCount(blocks.size());
+      for (BlockStatistics block : blocks) {
+        e.startItem();
+        e.writeLong(block.getOffset());
+        e.writeLong(block.getRecordCount());
+        for (int f = 0; f < fields.names.length; f++) {
+          String name = fields.names[f];
+          if (!block.hasStatistics(name)) {
+            e.writeLong(-1);
+            continue;
+          }
+          e.writeLong(block.getNullCount(name));
+          Object min = block.getMin(name);
+          e.writeBoolean(min != null);
+          if (min != null) {
+            fields.writers.get(f).write(min, e);
+            fields.writers.get(f).write(block.getMax(name), e);
+          }
+        }
+      }
+      e.writeArrayEnd();
+      e.flush();
+      return ByteBuffer.wrap(out.toByteArray());
+    }
+  }
+}
@@ -0,0 +1,144 @@
+/*
+
+ */
+package org.apache.aingle.file;
+
+import java.nio.ByteBuffer;
+
+import org.apache.aingle.Schema;
+import org.apache.aingle.generic.GenericData;
+
+/**
+ * The position, record count and statistics of a block of a data file, as
+ * recorded by a {@link DataFileWriter} with
+ * {@link DataFileWriter#setBlockStatistics(String...) block statistics}
+ * enabled.
+ * <p/>
+ * For each field statistics are collected for, a block records the smallest and
+ * the largest non-null value of the field, in the order of
+ * {@link GenericData#compare(Object, Object, Schema)}, and the number of null
+ * values. Strings are returned as {@link org.apache.aingle.util.Utf8}, and
+ * values with a logical type in their underlying representation.
+ *
+ * @see BlockFilter
+ * @see DataFileReader#getBlockStatistics()
+ */
+public final class BlockStatistics {
+  private final BlockIndex.Fields fields;
+  private final long offset;
+  private final long recordCount;
+  private final Object[] mins;
+  private final Object[] maxs;
+  private final long[] nullCounts;
+
+  BlockStatistics(BlockIndex.Fields fields, long offset, long recordCount, Object[] mins, Object[] maxs,
+      long[] nullCounts) {
+    this.fields = fields;
+    this.offset = offset;
+    this.recordCount = recordCount;
+    this.mins = mins;
+    this.maxs = maxs;
+    this.nullCounts = nullCounts;
+  }
+
+  BlockStatistics withOffset(long offset) {
+    return new BlockStatistics(fields, offset, recordCount, mins, maxs, nullCounts);
+  }
+
+  /** Return the position of the block in the file. */
+  public long getOffset() {
+    return offset;
+  }
+
+  /** Return the number of records in the block. */
+  public long getRecordCount() {
+    return recordCount;
+  }
+
+  /**
+   * Return true if statistics of <i>field</i> are known for this block. They are
+   * not for fields that were not selected when writing, nor for blocks of
+   * records that were appended already encoded.
+   */
+  public boolean hasStatistics(String field) {
+    int i = fields.indexOf(field);
+    return i >= 0 && nullCounts[i] >= 0;
+  }
+
+  /**
+   * Return the schema of the values of <i>field</i>, without null if the field
+   * is nullable.
+   */
+  public Schema getSchema(String field) {
+    return fields.schemas[checkedIndex(field)];
+  }
+
+  /**
+   * Return the smallest non-null value of <i>field</i> in the block, or null if
+   * all are null.
+   */
+  public Object getMin(String field) {
+    return mins[checkedIndex(field)];
+  }
+
+  /**
+   * Return the largest non-null value of <i>field</i> in the block, or null if
+   * all are null.
+   */
+  public Object getMax(String field) {
+    return maxs[checkedIndex(field)];
+  }
+
+  /** Return the number of records of the block where <i>field</i> is null. */
+  public long getNullCount(String field) {
+    return nullCounts[checkedIndex(field)];
+  }
+
+  /**
+   * Compare a value of <i>field</i> with <i>value</i>, a value of the type of the
+   * field given by a user. Numbers are converted to the type of the field, and
+   * byte arrays are accepted for bytes.
+   */
+  int compare(String field, Object statistic, Object value) {
+    Schema schema = getSchema(field);
+    return GenericData.get().compare(statistic, coerce(schema, value), schema);
+  }
+
+  private static Object coerce(Schema schema, Object value) {
+    switch (schema.getType()) {
+    case INT:
+      return ((Number) value).intValue();
+    case LONG:
+      return ((Number) value).longValue();
+    case FLOAT:
+      return ((Number) value).floatValue();
+    case DOUBLE:
+      return ((Number) value).doubleValue();
+    case BYTES:
+      return value instanceof byte[] ? ByteBuffer.wrap((byte[]) value) : value;
+    default:
+      return value;
+    }
+  }
+
+  private int checkedIndex(String field) {
+    int i = fields.indexOf(field);
+    if (i < 0 || nullCounts[i] < 0) {
+      throw new IllegalArgumentException("No statistics for field " + field + " in block at " + offset);
+    }
+    return i;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder b = new StringBuilder();
+    b.append("{\"offset\": ").append(offset).append(", \"count\": ").append(recordCount);
+    for (int i = 0; i < fields.names.length; i++) {
+      if (nullCounts[i] >= 0) {
+        b.append(", \"").append(fields.names[i]).append("\": {\"min\": ").append(mins[i]).append(", \"max\": ")
+            .append(maxs[i]).append(", \"nulls\": ").append(nullCounts[i]).append("}");
+      }
+    }
+    return b.append("}").toString();
+  }
+}
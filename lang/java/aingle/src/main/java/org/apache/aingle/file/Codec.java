@@ -3,8 +3,14 @@
  */
 package org.apache.aingle.file;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.util.Collections;
+
+import org.apache.aingle.util.ByteBufferInputStream;
 
 /**
  * Interface for AIngle-supported compression codecs for data files.
@@ -47,4 +53,27 @@ public abstract class Codec {
   protected static int computeOffset(ByteBuffer data) {
     return data.arrayOffset() + data.position();
   }
+
+  // Data to decompress may not be backed by an array, e.g. when it is a slice
+  // of a memory-mapped file. These read it without copying it as a whole.
+  protected static InputStream asInputStream(ByteBuffer data) {
+    if (data.hasArray()) {
+      return new ByteArrayInputStream(data.array(), computeOffset(data), data.remaining());
+    }
+    return new ByteBufferInputStream(Collections.singletonList(data.duplicate()));
+  }
+
+  protected static void writeTo(ByteBuffer data, OutputStream out) throws IOException {
+    if (data.hasArray()) {
+      out.write(data.array(), computeOffset(data), data.remaining());
+      return;
+    }
+    ByteBuffer in = data.duplicate();
+    byte[] chunk = new byte[Math.min(in.remaining(), 8192)];
+    while (in.hasRemaining()) {
+      int n = Math.min(chunk.length, in.remaining());
+      in.get(chunk, 0, n);
+      out.write(chunk, 0, n);
+    }
+  }
 }
@@ -19,6 +19,8 @@ public class DataFileConstants {
 
   public static final String SCHEMA = "aingle.schema";
   public static final String CODEC = "aingle.codec";
+  /** The fields a block index has statistics for, see {@link BlockStatistics}. */
+  public static final String INDEX = "aingle.index";
   public static final String NULL_CODEC = "null";
   public static final String DEFLATE_CODEC = "deflate";
   public static final String SNAPPY_CODEC = "snappy";
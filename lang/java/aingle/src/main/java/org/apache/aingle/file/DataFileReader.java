@@ -7,9 +7,14 @@ import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.File;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
 import org.apache.aingle.InvalidAIngleMagicException;
+import org.apache.aingle.io.BinaryDecoder;
+import org.apache.aingle.io.BinarySkipper;
 import org.apache.aingle.io.DecoderFactory;
 import org.apache.commons.compress.utils.IOUtils;
 import org.apache.aingle.io.DatumReader;
@@ -25,6 +30,14 @@ public class DataFileReader<D> extends DataFileStream<D> implements FileReader<D
   private SeekableInputStream sin;
   private long blockStart;
   private int[] partialMatchTable;
+  private BlockIndex index;
+  private BlockFilter blockFilter;
+  private long skippedBlocks;
+  /** The position of the first block, or -1 if not yet known. */
+  private long dataStart = -1;
+  /** The number of records of the file, or -1 if not yet counted. */
+  private long recordCount = -1;
+  private BinarySkipper skipper;
 
   /** Open a reader for a file. */
   public static <D> FileReader<D> openReader(File file, DatumReader<D> reader) throws IOException {
@@ -112,6 +125,9 @@ public class DataFileReader<D> extends DataFileStream<D> implements FileReader<D
    * file: %s", file); }
    *
    * <pre/>
+   *
+   * When <i>sin</i> is a {@link MappedSeekableInput}, blocks are handed to the
+   * codec as views of the mapping rather than copied.
    */
   public DataFileReader(SeekableInput sin, DatumReader<D> reader) throws IOException {
     this(sin, reader, false);
@@ -124,6 +140,9 @@ public class DataFileReader<D> extends DataFileStream<D> implements FileReader<D
       this.sin = new SeekableInputStream(sin);
       initialize(this.sin);
       blockFinished();
+      this.dataStart = blockStart;
+      readIndex();
+      seek(dataStart);
     } catch (final Throwable e) {
       if (closeOnError) {
         IOUtils.closeQuietly(sin);
@@ -140,6 +159,227 @@ public class DataFileReader<D> extends DataFileStream<D> implements FileReader<D
     super(reader);
     this.sin = new SeekableInputStream(sin);
     initialize(this.sin, header);
+    long position = sin.tell();
+    readIndex();
+    sin.seek(position);
+  }
+
+  private void readIndex() throws IOException {
+    index = BlockIndex.read(sin, getSchema(), getMetaString(DataFileConstants.INDEX), resolveCodec(), getHeader().sync);
+  }
+
+  /**
+   * Return the position, record count and statistics of each block of the file,
+   * in order, or an empty list if it was not written with
+   * {@link DataFileWriter#setBlockStatistics(String...)}.
+   */
+  public List<BlockStatistics> getBlockStatistics() {
+    return index == null ? Collections.emptyList() : index.getBlocks();
+  }
+
+  /**
+   * Skip the blocks whose statistics <i>filter</i> rejects from now on, moving
+   * past them without reading or decompressing them. Blocks with no statistics
+   * are always read. Records of blocks that are read are returned whether they
+   * match or not: the filter only saves reading blocks that can't match.
+   *
+   * @param filter the filter, or null to read all blocks.
+   * @return this reader
+   */
+  public DataFileReader<D> setBlockFilter(BlockFilter filter) {
+    this.blockFilter = filter;
+    return this;
+  }
+
+  /** Return the block index of the file, or null if it has none. */
+  BlockIndex getBlockIndex() {
+    return index;
+  }
+
+  /** Return the number of blocks skipped because of the block filter. */
+  public long getSkippedBlockCount() {
+    return skippedBlocks;
+  }
+
+  /**
+   * Return the number of records of the file. This reads the block index if the
+   * file has one, and otherwise the header of each block, skipping over their
+   * content without decompressing it. The position of the reader is unchanged.
+   */
+  public long getRecordCount() throws IOException {
+    if (recordCount < 0) {
+      if (hasCompleteIndex()) {
+        recordCount = index.getRecordCount();
+      } else {
+        long position = sin.tell();
+        try {
+          recordCount = scanBlocks(Long.MAX_VALUE)[1];
+        } finally {
+          sin.seek(position);
+        }
+      }
+    }
+    return recordCount;
+  }
+
+  /**
+   * Move to record number <i>record</i> of the file, counting from zero, so that
+   * the next call to {@link #next()} returns it. The block holding the record is
+   * found with the block index of the file if it has one, and otherwise by
+   * reading the header of each block from the first; then the records before it
+   * in the block are skipped over without being read. Moving to the number of
+   * records of the file moves to its end. The block filter, if any, is not
+   * applied to the block holding the record.
+   *
+   * @throws IllegalArgumentException if <i>record</i> is negative or greater
+   *                                  than the number of records of the file.
+   */
+  public void seekToRecord(long record) throws IOException {
+    if (record < 0) {
+      throw new IllegalArgumentException("Invalid record number: " + record);
+    }
+    long blockOffset;
+    long firstRecord;
+    boolean found;
+    if (hasCompleteIndex()) {
+      int i = index.findRecord(record);
+      found = i >= 0;
+      blockOffset = found ? index.getBlocks().get(i).getOffset() : index.getOffset();
+      firstRecord = found ? index.getFirstRecord(i) : index.getRecordCount();
+    } else {
+      long[] block = scanBlocks(record);
+      found = block[2] != 0;
+      blockOffset = block[0];
+      firstRecord = block[1];
+    }
+    if (!found && record > firstRecord) {
+      throw new IllegalArgumentException(
+          "Record " + record + " is past the end of the file, of " + firstRecord + " records");
+    }
+    seek(blockOffset);
+    if (!found) {
+      return;
+    }
+    BlockFilter filter = blockFilter;
+    blockFilter = null;
+    try {
+      hasNext(); // load the block
+    } finally {
+      blockFilter = filter;
+    }
+    long skip = record - firstRecord;
+    if (isParallelRead()) {
+      for (long i = 0; i < skip; i++) {
+        next();
+      }
+      return;
+    }
+    if (skipper == null) {
+      skipper = BinarySkipper.of(getSchema());
+    }
+    for (long i = 0; i < skip; i++) {
+      skipper.skip(datumIn);
+    }
+    blockRemaining -= skip;
+  }
+
+  /**
+   * Return true if the file has a block index that covers all its blocks. Blocks
+   * written by an append that did not complete are missing from the index of the
+   * file they were appended to.
+   */
+  private boolean hasCompleteIndex() throws IOException {
+    if (index == null) {
+      return false;
+    }
+    List<BlockStatistics> blocks = index.getBlocks();
+    return (blocks.isEmpty() ? index.getOffset() : blocks.get(0).getOffset()) == dataStart();
+  }
+
+  /** Return the position past the last block. */
+  private long dataEnd() throws IOException {
+    return index != null ? index.getOffset() : sin.length();
+  }
+
+  /**
+   * Read the header of each block from the first one, skipping over their
+   * content, until the block holding record number <i>record</i>. Return the
+   * position of that block, the number of records before it and 1, or the end of
+   * the blocks, the number of records of the file and 0 if there are not as many
+   * records. The position of the input is left anywhere.
+   */
+  private long[] scanBlocks(long record) throws IOException {
+    long position = dataStart();
+    long firstRecord = 0;
+    boolean indexed = getMeta(DataFileConstants.INDEX) != null;
+    sin.seek(position);
+    BinaryDecoder in = DecoderFactory.get().binaryDecoder(sin, null);
+    long end = dataEnd();
+    while (position < end && !in.isEnd()) {
+      long count = in.readLong();
+      long size = in.readLong();
+      if (count == 0 && indexed) {
+        break; // the index block of a file whose footer is missing
+      }
+      if (count < 0 || size < 0 || size > Integer.MAX_VALUE) {
+        throw new IOException("Invalid block at " + position + ": count " + count + ", size " + size);
+      }
+      if (record < firstRecord + count) {
+        return new long[] { position, firstRecord, 1 };
+      }
+      firstRecord += count;
+      in.skipFixed((int) size);
+      in.skipFixed(SYNC_SIZE);
+      position = sin.tell() - in.inputStream().available();
+    }
+    return new long[] { position, firstRecord, 0 };
+  }
+
+  /** Return the position of the first block, reading the header if needed. */
+  private long dataStart() throws IOException {
+    if (dataStart < 0) {
+      long position = sin.tell();
+      try {
+        sin.seek(0);
+        BinaryDecoder in = DecoderFactory.get().binaryDecoder(sin, null);
+        in.skipFixed(MAGIC.length);
+        for (long n = in.readMapStart(); n != 0; n = in.mapNext()) {
+          for (long i = 0; i < n; i++) {
+            in.skipString();
+            in.skipBytes();
+          }
+        }
+        in.skipFixed(SYNC_SIZE);
+        dataStart = sin.tell() - in.inputStream().available();
+      } finally {
+        sin.seek(position);
+      }
+    }
+    return dataStart;
+  }
+
+  @Override
+  boolean atDataEnd() throws IOException {
+    if (index == null) {
+      return false;
+    }
+    long position = rawBlockEnd();
+    int first = blockFilter == null ? -1 : index.find(position);
+    if (first >= 0) {
+      List<BlockStatistics> blocks = index.getBlocks();
+      int next = first;
+      while (next < blocks.size() && !blockFilter.mightMatch(blocks.get(next))) {
+        next++;
+      }
+      if (next > first) {
+        skippedBlocks += next - first;
+        position = next < blocks.size() ? blocks.get(next).getOffset() : index.getOffset();
+        sin.seek(position);
+        vin = DecoderFactory.get().binaryDecoder(this.sin, vin);
+        blockStart = position;
+      }
+    }
+    return position >= index.getOffset();
   }
 
   /**
@@ -148,11 +388,13 @@ public class DataFileReader<D> extends DataFileStream<D> implements FileReader<D
    * not saved while writing a file, use {@link #sync(long)} instead.
    */
   public void seek(long position) throws IOException {
+    discardPrefetchedBlocks();
     sin.seek(position);
     vin = DecoderFactory.get().binaryDecoder(this.sin, vin);
     datumIn = null;
     blockRemaining = 0;
     blockStart = position;
+    indexReached = false;
   }
 
   /**
@@ -224,7 +466,23 @@ public class DataFileReader<D> extends DataFileStream<D> implements FileReader<D
 
   @Override
   protected void blockFinished() throws IOException {
-    blockStart = sin.tell() - vin.inputStream().available();
+    long end = decodedBlockEnd();
+    blockStart = end >= 0 ? end : rawBlockEnd();
+  }
+
+  @Override
+  long rawBlockEnd() throws IOException {
+    return sin.tell() - vin.inputStream().available();
+  }
+
+  @Override
+  ByteBuffer readRawSlice(int size) throws IOException {
+    if (!(sin.in instanceof MappedSeekableInput)) {
+      return null;
+    }
+    ByteBuffer slice = ((MappedSeekableInput) sin.in).slice(rawBlockEnd(), size);
+    vin.skipFixed(size);
+    return slice;
   }
 
   /** Return the last synchronization point before our current position. */
@@ -293,13 +551,11 @@ public class DataFileReader<D> extends DataFileStream<D> implements FileReader<D
       long position = in.tell();
       long length = in.length();
       long remaining = length - position;
-      if (remaining > skip) {
-        in.seek(skip);
-        return in.tell() - position;
-      } else {
-        in.seek(remaining);
-        return in.tell() - position;
+      if (skip <= 0 || remaining <= 0) {
+        return 0;
       }
+      in.seek(position + Math.min(skip, remaining));
+      return in.tell() - position;
     }
 
     @Override
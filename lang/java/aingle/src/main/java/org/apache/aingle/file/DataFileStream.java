@@ -6,9 +6,12 @@ package org.apache.aingle.file;
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.Closeable;
+import java.nio.Buffer;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
 import java.util.Arrays;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -17,14 +20,21 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import org.apache.aingle.AIngleRuntimeException;
 import org.apache.aingle.InvalidAIngleMagicException;
 import org.apache.aingle.Schema;
+import org.apache.aingle.io.BatchDatumReader;
 import org.apache.aingle.io.BinaryEncoder;
 import org.apache.aingle.io.DecoderFactory;
 import org.apache.aingle.io.BinaryDecoder;
 import org.apache.aingle.io.DatumReader;
+import org.apache.aingle.io.RecordBatch;
 
 /**
  * Streaming access to files written by {@link DataFileWriter}. Use
@@ -64,8 +74,19 @@ public class DataFileStream<D> implements Iterator<D>, Iterable<D>, Closeable {
   long blockCount; // # entries in block
   long blockRemaining; // # entries remaining in block
   byte[] syncBuffer = new byte[DataFileConstants.SYNC_SIZE];
+  /** True once the block index of the file was reached, if it has one. */
+  boolean indexReached = false;
   private Codec codec;
 
+  /** Executor used to decompress and decode blocks in parallel read mode. */
+  private ExecutorService blockExecutor = null;
+  private int prefetchBlocks;
+  /** Blocks handed to {@link #blockExecutor}, in file order. */
+  private final ArrayDeque<Future<DecodedBlock<D>>> pendingBlocks = new ArrayDeque<>();
+  /** Codecs are not thread safe, so worker threads borrow one from here. */
+  private final Queue<Codec> idleCodecs = new ConcurrentLinkedQueue<>();
+  private DecodedBlock<D> decodedBlock = null;
+
   /**
    * Construct a reader for an input stream. For file-based input, use
    * {@link DataFileReader}. This will buffer, wrapping with a
@@ -171,6 +192,45 @@ public class DataFileStream<D> implements Iterator<D>, Iterable<D>, Closeable {
     return Long.parseLong(getMetaString(key));
   }
 
+  /**
+   * Enable parallel read mode. Up to <i>prefetchBlocks</i> blocks are read ahead
+   * of the current position, and each of them is decompressed and decoded by a
+   * task submitted to <i>executor</i>. Entries are still returned in file order.
+   * At most <i>prefetchBlocks</i> blocks, plus the one being consumed, are held
+   * in memory at any time.
+   * <p/>
+   * The {@link DatumReader} is shared by the worker threads, so it must support
+   * concurrent calls to {@link DatumReader#read(Object, org.apache.aingle.io.Decoder)}
+   * as the generic, specific and reflect readers do. Entries are always freshly
+   * allocated: the <i>reuse</i> argument of {@link #next(Object)} is ignored in
+   * this mode, as is {@link #nextBlock()} unsupported.
+   * <p/>
+   * The read mode may only be changed before the first entry is read, or right
+   * after {@link DataFileReader#seek(long)} or {@link DataFileReader#sync(long)}.
+   * The executor is not shut down by this stream.
+   *
+   * @param executor       the executor to decode blocks with, or null to go back
+   *                       to reading on the calling thread.
+   * @param prefetchBlocks the number of blocks to read ahead, at least 1.
+   * @return this stream
+   */
+  public DataFileStream<D> setParallelRead(ExecutorService executor, int prefetchBlocks) {
+    if (executor != null && prefetchBlocks < 1) {
+      throw new IllegalArgumentException("Invalid prefetchBlocks value: " + prefetchBlocks);
+    }
+    if (!pendingBlocks.isEmpty() || (decodedBlock != null && blockRemaining != 0)) {
+      throw new IllegalStateException("Blocks are being read ahead, the read mode can't be changed.");
+    }
+    this.blockExecutor = executor;
+    this.prefetchBlocks = prefetchBlocks;
+    return this;
+  }
+
+  /** True if blocks are decoded by an executor. */
+  public boolean isParallelRead() {
+    return blockExecutor != null;
+  }
+
   /**
    * Returns an iterator over entries in this file. Note that this iterator is
    * shared with other users of the file: it does not contain a separate pointer
@@ -186,6 +246,9 @@ public class DataFileStream<D> implements Iterator<D>, Iterable<D>, Closeable {
   /** True if more entries remain in this file. */
   @Override
   public boolean hasNext() {
+    if (blockExecutor != null) {
+      return hasNextParallel();
+    }
     try {
       if (blockRemaining == 0) {
         // check that the previous block was finished
@@ -199,8 +262,7 @@ public class DataFileStream<D> implements Iterator<D>, Iterable<D>, Closeable {
           block = nextRawBlock(block);
           block.decompressUsing(codec);
           blockBuffer = block.getAsByteBuffer();
-          datumIn = DecoderFactory.get().binaryDecoder(blockBuffer.array(),
-              blockBuffer.arrayOffset() + blockBuffer.position(), blockBuffer.remaining(), datumIn);
+          datumIn = DecoderFactory.get().binaryDecoder(blockBuffer, datumIn);
         }
       }
       return blockRemaining != 0;
@@ -234,19 +296,51 @@ public class DataFileStream<D> implements Iterator<D>, Iterable<D>, Closeable {
   public D next(D reuse) throws IOException {
     if (!hasNext())
       throw new NoSuchElementException();
-    D result = reader.read(reuse, datumIn);
+    D result;
+    if (decodedBlock != null) {
+      result = decodedBlock.next();
+    } else {
+      result = reader.read(reuse, datumIn);
+    }
     if (0 == --blockRemaining) {
       blockFinished();
     }
     return result;
   }
 
+  /**
+   * Read the next records of the current block into <i>batch</i>, at most its
+   * capacity. A batch never spans two blocks.
+   *
+   * @param batchReader a reader for the schema of this file.
+   * @param batch       the batch to replace the content of.
+   * @return the number of records read, or 0 if no more remain in the file.
+   */
+  public int nextBatch(BatchDatumReader batchReader, RecordBatch batch) throws IOException {
+    if (blockExecutor != null)
+      throw new UnsupportedOperationException("Not supported in parallel read mode.");
+    if (batchReader.getSchema() != header.schema && !batchReader.getSchema().equals(header.schema))
+      throw new AIngleRuntimeException("Not a reader for the schema of this file: " + batchReader.getSchema());
+    if (!hasNext()) {
+      batch.clear();
+      return 0;
+    }
+    int count = batchReader.readBatch(datumIn, batch, (int) Math.min(blockRemaining, Integer.MAX_VALUE));
+    blockRemaining -= count;
+    if (blockRemaining == 0) {
+      blockFinished();
+    }
+    return count;
+  }
+
   /** Expert: Return the next block in the file, as binary-encoded data. */
   public ByteBuffer nextBlock() throws IOException {
     if (!hasNext())
       throw new NoSuchElementException();
     if (blockRemaining != blockCount)
       throw new IllegalStateException("Not at block start.");
+    if (blockExecutor != null)
+      throw new UnsupportedOperationException("Not supported in parallel read mode.");
     blockRemaining = 0;
     datumIn = null;
     return blockBuffer;
@@ -266,17 +360,108 @@ public class DataFileStream<D> implements Iterator<D>, Iterable<D>, Closeable {
     // nothing for the stream impl
   }
 
+  /**
+   * Return the position of the input just past the raw block last read, or -1 if
+   * the input has no notion of position.
+   */
+  long rawBlockEnd() throws IOException {
+    return -1;
+  }
+
+  /**
+   * In parallel read mode, the position just past the block being consumed.
+   * Otherwise -1.
+   */
+  long decodedBlockEnd() {
+    return decodedBlock == null ? -1 : decodedBlock.end;
+  }
+
+  private boolean hasNextParallel() {
+    try {
+      if (blockRemaining == 0) {
+        decodedBlock = null;
+        while (pendingBlocks.size() < prefetchBlocks && hasNextBlock()) {
+          final DataBlock raw = nextRawBlock(null);
+          final long end = rawBlockEnd();
+          pendingBlocks.add(blockExecutor.submit(() -> decodeBlock(raw, end)));
+        }
+        Future<DecodedBlock<D>> pending = pendingBlocks.poll();
+        if (pending != null) {
+          decodedBlock = pending.get();
+          blockCount = decodedBlock.entries.length;
+          blockSize = decodedBlock.size;
+          blockRemaining = blockCount;
+        }
+      }
+      return blockRemaining != 0;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      discardPrefetchedBlocks();
+      throw new AIngleRuntimeException(new InterruptedIOException("Interrupted while waiting for a block"));
+    } catch (ExecutionException e) {
+      discardPrefetchedBlocks();
+      throw new AIngleRuntimeException(e.getCause());
+    } catch (EOFException e) { // at EOF
+      return false;
+    } catch (IOException e) {
+      throw new AIngleRuntimeException(e);
+    }
+  }
+
+  /** Decompress and decode a raw block. Runs on {@link #blockExecutor}. */
+  @SuppressWarnings("unchecked")
+  private DecodedBlock<D> decodeBlock(DataBlock raw, long end) throws IOException {
+    Codec c = idleCodecs.poll();
+    if (c == null) {
+      c = resolveCodec();
+    }
+    try {
+      raw.decompressUsing(c);
+    } finally {
+      idleCodecs.offer(c);
+    }
+    BinaryDecoder in = DecoderFactory.get().binaryDecoder(raw.getAsByteBuffer(), null);
+    Object[] entries = new Object[(int) raw.getNumEntries()];
+    for (int i = 0; i < entries.length; i++) {
+      entries[i] = reader.read(null, in);
+    }
+    if (!in.isEnd()) {
+      throw new IOException("Block read partially, the data may be corrupt");
+    }
+    return new DecodedBlock<>((D[]) entries, raw.getBlockSize(), end);
+  }
+
+  /**
+   * Drop all blocks read ahead in parallel read mode, e.g. before repositioning
+   * the input.
+   */
+  void discardPrefetchedBlocks() {
+    for (Future<DecodedBlock<D>> pending : pendingBlocks) {
+      pending.cancel(true);
+    }
+    pendingBlocks.clear();
+    if (decodedBlock != null) {
+      decodedBlock = null;
+      blockRemaining = 0;
+    }
+  }
+
   boolean hasNextBlock() {
     try {
       if (availableBlock)
         return true;
-      if (vin.isEnd())
+      if (indexReached || atDataEnd() || vin.isEnd())
         return false;
       blockRemaining = vin.readLong(); // read block count
       blockSize = vin.readLong(); // read block size
       if (blockSize > Integer.MAX_VALUE || blockSize < 0) {
         throw new IOException("Block size invalid or too large for this " + "implementation: " + blockSize);
       }
+      if (blockRemaining == 0 && header.meta.containsKey(DataFileConstants.INDEX)) {
+        // the block index, which is followed by the footer rather than by blocks
+        indexReached = true;
+        return false;
+      }
       blockCount = blockRemaining;
       availableBlock = true;
       return true;
@@ -287,18 +472,41 @@ public class DataFileStream<D> implements Iterator<D>, Iterable<D>, Closeable {
     }
   }
 
+  /**
+   * Return true if the input is at the end of the data blocks, moving past the
+   * blocks to skip first if any. Only called between blocks.
+   */
+  boolean atDataEnd() throws IOException {
+    return false;
+  }
+
+  /**
+   * Return the next <i>size</i> bytes of the input as a buffer that need not be
+   * copied, skipping past them, or null if the input can't provide one.
+   */
+  ByteBuffer readRawSlice(int size) throws IOException {
+    return null;
+  }
+
   DataBlock nextRawBlock(DataBlock reuse) throws IOException {
     if (!hasNextBlock()) {
       throw new NoSuchElementException();
     }
-    if (reuse == null || reuse.data.length < (int) blockSize) {
-      reuse = new DataBlock(blockRemaining, (int) blockSize);
+    ByteBuffer slice = readRawSlice((int) blockSize);
+    if (slice != null) {
+      reuse = new DataBlock(slice, blockRemaining);
     } else {
-      reuse.numEntries = blockRemaining;
-      reuse.blockSize = (int) blockSize;
+      if (reuse == null || reuse.data == null || reuse.data.length < (int) blockSize) {
+        reuse = new DataBlock(blockRemaining, (int) blockSize);
+      } else {
+        reuse.buffer = null;
+        reuse.offset = 0;
+        reuse.numEntries = blockRemaining;
+        reuse.blockSize = (int) blockSize;
+      }
+      // throws if it can't read the size requested
+      vin.readFixed(reuse.data, 0, reuse.blockSize);
     }
-    // throws if it can't read the size requested
-    vin.readFixed(reuse.data, 0, reuse.blockSize);
     vin.readFixed(syncBuffer);
     availableBlock = false;
     if (!Arrays.equals(syncBuffer, header.sync))
@@ -315,11 +523,35 @@ public class DataFileStream<D> implements Iterator<D>, Iterable<D>, Closeable {
   /** Close this reader. */
   @Override
   public void close() throws IOException {
+    discardPrefetchedBlocks();
     vin.inputStream().close();
   }
 
+  /** The entries of a block decoded in parallel read mode. */
+  private static final class DecodedBlock<D> {
+    private final D[] entries;
+    private final int size;
+    private final long end;
+    private int index = 0;
+
+    DecodedBlock(D[] entries, int size, long end) {
+      this.entries = entries;
+      this.size = size;
+      this.end = end;
+    }
+
+    D next() {
+      D entry = entries[index];
+      entries[index++] = null; // let it be collected once handed out
+      return entry;
+    }
+  }
+
   static class DataBlock {
     private byte[] data;
+    // set instead of data when the block is not backed by an array, such as a
+    // slice of a memory-mapped file
+    private ByteBuffer buffer;
     private long numEntries;
     private int blockSize;
     private int offset = 0;
@@ -332,12 +564,23 @@ public class DataFileStream<D> implements Iterator<D>, Iterable<D>, Closeable {
     }
 
     DataBlock(ByteBuffer block, long numEntries) {
-      this.data = block.array();
-      this.blockSize = block.remaining();
-      this.offset = block.arrayOffset() + block.position();
+      setData(block);
       this.numEntries = numEntries;
     }
 
+    private void setData(ByteBuffer block) {
+      if (block.hasArray()) {
+        this.data = block.array();
+        this.offset = block.arrayOffset() + block.position();
+        this.buffer = null;
+      } else {
+        this.data = null;
+        this.offset = 0;
+        this.buffer = block;
+      }
+      this.blockSize = block.remaining();
+    }
+
     byte[] getData() {
       return data;
     }
@@ -359,25 +602,36 @@ public class DataFileStream<D> implements Iterator<D>, Iterable<D>, Closeable {
     }
 
     ByteBuffer getAsByteBuffer() {
+      if (buffer != null) {
+        return buffer.duplicate();
+      }
       return ByteBuffer.wrap(data, offset, blockSize);
     }
 
     void decompressUsing(Codec c) throws IOException {
-      ByteBuffer result = c.decompress(getAsByteBuffer());
-      data = result.array();
-      blockSize = result.remaining();
+      setData(c.decompress(getAsByteBuffer()));
     }
 
     void compressUsing(Codec c) throws IOException {
-      ByteBuffer result = c.compress(getAsByteBuffer());
-      data = result.array();
-      blockSize = result.remaining();
+      ByteBuffer uncompressed = getAsByteBuffer();
+      if (!uncompressed.hasArray()) {
+        // codecs compress from arrays
+        ByteBuffer copy = ByteBuffer.allocate(blockSize);
+        copy.put(uncompressed);
+        ((Buffer) copy).flip();
+        uncompressed = copy;
+      }
+      setData(c.compress(uncompressed));
     }
 
     void writeBlockTo(BinaryEncoder e, byte[] sync) throws IOException {
       e.writeLong(this.numEntries);
       e.writeLong(this.blockSize);
-      e.writeFixed(this.data, offset, this.blockSize);
+      if (buffer != null) {
+        e.writeFixed(buffer.duplicate());
+      } else {
+        e.writeFixed(this.data, offset, this.blockSize);
+      }
       e.writeFixed(sync);
       if (flushOnWrite) {
         e.flush();
@@ -12,19 +12,31 @@ import java.io.File;
 import java.io.FilterOutputStream;
 import java.io.Flushable;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Queue;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import org.apache.aingle.AIngleRuntimeException;
 import org.apache.aingle.Schema;
 import org.apache.aingle.file.DataFileStream.DataBlock;
+import org.apache.aingle.generic.GenericData;
 import org.apache.aingle.generic.GenericDatumReader;
+import org.apache.aingle.generic.GenericDatumWriter;
 import org.apache.aingle.io.BinaryEncoder;
 import org.apache.aingle.io.DatumWriter;
 import org.apache.aingle.io.EncoderFactory;
@@ -61,9 +73,24 @@ public class DataFileWriter<D> implements Closeable, Flushable {
 
   private boolean isOpen;
   private Codec codec;
+  private CodecFactory codecFactory;
 
   private boolean flushOnEveryBlock = true;
 
+  private String[] statisticsFields;
+  /** Collects the block index, if one is written. */
+  private BlockIndex.Collector index;
+  /** The position in the file of the start of the output. */
+  private long outputBase;
+
+  /** Executor used to compress blocks in pipelined mode. */
+  private ExecutorService compressionExecutor = null;
+  private int maxPendingBlocks;
+  /** Blocks handed to {@link #compressionExecutor}, in file order. */
+  private final ArrayDeque<Future<DataBlock>> pendingBlocks = new ArrayDeque<>();
+  /** Codecs are not thread safe, so worker threads borrow one from here. */
+  private final Queue<Codec> idleCodecs = new ConcurrentLinkedQueue<>();
+
   /** Construct a writer, not yet open. */
   public DataFileWriter(DatumWriter<D> dout) {
     this.dout = dout;
@@ -85,6 +112,7 @@ public class DataFileWriter<D> implements Closeable, Flushable {
    */
   public DataFileWriter<D> setCodec(CodecFactory c) {
     assertNotOpen();
+    this.codecFactory = c;
     this.codec = c.createInstance();
     setMetaInternal(DataFileConstants.CODEC, codec.getName());
     return this;
@@ -115,6 +143,87 @@ public class DataFileWriter<D> implements Closeable, Flushable {
     return this;
   }
 
+  /**
+   * Configures this writer to compress blocks asynchronously. Each full block is
+   * handed to <i>executor</i> to be compressed, while {@link #append(Object)}
+   * goes on filling the next one. Compressed blocks are written out in order by
+   * the appending thread. When <i>maxPendingBlocks</i> blocks are waiting to be
+   * compressed, appending blocks until the oldest one is written, which bounds
+   * the memory used by blocks in flight.
+   * <p/>
+   * {@link #sync()}, {@link #flush()}, {@link #fSync()} and {@link #close()}
+   * first wait for and write out every pending block, so they keep their meaning.
+   * An exception thrown while compressing a block is rethrown by the next call
+   * that writes blocks out. The executor is not shut down by this writer.
+   * <p/>
+   * May not be reset after writes have begun.
+   *
+   * @param executor         the executor to compress blocks with, or null to
+   *                         compress them on the appending thread.
+   * @param maxPendingBlocks the maximum number of blocks waiting to be written,
+   *                         at least 1.
+   * @return this DataFileWriter
+   */
+  public DataFileWriter<D> setCompressionExecutor(ExecutorService executor, int maxPendingBlocks) {
+    assertNotOpen();
+    if (executor != null && maxPendingBlocks < 1) {
+      throw new IllegalArgumentException("Invalid maxPendingBlocks value: " + maxPendingBlocks);
+    }
+    this.compressionExecutor = executor;
+    this.maxPendingBlocks = maxPendingBlocks;
+    return this;
+  }
+
+  /**
+   * Write an index of the blocks of the file after its last block, with the
+   * position and record count of each block and statistics of the given
+   * top-level fields: their minimum and maximum non-null value and their number
+   * of null values. Readers use them to skip blocks, see
+   * {@link DataFileReader#setBlockFilter(BlockFilter)}.
+   * <p/>
+   * Fields must be of a primitive type other than null, an enum or a fixed, or a
+   * union of null and one of those. Statistics are collected from the values
+   * returned by the data model of a {@link GenericDatumWriter} writer; blocks
+   * with records appended already encoded, or written by other writers, have no
+   * statistics.
+   * <p/>
+   * The index is only written when the file is closed, and is not read by
+   * implementations that don't know about it.
+   *
+   * @param fieldNames the fields to collect statistics for, possibly none.
+   * @return this writer
+   */
+  public DataFileWriter<D> setBlockStatistics(String... fieldNames) {
+    assertNotOpen();
+    for (String name : fieldNames) {
+      if (name.indexOf(',') >= 0) {
+        throw new IllegalArgumentException("Invalid field name: " + name);
+      }
+    }
+    this.statisticsFields = fieldNames.clone();
+    return this;
+  }
+
+  /**
+   * Set whether to write a block index when the file is closed: the position and
+   * record count of each block, which let readers count records and
+   * {@link DataFileReader#seekToRecord(long) move to a record} without reading
+   * the blocks. Enabled by {@link #setBlockStatistics(String...)}, which also
+   * adds statistics to the index; disabling it drops them.
+   *
+   * @param enabled whether to write the index.
+   * @return this writer
+   */
+  public DataFileWriter<D> setBlockIndex(boolean enabled) {
+    assertNotOpen();
+    if (!enabled) {
+      this.statisticsFields = null;
+    } else if (statisticsFields == null) {
+      this.statisticsFields = new String[0];
+    }
+    return this;
+  }
+
   /** Open a new file for data matching a schema with a random sync. */
   public DataFileWriter<D> create(Schema schema, File file) throws IOException {
     SyncableFileOutputStream sfos = new SyncableFileOutputStream(file);
@@ -137,6 +246,11 @@ public class DataFileWriter<D> implements Closeable, Flushable {
 
     this.schema = schema;
     setMetaInternal(DataFileConstants.SCHEMA, schema.toString());
+    if (statisticsFields != null) {
+      this.index = new BlockIndex.Collector(schema, String.join(",", statisticsFields), dataModel(), null);
+      setMetaInternal(DataFileConstants.INDEX, index.getFieldNames());
+    }
+    this.outputBase = 0;
     if (sync == null) {
       this.sync = generateSync();
     } else if (sync.length == 16) {
@@ -188,7 +302,7 @@ public class DataFileWriter<D> implements Closeable, Flushable {
   public DataFileWriter<D> appendTo(File file) throws IOException {
     try (SeekableInput input = new SeekableFileInput(file)) {
       OutputStream output = new SyncableFileOutputStream(file, true);
-      return appendTo(input, output);
+      return appendTo(input, output, file);
     }
     // output does not need to be closed here. It will be closed by invoking close()
     // of this writer.
@@ -202,18 +316,42 @@ public class DataFileWriter<D> implements Closeable, Flushable {
    * @param out positioned at the end of the existing file.
    */
   public DataFileWriter<D> appendTo(SeekableInput in, OutputStream out) throws IOException {
+    return appendTo(in, out, null);
+  }
+
+  /**
+   * Open a writer appending to <i>file</i>, or to the file read by <i>in</i> if
+   * null. The block index of the file, if any, is removed and rewritten on close,
+   * which requires the file.
+   */
+  private DataFileWriter<D> appendTo(SeekableInput in, OutputStream out, File file) throws IOException {
     assertNotOpen();
     DataFileReader<D> reader = new DataFileReader<>(in, new GenericDatumReader<>());
     this.schema = reader.getSchema();
     this.sync = reader.getHeader().sync;
     this.meta.putAll(reader.getHeader().meta);
+    BlockIndex existing = reader.getBlockIndex();
+    if (existing != null) {
+      if (file == null) {
+        throw new IOException("Cannot append to a file with a block index through a stream");
+      }
+      try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+        channel.truncate(existing.getOffset());
+      }
+      this.outputBase = existing.getOffset();
+    } else {
+      this.outputBase = in.length();
+    }
+    String indexFields = reader.getMetaString(DataFileConstants.INDEX);
+    this.index = indexFields == null ? null : new BlockIndex.Collector(schema, indexFields, dataModel(), existing);
     byte[] codecBytes = this.meta.get(DataFileConstants.CODEC);
     if (codecBytes != null) {
       String strCodec = new String(codecBytes, StandardCharsets.UTF_8);
-      this.codec = CodecFactory.fromString(strCodec).createInstance();
+      this.codecFactory = CodecFactory.fromString(strCodec);
     } else {
-      this.codec = CodecFactory.nullCodec().createInstance();
+      this.codecFactory = CodecFactory.nullCodec();
     }
+    this.codec = codecFactory.createInstance();
 
     init(out);
 
@@ -229,7 +367,8 @@ public class DataFileWriter<D> implements Closeable, Flushable {
     buffer = new NonCopyingByteArrayOutputStream(Math.min((int) (syncInterval * 1.25), Integer.MAX_VALUE / 2 - 1));
     this.bufOut = efactory.binaryEncoder(buffer, null);
     if (this.codec == null) {
-      this.codec = CodecFactory.nullCodec().createInstance();
+      this.codecFactory = CodecFactory.nullCodec();
+      this.codec = codecFactory.createInstance();
     }
     this.isOpen = true;
   }
@@ -298,6 +437,9 @@ public class DataFileWriter<D> implements Closeable, Flushable {
     int usedBuffer = bufferInUse();
     try {
       dout.write(datum, bufOut);
+      if (index != null) {
+        index.add(datum);
+      }
     } catch (IOException | RuntimeException e) {
       resetBufferTo(usedBuffer);
       throw new AppendWriteException(e);
@@ -324,6 +466,9 @@ public class DataFileWriter<D> implements Closeable, Flushable {
   public void appendEncoded(ByteBuffer datum) throws IOException {
     assertOpen();
     bufOut.writeFixed(datum);
+    if (index != null) {
+      index.addUnknown();
+    }
     blockCount++;
     writeIfBlockFull();
   }
@@ -365,33 +510,61 @@ public class DataFileWriter<D> implements Closeable, Flushable {
     }
     // flush anything written so far
     writeBlock();
+    writePendingBlocks(0);
     Codec otherCodec = otherFile.resolveCodec();
     DataBlock nextBlockRaw = null;
     if (codec.equals(otherCodec) && !recompress) {
       // copy raw bytes
       while (otherFile.hasNextBlock()) {
         nextBlockRaw = otherFile.nextRawBlock(nextBlockRaw);
-        nextBlockRaw.writeBlockTo(vout, sync);
+        writeCopiedBlock(nextBlockRaw);
       }
     } else {
       while (otherFile.hasNextBlock()) {
         nextBlockRaw = otherFile.nextRawBlock(nextBlockRaw);
         nextBlockRaw.decompressUsing(otherCodec);
         nextBlockRaw.compressUsing(codec);
-        nextBlockRaw.writeBlockTo(vout, sync);
+        writeCopiedBlock(nextBlockRaw);
       }
     }
   }
 
+  private void writeCopiedBlock(DataBlock block) throws IOException {
+    if (index != null) {
+      index.unknownBlock(block.getNumEntries());
+    }
+    writeBlockTo(block);
+  }
+
+  /** Write a block out, recording its position in the block index. */
+  private void writeBlockTo(DataBlock block) throws IOException {
+    if (index != null) {
+      index.blockWritten(outputBase + out.tell() + vout.bytesBuffered());
+    }
+    block.writeBlockTo(vout, sync);
+  }
+
   private void writeBlock() throws IOException {
     if (blockCount > 0) {
       try {
+        if (index != null) {
+          index.finishBlock(blockCount);
+        }
         bufOut.flush();
         ByteBuffer uncompressed = buffer.getByteArrayAsByteBuffer();
-        DataBlock block = new DataBlock(uncompressed, blockCount);
-        block.setFlushOnWrite(flushOnEveryBlock);
-        block.compressUsing(codec);
-        block.writeBlockTo(vout, sync);
+        if (compressionExecutor != null) {
+          // the buffer is reused for the next block, so hand over a copy
+          final DataBlock block = new DataBlock(ByteBuffer.wrap(Arrays.copyOf(uncompressed.array(), buffer.size())),
+              blockCount);
+          block.setFlushOnWrite(flushOnEveryBlock);
+          pendingBlocks.add(compressionExecutor.submit(() -> compressBlock(block)));
+          writePendingBlocks(maxPendingBlocks - 1);
+        } else {
+          DataBlock block = new DataBlock(uncompressed, blockCount);
+          block.setFlushOnWrite(flushOnEveryBlock);
+          block.compressUsing(codec);
+          writeBlockTo(block);
+        }
       } finally {
         buffer.reset();
         blockCount = 0;
@@ -399,6 +572,52 @@ public class DataFileWriter<D> implements Closeable, Flushable {
     }
   }
 
+  /** Compress a block. Runs on {@link #compressionExecutor}. */
+  private DataBlock compressBlock(DataBlock block) throws IOException {
+    Codec c = idleCodecs.poll();
+    if (c == null) {
+      c = codecFactory.createInstance();
+    }
+    try {
+      block.compressUsing(c);
+    } finally {
+      idleCodecs.offer(c);
+    }
+    return block;
+  }
+
+  /**
+   * Write out compressed blocks, in order, until at most <i>maxPending</i> are
+   * left. Blocks that are already compressed are written out as well.
+   */
+  private void writePendingBlocks(int maxPending) throws IOException {
+    try {
+      Future<DataBlock> head;
+      while ((head = pendingBlocks.peek()) != null && (pendingBlocks.size() > maxPending || head.isDone())) {
+        DataBlock block = head.get();
+        pendingBlocks.poll();
+        writeBlockTo(block);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for a block to be compressed");
+    } catch (ExecutionException e) {
+      discardPendingBlocks();
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      throw new AIngleRuntimeException(cause);
+    }
+  }
+
+  private void discardPendingBlocks() {
+    for (Future<DataBlock> pending : pendingBlocks) {
+      pending.cancel(true);
+    }
+    pendingBlocks.clear();
+  }
+
   /**
    * Return the current position as a value that may be passed to
    * {@link DataFileReader#seek(long)}. Forces the end of the current block,
@@ -412,6 +631,7 @@ public class DataFileWriter<D> implements Closeable, Flushable {
   public long sync() throws IOException {
     assertOpen();
     writeBlock();
+    writePendingBlocks(0);
     return out.tell();
   }
 
@@ -443,12 +663,35 @@ public class DataFileWriter<D> implements Closeable, Flushable {
   @Override
   public void close() throws IOException {
     if (isOpen) {
-      flush();
+      try {
+        flush();
+      } finally {
+        discardPendingBlocks();
+      }
+      if (index != null) {
+        writeIndex();
+      }
       out.close();
       isOpen = false;
     }
   }
 
+  /** Write the block index and the footer locating it, see {@link BlockIndex}. */
+  private void writeIndex() throws IOException {
+    long position = outputBase + out.tell() + vout.bytesBuffered();
+    DataBlock block = new DataBlock(index.encode(), 0);
+    block.compressUsing(codec);
+    block.writeBlockTo(vout, sync);
+    vout.writeFixed(ByteBuffer.allocate(8).putLong(position).array());
+    vout.writeFixed(BlockIndex.MAGIC);
+    vout.flush();
+  }
+
+  @SuppressWarnings("unchecked")
+  private GenericData dataModel() {
+    return dout instanceof GenericDatumWriter ? ((GenericDatumWriter<D>) dout).getData() : null;
+  }
+
   private class BufferedFileOutputStream extends BufferedOutputStream {
     private long position; // start of buffer
 
@@ -64,7 +64,7 @@ public class DeflateCodec extends Codec {
   public ByteBuffer decompress(ByteBuffer data) throws IOException {
     ByteArrayOutputStream baos = getOutputBuffer(data.remaining());
     try (OutputStream outputStream = new InflaterOutputStream(baos, getInflater())) {
-      outputStream.write(data.array(), computeOffset(data), data.remaining());
+      writeTo(data, outputStream);
     }
     return ByteBuffer.wrap(baos.toByteArray());
   }
@@ -0,0 +1,144 @@
+/*
+
+ */
+package org.apache.aingle.file;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A {@link SeekableInput} that memory-maps a file. Besides the usual
+ * {@link #read(byte[], int, int)}, it can return a {@link ByteBuffer} view of a
+ * range of the file with {@link #slice(long, int)}, which
+ * {@link DataFileReader} uses to hand blocks to the codec without copying them.
+ * <p/>
+ * Since a single mapping is limited to 2GB, larger files are mapped in chunks.
+ * Consecutive chunks overlap, so that a range no larger than the overlap never
+ * spans two chunks; only larger ranges that cross a chunk boundary are copied.
+ * <p/>
+ * The mappings are released when they are garbage collected, not when this
+ * input is closed.
+ */
+public class MappedSeekableInput implements SeekableInput {
+  static final int DEFAULT_CHUNK_SIZE = 1 << 30;
+  static final int DEFAULT_CHUNK_OVERLAP = 1 << 26;
+
+  private final FileChannel channel;
+  private final long length;
+  private final long chunkSize;
+  private final MappedByteBuffer[] chunks;
+  private long position = 0;
+
+  public MappedSeekableInput(File file) throws IOException {
+    this(FileChannel.open(file.toPath(), StandardOpenOption.READ), DEFAULT_CHUNK_SIZE, DEFAULT_CHUNK_OVERLAP);
+  }
+
+  /**
+   * Map a file opened for reading. The channel is closed by {@link #close()}.
+   */
+  public MappedSeekableInput(FileChannel channel) throws IOException {
+    this(channel, DEFAULT_CHUNK_SIZE, DEFAULT_CHUNK_OVERLAP);
+  }
+
+  MappedSeekableInput(FileChannel channel, int chunkSize, int chunkOverlap) throws IOException {
+    if (chunkSize < 1 || chunkOverlap < 0 || (long) chunkSize + chunkOverlap > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Invalid chunk size " + chunkSize + " and overlap " + chunkOverlap);
+    }
+    this.channel = channel;
+    this.length = channel.size();
+    this.chunkSize = chunkSize;
+    this.chunks = new MappedByteBuffer[(int) ((length + chunkSize - 1) / chunkSize)];
+    try {
+      for (int i = 0; i < chunks.length; i++) {
+        long start = i * this.chunkSize;
+        long size = Math.min(this.chunkSize + chunkOverlap, length - start);
+        chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+      }
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  @Override
+  public void seek(long p) throws IOException {
+    if (p < 0 || p > length)
+      throw new IOException("Illegal seek: " + p);
+    position = p;
+  }
+
+  @Override
+  public long tell() throws IOException {
+    return position;
+  }
+
+  @Override
+  public long length() throws IOException {
+    return length;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (len == 0)
+      return 0;
+    if (position >= length)
+      return -1;
+    int read = (int) Math.min(len, length - position);
+    for (int done = 0; done < read;) {
+      ByteBuffer chunk = chunkAt(position);
+      int n = Math.min(read - done, chunk.remaining());
+      chunk.get(b, off + done, n);
+      done += n;
+      position += n;
+    }
+    return read;
+  }
+
+  /**
+   * Return a view of <i>len</i> bytes of the file starting at <i>p</i>. The view
+   * shares the mapping unless the range crosses a chunk boundary, in which case
+   * it is a copy. The current position is not changed.
+   *
+   * @throws EOFException if the range extends past the end of the file.
+   */
+  public ByteBuffer slice(long p, int len) throws IOException {
+    if (p < 0 || len < 0)
+      throw new IOException("Illegal range: " + p + ", " + len);
+    if (p + len > length)
+      throw new EOFException("Range " + p + ", " + len + " ends past " + length);
+    if (len == 0)
+      return ByteBuffer.allocate(0);
+    ByteBuffer chunk = chunkAt(p);
+    if (chunk.remaining() >= len) {
+      ((Buffer) chunk).limit(chunk.position() + len);
+      return chunk.slice();
+    }
+    ByteBuffer copy = ByteBuffer.allocate(len);
+    while (copy.hasRemaining()) {
+      chunk = chunkAt(p + copy.position());
+      ((Buffer) chunk).limit(chunk.position() + Math.min(chunk.remaining(), copy.remaining()));
+      copy.put(chunk);
+    }
+    ((Buffer) copy).flip();
+    return copy;
+  }
+
+  /** A view of the chunk containing <i>p</i>, positioned at <i>p</i>. */
+  private ByteBuffer chunkAt(long p) {
+    int index = (int) (p / chunkSize);
+    ByteBuffer chunk = chunks[index].duplicate();
+    ((Buffer) chunk).position((int) (p - index * chunkSize));
+    return chunk;
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+}
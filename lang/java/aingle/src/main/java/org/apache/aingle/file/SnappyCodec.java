@@ -51,6 +51,12 @@ public class SnappyCodec extends Codec {
 
   @Override
   public ByteBuffer decompress(ByteBuffer in) throws IOException {
+    if (!in.hasArray()) {
+      ByteBuffer copy = ByteBuffer.allocate(in.remaining());
+      copy.put(in.duplicate());
+      ((Buffer) copy).flip();
+      in = copy;
+    }
     int offset = computeOffset(in);
     ByteBuffer out = ByteBuffer.allocate(Snappy.uncompressedLength(in.array(), offset, in.remaining() - 4));
     int size = Snappy.uncompress(in.array(), offset, in.remaining() - 4, out.array(), 0);
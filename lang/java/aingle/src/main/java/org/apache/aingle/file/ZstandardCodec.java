@@ -3,7 +3,6 @@
  */
 package org.apache.aingle.file;
 
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -65,8 +64,7 @@ public class ZstandardCodec extends Codec {
   @Override
   public ByteBuffer decompress(ByteBuffer compressedData) throws IOException {
     ByteArrayOutputStream baos = getOutputBuffer(compressedData.remaining());
-    InputStream bytesIn = new ByteArrayInputStream(compressedData.array(), computeOffset(compressedData),
-        compressedData.remaining());
+    InputStream bytesIn = asInputStream(compressedData);
     try (InputStream ios = ZstandardLoader.input(bytesIn, useBufferPool)) {
       IOUtils.copy(ios, baos);
     }
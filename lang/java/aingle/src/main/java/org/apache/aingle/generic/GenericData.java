@@ -10,6 +10,8 @@ import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.time.temporal.Temporal;
 import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
@@ -1073,6 +1075,13 @@ public class GenericData {
       for (Object e : a)
         hashCode = hashCodeAdd(hashCode, e, elementType);
       return hashCode;
+    case MAP:
+      // like Map#hashCode(), but with the hash codes of the schema
+      Schema valueType = s.getValueType();
+      hashCode = 0;
+      for (Map.Entry<?, ?> e : ((Map<?, ?>) o).entrySet())
+        hashCode += hashCode(e.getKey(), STRINGS) ^ hashCode(e.getValue(), valueType);
+      return hashCode;
     case UNION:
       return hashCode(o, s.getTypes().get(resolveUnion(s, o)));
     case ENUM:
@@ -1137,7 +1146,7 @@ public class GenericData {
     case MAP:
       if (equals)
         return o1.equals(o2) ? 0 : 1;
-      throw new AIngleRuntimeException("Can't compare maps!");
+      return compareMaps((Map) o1, (Map) o2, s.getValueType());
     case UNION:
       int i1 = resolveUnion(s, o1);
       int i2 = resolveUnion(s, o2);
@@ -1153,6 +1162,34 @@ public class GenericData {
     }
   }
 
+  /**
+   * Compare maps as their entries sorted by key: key by key, then value by value,
+   * then by their number of entries.
+   */
+  private int compareMaps(Map<Object, Object> m1, Map<Object, Object> m2, Schema valueType) {
+    List<Map.Entry<Utf8, Object>> e1 = sortedEntries(m1);
+    List<Map.Entry<Utf8, Object>> e2 = sortedEntries(m2);
+    for (int i = 0; i < e1.size() && i < e2.size(); i++) {
+      int compare = e1.get(i).getKey().compareTo(e2.get(i).getKey());
+      if (compare == 0)
+        compare = compare(e1.get(i).getValue(), e2.get(i).getValue(), valueType, false);
+      if (compare != 0)
+        return compare;
+    }
+    return Integer.compare(e1.size(), e2.size());
+  }
+
+  private static List<Map.Entry<Utf8, Object>> sortedEntries(Map<Object, Object> map) {
+    List<Map.Entry<Utf8, Object>> entries = new ArrayList<>(map.size());
+    for (Map.Entry<Object, Object> e : map.entrySet()) {
+      Object key = e.getKey();
+      entries.add(new AbstractMap.SimpleImmutableEntry<>(key instanceof Utf8 ? (Utf8) key : new Utf8(key.toString()),
+          e.getValue()));
+    }
+    entries.sort(Map.Entry.comparingByKey());
+    return entries;
+  }
+
   private final Map<Field, Object> defaultValueCache = Collections.synchronizedMap(new WeakHashMap<>());
 
   /**
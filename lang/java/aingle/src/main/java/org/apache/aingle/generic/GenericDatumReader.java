@@ -10,6 +10,7 @@ import java.lang.reflect.InvocationTargetException;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 import org.apache.aingle.AIngleRuntimeException;
@@ -21,9 +22,9 @@ import org.apache.aingle.Schema.Field;
 import org.apache.aingle.io.DatumReader;
 import org.apache.aingle.io.Decoder;
 import org.apache.aingle.io.DecoderFactory;
+import org.apache.aingle.io.ResolverCache;
 import org.apache.aingle.io.ResolvingDecoder;
 import org.apache.aingle.util.Utf8;
-import org.apache.aingle.util.WeakIdentityHashMap;
 
 /** {@link DatumReader} for generic Java objects. */
 public class GenericDatumReader<D> implements DatumReader<D> {
@@ -33,6 +34,7 @@ public class GenericDatumReader<D> implements DatumReader<D> {
   private DatumReader<D> fastDatumReader = null;
 
   private ResolvingDecoder creatorResolver = null;
+  private volatile Object sharedResolver = null;
   private final Thread creator;
 
   public GenericDatumReader() {
@@ -77,6 +79,7 @@ public class GenericDatumReader<D> implements DatumReader<D> {
       expected = actual;
     }
     creatorResolver = null;
+    sharedResolver = null;
     fastDatumReader = null;
   }
 
@@ -89,32 +92,52 @@ public class GenericDatumReader<D> implements DatumReader<D> {
   public void setExpected(Schema reader) {
     this.expected = reader;
     creatorResolver = null;
+    sharedResolver = null;
   }
 
-  private static final ThreadLocal<Map<Schema, Map<Schema, ResolvingDecoder>>> RESOLVER_CACHE = ThreadLocal
-      .withInitial(WeakIdentityHashMap::new);
+  private static final int MAX_THREAD_RESOLVERS = 64;
+
+  /**
+   * Each thread's decoders over the resolvers of {@link ResolverCache}, keyed by
+   * resolver. Decoders are cheap to create, so only the most recently used ones
+   * are kept.
+   */
+  private static final ThreadLocal<Map<Object, ResolvingDecoder>> THREAD_RESOLVERS = ThreadLocal
+      .withInitial(() -> new LinkedHashMap<Object, ResolvingDecoder>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Object, ResolvingDecoder> eldest) {
+          return size() > MAX_THREAD_RESOLVERS;
+        }
+      });
 
   /**
    * Gets a resolving decoder for use by this GenericDatumReader. Unstable API.
-   * Currently uses a thread local cache to prevent constructing the resolvers too
-   * often, because that is very expensive.
+   * The resolver of the schemas is shared by all threads through
+   * {@link ResolverCache#get()}, and each thread reads with a decoder of its own
+   * over it.
    */
   protected final ResolvingDecoder getResolver(Schema actual, Schema expected) throws IOException {
     Thread currThread = Thread.currentThread();
-    ResolvingDecoder resolver;
     if (currThread == creator && creatorResolver != null) {
       return creatorResolver;
     }
 
-    Map<Schema, ResolvingDecoder> cache = RESOLVER_CACHE.get().get(actual);
-    if (cache == null) {
-      cache = new WeakIdentityHashMap<>();
-      RESOLVER_CACHE.get().put(actual, cache);
+    Object shared;
+    if (actual == this.actual && expected == this.expected) {
+      shared = sharedResolver;
+      if (shared == null) {
+        shared = ResolverCache.get().getResolver(actual, expected);
+        sharedResolver = shared;
+      }
+    } else {
+      shared = ResolverCache.get().getResolver(actual, expected);
     }
-    resolver = cache.get(expected);
+
+    Map<Object, ResolvingDecoder> cache = THREAD_RESOLVERS.get();
+    ResolvingDecoder resolver = cache.get(shared);
     if (resolver == null) {
-      resolver = DecoderFactory.get().resolvingDecoder(Schema.applyAliases(actual, expected), expected, null);
-      cache.put(expected, resolver);
+      resolver = DecoderFactory.get().resolvingDecoder(shared, null);
+      cache.put(shared, resolver);
     }
 
     if (currThread == creator) {
@@ -0,0 +1,66 @@
+/*
+
+ */
+package org.apache.aingle.io;
+
+import java.io.IOException;
+
+import org.apache.aingle.AIngleRuntimeException;
+import org.apache.aingle.Schema;
+
+/**
+ * Reads binary-encoded records into a {@link RecordBatch}, decoding the
+ * selected fields straight into its column arrays instead of building one
+ * object per record. Each run of remaining fields is skipped at once, see
+ * {@link BinarySkipper}.
+ * <p/>
+ * Records are read with the schema they were written with: no schema
+ * resolution is performed. To read a container file, use
+ * {@link org.apache.aingle.file.DataFileStream#nextBatch(BatchDatumReader, RecordBatch)}.
+ * <p/>
+ * Instances may be shared, but a batch may only be read into by one thread at a
+ * time.
+ */
+public class BatchDatumReader {
+  private final Schema schema;
+
+  /**
+   * @param schema the record schema the data was written with.
+   */
+  public BatchDatumReader(Schema schema) {
+    if (schema.getType() != Schema.Type.RECORD)
+      throw new AIngleRuntimeException("Not a record schema: " + schema);
+    this.schema = schema;
+  }
+
+  /** The record schema the data is read with. */
+  public Schema getSchema() {
+    return schema;
+  }
+
+  /** Create a batch of the given capacity for the named fields, or all fields. */
+  public RecordBatch createBatch(int capacity, String... fieldNames) {
+    return new RecordBatch(schema, capacity, fieldNames);
+  }
+
+  /**
+   * Read up to <i>max</i> records, and no more than the capacity of
+   * <i>batch</i>, replacing its previous content. The caller must make sure that
+   * the input holds at least as many records, for instance by reading no more
+   * than the count of a container file block.
+   *
+   * @return the number of records read, also available as
+   *         {@link RecordBatch#size()}.
+   * @throws AIngleRuntimeException if the batch is for another schema.
+   */
+  public int readBatch(BinaryDecoder in, RecordBatch batch, int max) throws IOException {
+    if (batch.getSchema() != schema && !batch.getSchema().equals(schema))
+      throw new AIngleRuntimeException("Batch schema does not match: " + batch.getSchema());
+    int count = Math.min(max, batch.capacity());
+    batch.clear();
+    for (int row = 0; row < count; row++) {
+      batch.read(in, row);
+    }
+    return count;
+  }
+}
@@ -0,0 +1,706 @@
+/*
+
+ */
+package org.apache.aingle.io;
+
+import java.io.EOFException;
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.aingle.AIngleRuntimeException;
+import org.apache.aingle.Schema;
+import org.apache.aingle.Schema.Field;
+import org.apache.aingle.util.WeakIdentityHashMap;
+
+/**
+ * Compares and hashes binary-encoded data of a schema without decoding it.
+ * Order is consistent with that of
+ * {@link org.apache.aingle.generic.GenericData#compare(Object, Object, Schema)}
+ * and hash codes with those of
+ * {@link org.apache.aingle.generic.GenericData#hashCode(Object, Schema)}.
+ *
+ * <p>
+ * A schema is compiled once into a tree of steps that read the bytes directly,
+ * with the encoded size of fixed-size types precomputed so that they, and
+ * ignored fields of such types, are skipped without being read. Comparisons and
+ * hashes of a thread do not allocate, except to grow the space used to sort
+ * the entries of maps.
+ *
+ * <p>
+ * Maps, whose entries are unordered, compare as their entries sorted by key:
+ * key by key, then value by value, then by their number of entries.
+ *
+ * <p>
+ * Instances are immutable and thread-safe. They are cached by schema, and hold
+ * their schema weakly, so that they do not keep it from being collected.
+ *
+ * @see BinaryData#compare(byte[], int, int, byte[], int, int, Schema)
+ * @see BinaryData#hashCode(byte[], int, int, Schema)
+ */
+public final class BinaryComparator {
+  private static final Map<Schema, BinaryComparator> CACHE = Collections.synchronizedMap(new WeakIdentityHashMap<>());
+
+  private static final ThreadLocal<Inputs> INPUTS = ThreadLocal.withInitial(Inputs::new);
+
+  private final WeakReference<Schema> schema;
+  private final Node root;
+
+  private BinaryComparator(Schema schema) {
+    this.schema = new WeakReference<>(schema);
+    this.root = compile(schema, new IdentityHashMap<>());
+  }
+
+  /** Return the comparator for data of a schema. */
+  public static BinaryComparator get(Schema schema) {
+    Inputs inputs = INPUTS.get();
+    BinaryComparator comparator = inputs.comparator;
+    if (comparator == null || comparator.schema.get() != schema) { // not the last used by this thread
+      comparator = CACHE.computeIfAbsent(schema, BinaryComparator::new);
+      inputs.comparator = comparator;
+    }
+    return comparator;
+  }
+
+  /**
+   * Return the schema of the data compared, or null if it is no longer
+   * referenced elsewhere and has been collected.
+   */
+  public Schema getSchema() {
+    return schema.get();
+  }
+
+  /**
+   * Compare binary encoded data. If equal, return zero. If greater-than, return
+   * a positive value, if less than return a negative value.
+   */
+  public int compare(byte[] b1, int s1, int l1, byte[] b2, int s2, int l2) {
+    Inputs inputs = INPUTS.get();
+    Input a = inputs.a.set(b1, s1, l1);
+    Input b = inputs.b.set(b2, s2, l2);
+    try {
+      return root.compare(a, b);
+    } finally {
+      a.clear();
+      b.clear();
+    }
+  }
+
+  /** Hash binary encoded data. */
+  public int hashCode(byte[] bytes, int start, int length) {
+    Input in = INPUTS.get().a.set(bytes, start, length);
+    try {
+      return root.hash(in);
+    } finally {
+      in.clear();
+    }
+  }
+
+  private static final class Inputs {
+    private final Input a = new Input();
+    private final Input b = new Input();
+    private BinaryComparator comparator; // the last used by this thread
+  }
+
+  /** A position in binary encoded data, with space to sort map entries. */
+  private static final class Input {
+    private static final long[] EMPTY = new long[0];
+
+    private byte[] buf;
+    private int pos;
+    private int limit;
+    private long[][] entries = new long[0][];
+    private int depth; // of maps being compared
+
+    Input set(byte[] buf, int start, int length) {
+      this.buf = buf;
+      this.pos = start;
+      this.limit = start + length;
+      this.depth = 0;
+      return this;
+    }
+
+    void clear() {
+      this.buf = null;
+    }
+
+    long readLong() {
+      long n = 0;
+      int shift = 0;
+      int b;
+      do {
+        if (pos >= limit) {
+          throw new AIngleRuntimeException(new EOFException());
+        }
+        if (shift > 63) {
+          throw new AIngleRuntimeException("Invalid long encoding");
+        }
+        b = buf[pos++];
+        n |= (long) (b & 0x7F) << shift;
+        shift += 7;
+      } while (b < 0);
+      return (n >>> 1) ^ -(n & 1); // back to two's-complement
+    }
+
+    int readInt() {
+      return (int) readLong();
+    }
+
+    int readLength() {
+      long length = readLong();
+      if (length < 0) {
+        throw new AIngleRuntimeException("Malformed data. Length is negative: " + length);
+      }
+      if (length > limit - pos) {
+        throw new AIngleRuntimeException(new EOFException());
+      }
+      return (int) length;
+    }
+
+    /** Read the count of a block of an array or map, skipping its size. */
+    long readCount() {
+      long count = readLong();
+      if (count < 0) {
+        readLong();
+        return -count;
+      }
+      return count;
+    }
+
+    int readFixed32() {
+      skip(4);
+      return (buf[pos - 4] & 0xFF) | (buf[pos - 3] & 0xFF) << 8 | (buf[pos - 2] & 0xFF) << 16 | buf[pos - 1] << 24;
+    }
+
+    void skip(long n) {
+      if (n > limit - pos) {
+        throw new AIngleRuntimeException(new EOFException());
+      }
+      pos += (int) n;
+    }
+
+    long[] entries(int depth, int size) {
+      if (depth >= entries.length) {
+        long[][] grown = new long[depth + 1][];
+        System.arraycopy(entries, 0, grown, 0, entries.length);
+        for (int i = entries.length; i < grown.length; i++) {
+          grown[i] = EMPTY;
+        }
+        entries = grown;
+      }
+      if (entries[depth].length < size) {
+        long[] grown = new long[Math.max(size, entries[depth].length * 2)];
+        System.arraycopy(entries[depth], 0, grown, 0, entries[depth].length);
+        entries[depth] = grown;
+      }
+      return entries[depth];
+    }
+  }
+
+  private static Node compile(Schema schema, Map<Schema, RecordNode> records) {
+    switch (schema.getType()) {
+    case RECORD: {
+      RecordNode node = records.get(schema);
+      if (node == null) {
+        node = new RecordNode();
+        records.put(schema, node);
+        List<Field> fields = schema.getFields();
+        node.fields = new Node[fields.size()];
+        node.orders = new Field.Order[fields.size()];
+        int size = 0;
+        for (int i = 0; i < node.fields.length; i++) {
+          Node field = compile(fields.get(i).schema(), records);
+          node.fields[i] = field;
+          node.orders[i] = fields.get(i).order();
+          size = (size < 0 || field.size < 0) ? -1 : size + field.size;
+        }
+        node.size = size;
+      }
+      return node;
+    }
+    case ENUM:
+    case INT:
+    case LONG:
+      return new LongNode(schema.getType() == Schema.Type.LONG);
+    case FLOAT:
+      return new FloatNode();
+    case DOUBLE:
+      return new DoubleNode();
+    case BOOLEAN:
+      return new BooleanNode();
+    case ARRAY:
+      return new ArrayNode(compile(schema.getElementType(), records));
+    case MAP:
+      return new MapNode(compile(schema.getValueType(), records));
+    case UNION: {
+      List<Schema> types = schema.getTypes();
+      Node[] branches = new Node[types.size()];
+      for (int i = 0; i < branches.length; i++) {
+        branches[i] = compile(types.get(i), records);
+      }
+      return new UnionNode(branches);
+    }
+    case FIXED:
+      return new FixedNode(schema.getFixedSize());
+    case STRING:
+      return new BytesNode(0, false);
+    case BYTES:
+      return new BytesNode(1, true);
+    case NULL:
+      return new NullNode();
+    default:
+      throw new AIngleRuntimeException("Unexpected schema to compare: " + schema);
+    }
+  }
+
+  /** A step of a comparison plan: the comparison of the data of a schema. */
+  private abstract static class Node {
+    int size = -1; // the encoded size of every value, or -1 if they differ
+
+    abstract int compare(Input a, Input b);
+
+    abstract int hash(Input in);
+
+    void skip(Input in) {
+      in.skip(size);
+    }
+  }
+
+  private static final class NullNode extends Node {
+    NullNode() {
+      size = 0;
+    }
+
+    @Override
+    int compare(Input a, Input b) {
+      return 0;
+    }
+
+    @Override
+    int hash(Input in) {
+      return 0;
+    }
+  }
+
+  private static final class BooleanNode extends Node {
+    BooleanNode() {
+      size = 1;
+    }
+
+    @Override
+    int compare(Input a, Input b) {
+      a.skip(1);
+      b.skip(1);
+      return Boolean.compare(a.buf[a.pos - 1] != 0, b.buf[b.pos - 1] != 0);
+    }
+
+    @Override
+    int hash(Input in) {
+      in.skip(1);
+      return Boolean.hashCode(in.buf[in.pos - 1] != 0);
+    }
+  }
+
+  /** Int, long and enum values, all encoded as variable-length longs. */
+  private static final class LongNode extends Node {
+    private final boolean isLong;
+
+    LongNode(boolean isLong) {
+      this.isLong = isLong;
+    }
+
+    @Override
+    int compare(Input a, Input b) {
+      return Long.compare(a.readLong(), b.readLong());
+    }
+
+    @Override
+    int hash(Input in) {
+      return isLong ? Long.hashCode(in.readLong()) : in.readInt();
+    }
+
+    @Override
+    void skip(Input in) {
+      do {
+        in.skip(1);
+      } while (in.buf[in.pos - 1] < 0);
+    }
+  }
+
+  private static final class FloatNode extends Node {
+    FloatNode() {
+      size = 4;
+    }
+
+    @Override
+    int compare(Input a, Input b) {
+      return Float.compare(Float.intBitsToFloat(a.readFixed32()), Float.intBitsToFloat(b.readFixed32()));
+    }
+
+    @Override
+    int hash(Input in) {
+      return Float.hashCode(Float.intBitsToFloat(in.readFixed32()));
+    }
+  }
+
+  private static final class DoubleNode extends Node {
+    DoubleNode() {
+      size = 8;
+    }
+
+    @Override
+    int compare(Input a, Input b) {
+      return Double.compare(readDouble(a), readDouble(b));
+    }
+
+    @Override
+    int hash(Input in) {
+      return Double.hashCode(readDouble(in));
+    }
+
+    private static double readDouble(Input in) {
+      long low = in.readFixed32() & 0xFFFFFFFFL;
+      return Double.longBitsToDouble(low | (long) in.readFixed32() << 32);
+    }
+  }
+
+  /** Strings and bytes: a length followed by that many bytes. */
+  private static final class BytesNode extends Node {
+    private final int hashInit;
+    private final boolean hashReversed;
+
+    BytesNode(int hashInit, boolean hashReversed) {
+      this.hashInit = hashInit;
+      this.hashReversed = hashReversed;
+    }
+
+    @Override
+    int compare(Input a, Input b) {
+      int l1 = a.readLength();
+      int l2 = b.readLength();
+      int c = BinaryData.compareBytes(a.buf, a.pos, l1, b.buf, b.pos, l2);
+      a.pos += l1;
+      b.pos += l2;
+      return c;
+    }
+
+    @Override
+    int hash(Input in) {
+      int length = in.readLength();
+      int hash = hashBytes(hashInit, in.buf, in.pos, length, hashReversed);
+      in.pos += length;
+      return hash;
+    }
+
+    @Override
+    void skip(Input in) {
+      in.skip(in.readLength());
+    }
+  }
+
+  private static final class FixedNode extends Node {
+    FixedNode(int size) {
+      this.size = size;
+    }
+
+    @Override
+    int compare(Input a, Input b) {
+      a.skip(size);
+      b.skip(size);
+      return BinaryData.compareBytes(a.buf, a.pos - size, size, b.buf, b.pos - size, size);
+    }
+
+    @Override
+    int hash(Input in) {
+      in.skip(size);
+      return hashBytes(1, in.buf, in.pos - size, size, false);
+    }
+  }
+
+  private static final class UnionNode extends Node {
+    private final Node[] branches;
+
+    UnionNode(Node[] branches) {
+      this.branches = branches;
+    }
+
+    @Override
+    int compare(Input a, Input b) {
+      int i1 = a.readInt();
+      int i2 = b.readInt();
+      int c = Integer.compare(i1, i2);
+      return c == 0 ? branches[i1].compare(a, b) : c;
+    }
+
+    @Override
+    int hash(Input in) {
+      return branches[in.readInt()].hash(in);
+    }
+
+    @Override
+    void skip(Input in) {
+      branches[in.readInt()].skip(in);
+    }
+  }
+
+  private static final class RecordNode extends Node {
+    private Node[] fields;
+    private Field.Order[] orders;
+
+    @Override
+    int compare(Input a, Input b) {
+      for (int i = 0; i < fields.length; i++) {
+        Node field = fields[i];
+        if (orders[i] == Field.Order.IGNORE) {
+          field.skip(a);
+          field.skip(b);
+          continue;
+        }
+        int c = field.compare(a, b);
+        if (c != 0) {
+          return (orders[i] != Field.Order.DESCENDING) ? c : -c;
+        }
+      }
+      return 0;
+    }
+
+    @Override
+    int hash(Input in) {
+      int hashCode = 1;
+      for (int i = 0; i < fields.length; i++) {
+        if (orders[i] == Field.Order.IGNORE) {
+          fields[i].skip(in);
+          continue;
+        }
+        hashCode = hashCode * 31 + fields[i].hash(in);
+      }
+      return hashCode;
+    }
+
+    @Override
+    void skip(Input in) {
+      if (size >= 0) {
+        in.skip(size);
+        return;
+      }
+      for (Node field : fields) {
+        field.skip(in);
+      }
+    }
+  }
+
+  private static final class ArrayNode extends Node {
+    private final Node element;
+
+    ArrayNode(Node element) {
+      this.element = element;
+    }
+
+    @Override
+    int compare(Input a, Input b) {
+      long r1 = 0, r2 = 0; // remaining in current block
+      while (true) {
+        if (r1 == 0) {
+          r1 = a.readCount();
+        }
+        if (r2 == 0) {
+          r2 = b.readCount();
+        }
+        if (r1 == 0 || r2 == 0) { // the end of either: the shorter is less
+          return Boolean.compare(r1 != 0, r2 != 0);
+        }
+        long n = Math.min(r1, r2);
+        for (long i = 0; i < n; i++) {
+          int c = element.compare(a, b);
+          if (c != 0) {
+            return c;
+          }
+        }
+        r1 -= n;
+        r2 -= n;
+      }
+    }
+
+    @Override
+    int hash(Input in) {
+      int hashCode = 1;
+      for (long n = in.readCount(); n != 0; n = in.readCount()) {
+        for (long i = 0; i < n; i++) {
+          hashCode = hashCode * 31 + element.hash(in);
+        }
+      }
+      return hashCode;
+    }
+
+    @Override
+    void skip(Input in) {
+      for (long count; (count = skipBlock(in, element.size)) >= 0;) {
+        for (long i = 0; i < count; i++) {
+          element.skip(in);
+        }
+      }
+    }
+  }
+
+  private static final class MapNode extends Node {
+    private final Node value;
+
+    MapNode(Node value) {
+      this.value = value;
+    }
+
+    @Override
+    int compare(Input a, Input b) {
+      int depth = a.depth;
+      int n1 = sortEntries(a, depth);
+      int end1 = a.pos;
+      int n2 = sortEntries(b, depth);
+      int end2 = b.pos;
+      long[] e1 = a.entries[depth];
+      long[] e2 = b.entries[depth];
+      a.depth = b.depth = depth + 1;
+      int c = 0;
+      for (int i = 0; i < Math.min(n1, n2) && c == 0; i++) {
+        int k1 = keyStart(e1[i]), k2 = keyStart(e2[i]);
+        int l1 = keyLength(e1[i]), l2 = keyLength(e2[i]);
+        c = BinaryData.compareBytes(a.buf, k1, l1, b.buf, k2, l2);
+        if (c == 0) {
+          a.pos = k1 + l1;
+          b.pos = k2 + l2;
+          c = value.compare(a, b);
+        }
+      }
+      a.depth = b.depth = depth;
+      a.pos = end1;
+      b.pos = end2;
+      return c != 0 ? c : Integer.compare(n1, n2);
+    }
+
+    @Override
+    int hash(Input in) {
+      // like java.util.Map#hashCode(), independent of the order of entries
+      int hashCode = 0;
+      for (long n = in.readCount(); n != 0; n = in.readCount()) {
+        for (long i = 0; i < n; i++) {
+          int length = in.readLength();
+          int key = hashBytes(0, in.buf, in.pos, length, false);
+          in.pos += length;
+          hashCode += key ^ value.hash(in);
+        }
+      }
+      return hashCode;
+    }
+
+    @Override
+    void skip(Input in) {
+      for (long count; (count = skipBlock(in, -1)) >= 0;) {
+        for (long i = 0; i < count; i++) {
+          in.skip(in.readLength());
+          value.skip(in);
+        }
+      }
+    }
+
+    /**
+     * Read the entries of a map, leaving them in the entries of <i>depth</i>
+     * sorted by key. Each is the start and length of its key.
+     */
+    private int sortEntries(Input in, int depth) {
+      long[] entries = in.entries(depth, 16);
+      int n = 0;
+      for (long count = in.readCount(); count != 0; count = in.readCount()) {
+        for (long i = 0; i < count; i++) {
+          int length = in.readLength();
+          if (n == entries.length / 2) { // the upper half is space to sort
+            entries = in.entries(depth, entries.length * 2);
+          }
+          entries[n++] = (long) in.pos << 32 | length;
+          in.pos += length;
+          value.skip(in);
+        }
+      }
+      sort(in.buf, entries, 0, n, n);
+      return n;
+    }
+  }
+
+  private static int keyStart(long entry) {
+    return (int) (entry >>> 32);
+  }
+
+  private static int keyLength(long entry) {
+    return (int) entry;
+  }
+
+  private static int compareKeys(byte[] buf, long e1, long e2) {
+    return BinaryData.compareBytes(buf, keyStart(e1), keyLength(e1), buf, keyStart(e2), keyLength(e2));
+  }
+
+  /**
+   * Merge sort the entries from <i>start</i> to <i>end</i> by key, using those
+   * from <i>scratch</i> on as space.
+   */
+  private static void sort(byte[] buf, long[] entries, int start, int end, int scratch) {
+    if (end - start < 8) { // insertion sort
+      for (int i = start + 1; i < end; i++) {
+        long entry = entries[i];
+        int j = i;
+        for (; j > start && compareKeys(buf, entries[j - 1], entry) > 0; j--) {
+          entries[j] = entries[j - 1];
+        }
+        entries[j] = entry;
+      }
+      return;
+    }
+    int middle = (start + end) >>> 1;
+    sort(buf, entries, start, middle, scratch);
+    sort(buf, entries, middle, end, scratch);
+    if (compareKeys(buf, entries[middle - 1], entries[middle]) <= 0) {
+      return; // already in order
+    }
+    System.arraycopy(entries, start, entries, scratch, middle - start);
+    int i = scratch, iEnd = scratch + middle - start, j = middle, k = start;
+    while (i < iEnd && j < end) {
+      entries[k++] = compareKeys(buf, entries[j], entries[i]) < 0 ? entries[j++] : entries[i++];
+    }
+    System.arraycopy(entries, i, entries, k, iEnd - i);
+  }
+
+  /**
+   * Read the count of the next block of an array or map, skipping the block if
+   * its size in bytes is given, or if its entries are all of <i>size</i> bytes.
+   * Returns the count of entries left to skip, or -1 at the end of the blocks.
+   */
+  private static long skipBlock(Input in, int size) {
+    long count = in.readLong();
+    if (count == 0) {
+      return -1;
+    }
+    if (count < 0) {
+      in.skip(in.readLong());
+      return 0;
+    }
+    if (size >= 0) {
+      in.skip(count * size);
+      return 0;
+    }
+    return count;
+  }
+
+  private static int hashBytes(int init, byte[] bytes, int start, int length, boolean reversed) {
+    int hashCode = init;
+    int end = start + length;
+    if (reversed) {
+      for (int i = end - 1; i >= start; i--) {
+        hashCode = hashCode * 31 + bytes[i];
+      }
+    } else {
+      for (int i = start; i < end; i++) {
+        hashCode = hashCode * 31 + bytes[i];
+      }
+    }
+    return hashCode;
+  }
+}
@@ -12,6 +12,7 @@ import java.util.Arrays;
 
 import org.apache.aingle.AIngleRuntimeException;
 import org.apache.aingle.InvalidNumberEncodingException;
+import org.apache.aingle.util.StringPool;
 import org.apache.aingle.util.Utf8;
 import org.slf4j.LoggerFactory;
 
@@ -47,6 +48,7 @@ public class BinaryDecoder extends Decoder {
   private static final String MAX_BYTES_LENGTH_PROPERTY = "org.apache.aingle.limits.bytes.maxLength";
   private final int maxBytesLength;
 
+  StringPool stringPool; // set by DecoderFactory#configureStringPool
   private ByteSource source = null;
   // we keep the buffer and its state variables in this class and not in a
   // container class for performance reasons. This improves performance
@@ -298,6 +300,9 @@ public class BinaryDecoder extends Decoder {
     if (0L != length) {
       doReadBytes(result.getBytes(), 0, (int) length);
     }
+    if (stringPool != null) {
+      stringPool.intern(result);
+    }
     return result;
   }
 
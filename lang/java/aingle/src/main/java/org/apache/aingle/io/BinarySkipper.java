@@ -0,0 +1,303 @@
+/*
+
+ */
+package org.apache.aingle.io;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.aingle.AIngleRuntimeException;
+import org.apache.aingle.Schema;
+import org.apache.aingle.generic.GenericDatumReader;
+
+/**
+ * Skips a sequence of values, such as a run of record fields that a reader does
+ * not need, with a routine computed once from their schemas.
+ * <p/>
+ * When reading from a {@link BinaryDecoder}, values of constant size (booleans,
+ * floats, doubles and fixed, also within records) are skipped together in a
+ * single call, consecutive ints, longs and enums are read in a single loop, and
+ * arrays of constant-size items are skipped a block at a time. Array and map
+ * blocks whose byte size was written by a {@link BlockingBinaryEncoder} are
+ * skipped without looking at their items. Other decoders fall back to
+ * {@link GenericDatumReader#skip(Schema, Decoder)}.
+ * <p/>
+ * Instances are immutable and may be shared between threads.
+ */
+public final class BinarySkipper {
+  private final List<Schema> schemas;
+  private final Step step;
+
+  private BinarySkipper(List<Schema> schemas, Step step) {
+    this.schemas = schemas;
+    this.step = step;
+  }
+
+  /** Return a skipper for a value of <i>schema</i>. */
+  public static BinarySkipper of(Schema schema) {
+    return of(Collections.singletonList(schema));
+  }
+
+  /** Return a skipper for consecutive values of the given schemas. */
+  public static BinarySkipper of(List<Schema> schemas) {
+    Compiler compiler = new Compiler();
+    Ops ops = new Ops();
+    for (Schema schema : schemas) {
+      compiler.append(schema, ops);
+    }
+    return new BinarySkipper(new ArrayList<>(schemas), ops.build());
+  }
+
+  /** Skip the values from <i>in</i>. */
+  public void skip(Decoder in) throws IOException {
+    if (in instanceof BinaryDecoder) {
+      step.skip((BinaryDecoder) in);
+    } else {
+      for (Schema schema : schemas) {
+        GenericDatumReader.skip(schema, in);
+      }
+    }
+  }
+
+  private interface Step {
+    void skip(BinaryDecoder in) throws IOException;
+  }
+
+  private static final Step NOTHING = in -> {
+  };
+
+  /**
+   * A list of skipping operations. Consecutive operations of the same kind are
+   * merged as they are added.
+   */
+  private static final class Ops {
+    private static final int FIXED = 0; // count is a number of bytes
+    private static final int VARINT = 1; // count is a number of varints
+    private static final int LENGTH = 2; // count is a number of length-prefixed values
+    private static final int STEP = 3;
+
+    private static final class Op {
+      final int kind;
+      long count;
+      final Step step;
+
+      Op(int kind, long count, Step step) {
+        this.kind = kind;
+        this.count = count;
+        this.step = step;
+      }
+    }
+
+    private final List<Op> ops = new ArrayList<>();
+
+    void fixed(long size) {
+      add(FIXED, size, null);
+    }
+
+    void varints(long count) {
+      add(VARINT, count, null);
+    }
+
+    void lengthPrefixed(long count) {
+      add(LENGTH, count, null);
+    }
+
+    void step(Step step) {
+      add(STEP, 1, step);
+    }
+
+    void append(Ops other) {
+      for (Op op : other.ops) {
+        add(op.kind, op.count, op.step);
+      }
+    }
+
+    private void add(int kind, long count, Step step) {
+      if (count == 0) {
+        return;
+      }
+      Op last = ops.isEmpty() ? null : ops.get(ops.size() - 1);
+      if (kind != STEP && last != null && last.kind == kind) {
+        last.count += count;
+      } else {
+        ops.add(new Op(kind, count, step));
+      }
+    }
+
+    /** The size of the values if it is always the same, or -1. */
+    long constantSize() {
+      if (ops.isEmpty()) {
+        return 0;
+      }
+      return ops.size() == 1 && ops.get(0).kind == FIXED ? ops.get(0).count : -1;
+    }
+
+    Step build() {
+      Step[] steps = new Step[ops.size()];
+      for (int i = 0; i < steps.length; i++) {
+        steps[i] = toStep(ops.get(i));
+      }
+      switch (steps.length) {
+      case 0:
+        return NOTHING;
+      case 1:
+        return steps[0];
+      default:
+        return in -> {
+          for (Step step : steps) {
+            step.skip(in);
+          }
+        };
+      }
+    }
+
+    private static Step toStep(Op op) {
+      long count = op.count;
+      switch (op.kind) {
+      case FIXED:
+        return in -> in.doSkipBytes(count);
+      case VARINT:
+        if (count == 1) {
+          return BinaryDecoder::readLong;
+        }
+        return in -> {
+          for (long i = 0; i < count; i++) {
+            in.readLong();
+          }
+        };
+      case LENGTH:
+        return in -> {
+          for (long i = 0; i < count; i++) {
+            in.doSkipBytes(in.readLong());
+          }
+        };
+      default:
+        return op.step;
+      }
+    }
+  }
+
+  /** A record that refers to itself, skipped through a step of its own. */
+  private static final class RecordStep implements Step {
+    private Step body;
+    private boolean recursive;
+
+    @Override
+    public void skip(BinaryDecoder in) throws IOException {
+      body.skip(in);
+    }
+  }
+
+  private static final class Compiler {
+    private final Map<Schema, RecordStep> records = new IdentityHashMap<>();
+
+    void append(Schema schema, Ops ops) {
+      switch (schema.getType()) {
+      case NULL:
+        break;
+      case BOOLEAN:
+        ops.fixed(1);
+        break;
+      case FLOAT:
+        ops.fixed(4);
+        break;
+      case DOUBLE:
+        ops.fixed(8);
+        break;
+      case FIXED:
+        ops.fixed(schema.getFixedSize());
+        break;
+      case INT:
+      case LONG:
+      case ENUM:
+        ops.varints(1);
+        break;
+      case STRING:
+      case BYTES:
+        ops.lengthPrefixed(1);
+        break;
+      case RECORD:
+        appendRecord(schema, ops);
+        break;
+      case ARRAY:
+        ops.step(arrayStep(schema.getElementType(), false));
+        break;
+      case MAP:
+        ops.step(arrayStep(schema.getValueType(), true));
+        break;
+      case UNION:
+        ops.step(unionStep(schema));
+        break;
+      default:
+        throw new AIngleRuntimeException("Unknown type: " + schema);
+      }
+    }
+
+    private void appendRecord(Schema schema, Ops ops) {
+      RecordStep record = records.get(schema);
+      if (record != null) {
+        // a reference to a record being compiled or known to be recursive
+        record.recursive = true;
+        ops.step(record);
+        return;
+      }
+      record = new RecordStep();
+      records.put(schema, record);
+      Ops fields = new Ops();
+      for (Schema.Field field : schema.getFields()) {
+        append(field.schema(), fields);
+      }
+      record.body = fields.build();
+      if (record.recursive) {
+        ops.step(record);
+      } else {
+        // inline the fields, so that they merge with their neighbours
+        records.remove(schema);
+        ops.append(fields);
+      }
+    }
+
+    /** Skip the blocks of an array, or of a map if <i>isMap</i>. */
+    private Step arrayStep(Schema itemSchema, boolean isMap) {
+      Ops item = new Ops();
+      if (isMap) {
+        item.lengthPrefixed(1); // the key
+      }
+      append(itemSchema, item);
+      long itemSize = item.constantSize();
+      Step itemStep = item.build();
+      return in -> {
+        for (long l = isMap ? in.skipMap() : in.skipArray(); l > 0; l = isMap ? in.skipMap() : in.skipArray()) {
+          if (itemSize >= 0) {
+            in.doSkipBytes(Math.multiplyExact(l, itemSize));
+          } else {
+            for (long i = 0; i < l; i++) {
+              itemStep.skip(in);
+            }
+          }
+        }
+      };
+    }
+
+    private Step unionStep(Schema union) {
+      List<Schema> types = union.getTypes();
+      Step[] branches = new Step[types.size()];
+      for (int i = 0; i < branches.length; i++) {
+        Ops branch = new Ops();
+        append(types.get(i), branch);
+        branches[i] = branch.build();
+      }
+      return in -> {
+        int index = in.readIndex();
+        if (index < 0 || index >= branches.length) {
+          throw new AIngleRuntimeException("Malformed data. Invalid union index: " + index);
+        }
+        branches[index].skip(in);
+      };
+    }
+  }
+}
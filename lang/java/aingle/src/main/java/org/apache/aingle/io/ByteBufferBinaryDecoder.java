@@ -0,0 +1,136 @@
+/*
+
+ */
+package org.apache.aingle.io;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Collections;
+
+import org.apache.aingle.AIngleRuntimeException;
+import org.apache.aingle.InvalidNumberEncodingException;
+import org.apache.aingle.util.ByteBufferInputStream;
+
+/**
+ * A {@link BinaryDecoder} that reads straight from a {@link ByteBuffer}, such
+ * as a direct buffer or a slice of a memory-mapped file, without copying its
+ * content into an intermediate byte[] first.
+ * <p/>
+ * The decoder reads from its own view of the buffer: the position of the buffer
+ * it was configured with is not changed.
+ *
+ * @see DecoderFactory#binaryDecoder(ByteBuffer, BinaryDecoder)
+ */
+class ByteBufferBinaryDecoder extends BinaryDecoder {
+  private ByteBuffer in;
+
+  ByteBufferBinaryDecoder(ByteBuffer in) {
+    super();
+    configure(in);
+  }
+
+  ByteBufferBinaryDecoder configure(ByteBuffer in) {
+    this.in = in.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    return this;
+  }
+
+  @Override
+  public boolean readBoolean() throws IOException {
+    if (!in.hasRemaining()) {
+      throw new EOFException();
+    }
+    return in.get() == 1;
+  }
+
+  @Override
+  public int readInt() throws IOException {
+    int p = in.position();
+    int limit = in.limit();
+    int n = 0;
+    int shift = 0;
+    do {
+      if (p == limit) {
+        throw new EOFException();
+      }
+      int b = in.get(p++);
+      n |= (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        ((Buffer) in).position(p);
+        return (n >>> 1) ^ -(n & 1); // back to two's-complement
+      }
+      shift += 7;
+    } while (shift < 32);
+    throw new InvalidNumberEncodingException("Invalid int encoding");
+  }
+
+  @Override
+  public long readLong() throws IOException {
+    int p = in.position();
+    int limit = in.limit();
+    long n = 0;
+    int shift = 0;
+    do {
+      if (p == limit) {
+        throw new EOFException();
+      }
+      int b = in.get(p++);
+      n |= (b & 0x7FL) << shift;
+      if ((b & 0x80) == 0) {
+        ((Buffer) in).position(p);
+        return (n >>> 1) ^ -(n & 1); // back to two's-complement
+      }
+      shift += 7;
+    } while (shift < 64);
+    throw new InvalidNumberEncodingException("Invalid long encoding");
+  }
+
+  @Override
+  public float readFloat() throws IOException {
+    if (in.remaining() < 4) {
+      throw new EOFException();
+    }
+    return in.getFloat();
+  }
+
+  @Override
+  public double readDouble() throws IOException {
+    if (in.remaining() < 8) {
+      throw new EOFException();
+    }
+    return in.getDouble();
+  }
+
+  @Override
+  protected void doSkipBytes(long length) throws IOException {
+    if (length > in.remaining()) {
+      ((Buffer) in).position(in.limit());
+      throw new EOFException();
+    }
+    ((Buffer) in).position(in.position() + (int) length);
+  }
+
+  @Override
+  protected void doReadBytes(byte[] bytes, int start, int length) throws IOException {
+    if (length < 0)
+      throw new AIngleRuntimeException("Malformed data. Length is negative: " + length);
+    if (length > in.remaining()) {
+      throw new EOFException();
+    }
+    in.get(bytes, start, length);
+  }
+
+  @Override
+  public InputStream inputStream() {
+    // shares the position of this decoder
+    return new ByteBufferInputStream(Collections.singletonList(in));
+  }
+
+  @Override
+  public boolean isEnd() throws IOException {
+    return !in.hasRemaining();
+  }
+}
@@ -0,0 +1,188 @@
+/*
+
+ */
+package org.apache.aingle.io;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import org.apache.aingle.util.ByteBufferAllocator;
+
+/**
+ * A {@link BinaryEncoder} that writes into {@link ByteBuffer}s obtained from a
+ * {@link ByteBufferAllocator}, such as a
+ * {@link org.apache.aingle.util.PooledByteBufferAllocator} of direct buffers,
+ * instead of into an {@link java.io.OutputStream}.
+ * <p/>
+ * The encoded data is taken with {@link #getBufferList()}, as a list of buffers
+ * ready to be read or passed to a
+ * {@link java.nio.channels.GatheringByteChannel}. Once consumed, those buffers
+ * should be given back with {@link #release(List)} so that the allocator can
+ * recycle them.
+ * <p/>
+ * {@link #flush()} does nothing, as there is no underlying stream.
+ *
+ * @see EncoderFactory#byteBufferBinaryEncoder(ByteBufferAllocator,
+ *      ByteBufferBinaryEncoder)
+ */
+public class ByteBufferBinaryEncoder extends BinaryEncoder {
+  /** The longest encoding of a primitive: a long varint. */
+  private static final int MAX_PRIMITIVE_SIZE = 10;
+
+  private ByteBufferAllocator allocator;
+  private int chunkSize;
+  private List<ByteBuffer> buffers = new ArrayList<>();
+  private ByteBuffer current;
+  private int bytesWritten;
+
+  ByteBufferBinaryEncoder(ByteBufferAllocator allocator, int chunkSize) {
+    configure(allocator, chunkSize);
+  }
+
+  /**
+   * Set the allocator to write with. Buffers holding data that was not taken
+   * with {@link #getBufferList()} are released to the previous allocator.
+   */
+  ByteBufferBinaryEncoder configure(ByteBufferAllocator allocator, int chunkSize) {
+    Objects.requireNonNull(allocator, "ByteBufferAllocator cannot be null");
+    if (this.allocator != null) {
+      reset();
+    }
+    this.allocator = allocator;
+    this.chunkSize = Math.max(chunkSize, MAX_PRIMITIVE_SIZE);
+    return this;
+  }
+
+  /**
+   * Return all data written since the last call, and start over with no data.
+   * Each buffer is flipped, ready to be read from. The caller owns them until
+   * they are given back with {@link #release(List)}.
+   */
+  public List<ByteBuffer> getBufferList() {
+    List<ByteBuffer> result = buffers;
+    for (ByteBuffer buffer : result) {
+      ((Buffer) buffer).flip();
+    }
+    buffers = new ArrayList<>();
+    current = null;
+    bytesWritten = 0;
+    return result;
+  }
+
+  /** Give buffers returned by {@link #getBufferList()} back to the allocator. */
+  public void release(List<ByteBuffer> list) {
+    for (ByteBuffer buffer : list) {
+      allocator.release(buffer);
+    }
+  }
+
+  /** Discard all data written since the last call to {@link #getBufferList()}. */
+  public void reset() {
+    List<ByteBuffer> discarded = buffers;
+    buffers = new ArrayList<>();
+    current = null;
+    bytesWritten = 0;
+    release(discarded);
+  }
+
+  /** Make sure the current buffer has room for <i>n</i> more bytes. */
+  private ByteBuffer ensure(int n) {
+    ByteBuffer b = current;
+    if (b == null || b.remaining() < n) {
+      b = nextBuffer();
+    }
+    return b;
+  }
+
+  private ByteBuffer nextBuffer() {
+    if (current != null) {
+      bytesWritten += current.position();
+    }
+    current = allocator.allocate(chunkSize);
+    // the default order, relied upon by writeFloat and writeDouble
+    current.order(ByteOrder.BIG_ENDIAN);
+    buffers.add(current);
+    return current;
+  }
+
+  @Override
+  public void flush() throws IOException {
+  }
+
+  @Override
+  public void writeBoolean(boolean b) throws IOException {
+    ensure(1).put(b ? (byte) 1 : (byte) 0);
+  }
+
+  @Override
+  public void writeInt(int n) throws IOException {
+    ByteBuffer b = ensure(5);
+    int val = (n << 1) ^ (n >> 31); // move sign to low-order bit
+    while ((val & ~0x7F) != 0) {
+      b.put((byte) (0x80 | val));
+      val >>>= 7;
+    }
+    b.put((byte) val);
+  }
+
+  @Override
+  public void writeLong(long n) throws IOException {
+    ByteBuffer b = ensure(MAX_PRIMITIVE_SIZE);
+    long val = (n << 1) ^ (n >> 63); // move sign to low-order bit
+    while ((val & ~0x7FL) != 0) {
+      b.put((byte) (0x80 | val));
+      val >>>= 7;
+    }
+    b.put((byte) val);
+  }
+
+  @Override
+  public void writeFloat(float f) throws IOException {
+    ensure(4).putInt(Integer.reverseBytes(Float.floatToRawIntBits(f)));
+  }
+
+  @Override
+  public void writeDouble(double d) throws IOException {
+    ensure(8).putLong(Long.reverseBytes(Double.doubleToRawLongBits(d)));
+  }
+
+  @Override
+  public void writeFixed(byte[] bytes, int start, int len) throws IOException {
+    while (len > 0) {
+      ByteBuffer b = ensure(1);
+      int n = Math.min(len, b.remaining());
+      b.put(bytes, start, n);
+      start += n;
+      len -= n;
+    }
+  }
+
+  @Override
+  public void writeFixed(ByteBuffer bytes) throws IOException {
+    ByteBuffer in = bytes.duplicate();
+    while (in.hasRemaining()) {
+      ByteBuffer b = ensure(1);
+      int n = Math.min(in.remaining(), b.remaining());
+      ByteBuffer part = in.slice();
+      ((Buffer) part).limit(n);
+      b.put(part);
+      ((Buffer) in).position(in.position() + n);
+    }
+  }
+
+  @Override
+  protected void writeZero() throws IOException {
+    ensure(1).put((byte) 0);
+  }
+
+  /** The number of bytes written since the last call to {@link #getBufferList()}. */
+  @Override
+  public int bytesBuffered() {
+    return bytesWritten + (current == null ? 0 : current.position());
+  }
+}
@@ -5,8 +5,10 @@ package org.apache.aingle.io;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 
 import org.apache.aingle.Schema;
+import org.apache.aingle.util.StringPool;
 
 /**
  * A factory for creating and configuring {@link Decoder}s.
@@ -23,6 +25,7 @@ public class DecoderFactory {
   static final int DEFAULT_BUFFER_SIZE = 8192;
 
   int binaryDecoderBufferSize = DEFAULT_BUFFER_SIZE;
+  StringPool stringPool;
 
   /** Constructor for factory instances */
   public DecoderFactory() {
@@ -70,6 +73,21 @@ public class DecoderFactory {
     return this;
   }
 
+  /**
+   * Configures this factory to pool the Strings of short values read by the
+   * {@link BinaryDecoder} instances it creates, so that repeated values are
+   * decoded once and share a single String. The pool may be shared by factories
+   * and threads. The default is no pool.
+   *
+   * @param pool The pool to use, or null for none.
+   * @return This factory, to enable method chaining.
+   * @see StringPool
+   */
+  public DecoderFactory configureStringPool(StringPool pool) {
+    this.stringPool = pool;
+    return this;
+  }
+
   /**
    * Returns this factory's configured preferred buffer size. Used when creating
    * Decoder instances that buffer. See {@link #configureDecoderBufferSize}
@@ -118,9 +136,9 @@ public class DecoderFactory {
    */
   public BinaryDecoder binaryDecoder(InputStream in, BinaryDecoder reuse) {
     if (null == reuse || !reuse.getClass().equals(BinaryDecoder.class)) {
-      return new BinaryDecoder(in, binaryDecoderBufferSize);
+      return pool(new BinaryDecoder(in, binaryDecoderBufferSize));
     } else {
-      return reuse.configure(in, binaryDecoderBufferSize);
+      return pool(reuse.configure(in, binaryDecoderBufferSize));
     }
   }
 
@@ -157,9 +175,9 @@ public class DecoderFactory {
    */
   public BinaryDecoder directBinaryDecoder(InputStream in, BinaryDecoder reuse) {
     if (null == reuse || !reuse.getClass().equals(DirectBinaryDecoder.class)) {
-      return new DirectBinaryDecoder(in);
+      return pool(new DirectBinaryDecoder(in));
     } else {
-      return ((DirectBinaryDecoder) reuse).configure(in);
+      return pool(((DirectBinaryDecoder) reuse).configure(in));
     }
   }
 
@@ -199,9 +217,9 @@ public class DecoderFactory {
    */
   public BinaryDecoder binaryDecoder(byte[] bytes, int offset, int length, BinaryDecoder reuse) {
     if (null == reuse || !reuse.getClass().equals(BinaryDecoder.class)) {
-      return new BinaryDecoder(bytes, offset, length);
+      return pool(new BinaryDecoder(bytes, offset, length));
     } else {
-      return reuse.configure(bytes, offset, length);
+      return pool(reuse.configure(bytes, offset, length));
     }
   }
 
@@ -224,6 +242,40 @@ public class DecoderFactory {
     return binaryDecoder(bytes, 0, bytes.length, reuse);
   }
 
+  /**
+   * Creates or reinitializes a {@link BinaryDecoder} that reads the remaining
+   * bytes of a {@link ByteBuffer}, without copying them. A buffer backed by an
+   * accessible array is read like
+   * {@link #binaryDecoder(byte[], int, int, BinaryDecoder)} would; others, such
+   * as direct buffers, are read from straight through the {@link ByteBuffer}
+   * API. The position of <i>buffer</i> is not changed.
+   *
+   * @param buffer The ByteBuffer to read from. Must not be modified while it is
+   *               being read.
+   * @param reuse  The BinaryDecoder to attempt to reinitialize. if null a new
+   *               BinaryDecoder is created.
+   * @return A BinaryDecoder that uses <i>buffer</i> as its source of data. If
+   *         <i>reuse</i> is null, this will be a new instance. <i>reuse</i> may
+   *         be reinitialized if appropriate, otherwise a new instance is
+   *         returned. Clients must not assume that <i>reuse</i> is reinitialized
+   *         and returned.
+   */
+  public BinaryDecoder binaryDecoder(ByteBuffer buffer, BinaryDecoder reuse) {
+    if (buffer.hasArray()) {
+      return binaryDecoder(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining(), reuse);
+    }
+    if (null == reuse || !reuse.getClass().equals(ByteBufferBinaryDecoder.class)) {
+      return pool(new ByteBufferBinaryDecoder(buffer));
+    } else {
+      return pool(((ByteBufferBinaryDecoder) reuse).configure(buffer));
+    }
+  }
+
+  private BinaryDecoder pool(BinaryDecoder decoder) {
+    decoder.stringPool = stringPool;
+    return decoder;
+  }
+
   /**
    * Creates a {@link JsonDecoder} using the InputStream provided for reading data
    * that conforms to the Schema provided.
@@ -283,10 +335,32 @@ public class DecoderFactory {
     return new ResolvingDecoder(writer, reader, wrapped);
   }
 
+  /**
+   * Creates a {@link ResolvingDecoder} wrapping the Decoder provided, from a
+   * resolver returned by {@link ResolvingDecoder#resolve(Schema, Schema)} or
+   * {@link ResolverCache#getResolver(Schema, Schema)}. Unlike
+   * {@link #resolvingDecoder(Schema, Schema, Decoder)}, this does not resolve
+   * the schemas again, so it is cheap.
+   *
+   * @param resolver The resolver to use.
+   * @param wrapped  The Decoder to wrap.
+   * @return A ResolvingDecoder configured with <i>resolver</i> and
+   *         <i>wrapped</i>
+   * @throws IOException
+   */
+  public ResolvingDecoder resolvingDecoder(Object resolver, Decoder wrapped) throws IOException {
+    return new ResolvingDecoder(resolver, wrapped);
+  }
+
   private static class DefaultDecoderFactory extends DecoderFactory {
     @Override
     public DecoderFactory configureDecoderBufferSize(int bufferSize) {
       throw new IllegalArgumentException("This Factory instance is Immutable");
     }
+
+    @Override
+    public DecoderFactory configureStringPool(StringPool pool) {
+      throw new IllegalArgumentException("This Factory instance is Immutable");
+    }
   }
 }
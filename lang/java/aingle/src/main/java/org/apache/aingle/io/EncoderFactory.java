@@ -8,6 +8,8 @@ import java.io.OutputStream;
 
 import org.apache.aingle.AIngleRuntimeException;
 import org.apache.aingle.Schema;
+import org.apache.aingle.util.ByteBufferAllocator;
+import org.apache.aingle.util.PooledByteBufferAllocator;
 import com.fasterxml.jackson.core.JsonGenerator;
 
 /**
@@ -202,6 +204,36 @@ public class EncoderFactory {
     }
   }
 
+  /**
+   * Creates or reinitializes a {@link ByteBufferBinaryEncoder} that writes into
+   * buffers obtained from <i>allocator</i>, each of the configured buffer size
+   * (see {@link #configureBufferSize(int)}) or larger, rather than to an
+   * {@link OutputStream}. With a {@link PooledByteBufferAllocator}, buffers are
+   * of the size it pools instead, so that it recycles them: once the pool is
+   * warm, encoding allocates no buffers, only the lists returned by
+   * {@link ByteBufferBinaryEncoder#getBufferList()}.
+   * <p/>
+   * Buffers still held by <i>reuse</i> are released to its previous allocator.
+   *
+   * @param allocator The allocator to obtain buffers from. Cannot be null.
+   * @param reuse     The ByteBufferBinaryEncoder to attempt to reuse given the
+   *                  factory configuration. If null a new one is created.
+   * @return A ByteBufferBinaryEncoder writing into buffers of <i>allocator</i>.
+   * @see ByteBufferBinaryEncoder#getBufferList()
+   */
+  public ByteBufferBinaryEncoder byteBufferBinaryEncoder(ByteBufferAllocator allocator, ByteBufferBinaryEncoder reuse) {
+    if (null == reuse || !reuse.getClass().equals(ByteBufferBinaryEncoder.class)) {
+      return new ByteBufferBinaryEncoder(allocator, bufferSizeFor(allocator));
+    } else {
+      return reuse.configure(allocator, bufferSizeFor(allocator));
+    }
+  }
+
+  private int bufferSizeFor(ByteBufferAllocator allocator) {
+    return allocator instanceof PooledByteBufferAllocator ? ((PooledByteBufferAllocator) allocator).getBufferSize()
+        : this.binaryBufferSize;
+  }
+
   /**
    * Creates or reinitializes a {@link BinaryEncoder} with the OutputStream
    * provided as the destination for written data. If <i>reuse</i> is provided, an
@@ -18,6 +18,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -43,7 +44,6 @@ import org.apache.aingle.Schema.Field;
 import org.apache.aingle.generic.GenericArray;
 import org.apache.aingle.generic.GenericData;
 import org.apache.aingle.generic.GenericData.InstanceSupplier;
-import org.apache.aingle.generic.GenericDatumReader;
 import org.apache.aingle.generic.GenericEnumSymbol;
 import org.apache.aingle.generic.GenericFixed;
 import org.apache.aingle.generic.IndexedRecord;
@@ -147,30 +147,36 @@ public class FastReaderBuilder {
     Object testInstance = action.instanceSupplier.newInstance(null, action.reader);
     IntFunction<Conversion<?>> conversionSupplier = getConversionSupplier(testInstance);
 
-    ExecutionStep[] readSteps = new ExecutionStep[action.fieldActions.length + action.readerOrder.length
-        - action.firstDefault];
+    List<ExecutionStep> readSteps = new ArrayList<>();
 
-    int i = 0;
     int fieldCounter = 0;
     // compute what to do with writer's fields
-    for (; i < action.fieldActions.length; i++) {
+    for (int i = 0; i < action.fieldActions.length;) {
       Action fieldAction = action.fieldActions[i];
       if (fieldAction instanceof Skip) {
-        readSteps[i] = (r, decoder) -> GenericDatumReader.skip(fieldAction.writer, decoder);
+        // skip the whole run of consecutive dropped fields at once
+        List<Schema> skipped = new ArrayList<>();
+        for (; i < action.fieldActions.length && action.fieldActions[i] instanceof Skip; i++) {
+          skipped.add(action.fieldActions[i].writer);
+        }
+        BinarySkipper skipper = BinarySkipper.of(skipped);
+        readSteps.add((r, decoder) -> skipper.skip(decoder));
       } else {
         Field readerField = action.readerOrder[fieldCounter++];
         Conversion<?> conversion = conversionSupplier.apply(readerField.pos());
         FieldReader reader = getReaderFor(fieldAction, conversion);
-        readSteps[i] = createFieldSetter(readerField, reader);
+        readSteps.add(createFieldSetter(readerField, reader));
+        i++;
       }
     }
 
     // add defaulting if required
-    for (; i < readSteps.length; i++) {
-      readSteps[i] = getDefaultingStep(action.readerOrder[fieldCounter++]);
+    while (fieldCounter < action.readerOrder.length) {
+      readSteps.add(getDefaultingStep(action.readerOrder[fieldCounter++]));
     }
 
-    recordReader.finishInitialization(readSteps, action.reader, action.instanceSupplier);
+    recordReader.finishInitialization(readSteps.toArray(new ExecutionStep[0]), action.reader,
+        action.instanceSupplier);
     return recordReader;
   }
 
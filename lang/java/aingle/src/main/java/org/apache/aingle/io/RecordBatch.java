@@ -0,0 +1,449 @@
+/*
+
+ */
+package org.apache.aingle.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.aingle.AIngleRuntimeException;
+import org.apache.aingle.Schema;
+import org.apache.aingle.Schema.Field;
+import org.apache.aingle.util.Utf8;
+
+/**
+ * A batch of records of a record schema, held column by column in reusable
+ * primitive arrays rather than as one object per record. Filled by
+ * {@link BatchDatumReader#readBatch(BinaryDecoder, RecordBatch, int)}.
+ * <p/>
+ * Only the selected fields of the record have a column; the others are skipped
+ * when reading. A field may be of a primitive type, an enum or a fixed, or a
+ * union of one of those with null. Values are stored as follows:
+ * <ul>
+ * <li>boolean, int, long and enum (its ordinal) in a {@link LongColumn};</li>
+ * <li>float and double in a {@link DoubleColumn};</li>
+ * <li>string, bytes and fixed in a {@link BytesColumn}, as offsets into a
+ * shared byte arena.</li>
+ * </ul>
+ * Nullable fields additionally track nulls in a bitmap, see
+ * {@link Column#isNull(int)}. Logical types are not applied: values keep their
+ * underlying representation.
+ */
+public class RecordBatch {
+  private final Schema schema;
+  private final int capacity;
+  private final List<Column> columns;
+  /** What to do for each field, or run of fields: read a column or skip. */
+  private final Column[] stepColumns;
+  private final BinarySkipper[] stepSkippers;
+  private final Map<String, Column> byName = new HashMap<>();
+  private int size;
+
+  /**
+   * Create a batch for records of <i>schema</i>.
+   *
+   * @param schema     the record schema the data was written with.
+   * @param capacity   the maximum number of records in the batch.
+   * @param fieldNames the fields to hold in columns, or none for all fields.
+   * @throws AIngleRuntimeException if a field does not exist or is of a type
+   *                                that cannot be held in a column.
+   */
+  public RecordBatch(Schema schema, int capacity, String... fieldNames) {
+    if (schema.getType() != Schema.Type.RECORD)
+      throw new AIngleRuntimeException("Not a record schema: " + schema);
+    if (capacity < 1)
+      throw new IllegalArgumentException("Invalid capacity: " + capacity);
+    this.schema = schema;
+    this.capacity = capacity;
+    Column[] byPosition = new Column[schema.getFields().size()];
+    List<Field> selected = new ArrayList<>();
+    if (fieldNames.length == 0) {
+      selected.addAll(schema.getFields());
+    } else {
+      for (String name : fieldNames) {
+        Field field = schema.getField(name);
+        if (field == null)
+          throw new AIngleRuntimeException("Not a valid schema field: " + name);
+        selected.add(field);
+      }
+    }
+    List<Column> list = new ArrayList<>(selected.size());
+    for (Field field : selected) {
+      if (byPosition[field.pos()] == null) {
+        Column column = newColumn(field, capacity);
+        byPosition[field.pos()] = column;
+        byName.put(field.name(), column);
+        list.add(column);
+      }
+    }
+    this.columns = Collections.unmodifiableList(list);
+
+    // read the fields in writer order, skipping each run of unselected ones at once
+    List<Column> stepColumns = new ArrayList<>();
+    List<BinarySkipper> stepSkippers = new ArrayList<>();
+    List<Field> fields = schema.getFields();
+    for (int pos = 0; pos < fields.size();) {
+      if (byPosition[pos] != null) {
+        stepColumns.add(byPosition[pos++]);
+        stepSkippers.add(null);
+      } else {
+        List<Schema> skipped = new ArrayList<>();
+        for (; pos < fields.size() && byPosition[pos] == null; pos++) {
+          skipped.add(fields.get(pos).schema());
+        }
+        stepColumns.add(null);
+        stepSkippers.add(BinarySkipper.of(skipped));
+      }
+    }
+    this.stepColumns = stepColumns.toArray(new Column[0]);
+    this.stepSkippers = stepSkippers.toArray(new BinarySkipper[0]);
+  }
+
+  private static Column newColumn(Field field, int capacity) {
+    Schema valueSchema = field.schema();
+    int nullIndex = -1;
+    if (valueSchema.getType() == Schema.Type.UNION) {
+      List<Schema> branches = valueSchema.getTypes();
+      if (branches.size() == 2 && branches.get(0).getType() == Schema.Type.NULL) {
+        nullIndex = 0;
+        valueSchema = branches.get(1);
+      } else if (branches.size() == 2 && branches.get(1).getType() == Schema.Type.NULL) {
+        nullIndex = 1;
+        valueSchema = branches.get(0);
+      } else {
+        throw new AIngleRuntimeException("Cannot hold union in a column: " + field);
+      }
+    }
+    switch (valueSchema.getType()) {
+    case BOOLEAN:
+    case INT:
+    case LONG:
+    case ENUM:
+      return new LongColumn(field, valueSchema, nullIndex, capacity);
+    case FLOAT:
+    case DOUBLE:
+      return new DoubleColumn(field, valueSchema, nullIndex, capacity);
+    case STRING:
+    case BYTES:
+    case FIXED:
+      return new BytesColumn(field, valueSchema, nullIndex, capacity);
+    default:
+      throw new AIngleRuntimeException("Cannot hold " + valueSchema.getType() + " in a column: " + field);
+    }
+  }
+
+  /** The record schema of this batch. */
+  public Schema getSchema() {
+    return schema;
+  }
+
+  /** The maximum number of records in this batch. */
+  public int capacity() {
+    return capacity;
+  }
+
+  /** The number of records last read into this batch. */
+  public int size() {
+    return size;
+  }
+
+  /** The columns of this batch, in the order they were selected. */
+  public List<Column> getColumns() {
+    return columns;
+  }
+
+  /** The column of the named field, or null if it was not selected. */
+  public Column getColumn(String fieldName) {
+    return byName.get(fieldName);
+  }
+
+  /**
+   * The column of the named field.
+   *
+   * @throws AIngleRuntimeException if the field was not selected or its values
+   *                                are not held as longs.
+   */
+  public LongColumn getLongColumn(String fieldName) {
+    return getColumn(fieldName, LongColumn.class);
+  }
+
+  /**
+   * The column of the named field.
+   *
+   * @throws AIngleRuntimeException if the field was not selected or its values
+   *                                are not held as doubles.
+   */
+  public DoubleColumn getDoubleColumn(String fieldName) {
+    return getColumn(fieldName, DoubleColumn.class);
+  }
+
+  /**
+   * The column of the named field.
+   *
+   * @throws AIngleRuntimeException if the field was not selected or its values
+   *                                are not held as bytes.
+   */
+  public BytesColumn getBytesColumn(String fieldName) {
+    return getColumn(fieldName, BytesColumn.class);
+  }
+
+  private <C extends Column> C getColumn(String fieldName, Class<C> type) {
+    Column column = byName.get(fieldName);
+    if (column == null)
+      throw new AIngleRuntimeException("Not a selected field: " + fieldName);
+    if (!type.isInstance(column))
+      throw new AIngleRuntimeException("Field " + fieldName + " is held in a " + column.getClass().getSimpleName());
+    return type.cast(column);
+  }
+
+  /** Read the next record into row <i>row</i>. */
+  void read(BinaryDecoder in, int row) throws IOException {
+    for (int i = 0; i < stepColumns.length; i++) {
+      Column column = stepColumns[i];
+      if (column != null) {
+        column.read(in, row);
+      } else {
+        stepSkippers[i].skip(in);
+      }
+    }
+    size = row + 1;
+  }
+
+  /** Remove all records from this batch. */
+  public void clear() {
+    size = 0;
+    for (Column column : columns) {
+      column.clear();
+    }
+  }
+
+  /** The values of one field across the records of a batch. */
+  public abstract static class Column {
+    private final Field field;
+    private final Schema valueSchema;
+    private final int nullIndex;
+    private final long[] nulls;
+
+    Column(Field field, Schema valueSchema, int nullIndex, int capacity) {
+      this.field = field;
+      this.valueSchema = valueSchema;
+      this.nullIndex = nullIndex;
+      this.nulls = nullIndex < 0 ? null : new long[(capacity + 63) >>> 6];
+    }
+
+    /** The field whose values this column holds. */
+    public Field getField() {
+      return field;
+    }
+
+    /** The schema of the non-null values, without any union with null. */
+    public Schema getValueSchema() {
+      return valueSchema;
+    }
+
+    /** True if the field is a union with null. */
+    public boolean isNullable() {
+      return nulls != null;
+    }
+
+    /** True if the value of the field in record <i>row</i> is null. */
+    public boolean isNull(int row) {
+      return nulls != null && (nulls[row >>> 6] & (1L << row)) != 0;
+    }
+
+    void read(BinaryDecoder in, int row) throws IOException {
+      if (nulls != null) {
+        long bit = 1L << row;
+        if (in.readIndex() == nullIndex) {
+          nulls[row >>> 6] |= bit;
+          readNull(row);
+          return;
+        }
+        nulls[row >>> 6] &= ~bit;
+      }
+      readValue(in, row);
+    }
+
+    void clear() {
+    }
+
+    /** Read a non-null value into record <i>row</i>. */
+    abstract void readValue(BinaryDecoder in, int row) throws IOException;
+
+    /** Fill in record <i>row</i> when its value is null. */
+    abstract void readNull(int row);
+  }
+
+  /** A column of boolean (0 or 1), int, long or enum (ordinal) values. */
+  public static final class LongColumn extends Column {
+    private final Schema.Type type;
+    private final long[] values;
+
+    LongColumn(Field field, Schema valueSchema, int nullIndex, int capacity) {
+      super(field, valueSchema, nullIndex, capacity);
+      this.type = valueSchema.getType();
+      this.values = new long[capacity];
+    }
+
+    /** The value in record <i>row</i>, or 0 if it is null. */
+    public long get(int row) {
+      return values[row];
+    }
+
+    /** The array holding the values, indexed by record. */
+    public long[] getValues() {
+      return values;
+    }
+
+    @Override
+    void readValue(BinaryDecoder in, int row) throws IOException {
+      switch (type) {
+      case BOOLEAN:
+        values[row] = in.readBoolean() ? 1 : 0;
+        break;
+      case INT:
+        values[row] = in.readInt();
+        break;
+      case ENUM:
+        values[row] = in.readEnum();
+        break;
+      default:
+        values[row] = in.readLong();
+      }
+    }
+
+    @Override
+    void readNull(int row) {
+      values[row] = 0;
+    }
+  }
+
+  /** A column of float or double values. */
+  public static final class DoubleColumn extends Column {
+    private final boolean isFloat;
+    private final double[] values;
+
+    DoubleColumn(Field field, Schema valueSchema, int nullIndex, int capacity) {
+      super(field, valueSchema, nullIndex, capacity);
+      this.isFloat = valueSchema.getType() == Schema.Type.FLOAT;
+      this.values = new double[capacity];
+    }
+
+    /** The value in record <i>row</i>, or 0 if it is null. */
+    public double get(int row) {
+      return values[row];
+    }
+
+    /** The array holding the values, indexed by record. */
+    public double[] getValues() {
+      return values;
+    }
+
+    @Override
+    void readValue(BinaryDecoder in, int row) throws IOException {
+      values[row] = isFloat ? in.readFloat() : in.readDouble();
+    }
+
+    @Override
+    void readNull(int row) {
+      values[row] = 0;
+    }
+  }
+
+  /**
+   * A column of string, bytes or fixed values. The values of all records are
+   * stored one after the other in a single arena: the value of record
+   * <i>row</i> spans from {@link #getOffsets() offsets}[row] to
+   * offsets[row + 1]. A null value is empty.
+   */
+  public static final class BytesColumn extends Column {
+    private final int fixedSize;
+    private final int[] offsets;
+    private byte[] arena = new byte[64];
+
+    BytesColumn(Field field, Schema valueSchema, int nullIndex, int capacity) {
+      super(field, valueSchema, nullIndex, capacity);
+      this.fixedSize = valueSchema.getType() == Schema.Type.FIXED ? valueSchema.getFixedSize() : -1;
+      this.offsets = new int[capacity + 1];
+    }
+
+    /** The offset of the value of record <i>row</i> in the arena. */
+    public int getOffset(int row) {
+      return offsets[row];
+    }
+
+    /** The length of the value of record <i>row</i>. */
+    public int getLength(int row) {
+      return offsets[row + 1] - offsets[row];
+    }
+
+    /** The offsets of the values in the arena, one more than the records. */
+    public int[] getOffsets() {
+      return offsets;
+    }
+
+    /**
+     * The array holding the values. It may be replaced by a larger one when more
+     * records are read.
+     */
+    public byte[] getArena() {
+      return arena;
+    }
+
+    /** The value of record <i>row</i>, as a view of the arena. */
+    public ByteBuffer getBytes(int row) {
+      return ByteBuffer.wrap(arena, offsets[row], getLength(row));
+    }
+
+    /** The value of record <i>row</i>, as a copy decoded from UTF-8. */
+    public String getString(int row) {
+      return new String(arena, offsets[row], getLength(row), StandardCharsets.UTF_8);
+    }
+
+    /** The value of record <i>row</i>, copied into <i>reuse</i> if not null. */
+    public Utf8 getUtf8(int row, Utf8 reuse) {
+      Utf8 result = reuse != null ? reuse : new Utf8();
+      int length = getLength(row);
+      result.setByteLength(length);
+      System.arraycopy(arena, offsets[row], result.getBytes(), 0, length);
+      return result;
+    }
+
+    @Override
+    void clear() {
+      offsets[0] = 0;
+    }
+
+    @Override
+    void readValue(BinaryDecoder in, int row) throws IOException {
+      int length = fixedSize;
+      if (length < 0) {
+        long l = in.readLong();
+        if (l < 0)
+          throw new AIngleRuntimeException("Malformed data. Length is negative: " + l);
+        length = (int) Math.min(l, Integer.MAX_VALUE);
+      }
+      int start = offsets[row];
+      long end = (long) start + length;
+      if (end > BinaryDecoder.MAX_ARRAY_SIZE)
+        throw new UnsupportedOperationException("Cannot hold more than " + BinaryDecoder.MAX_ARRAY_SIZE
+            + " bytes in column " + getField().name());
+      if (end > arena.length)
+        arena = Arrays.copyOf(arena, (int) Math.min(Math.max(2L * arena.length, end), BinaryDecoder.MAX_ARRAY_SIZE));
+      in.readFixed(arena, start, length);
+      offsets[row + 1] = (int) end;
+    }
+
+    @Override
+    void readNull(int row) {
+      offsets[row + 1] = offsets[row];
+    }
+  }
+}
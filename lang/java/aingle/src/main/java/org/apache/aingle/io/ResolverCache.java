@@ -0,0 +1,233 @@
+/*
+
+ */
+package org.apache.aingle.io;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.aingle.Schema;
+import org.apache.aingle.SchemaNormalization;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A bounded cache of the resolvers returned by
+ * {@link ResolvingDecoder#resolve(Schema, Schema)}, shared by all threads.
+ * Resolvers are immutable, so each thread only needs a decoder of its own on
+ * top of a cached resolver, see
+ * {@link DecoderFactory#resolvingDecoder(Object, Decoder)}.
+ * <p/>
+ * Entries are keyed by the 64-bit fingerprints of the full JSON of the writer's
+ * and reader's schemas, so that equal schemas parsed separately share their
+ * resolver. When the cache is full, the least recently used entry is evicted.
+ * Lookups with the very schema instances of a recent lookup skip computing the
+ * fingerprints: schemas must not be changed once used to read.
+ * <p/>
+ * The size of the {@link #get() default cache} is set with the
+ * <tt>org.apache.aingle.resolver.cache.size</tt> system property.
+ */
+public final class ResolverCache {
+  private static final String SIZE_PROPERTY = "org.apache.aingle.resolver.cache.size";
+  private static final int DEFAULT_SIZE = 1024;
+  private static final ResolverCache INSTANCE;
+
+  static {
+    String o = System.getProperty(SIZE_PROPERTY);
+    int i = DEFAULT_SIZE;
+    if (o != null) {
+      try {
+        i = Integer.parseUnsignedInt(o);
+      } catch (NumberFormatException nfe) {
+        LoggerFactory.getLogger(ResolverCache.class).warn("Could not parse property " + SIZE_PROPERTY + ": " + o, nfe);
+      }
+    }
+    INSTANCE = new ResolverCache(i);
+  }
+
+  private final int maxSize;
+  private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private final LinkedHashMap<SameKey, Entry> sameEntries; // synchronized on entries
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  /**
+   * Create a cache holding at most <i>maxSize</i> resolvers. A cache of size
+   * zero caches nothing.
+   */
+  public ResolverCache(int maxSize) {
+    if (maxSize < 0) {
+      throw new IllegalArgumentException("Negative cache size: " + maxSize);
+    }
+    this.maxSize = maxSize;
+    this.sameEntries = new LinkedHashMap<SameKey, Entry>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<SameKey, Entry> eldest) {
+        return size() > maxSize;
+      }
+    };
+  }
+
+  /** Return the cache shared by the readers of this JVM. */
+  public static ResolverCache get() {
+    return INSTANCE;
+  }
+
+  /**
+   * Return the resolver of data written with <i>writer</i> and read with
+   * <i>reader</i>. The reader's aliases are applied to the writer's schema
+   * before resolving.
+   */
+  public Object getResolver(Schema writer, Schema reader) throws IOException {
+    SameKey sameKey = new SameKey(writer, reader);
+    Entry entry;
+    synchronized (entries) {
+      entry = sameEntries.get(sameKey);
+    }
+    if (entry != null) {
+      hits.increment();
+      return entry.resolver;
+    }
+    Key key = new Key(fingerprint(writer), fingerprint(reader));
+    synchronized (entries) {
+      entry = entries.get(key);
+    }
+    // fingerprints may collide: only use an entry resolved for equal schemas
+    if (entry != null && entry.writer.equals(writer) && entry.reader.equals(reader)) {
+      hits.increment();
+      synchronized (entries) {
+        sameEntries.put(sameKey, entry);
+      }
+      return entry.resolver;
+    }
+    misses.increment();
+    Object resolver = ResolvingDecoder.resolve(Schema.applyAliases(writer, reader), reader);
+    if (entry == null && maxSize > 0) {
+      synchronized (entries) {
+        Entry added = new Entry(writer, reader, resolver);
+        Entry previous = entries.putIfAbsent(key, added);
+        if (previous != null) {
+          return previous.resolver;
+        }
+        sameEntries.put(sameKey, added);
+        Iterator<Entry> i = entries.values().iterator();
+        while (entries.size() > maxSize) {
+          i.next();
+          i.remove();
+          evictions.increment();
+        }
+      }
+    }
+    return resolver;
+  }
+
+  /** Return the maximum number of resolvers held. */
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+  /** Return the number of resolvers held. */
+  public int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  /** Return the number of lookups that found a cached resolver. */
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  /** Return the number of lookups that had to resolve the schemas. */
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  /** Return the number of resolvers evicted because the cache was full. */
+  public long getEvictionCount() {
+    return evictions.sum();
+  }
+
+  /** Remove all resolvers. Statistics are kept. */
+  public void clear() {
+    synchronized (entries) {
+      entries.clear();
+      sameEntries.clear();
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "ResolverCache{size=" + size() + ", maxSize=" + maxSize + ", hits=" + getHitCount() + ", misses="
+        + getMissCount() + ", evictions=" + getEvictionCount() + "}";
+  }
+
+  private static long fingerprint(Schema schema) {
+    return SchemaNormalization.fingerprint64(schema.toString().getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static final class Key {
+    private final long writer;
+    private final long reader;
+
+    Key(long writer, long reader) {
+      this.writer = writer;
+      this.reader = reader;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key that = (Key) o;
+      return writer == that.writer && reader == that.reader;
+    }
+
+    @Override
+    public int hashCode() {
+      return Long.hashCode(writer * 31 + reader);
+    }
+  }
+
+  /** Matches the very same schema instances only. */
+  private static final class SameKey {
+    private final Schema writer;
+    private final Schema reader;
+
+    SameKey(Schema writer, Schema reader) {
+      this.writer = writer;
+      this.reader = reader;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof SameKey)) {
+        return false;
+      }
+      SameKey that = (SameKey) o;
+      return writer == that.writer && reader == that.reader;
+    }
+
+    @Override
+    public int hashCode() {
+      return System.identityHashCode(writer) * 31 + System.identityHashCode(reader);
+    }
+  }
+
+  private static final class Entry {
+    final Schema writer;
+    final Schema reader;
+    final Object resolver;
+
+    Entry(Schema writer, Schema reader, Object resolver) {
+      this.writer = writer;
+      this.reader = reader;
+      this.resolver = resolver;
+    }
+  }
+}
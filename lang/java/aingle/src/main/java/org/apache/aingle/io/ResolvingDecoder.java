@@ -46,7 +46,7 @@ public class ResolvingDecoder extends ValidatingDecoder {
    * @param in       The underlying decoder.
    * @throws IOException
    */
-  private ResolvingDecoder(Object resolver, Decoder in) throws IOException {
+  ResolvingDecoder(Object resolver, Decoder in) throws IOException {
     super((Symbol) resolver, in);
   }
 
@@ -285,8 +285,12 @@ public class ResolvingDecoder extends ValidatingDecoder {
         return t.writer;
       }
     } else if (top instanceof Symbol.SkipAction) {
-      Symbol symToSkip = ((Symbol.SkipAction) top).symToSkip;
-      parser.skipSymbol(symToSkip);
+      Symbol.SkipAction skip = (Symbol.SkipAction) top;
+      if (skip.skipper != null && in instanceof BinaryDecoder) {
+        skip.skipper.skip(in);
+      } else {
+        parser.skipSymbol(skip.symToSkip);
+      }
     } else if (top instanceof Symbol.WriterUnionAction) {
       Symbol.Alternative branches = (Symbol.Alternative) parser.popSymbol();
       parser.pushSymbol(branches.getSymbol(in.readIndex()));
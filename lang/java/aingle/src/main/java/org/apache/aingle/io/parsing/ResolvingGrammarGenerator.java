@@ -6,6 +6,7 @@ package org.apache.aingle.io.parsing;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -16,6 +17,7 @@ import org.apache.aingle.AIngleTypeException;
 import org.apache.aingle.Resolver;
 import org.apache.aingle.Schema;
 import org.apache.aingle.Schema.Field;
+import org.apache.aingle.io.BinarySkipper;
 import org.apache.aingle.io.Encoder;
 import org.apache.aingle.io.EncoderFactory;
 import org.apache.aingle.util.internal.Accessor;
@@ -72,7 +74,7 @@ public class ResolvingGrammarGenerator extends ValidatingGrammarGenerator {
       return Symbol.error(action.toString());
 
     } else if (action instanceof Resolver.Skip) {
-      return Symbol.skipAction(simpleGen(action.writer, seen));
+      return Symbol.skipAction(simpleGen(action.writer, seen), BinarySkipper.of(action.writer));
 
     } else if (action instanceof Resolver.Promote) {
       return Symbol.resolve(simpleGen(action.writer, seen), simpleGen(action.reader, seen));
@@ -117,16 +119,23 @@ public class ResolvingGrammarGenerator extends ValidatingGrammarGenerator {
       Symbol result = seen.get(action);
       if (result == null) {
         final Resolver.RecordAdjust ra = (Resolver.RecordAdjust) action;
+        final Resolver.Action[] actions = ra.fieldActions;
         int defaultCount = ra.readerOrder.length - ra.firstDefault;
-        int count = 1 + ra.fieldActions.length + 3 * defaultCount;
+        int count = 1 + countFieldSymbols(actions) + 3 * defaultCount;
         final Symbol[] production = new Symbol[count];
         result = Symbol.seq(production);
         seen.put(action, result);
         production[--count] = Symbol.fieldOrderAction(ra.readerOrder);
 
-        final Resolver.Action[] actions = ra.fieldActions;
-        for (Resolver.Action wfa : actions) {
-          production[--count] = generate(wfa, seen);
+        for (int i = 0; i < actions.length;) {
+          if (actions[i] instanceof Resolver.Skip) {
+            // skip a run of consecutive dropped fields in one go
+            int end = skipRunEnd(actions, i);
+            production[--count] = skipRun(actions, i, end, seen);
+            i = end;
+          } else {
+            production[--count] = generate(actions[i++], seen);
+          }
         }
         for (int i = ra.firstDefault; i < ra.readerOrder.length; i++) {
           final Schema.Field rf = ra.readerOrder[i];
@@ -211,6 +220,40 @@ public class ResolvingGrammarGenerator extends ValidatingGrammarGenerator {
 
   private static EncoderFactory factory = new EncoderFactory().configureBufferSize(32);
 
+  /** The number of symbols for record fields, a run of skipped fields counting as one. */
+  private static int countFieldSymbols(Resolver.Action[] actions) {
+    int count = 0;
+    for (int i = 0; i < actions.length; i = skipRunEnd(actions, i)) {
+      count++;
+    }
+    return count;
+  }
+
+  /**
+   * The index past the run of skipped fields starting at <tt>start</tt>, or
+   * <tt>start + 1</tt> if that field is not skipped.
+   */
+  private static int skipRunEnd(Resolver.Action[] actions, int start) {
+    int end = start + 1;
+    if (actions[start] instanceof Resolver.Skip) {
+      while (end < actions.length && actions[end] instanceof Resolver.Skip) {
+        end++;
+      }
+    }
+    return end;
+  }
+
+  private Symbol skipRun(Resolver.Action[] actions, int start, int end, Map<Object, Symbol> seen) throws IOException {
+    List<Schema> schemas = new ArrayList<>(end - start);
+    Symbol[] symbols = new Symbol[end - start];
+    for (int i = start; i < end; i++) {
+      schemas.add(actions[i].writer);
+      symbols[end - 1 - i] = simpleGen(actions[i].writer, seen);
+    }
+    Symbol symToSkip = symbols.length == 1 ? symbols[0] : Symbol.seq(symbols);
+    return Symbol.skipAction(symToSkip, BinarySkipper.of(schemas));
+  }
+
   /**
    * Returns the AIngle binary encoded version of <tt>n</tt> according to the schema
    * <tt>s</tt>.
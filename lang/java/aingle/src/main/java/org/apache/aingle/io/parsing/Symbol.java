@@ -13,6 +13,7 @@ import java.util.NoSuchElementException;
 import java.util.Set;
 
 import org.apache.aingle.Schema;
+import org.apache.aingle.io.BinarySkipper;
 
 /**
  * Symbol is the base of all symbols (terminals and non-terminals) of the
@@ -549,18 +550,33 @@ public abstract class Symbol {
     return new SkipAction(symToSkip);
   }
 
+  /**
+   * A skip action that binary decoders can perform with <tt>skipper</tt> instead
+   * of walking through <tt>symToSkip</tt>.
+   */
+  public static SkipAction skipAction(Symbol symToSkip, BinarySkipper skipper) {
+    return new SkipAction(symToSkip, skipper);
+  }
+
   public static class SkipAction extends ImplicitAction {
     public final Symbol symToSkip;
+    /** Skips the same data as symToSkip, or null. */
+    public final BinarySkipper skipper;
 
     @Deprecated
     public SkipAction(Symbol symToSkip) {
+      this(symToSkip, null);
+    }
+
+    private SkipAction(Symbol symToSkip, BinarySkipper skipper) {
       super(true);
       this.symToSkip = symToSkip;
+      this.skipper = skipper;
     }
 
     @Override
     public SkipAction flatten(Map<Sequence, Sequence> map, Map<Sequence, List<Fixup>> map2) {
-      return new SkipAction(symToSkip.flatten(map, map2));
+      return new SkipAction(symToSkip.flatten(map, map2), skipper);
     }
 
   }
@@ -0,0 +1,261 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.aingle.message;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.aingle.AIngleRuntimeException;
+import org.apache.aingle.Schema;
+import org.apache.aingle.SchemaNormalization;
+
+/**
+ * A bounded cache of schemas by AINGLE-CRC-64 fingerprint, that loads the
+ * schemas it misses from another {@link SchemaStore}, such as a
+ * {@link DirectorySchemaStore} or a client of a schema registry.
+ * <p>
+ * When more than the maximum number of schemas are cached, the least recently
+ * used are evicted. Concurrent lookups of the same missing fingerprint are
+ * loaded once, and fingerprints the loader could not find are remembered for a
+ * while, so that unknown fingerprints do not reach the loader on every lookup.
+ * <p>
+ * This class is thread-safe.
+ */
+public class CachingSchemaStore implements SchemaStore {
+  /** Default time unknown fingerprints are remembered, in milliseconds. */
+  public static final long DEFAULT_NEGATIVE_TTL_MILLIS = 60_000L;
+
+  private final SchemaStore loader;
+  private final int maxSize;
+  private final long negativeTtlNanos;
+  private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private final ConcurrentMap<Long, CompletableFuture<Schema>> loading = new ConcurrentHashMap<>();
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder negativeHits = new LongAdder();
+  private final LongAdder loads = new LongAdder();
+  private final LongAdder loadFailures = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  /**
+   * Creates a cache holding at most <i>maxSize</i> schemas, that remembers
+   * unknown fingerprints for {@link #DEFAULT_NEGATIVE_TTL_MILLIS}.
+   *
+   * @param loader  a {@link SchemaStore} to load missing schemas from, or null
+   * @param maxSize the maximum number of schemas held
+   */
+  public CachingSchemaStore(SchemaStore loader, int maxSize) {
+    this(loader, maxSize, DEFAULT_NEGATIVE_TTL_MILLIS, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Creates a cache holding at most <i>maxSize</i> schemas.
+   *
+   * @param loader      a {@link SchemaStore} to load missing schemas from, or
+   *                    null
+   * @param maxSize     the maximum number of schemas held
+   * @param negativeTtl how long unknown fingerprints are remembered; zero
+   *                    disables negative caching
+   * @param unit        the unit of <i>negativeTtl</i>
+   */
+  public CachingSchemaStore(SchemaStore loader, int maxSize, long negativeTtl, TimeUnit unit) {
+    if (maxSize <= 0) {
+      throw new IllegalArgumentException("Cache size must be positive: " + maxSize);
+    }
+    if (negativeTtl < 0) {
+      throw new IllegalArgumentException("Negative TTL: " + negativeTtl);
+    }
+    this.loader = loader;
+    this.maxSize = maxSize;
+    this.negativeTtlNanos = unit.toNanos(negativeTtl);
+  }
+
+  /**
+   * Adds a schema to this cache that can be retrieved using its AINGLE-CRC-64
+   * fingerprint.
+   *
+   * @param schema a {@link Schema}
+   */
+  public void addSchema(Schema schema) {
+    put(SchemaNormalization.parsingFingerprint64(schema), new Entry(schema, 0));
+  }
+
+  /**
+   * Retrieves a schema by its AINGLE-CRC-64 fingerprint, loading it if it is not
+   * cached.
+   *
+   * @param fingerprint an AINGLE-CRC-64 fingerprint long
+   * @return a Schema with the given fingerprint, or null
+   * @throws AIngleRuntimeException if the loader failed
+   */
+  @Override
+  public Schema findByFingerprint(long fingerprint) {
+    Entry entry;
+    synchronized (entries) {
+      entry = entries.get(fingerprint);
+    }
+    if (entry != null) {
+      if (entry.schema != null) {
+        hits.increment();
+        return entry.schema;
+      }
+      if (System.nanoTime() - entry.expiresNanos < 0) {
+        negativeHits.increment();
+        return null;
+      }
+    }
+    misses.increment();
+    if (loader == null) {
+      return null;
+    }
+
+    CompletableFuture<Schema> future = new CompletableFuture<>();
+    CompletableFuture<Schema> existing = loading.putIfAbsent(fingerprint, future);
+    if (existing != null) {
+      return join(existing);
+    }
+    try {
+      synchronized (entries) {
+        entry = entries.get(fingerprint);
+      }
+      if (entry != null && entry.schema != null) {
+        // loaded by another thread since the lookup above
+        future.complete(entry.schema);
+        return entry.schema;
+      }
+      loads.increment();
+      Schema schema = loader.findByFingerprint(fingerprint);
+      if (schema != null) {
+        put(fingerprint, new Entry(schema, 0));
+      } else if (negativeTtlNanos > 0) {
+        put(fingerprint, new Entry(null, System.nanoTime() + negativeTtlNanos));
+      }
+      future.complete(schema);
+      return schema;
+    } catch (Throwable e) { // complete for waiting threads whatever was thrown
+      loadFailures.increment();
+      future.completeExceptionally(e);
+      throw e;
+    } finally {
+      loading.remove(fingerprint, future);
+    }
+  }
+
+  private static Schema join(CompletableFuture<Schema> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new AIngleRuntimeException(cause);
+    }
+  }
+
+  private void put(long fingerprint, Entry entry) {
+    synchronized (entries) {
+      entries.put(fingerprint, entry);
+      Iterator<Entry> i = entries.values().iterator();
+      while (entries.size() > maxSize) {
+        i.next();
+        i.remove();
+        evictions.increment();
+      }
+    }
+  }
+
+  /** Removes all schemas and unknown fingerprints. Statistics are kept. */
+  public void clear() {
+    synchronized (entries) {
+      entries.clear();
+    }
+  }
+
+  /** Returns the maximum number of schemas held. */
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+  /** Returns the number of schemas and unknown fingerprints held. */
+  public int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  /** Returns the number of lookups that found a cached schema. */
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  /** Returns the number of lookups that found no cached schema. */
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  /** Returns the number of lookups of fingerprints known to be unknown. */
+  public long getNegativeHitCount() {
+    return negativeHits.sum();
+  }
+
+  /** Returns the number of calls to the loader. */
+  public long getLoadCount() {
+    return loads.sum();
+  }
+
+  /** Returns the number of calls to the loader that failed. */
+  public long getLoadFailureCount() {
+    return loadFailures.sum();
+  }
+
+  /** Returns the number of entries evicted because the cache was full. */
+  public long getEvictionCount() {
+    return evictions.sum();
+  }
+
+  @Override
+  public String toString() {
+    return "CachingSchemaStore{size=" + size() + ", maxSize=" + maxSize + ", hits=" + getHitCount() + ", misses="
+        + getMissCount() + ", negativeHits=" + getNegativeHitCount() + ", loads=" + getLoadCount()
+        + ", loadFailures=" + getLoadFailureCount() + ", evictions=" + getEvictionCount() + "}";
+  }
+
+  /** A cached schema, or an unknown fingerprint if the schema is null. */
+  private static final class Entry {
+    final Schema schema;
+    final long expiresNanos;
+
+    Entry(Schema schema, long expiresNanos) {
+      this.schema = schema;
+      this.expiresNanos = expiresNanos;
+    }
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.aingle.message;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import org.apache.aingle.AIngleRuntimeException;
+import org.apache.aingle.Schema;
+import org.apache.aingle.SchemaNormalization;
+
+/**
+ * A {@link SchemaStore} backed by a directory holding one schema per file,
+ * named after the AINGLE-CRC-64 fingerprint of the schema in hexadecimal, with
+ * an <tt>.avsc</tt> extension.
+ * <p>
+ * This stands in for a schema registry, typically behind a
+ * {@link CachingSchemaStore}. This class is thread-safe.
+ */
+public class DirectorySchemaStore implements SchemaStore {
+  private static final String EXTENSION = ".avsc";
+
+  private final File directory;
+
+  /**
+   * Creates a store reading and writing schemas in <i>directory</i>.
+   *
+   * @param directory an existing directory
+   */
+  public DirectorySchemaStore(File directory) {
+    if (!directory.isDirectory()) {
+      throw new IllegalArgumentException("Not a directory: " + directory);
+    }
+    this.directory = directory;
+  }
+
+  /** Returns the file holding the schema with the given fingerprint. */
+  public File getFile(long fingerprint) {
+    return new File(directory, String.format("%016x", fingerprint) + EXTENSION);
+  }
+
+  /**
+   * Writes a schema to this store, so that it can be retrieved using its
+   * AINGLE-CRC-64 fingerprint.
+   *
+   * @param schema a {@link Schema}
+   * @throws IOException if the schema could not be written
+   */
+  public void addSchema(Schema schema) throws IOException {
+    File file = getFile(SchemaNormalization.parsingFingerprint64(schema));
+    // write to a temporary file first, so that readers never see partial schemas
+    File tmp = File.createTempFile(file.getName(), ".tmp", directory);
+    try {
+      Files.write(tmp.toPath(), schema.toString().getBytes(StandardCharsets.UTF_8));
+      Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(tmp.toPath());
+    }
+  }
+
+  /**
+   * Retrieves a schema by its AINGLE-CRC-64 fingerprint.
+   *
+   * @param fingerprint an AINGLE-CRC-64 fingerprint long
+   * @return a Schema with the given fingerprint, or null
+   * @throws AIngleRuntimeException if the schema could not be read, or its
+   *                                fingerprint does not match its file
+   */
+  @Override
+  public Schema findByFingerprint(long fingerprint) {
+    File file = getFile(fingerprint);
+    if (!file.isFile()) {
+      return null;
+    }
+    Schema schema;
+    try {
+      schema = new Schema.Parser().parse(file);
+    } catch (IOException e) {
+      throw new AIngleRuntimeException("Cannot read schema from " + file, e);
+    }
+    if (SchemaNormalization.parsingFingerprint64(schema) != fingerprint) {
+      throw new AIngleRuntimeException("Schema in " + file + " does not match its fingerprint");
+    }
+    return schema;
+  }
+
+  @Override
+  public String toString() {
+    return "DirectorySchemaStore{" + directory + "}";
+  }
+}
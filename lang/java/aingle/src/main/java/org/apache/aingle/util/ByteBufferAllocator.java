@@ -0,0 +1,28 @@
+/*
+
+ */
+package org.apache.aingle.util;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Supplies the {@link ByteBuffer}s that an encoder writes into, and takes them
+ * back once their content has been consumed.
+ *
+ * @see PooledByteBufferAllocator
+ * @see org.apache.aingle.io.ByteBufferBinaryEncoder
+ */
+public interface ByteBufferAllocator {
+
+  /**
+   * Return an empty buffer, with position 0 and a limit equal to its capacity,
+   * which must be at least <i>capacity</i>.
+   */
+  ByteBuffer allocate(int capacity);
+
+  /**
+   * Give back a buffer obtained from {@link #allocate(int)}. The caller must not
+   * use the buffer, or any view of it, afterwards.
+   */
+  void release(ByteBuffer buffer);
+}
@@ -0,0 +1,83 @@
+/*
+
+ */
+package org.apache.aingle.util;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A thread-safe {@link ByteBufferAllocator} that recycles buffers of a single
+ * size. Released buffers of that size are kept, up to a maximum count, and
+ * handed out again by {@link #allocate(int)}; requests for larger buffers and
+ * buffers released while the pool is full are left to the garbage collector.
+ * <p/>
+ * Direct buffers are costly to allocate and only freed when collected, so
+ * pooling them keeps a steady stream of small messages from churning memory.
+ */
+public class PooledByteBufferAllocator implements ByteBufferAllocator {
+  private final int bufferSize;
+  private final boolean direct;
+  private final BlockingQueue<ByteBuffer> pool;
+  private final AtomicLong allocated = new AtomicLong();
+  private final AtomicLong recycled = new AtomicLong();
+
+  /**
+   * @param bufferSize the capacity of pooled buffers.
+   * @param maxPooled  the maximum number of idle buffers kept.
+   * @param direct     true to allocate direct buffers, false for heap buffers.
+   */
+  public PooledByteBufferAllocator(int bufferSize, int maxPooled, boolean direct) {
+    if (bufferSize < 1 || maxPooled < 1) {
+      throw new IllegalArgumentException("Invalid buffer size " + bufferSize + " or pool size " + maxPooled);
+    }
+    this.bufferSize = bufferSize;
+    this.direct = direct;
+    this.pool = new ArrayBlockingQueue<>(maxPooled);
+  }
+
+  /** The capacity of the buffers this allocator recycles. */
+  public int getBufferSize() {
+    return bufferSize;
+  }
+
+  @Override
+  public ByteBuffer allocate(int capacity) {
+    if (capacity <= bufferSize) {
+      ByteBuffer buffer = pool.poll();
+      if (buffer != null) {
+        recycled.incrementAndGet();
+        return buffer;
+      }
+      capacity = bufferSize;
+    }
+    allocated.incrementAndGet();
+    return direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+  }
+
+  @Override
+  public void release(ByteBuffer buffer) {
+    if (buffer.capacity() == bufferSize && buffer.isDirect() == direct) {
+      ((Buffer) buffer).clear();
+      pool.offer(buffer);
+    }
+  }
+
+  /** The number of idle buffers in the pool. */
+  public int getPooledCount() {
+    return pool.size();
+  }
+
+  /** The number of buffers allocated so far, as opposed to recycled. */
+  public long getAllocatedCount() {
+    return allocated.get();
+  }
+
+  /** The number of buffers handed out again after being released. */
+  public long getRecycledCount() {
+    return recycled.get();
+  }
+}
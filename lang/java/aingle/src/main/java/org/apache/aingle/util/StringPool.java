@@ -0,0 +1,124 @@
+/*
+
+ */
+package org.apache.aingle.util;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A fixed-size cache of the Strings decoded from short UTF-8 byte sequences,
+ * so that values repeated in data, like enumerations, identifiers or map keys,
+ * are decoded once and share a single String instance.
+ *
+ * <p>
+ * The pool is direct-mapped by the hash of the bytes: a sequence that maps to an
+ * occupied slot replaces its entry. Lookups never block and instances may be
+ * shared by threads.
+ *
+ * @see org.apache.aingle.io.DecoderFactory#configureStringPool(StringPool)
+ */
+public final class StringPool {
+  /** Sequences longer than this many bytes are not pooled by default. */
+  public static final int DEFAULT_MAX_LENGTH = 32;
+
+  private static final class Entry {
+    final byte[] bytes;
+    final int hash;
+    final String string;
+
+    Entry(byte[] bytes, int hash, String string) {
+      this.bytes = bytes;
+      this.hash = hash;
+      this.string = string;
+    }
+  }
+
+  private final Entry[] entries;
+  private final int mask;
+  private final int maxLength;
+
+  /** Create a pool of at least <i>capacity</i> entries. */
+  public StringPool(int capacity) {
+    this(capacity, DEFAULT_MAX_LENGTH);
+  }
+
+  /**
+   * Create a pool of at least <i>capacity</i> entries, holding sequences of at
+   * most <i>maxLength</i> bytes.
+   */
+  public StringPool(int capacity, int maxLength) {
+    if (capacity < 1 || capacity > (1 << 30)) {
+      throw new IllegalArgumentException("Invalid capacity: " + capacity);
+    }
+    if (maxLength < 0) {
+      throw new IllegalArgumentException("Invalid maxLength: " + maxLength);
+    }
+    int size = Integer.highestOneBit(capacity);
+    if (size < capacity) {
+      size <<= 1;
+    }
+    this.entries = new Entry[size];
+    this.mask = size - 1;
+    this.maxLength = maxLength;
+  }
+
+  /** Return the maximum length in bytes of pooled sequences. */
+  public int getMaxLength() {
+    return maxLength;
+  }
+
+  /** Return the String decoded from the UTF-8 bytes of a sequence. */
+  public String get(byte[] bytes, int offset, int length) {
+    if (length > maxLength) {
+      return new String(bytes, offset, length, StandardCharsets.UTF_8);
+    }
+    return lookup(bytes, offset, length, hash(bytes, offset, length)).string;
+  }
+
+  /**
+   * Cache in <i>utf8</i> the pooled String of its bytes, so that
+   * {@link Utf8#toString()} returns it without decoding. Returns <i>utf8</i>.
+   */
+  public Utf8 intern(Utf8 utf8) {
+    int length = utf8.getByteLength();
+    if (length <= maxLength) {
+      byte[] bytes = utf8.getBytes();
+      int hash = hash(bytes, 0, length);
+      utf8.cache(lookup(bytes, 0, length, hash).string, hash);
+    }
+    return utf8;
+  }
+
+  private Entry lookup(byte[] bytes, int offset, int length, int hash) {
+    int slot = (hash ^ (hash >>> 16)) & mask;
+    Entry entry = entries[slot];
+    if (entry == null || entry.hash != hash || !matches(entry.bytes, bytes, offset, length)) {
+      byte[] copy = new byte[length];
+      System.arraycopy(bytes, offset, copy, 0, length);
+      entry = new Entry(copy, hash, new String(copy, StandardCharsets.UTF_8));
+      entries[slot] = entry;
+    }
+    return entry;
+  }
+
+  // the same as Utf8#hashCode()
+  private static int hash(byte[] bytes, int offset, int length) {
+    int hash = 0;
+    for (int i = offset; i < offset + length; i++) {
+      hash = hash * 31 + bytes[i];
+    }
+    return hash;
+  }
+
+  private static boolean matches(byte[] pooled, byte[] bytes, int offset, int length) {
+    if (pooled.length != length) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      if (pooled[i] != bytes[offset + i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -37,6 +37,7 @@ public class Utf8 implements Comparable<Utf8>, CharSequence {
   private int hash;
   private int length;
   private String string;
+  private byte ascii; // 1 if all bytes are ASCII, -1 if not, 0 if not yet known
 
   public Utf8() {
     bytes = EMPTY;
@@ -56,6 +57,7 @@ public class Utf8 implements Comparable<Utf8>, CharSequence {
     this.bytes = Arrays.copyOf(other.bytes, other.length);
     this.string = other.string;
     this.hash = other.hash;
+    this.ascii = other.ascii;
   }
 
   public Utf8(byte[] bytes) {
@@ -110,6 +112,7 @@ public class Utf8 implements Comparable<Utf8>, CharSequence {
     this.length = newLength;
     this.string = null;
     this.hash = 0;
+    this.ascii = 0;
     return this;
   }
 
@@ -122,6 +125,7 @@ public class Utf8 implements Comparable<Utf8>, CharSequence {
     this.length = length;
     this.string = string;
     this.hash = 0;
+    this.ascii = 0;
     return this;
   }
 
@@ -133,6 +137,7 @@ public class Utf8 implements Comparable<Utf8>, CharSequence {
     System.arraycopy(other.bytes, 0, bytes, 0, length);
     this.string = other.string;
     this.hash = other.hash;
+    this.ascii = other.ascii;
     return this;
   }
 
@@ -176,24 +181,115 @@ public class Utf8 implements Comparable<Utf8>, CharSequence {
     return h;
   }
 
+  /** Cache a String and hash code known to be those of the current bytes. */
+  void cache(String string, int hash) {
+    this.string = string;
+    this.hash = hash;
+  }
+
   @Override
   public int compareTo(Utf8 that) {
     return BinaryData.compareBytes(this.bytes, 0, this.length, that.bytes, 0, that.length);
   }
 
-  // CharSequence implementation
+  /**
+   * Compare to the UTF-8 encoding of a character sequence, as
+   * {@link #compareTo(Utf8)} would compare to a Utf8 holding it, but without
+   * converting either.
+   */
+  public int compareTo(CharSequence chars) {
+    if (chars instanceof Utf8)
+      return compareTo((Utf8) chars);
+    byte[] bytes = this.bytes;
+    int length = this.length;
+    int position = 0;
+    int n = chars.length();
+    for (int i = 0; i < n; i++) {
+      int c = chars.charAt(i);
+      if (c < 0x80) { // ASCII
+        if (position == length)
+          return -1;
+        int d = (bytes[position++] & 0xFF) - c;
+        if (d != 0)
+          return d;
+        continue;
+      }
+      if (Character.isHighSurrogate((char) c) && i + 1 < n && Character.isLowSurrogate(chars.charAt(i + 1)))
+        c = Character.toCodePoint((char) c, chars.charAt(++i));
+      else if (Character.isSurrogate((char) c))
+        c = '?'; // as encoded by String.getBytes()
+      int count = c < 0x80 ? 1 : c < 0x800 ? 2 : c < 0x10000 ? 3 : 4;
+      for (int k = 0; k < count; k++) {
+        if (position == length)
+          return -1;
+        int d = (bytes[position++] & 0xFF) - encodedByte(c, count, k);
+        if (d != 0)
+          return d;
+      }
+    }
+    return length - position;
+  }
+
+  // the k-th byte of the count-byte UTF-8 encoding of a code point
+  private static int encodedByte(int codePoint, int count, int k) {
+    if (count == 1)
+      return codePoint;
+    int shift = 6 * (count - 1 - k);
+    if (k == 0)
+      return ((0xFF00 >> count) & 0xFF) | (codePoint >> shift);
+    return 0x80 | ((codePoint >> shift) & 0x3F);
+  }
+
+  /**
+   * Return true if this holds the UTF-8 encoding of a character sequence. Unlike
+   * {@link #equals(Object)}, which is only true for another Utf8, this compares
+   * to any sequence, without converting either.
+   */
+  public boolean contentEquals(CharSequence chars) {
+    if (string != null && string.contentEquals(chars))
+      return true;
+    return compareTo(chars) == 0;
+  }
+
+  private boolean isAscii() {
+    if (ascii == 0) {
+      ascii = 1;
+      for (int i = 0; i < length; i++) {
+        if (bytes[i] < 0) {
+          ascii = -1;
+          break;
+        }
+      }
+    }
+    return ascii > 0;
+  }
+
+  // CharSequence implementation. ASCII content is read from the bytes, without
+  // decoding them to a String.
   @Override
   public char charAt(int index) {
+    if (string == null && isAscii()) {
+      if (index < 0 || index >= length)
+        throw new StringIndexOutOfBoundsException(index);
+      return (char) bytes[index];
+    }
     return toString().charAt(index);
   }
 
   @Override
   public int length() {
+    if (string == null && isAscii())
+      return length;
     return toString().length();
   }
 
   @Override
   public CharSequence subSequence(int start, int end) {
+    if (string == null && isAscii()) {
+      if (start < 0 || end > length || start > end)
+        throw new StringIndexOutOfBoundsException("start " + start + ", end " + end + ", length " + length);
+      return new String(bytes, start, end - start, StandardCharsets.US_ASCII);
+    }
     return toString().subSequence(start, end);
   }
 
@@ -0,0 +1,111 @@
+/*
+
+ */
+package org.apache.aingle;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.aingle.file.CodecFactory;
+import org.apache.aingle.file.DataFileReader;
+import org.apache.aingle.file.DataFileWriter;
+import org.apache.aingle.generic.GenericDatumReader;
+import org.apache.aingle.generic.GenericDatumWriter;
+import org.apache.aingle.util.RandomData;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TestDataFileParallelRead {
+  private static final Schema SCHEMA = new Schema.Parser()
+      .parse("{\"type\":\"record\",\"name\":\"R\",\"fields\":[" + "{\"name\":\"id\",\"type\":\"long\"},"
+          + "{\"name\":\"name\",\"type\":\"string\"},"
+          + "{\"name\":\"tags\",\"type\":{\"type\":\"array\",\"items\":\"string\"}}]}");
+  private static final int COUNT = 5000;
+
+  @Rule
+  public TemporaryFolder tmp = new TemporaryFolder();
+
+  private ExecutorService executor;
+  private File file;
+  private final List<Object> expected = new ArrayList<>();
+  private final List<Long> syncs = new ArrayList<>();
+
+  @Before
+  public void writeFile() throws IOException {
+    executor = Executors.newFixedThreadPool(3);
+    file = new File(tmp.getRoot(), "parallel.aingle");
+    try (DataFileWriter<Object> writer = new DataFileWriter<>(new GenericDatumWriter<>(SCHEMA))) {
+      writer.setCodec(CodecFactory.deflateCodec(6)).setSyncInterval(1024);
+      writer.create(SCHEMA, file);
+      for (Object datum : new RandomData(SCHEMA, COUNT, 42L)) {
+        if (expected.size() % 500 == 0) {
+          syncs.add(writer.sync());
+        }
+        writer.append(datum);
+        expected.add(datum);
+      }
+    }
+  }
+
+  @After
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void testReadInOrder() throws IOException {
+    try (DataFileReader<Object> reader = new DataFileReader<>(file, new GenericDatumReader<>())) {
+      reader.setParallelRead(executor, 4);
+      assertTrue(reader.isParallelRead());
+      int i = 0;
+      for (Object datum : reader) {
+        assertEquals(expected.get(i++), datum);
+      }
+      assertEquals(COUNT, i);
+      assertFalse(reader.hasNext());
+    }
+  }
+
+  @Test
+  public void testSeek() throws IOException {
+    try (DataFileReader<Object> reader = new DataFileReader<>(file, new GenericDatumReader<>())) {
+      reader.setParallelRead(executor, 2);
+      assertEquals(expected.get(0), reader.next());
+      for (int s = syncs.size() - 1; s >= 0; s--) {
+        reader.seek(syncs.get(s));
+        assertEquals(expected.get(s * 500), reader.next());
+        assertEquals(expected.get(s * 500 + 1), reader.next());
+      }
+    }
+  }
+
+  @Test
+  public void testPastSync() throws IOException {
+    // split the file in two and check both halves together yield every entry once
+    long middle = file.length() / 2;
+    int count = 0;
+    try (DataFileReader<Object> reader = new DataFileReader<>(file, new GenericDatumReader<>())) {
+      reader.setParallelRead(executor, 3);
+      reader.sync(0);
+      while (reader.hasNext() && !reader.pastSync(middle)) {
+        assertEquals(expected.get(count++), reader.next());
+      }
+      reader.sync(middle);
+      while (reader.hasNext() && !reader.pastSync(file.length())) {
+        assertEquals(expected.get(count++), reader.next());
+      }
+    }
+    assertEquals(COUNT, count);
+  }
+}
@@ -0,0 +1,96 @@
+/*
+
+ */
+package org.apache.aingle;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.aingle.file.CodecFactory;
+import org.apache.aingle.file.DataFileReader;
+import org.apache.aingle.file.DataFileWriter;
+import org.apache.aingle.file.SeekableByteArrayInput;
+import org.apache.aingle.generic.GenericDatumReader;
+import org.apache.aingle.generic.GenericDatumWriter;
+import org.apache.aingle.util.RandomData;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TestDataFilePipelinedWrite {
+  private static final Schema SCHEMA = new Schema.Parser()
+      .parse("{\"type\":\"record\",\"name\":\"R\",\"fields\":[" + "{\"name\":\"id\",\"type\":\"long\"},"
+          + "{\"name\":\"name\",\"type\":\"string\"}]}");
+  private static final int COUNT = 5000;
+
+  @Rule
+  public TemporaryFolder tmp = new TemporaryFolder();
+
+  private final ExecutorService executor = Executors.newFixedThreadPool(3);
+
+  @After
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void testWriteInOrder() throws IOException {
+    File file = new File(tmp.getRoot(), "pipelined.aingle");
+    List<Object> expected = new ArrayList<>();
+    List<Long> syncs = new ArrayList<>();
+    try (DataFileWriter<Object> writer = new DataFileWriter<>(new GenericDatumWriter<>(SCHEMA))) {
+      writer.setCodec(CodecFactory.deflateCodec(9)).setSyncInterval(512).setCompressionExecutor(executor, 4);
+      writer.create(SCHEMA, file);
+      for (Object datum : new RandomData(SCHEMA, COUNT, 7L)) {
+        if (expected.size() % 1000 == 0) {
+          syncs.add(writer.sync());
+        }
+        writer.append(datum);
+        expected.add(datum);
+      }
+    }
+    try (DataFileReader<Object> reader = new DataFileReader<>(file, new GenericDatumReader<>())) {
+      int i = 0;
+      for (Object datum : reader) {
+        assertEquals(expected.get(i++), datum);
+      }
+      assertEquals(COUNT, i);
+      // positions returned by sync() must point at the block boundaries
+      for (int s = 0; s < syncs.size(); s++) {
+        reader.seek(syncs.get(s));
+        assertEquals(expected.get(s * 1000), reader.next());
+      }
+    }
+  }
+
+  @Test
+  public void testFlushWritesPendingBlocks() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    DataFileWriter<Object> writer = new DataFileWriter<>(new GenericDatumWriter<>(SCHEMA));
+    writer.setCodec(CodecFactory.deflateCodec(1)).setSyncInterval(64).setCompressionExecutor(executor, 2);
+    writer.create(SCHEMA, out);
+    List<Object> expected = new ArrayList<>();
+    for (Object datum : new RandomData(SCHEMA, 200, 11L)) {
+      writer.append(datum);
+      expected.add(datum);
+    }
+    writer.flush();
+    try (DataFileReader<Object> reader = new DataFileReader<>(new SeekableByteArrayInput(out.toByteArray()),
+        new GenericDatumReader<>())) {
+      for (Object datum : expected) {
+        assertEquals(datum, reader.next());
+      }
+      assertFalse(reader.hasNext());
+    }
+    writer.close();
+  }
+}
@@ -97,6 +97,22 @@ public class TestAllCodecs {
     Assert.assertEquals(decompressedBuffer, inputByteBuffer);
   }
 
+  @Test
+  public void testCodecDirectInput() throws IOException {
+    byte[] input = generateTestData(500_000);
+
+    Codec codecInstance = CodecFactory.fromString(codec).createInstance();
+    ByteBuffer compressedBuffer = codecInstance.compress(ByteBuffer.wrap(input));
+
+    // Compressed data may come from a memory-mapped file, not backed by an array
+    ByteBuffer directBuffer = ByteBuffer.allocateDirect(compressedBuffer.remaining());
+    directBuffer.put(compressedBuffer);
+    directBuffer.flip();
+
+    ByteBuffer decompressedBuffer = codecInstance.decompress(directBuffer);
+    Assert.assertEquals(ByteBuffer.wrap(input), decompressedBuffer);
+  }
+
   // Generate some test data that will compress easily
   public static byte[] generateTestData(int inputSize) {
     byte[] arr = new byte[inputSize];
@@ -0,0 +1,267 @@
+/*
+
+ */
+package org.apache.aingle.file;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import org.apache.aingle.AIngleRuntimeException;
+import org.apache.aingle.Schema;
+import org.apache.aingle.SchemaBuilder;
+import org.apache.aingle.generic.GenericData;
+import org.apache.aingle.generic.GenericDatumReader;
+import org.apache.aingle.generic.GenericDatumWriter;
+import org.apache.aingle.generic.GenericRecord;
+import org.apache.aingle.io.BinaryEncoder;
+import org.apache.aingle.io.EncoderFactory;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+@RunWith(Parameterized.class)
+public class TestBlockStatistics {
+  private static final Schema SCHEMA = SchemaBuilder.record("Event").fields() //
+      .requiredLong("ts") //
+      .requiredString("name") //
+      .optionalInt("code") //
+      .requiredDouble("value") //
+      .endRecord();
+  private static final int COUNT = 5000;
+
+  @Parameterized.Parameters(name = "{index}: codec={0}")
+  public static Collection<Object[]> data() {
+    return Arrays.asList(new Object[][] { { CodecFactory.nullCodec() }, { CodecFactory.deflateCodec(1) } });
+  }
+
+  @Parameterized.Parameter
+  public CodecFactory codec;
+
+  @Rule
+  public TemporaryFolder tmp = new TemporaryFolder();
+
+  private static GenericRecord record(long i) {
+    GenericRecord record = new GenericData.Record(SCHEMA);
+    record.put("ts", 1_000_000L + i * 10);
+    record.put("name", "n" + (i % 97));
+    record.put("code", i % 3 == 0 ? null : (int) (i % 1000));
+    record.put("value", i / 2.0);
+    return record;
+  }
+
+  private File write(long first, long count) throws IOException {
+    File file = tmp.newFile();
+    try (DataFileWriter<GenericRecord> writer = new DataFileWriter<>(new GenericDatumWriter<GenericRecord>())) {
+      writer.setCodec(codec).setSyncInterval(1024).setBlockStatistics("ts", "name", "code");
+      writer.create(SCHEMA, file);
+      for (long i = first; i < first + count; i++) {
+        writer.append(record(i));
+      }
+    }
+    return file;
+  }
+
+  private static List<GenericRecord> readAll(DataFileReader<GenericRecord> reader) {
+    List<GenericRecord> records = new ArrayList<>();
+    for (GenericRecord record : reader) {
+      records.add(record);
+    }
+    return records;
+  }
+
+  @Test
+  public void testStatistics() throws IOException {
+    File file = write(0, COUNT);
+    try (DataFileReader<GenericRecord> reader = new DataFileReader<>(file, new GenericDatumReader<>())) {
+      List<BlockStatistics> blocks = reader.getBlockStatistics();
+      assertTrue(blocks.size() > 10);
+      long i = 0;
+      for (BlockStatistics block : blocks) {
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        long nulls = 0;
+        reader.seek(block.getOffset());
+        for (long r = 0; r < block.getRecordCount(); r++, i++) {
+          GenericRecord record = reader.next();
+          assertEquals(record(i).get("ts"), record.get("ts"));
+          min = Math.min(min, (Long) record.get("ts"));
+          max = Math.max(max, (Long) record.get("ts"));
+          nulls += record.get("code") == null ? 1 : 0;
+        }
+        assertEquals(min, block.getMin("ts"));
+        assertEquals(max, block.getMax("ts"));
+        assertEquals(0, block.getNullCount("ts"));
+        assertEquals(nulls, block.getNullCount("code"));
+        assertTrue(block.hasStatistics("name"));
+        assertFalse(block.hasStatistics("value"));
+      }
+      assertEquals(COUNT, i);
+    }
+  }
+
+  @Test
+  public void testFilter() throws IOException {
+    File file = write(0, COUNT);
+    long lo = 1_000_000L + 2000 * 10;
+    long hi = 1_000_000L + 2100 * 10;
+    try (DataFileReader<GenericRecord> reader = new DataFileReader<>(file, new GenericDatumReader<>())) {
+      reader.setBlockFilter(BlockFilter.between("ts", lo, hi));
+      List<GenericRecord> records = readAll(reader);
+      assertTrue(reader.getSkippedBlockCount() > 0);
+      assertTrue(records.size() < COUNT / 10);
+      long matching = records.stream().filter(r -> (Long) r.get("ts") >= lo && (Long) r.get("ts") <= hi).count();
+      assertEquals(101, matching);
+      assertFalse(reader.hasNext());
+      assertFalse(reader.hasNext());
+    }
+  }
+
+  @Test
+  public void testFilterNoMatch() throws IOException {
+    File file = write(0, COUNT);
+    try (DataFileReader<GenericRecord> reader = new DataFileReader<>(file, new GenericDatumReader<>())) {
+      reader.setBlockFilter(BlockFilter.or(BlockFilter.equalTo("ts", 5), BlockFilter.equalTo("name", "none")));
+      assertFalse(reader.hasNext());
+      assertEquals(reader.getBlockStatistics().size(), reader.getSkippedBlockCount());
+    }
+  }
+
+  @Test
+  public void testFilterAndNull() throws IOException {
+    File file = write(0, COUNT);
+    try (DataFileReader<GenericRecord> reader = new DataFileReader<>(file, new GenericDatumReader<>())) {
+      reader.setBlockFilter(BlockFilter.and(BlockFilter.isNull("code"), BlockFilter.between("ts", null, 1_000_100L)));
+      List<GenericRecord> records = readAll(reader);
+      assertEquals(1_000_000L, records.get(0).get("ts"));
+      assertTrue(records.size() < COUNT);
+    }
+  }
+
+  @Test
+  public void testSplits() throws IOException {
+    File file = write(0, COUNT);
+    long length = file.length();
+    long total = 0;
+    for (long start = 0; start < length; start += 2000) {
+      try (DataFileReader<GenericRecord> reader = new DataFileReader<>(file, new GenericDatumReader<>())) {
+        reader.sync(start);
+        while (reader.hasNext() && !reader.pastSync(start + 2000)) {
+          reader.next();
+          total++;
+        }
+      }
+    }
+    assertEquals(COUNT, total);
+  }
+
+  @Test
+  public void testStreamReadersStopAtIndex() throws IOException {
+    File file = write(0, COUNT);
+    try (InputStream in = new FileInputStream(file);
+        DataFileStream<GenericRecord> stream = new DataFileStream<>(in, new GenericDatumReader<>())) {
+      long count = 0;
+      while (stream.hasNext()) {
+        stream.next();
+        count++;
+      }
+      assertEquals(COUNT, count);
+      assertFalse(stream.hasNext());
+    }
+  }
+
+  @Test
+  public void testAppendTo() throws IOException {
+    File file = write(0, COUNT);
+    int blocks;
+    try (DataFileReader<GenericRecord> reader = new DataFileReader<>(file, new GenericDatumReader<>())) {
+      blocks = reader.getBlockStatistics().size();
+    }
+    try (DataFileWriter<GenericRecord> writer = new DataFileWriter<>(new GenericDatumWriter<GenericRecord>())) {
+      writer.setSyncInterval(1024).appendTo(file);
+      for (long i = COUNT; i < 2 * COUNT; i++) {
+        writer.append(record(i));
+      }
+    }
+    try (DataFileReader<GenericRecord> reader = new DataFileReader<>(file, new GenericDatumReader<>())) {
+      List<BlockStatistics> stats = reader.getBlockStatistics();
+      assertTrue(stats.size() > blocks);
+      assertEquals(2 * COUNT, stats.stream().mapToLong(BlockStatistics::getRecordCount).sum());
+      assertEquals(2 * COUNT, readAll(reader).size());
+      reader.seek(stats.get(blocks).getOffset());
+      assertEquals(record(COUNT).get("ts"), reader.next().get("ts"));
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void testAppendToStream() throws IOException {
+    File file = write(0, 10);
+    try (DataFileWriter<GenericRecord> writer = new DataFileWriter<>(new GenericDatumWriter<GenericRecord>())) {
+      writer.appendTo(new SeekableFileInput(file), new ByteArrayOutputStream());
+    }
+  }
+
+  @Test
+  public void testAppendEncoded() throws IOException {
+    File file = tmp.newFile();
+    try (DataFileWriter<GenericRecord> writer = new DataFileWriter<>(new GenericDatumWriter<GenericRecord>())) {
+      writer.setCodec(codec).setBlockStatistics("ts");
+      writer.create(SCHEMA, file);
+      writer.append(record(0));
+      writer.sync();
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(out, null);
+      new GenericDatumWriter<GenericRecord>(SCHEMA).write(record(1), encoder);
+      encoder.flush();
+      writer.appendEncoded(ByteBuffer.wrap(out.toByteArray()));
+    }
+    try (DataFileReader<GenericRecord> reader = new DataFileReader<>(file, new GenericDatumReader<>())) {
+      List<BlockStatistics> stats = reader.getBlockStatistics();
+      assertEquals(2, stats.size());
+      assertTrue(stats.get(0).hasStatistics("ts"));
+      assertFalse(stats.get(1).hasStatistics("ts"));
+      // blocks without statistics are always read
+      reader.setBlockFilter(BlockFilter.equalTo("ts", 42));
+      assertEquals(record(1).get("ts"), reader.next().get("ts"));
+      assertFalse(reader.hasNext());
+    }
+  }
+
+  @Test
+  public void testNoIndex() throws IOException {
+    File file = tmp.newFile();
+    try (DataFileWriter<GenericRecord> writer = new DataFileWriter<>(new GenericDatumWriter<GenericRecord>())) {
+      writer.create(SCHEMA, file);
+      writer.append(record(0));
+    }
+    try (DataFileReader<GenericRecord> reader = new DataFileReader<>(file, new GenericDatumReader<>())) {
+      assertTrue(reader.getBlockStatistics().isEmpty());
+      assertNull(reader.getMeta(DataFileConstants.INDEX));
+      reader.setBlockFilter(BlockFilter.equalTo("ts", 42));
+      assertEquals(1, readAll(reader).size());
+    }
+  }
+
+  @Test(expected = AIngleRuntimeException.class)
+  public void testUnsupportedField() throws IOException {
+    Schema schema = SchemaBuilder.record("R").fields().name("a").type().array().items().intType().noDefault()
+        .endRecord();
+    try (DataFileWriter<GenericRecord> writer = new DataFileWriter<>(new GenericDatumWriter<GenericRecord>())) {
+      writer.setBlockStatistics("a").create(schema, new ByteArrayOutputStream());
+    }
+  }
+}
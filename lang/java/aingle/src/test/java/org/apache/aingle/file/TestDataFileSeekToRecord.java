@@ -0,0 +1,195 @@
+/*
+
+ */
+package org.apache.aingle.file;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.aingle.Schema;
+import org.apache.aingle.SchemaBuilder;
+import org.apache.aingle.generic.GenericData;
+import org.apache.aingle.generic.GenericDatumReader;
+import org.apache.aingle.generic.GenericDatumWriter;
+import org.apache.aingle.generic.GenericRecord;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+@RunWith(Parameterized.class)
+public class TestDataFileSeekToRecord {
+  private static final Schema SCHEMA = SchemaBuilder.record("R").fields() //
+      .requiredLong("id") //
+      .requiredString("name") //
+      .endRecord();
+  private static final int COUNT = 3000;
+
+  @Parameterized.Parameters(name = "{index}: index={0}, codec={1}")
+  public static Collection<Object[]> data() {
+    return Arrays.asList(new Object[][] { { true, CodecFactory.nullCodec() }, { true, CodecFactory.deflateCodec(1) },
+        { false, CodecFactory.nullCodec() }, { false, CodecFactory.deflateCodec(1) } });
+  }
+
+  @Parameterized.Parameter(0)
+  public boolean blockIndex;
+
+  @Parameterized.Parameter(1)
+  public CodecFactory codec;
+
+  @Rule
+  public TemporaryFolder tmp = new TemporaryFolder();
+
+  private static GenericRecord record(long i) {
+    GenericRecord record = new GenericData.Record(SCHEMA);
+    record.put("id", i);
+    record.put("name", "name" + i);
+    return record;
+  }
+
+  private File write(long count) throws IOException {
+    File file = tmp.newFile();
+    try (DataFileWriter<GenericRecord> writer = new DataFileWriter<>(new GenericDatumWriter<GenericRecord>())) {
+      writer.setCodec(codec).setSyncInterval(512).setBlockIndex(blockIndex);
+      writer.create(SCHEMA, file);
+      for (long i = 0; i < count; i++) {
+        writer.append(record(i));
+      }
+    }
+    return file;
+  }
+
+  private DataFileReader<GenericRecord> open(File file) throws IOException {
+    DataFileReader<GenericRecord> reader = new DataFileReader<>(file, new GenericDatumReader<>());
+    assertEquals(blockIndex, reader.getBlockIndex() != null);
+    return reader;
+  }
+
+  @Test
+  public void testRecordCount() throws IOException {
+    File file = write(COUNT);
+    try (DataFileReader<GenericRecord> reader = open(file)) {
+      reader.next();
+      assertEquals(COUNT, reader.getRecordCount());
+      // the position is unchanged
+      assertEquals(1L, reader.next().get("id"));
+    }
+    try (DataFileReader<GenericRecord> reader = open(write(0))) {
+      assertEquals(0, reader.getRecordCount());
+    }
+  }
+
+  @Test
+  public void testSeekToRecord() throws IOException {
+    File file = write(COUNT);
+    try (DataFileReader<GenericRecord> reader = open(file)) {
+      for (long i : new long[] { 0, 1, COUNT - 1, 1234, 17, COUNT / 2 }) {
+        reader.seekToRecord(i);
+        assertEquals(i, reader.next().get("id"));
+        if (i + 1 < COUNT) {
+          assertEquals(i + 1, reader.next().get("id"));
+        }
+      }
+      reader.seekToRecord(2000);
+      long next = 2000;
+      for (GenericRecord record : reader) {
+        assertEquals(next++, record.get("id"));
+      }
+      assertEquals(COUNT, next);
+    }
+  }
+
+  @Test
+  public void testSeekToEnd() throws IOException {
+    try (DataFileReader<GenericRecord> reader = open(write(COUNT))) {
+      reader.seekToRecord(COUNT);
+      assertFalse(reader.hasNext());
+      reader.seekToRecord(0);
+      assertTrue(reader.hasNext());
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSeekPastEnd() throws IOException {
+    try (DataFileReader<GenericRecord> reader = open(write(COUNT))) {
+      reader.seekToRecord(COUNT + 1);
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSeekNegative() throws IOException {
+    try (DataFileReader<GenericRecord> reader = open(write(COUNT))) {
+      reader.seekToRecord(-1);
+    }
+  }
+
+  @Test
+  public void testSeekInParallelReadMode() throws IOException {
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try (DataFileReader<GenericRecord> reader = open(write(COUNT))) {
+      reader.setParallelRead(executor, 2);
+      reader.seekToRecord(1500);
+      assertEquals(1500L, reader.next().get("id"));
+      reader.seekToRecord(3);
+      assertEquals(3L, reader.next().get("id"));
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testSeekIntoFilteredBlock() throws IOException {
+    try (DataFileReader<GenericRecord> reader = open(write(COUNT))) {
+      reader.setBlockFilter(block -> false);
+      reader.seekToRecord(2500);
+      assertEquals(2500L, reader.next().get("id"));
+    }
+  }
+
+  @Test
+  public void testHeaderReader() throws IOException {
+    File file = write(COUNT);
+    DataFileStream.Header header;
+    try (DataFileReader<GenericRecord> reader = open(file)) {
+      header = reader.getHeader();
+    }
+    try (SeekableFileInput in = new SeekableFileInput(file)) {
+      long start;
+      try (DataFileReader<GenericRecord> reader = open(file)) {
+        reader.seekToRecord(1000);
+        start = reader.previousSync();
+      }
+      in.seek(start);
+      DataFileReader<GenericRecord> reader = DataFileReader.openReader(in, new GenericDatumReader<>(), header, false);
+      assertEquals(COUNT, reader.getRecordCount());
+      assertNotNull(reader.next());
+      reader.seekToRecord(7);
+      assertEquals(7L, reader.next().get("id"));
+    }
+  }
+
+  @Test
+  public void testAppend() throws IOException {
+    File file = write(COUNT);
+    try (DataFileWriter<GenericRecord> writer = new DataFileWriter<>(new GenericDatumWriter<GenericRecord>())) {
+      writer.appendTo(file);
+      writer.append(record(COUNT));
+    }
+    try (DataFileReader<GenericRecord> reader = open(file)) {
+      assertEquals(COUNT + 1, reader.getRecordCount());
+      reader.seekToRecord(COUNT);
+      assertEquals((long) COUNT, reader.next().get("id"));
+      assertFalse(reader.hasNext());
+    }
+  }
+}
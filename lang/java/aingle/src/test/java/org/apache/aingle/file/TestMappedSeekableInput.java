@@ -0,0 +1,105 @@
+/*
+
+ */
+package org.apache.aingle.file;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.aingle.Schema;
+import org.apache.aingle.generic.GenericDatumReader;
+import org.apache.aingle.generic.GenericDatumWriter;
+import org.apache.aingle.util.RandomData;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TestMappedSeekableInput {
+  private static final Schema SCHEMA = new Schema.Parser()
+      .parse("{\"type\":\"record\",\"name\":\"R\",\"fields\":[" + "{\"name\":\"id\",\"type\":\"long\"},"
+          + "{\"name\":\"name\",\"type\":\"string\"}]}");
+
+  @Rule
+  public TemporaryFolder tmp = new TemporaryFolder();
+
+  private MappedSeekableInput open(File file, int chunkSize, int chunkOverlap) throws IOException {
+    return new MappedSeekableInput(FileChannel.open(file.toPath(), StandardOpenOption.READ), chunkSize, chunkOverlap);
+  }
+
+  @Test
+  public void testReadAcrossChunks() throws IOException {
+    byte[] data = new byte[10_000];
+    for (int i = 0; i < data.length; i++) {
+      data[i] = (byte) i;
+    }
+    File file = tmp.newFile();
+    Files.write(file.toPath(), data);
+    try (MappedSeekableInput in = open(file, 1000, 100)) {
+      assertEquals(data.length, in.length());
+      in.seek(950);
+      byte[] buf = new byte[3000];
+      assertEquals(buf.length, in.read(buf, 0, buf.length));
+      for (int i = 0; i < buf.length; i++) {
+        assertEquals(data[950 + i], buf[i]);
+      }
+      assertEquals(3950, in.tell());
+
+      // within the overlap: a view of the mapping, crossing it: a copy
+      for (int[] range : new int[][] { { 950, 120 }, { 950, 2000 }, { 9990, 10 } }) {
+        ByteBuffer slice = in.slice(range[0], range[1]);
+        assertEquals(ByteBuffer.wrap(data, range[0], range[1]), slice);
+      }
+      assertEquals(3950, in.tell());
+
+      in.seek(data.length);
+      assertEquals(-1, in.read(buf, 0, 1));
+    }
+  }
+
+  @Test
+  public void testDataFile() throws IOException {
+    for (CodecFactory codec : new CodecFactory[] { CodecFactory.nullCodec(), CodecFactory.deflateCodec(1),
+        CodecFactory.zstandardCodec(3) }) {
+      File file = new File(tmp.getRoot(), codec + ".aingle");
+      List<Object> expected = new ArrayList<>();
+      List<Long> syncs = new ArrayList<>();
+      try (DataFileWriter<Object> writer = new DataFileWriter<>(new GenericDatumWriter<>(SCHEMA))) {
+        writer.setCodec(codec).setSyncInterval(256);
+        writer.create(SCHEMA, file);
+        for (Object datum : new RandomData(SCHEMA, 2000, 3L)) {
+          if (expected.size() % 100 == 0) {
+            syncs.add(writer.sync());
+          }
+          writer.append(datum);
+          expected.add(datum);
+        }
+      }
+      // small chunks so that some blocks span two of them
+      try (DataFileReader<Object> reader = new DataFileReader<>(open(file, 4096, 128), new GenericDatumReader<>())) {
+        int i = 0;
+        for (Object datum : reader) {
+          assertEquals(expected.get(i++), datum);
+        }
+        assertEquals(expected.size(), i);
+        for (int s = syncs.size() - 1; s >= 0; s--) {
+          reader.seek(syncs.get(s));
+          assertEquals(expected.get(s * 100), reader.next());
+        }
+        reader.sync(file.length() / 2);
+        int first = expected.indexOf(reader.next());
+        assertEquals(expected.get(first + 1), reader.next());
+        reader.sync(file.length() - 1);
+        assertFalse(reader.hasNext());
+      }
+    }
+  }
+}
@@ -0,0 +1,192 @@
+/*
+
+ */
+package org.apache.aingle.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.aingle.AIngleRuntimeException;
+import org.apache.aingle.Schema;
+import org.apache.aingle.SchemaBuilder;
+import org.apache.aingle.file.DataFileStream;
+import org.apache.aingle.file.DataFileWriter;
+import org.apache.aingle.generic.GenericData;
+import org.apache.aingle.generic.GenericDatumReader;
+import org.apache.aingle.generic.GenericDatumWriter;
+import org.apache.aingle.generic.GenericRecord;
+import org.apache.aingle.util.Utf8;
+import org.junit.Test;
+
+public class TestBatchDatumReader {
+  private static final Schema SCHEMA = SchemaBuilder.record("Event").fields() //
+      .requiredLong("id") //
+      .name("tags").type().array().items().stringType().noDefault() //
+      .requiredDouble("amount") //
+      .optionalString("name") //
+      .name("kind").type().enumeration("Kind").symbols("A", "B", "C").noDefault() //
+      .requiredBoolean("flag") //
+      .name("ratio").type().unionOf().floatType().and().nullType().endUnion().noDefault() //
+      .requiredInt("count") //
+      .name("hash").type().fixed("Hash").size(4).noDefault() //
+      .requiredBytes("payload") //
+      .endRecord();
+
+  private static List<GenericRecord> records(int count) {
+    Random random = new Random(42);
+    Schema kind = SCHEMA.getField("kind").schema();
+    Schema hash = SCHEMA.getField("hash").schema();
+    List<GenericRecord> records = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      GenericRecord record = new GenericData.Record(SCHEMA);
+      record.put("id", random.nextLong());
+      record.put("tags", Arrays.asList("t" + i, "u"));
+      record.put("amount", random.nextDouble());
+      record.put("name", i % 3 == 0 ? null : "name" + i);
+      record.put("kind", new GenericData.EnumSymbol(kind, kind.getEnumSymbols().get(i % 3)));
+      record.put("flag", i % 2 == 0);
+      record.put("ratio", i % 5 == 0 ? null : random.nextFloat());
+      record.put("count", random.nextInt());
+      byte[] h = new byte[4];
+      random.nextBytes(h);
+      record.put("hash", new GenericData.Fixed(hash, h));
+      byte[] payload = new byte[random.nextInt(100)];
+      random.nextBytes(payload);
+      record.put("payload", ByteBuffer.wrap(payload));
+      records.add(record);
+    }
+    return records;
+  }
+
+  private static byte[] encode(List<GenericRecord> records) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(out, null);
+    GenericDatumWriter<GenericRecord> writer = new GenericDatumWriter<>(SCHEMA);
+    for (GenericRecord record : records) {
+      writer.write(record, encoder);
+    }
+    encoder.flush();
+    return out.toByteArray();
+  }
+
+  private static void assertRows(List<GenericRecord> expected, int from, RecordBatch batch) {
+    RecordBatch.LongColumn kind = batch.getLongColumn("kind");
+    Utf8 utf8 = new Utf8();
+    for (int row = 0; row < batch.size(); row++) {
+      GenericRecord record = expected.get(from + row);
+      assertEquals(record.get("id"), batch.getLongColumn("id").get(row));
+      assertEquals((Double) record.get("amount"), batch.getDoubleColumn("amount").get(row), 0);
+      RecordBatch.BytesColumn name = batch.getBytesColumn("name");
+      if (record.get("name") == null) {
+        assertTrue(name.isNull(row));
+        assertEquals(0, name.getLength(row));
+      } else {
+        assertFalse(name.isNull(row));
+        assertEquals(record.get("name"), name.getString(row));
+        assertEquals(new Utf8((String) record.get("name")), name.getUtf8(row, utf8));
+      }
+      assertEquals(((GenericData.EnumSymbol) record.get("kind")).toString(),
+          kind.getValueSchema().getEnumSymbols().get((int) kind.get(row)));
+      assertEquals((Boolean) record.get("flag") ? 1 : 0, batch.getLongColumn("flag").get(row));
+      RecordBatch.DoubleColumn ratio = batch.getDoubleColumn("ratio");
+      assertEquals(record.get("ratio") == null, ratio.isNull(row));
+      if (record.get("ratio") != null) {
+        assertEquals((Float) record.get("ratio"), ratio.get(row), 0);
+      }
+      assertEquals((long) (Integer) record.get("count"), batch.getLongColumn("count").get(row));
+      assertEquals(ByteBuffer.wrap(((GenericData.Fixed) record.get("hash")).bytes()),
+          batch.getBytesColumn("hash").getBytes(row));
+      assertEquals(record.get("payload"), batch.getBytesColumn("payload").getBytes(row));
+    }
+  }
+
+  @Test
+  public void testReadBatch() throws IOException {
+    List<GenericRecord> records = records(250);
+    BinaryDecoder in = DecoderFactory.get().binaryDecoder(encode(records), null);
+    BatchDatumReader reader = new BatchDatumReader(SCHEMA);
+    RecordBatch batch = reader.createBatch(100, "id", "amount", "name", "kind", "flag", "ratio", "count", "hash",
+        "payload");
+    assertNull(batch.getColumn("tags"));
+
+    assertEquals(100, reader.readBatch(in, batch, 1000));
+    assertRows(records, 0, batch);
+    assertEquals(100, reader.readBatch(in, batch, 1000));
+    assertRows(records, 100, batch);
+    assertEquals(50, reader.readBatch(in, batch, 50));
+    assertEquals(50, batch.size());
+    assertRows(records, 200, batch);
+    assertTrue(in.isEnd());
+  }
+
+  @Test
+  public void testProjection() throws IOException {
+    List<GenericRecord> records = records(20);
+    BinaryDecoder in = DecoderFactory.get().binaryDecoder(encode(records), null);
+    RecordBatch batch = new RecordBatch(SCHEMA, 20, "count", "id");
+    assertEquals(2, batch.getColumns().size());
+    assertEquals("count", batch.getColumns().get(0).getField().name());
+
+    assertEquals(20, new BatchDatumReader(SCHEMA).readBatch(in, batch, 20));
+    long[] ids = batch.getLongColumn("id").getValues();
+    for (int row = 0; row < 20; row++) {
+      assertEquals(records.get(row).get("id"), ids[row]);
+    }
+    assertTrue(in.isEnd());
+  }
+
+  @Test(expected = AIngleRuntimeException.class)
+  public void testUnsupportedField() {
+    new RecordBatch(SCHEMA, 10, "tags");
+  }
+
+  @Test(expected = AIngleRuntimeException.class)
+  public void testUnknownField() {
+    new RecordBatch(SCHEMA, 10, "missing");
+  }
+
+  @Test(expected = AIngleRuntimeException.class)
+  public void testWrongColumnType() {
+    new RecordBatch(SCHEMA, 10, "id").getDoubleColumn("id");
+  }
+
+  @Test
+  public void testDataFileBatches() throws IOException {
+    List<GenericRecord> records = records(1000);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (DataFileWriter<GenericRecord> writer = new DataFileWriter<>(new GenericDatumWriter<GenericRecord>(SCHEMA))) {
+      writer.setSyncInterval(1000);
+      writer.create(SCHEMA, out);
+      for (GenericRecord record : records) {
+        writer.append(record);
+      }
+    }
+
+    try (DataFileStream<GenericRecord> stream = new DataFileStream<>(new ByteArrayInputStream(out.toByteArray()),
+        new GenericDatumReader<>())) {
+      BatchDatumReader reader = new BatchDatumReader(stream.getSchema());
+      RecordBatch batch = reader.createBatch(64, "id", "amount", "name", "kind", "flag", "ratio", "count", "hash",
+          "payload");
+      int read = 0;
+      int count;
+      while ((count = stream.nextBatch(reader, batch)) > 0) {
+        assertTrue(count <= 64);
+        assertRows(records, read, batch);
+        read += count;
+      }
+      assertEquals(records.size(), read);
+      assertEquals(0, batch.size());
+    }
+  }
+}
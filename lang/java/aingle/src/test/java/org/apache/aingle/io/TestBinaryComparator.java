@@ -0,0 +1,154 @@
+/*
+
+ */
+package org.apache.aingle.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.aingle.Schema;
+import org.apache.aingle.generic.GenericData;
+import org.apache.aingle.generic.GenericDatumWriter;
+import org.apache.aingle.util.RandomData;
+import org.apache.aingle.util.Utf8;
+import org.junit.Test;
+
+public class TestBinaryComparator {
+  private static final Schema SCHEMA = new Schema.Parser().parse("{\"type\":\"record\",\"name\":\"R\",\"fields\":["
+      + "{\"name\":\"ignored\",\"type\":{\"type\":\"map\",\"values\":\"bytes\"},\"order\":\"ignore\"},"
+      + "{\"name\":\"fixedIgnored\",\"type\":{\"type\":\"fixed\",\"name\":\"F\",\"size\":3},\"order\":\"ignore\"},"
+      + "{\"name\":\"b\",\"type\":\"boolean\"}," + "{\"name\":\"i\",\"type\":\"int\",\"order\":\"descending\"},"
+      + "{\"name\":\"e\",\"type\":{\"type\":\"enum\",\"name\":\"E\",\"symbols\":[\"X\",\"Y\",\"Z\"]}},"
+      + "{\"name\":\"m\",\"type\":{\"type\":\"map\","
+      + "\"values\":[\"null\",\"long\",{\"type\":\"array\",\"items\":\"F\"}]}},"
+      + "{\"name\":\"a\",\"type\":{\"type\":\"array\",\"items\":{\"type\":\"record\",\"name\":\"S\",\"fields\":["
+      + "{\"name\":\"f\",\"type\":\"float\"},{\"name\":\"d\",\"type\":\"double\"},"
+      + "{\"name\":\"s\",\"type\":\"string\"}]}}},"
+      + "{\"name\":\"fixed\",\"type\":\"F\"}," + "{\"name\":\"l\",\"type\":\"long\"}]}");
+
+  private static final Schema LIST = new Schema.Parser().parse("{\"type\":\"record\",\"name\":\"List\",\"fields\":["
+      + "{\"name\":\"value\",\"type\":\"int\"},{\"name\":\"next\",\"type\":[\"null\",\"List\"]}]}");
+
+  private static byte[] encode(Object datum, Schema schema, boolean blocking) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    EncoderFactory factory = new EncoderFactory().configureBlockSize(64);
+    BinaryEncoder encoder = blocking ? factory.blockingBinaryEncoder(out, null) : factory.binaryEncoder(out, null);
+    new GenericDatumWriter<>(schema).write(datum, encoder);
+    encoder.flush();
+    return out.toByteArray();
+  }
+
+  private static int compare(byte[] b1, byte[] b2, Schema schema) {
+    return BinaryData.compare(b1, 0, b1.length, b2, 0, b2.length, schema);
+  }
+
+  @Test
+  public void testConsistentWithGenericData() throws IOException {
+    List<Object> data = new ArrayList<>();
+    for (Object datum : new RandomData(SCHEMA, 50, 42)) {
+      data.add(datum);
+    }
+    for (int i = 0; i < data.size(); i++) {
+      Object d1 = data.get(i);
+      byte[] b1 = encode(d1, SCHEMA, false);
+      byte[] blocked = encode(d1, SCHEMA, true);
+      assertEquals(GenericData.get().hashCode(d1, SCHEMA), BinaryData.hashCode(b1, 0, b1.length, SCHEMA));
+      assertEquals(GenericData.get().hashCode(d1, SCHEMA), BinaryData.hashCode(blocked, 0, blocked.length, SCHEMA));
+      assertEquals(0, compare(b1, blocked, SCHEMA));
+      for (int j = 0; j < data.size(); j++) {
+        Object d2 = data.get(j);
+        byte[] b2 = encode(d2, SCHEMA, j % 2 == 0);
+        int expected = Integer.signum(GenericData.get().compare(d1, d2, SCHEMA));
+        assertEquals(expected, Integer.signum(compare(b1, b2, SCHEMA)));
+      }
+    }
+  }
+
+  @Test
+  public void testMaps() throws IOException {
+    Schema schema = new Schema.Parser().parse("{\"type\":\"map\",\"values\":{\"type\":\"map\",\"values\":\"int\"}}");
+    Map<Utf8, Map<Utf8, Integer>> m1 = new LinkedHashMap<>();
+    Map<Utf8, Map<Utf8, Integer>> m2 = new LinkedHashMap<>();
+    for (int i = 0; i < 40; i++) {
+      Map<Utf8, Integer> v1 = new LinkedHashMap<>();
+      Map<Utf8, Integer> v2 = new LinkedHashMap<>();
+      for (int j = 0; j < 3; j++) { // entries in another order
+        v1.put(new Utf8("k" + j), i * j);
+        v2.put(new Utf8("k" + (2 - j)), (39 - i) * (2 - j));
+      }
+      m1.put(new Utf8("key" + i), v1);
+      m2.put(new Utf8("key" + (39 - i)), v2);
+    }
+    byte[] b1 = encode(m1, schema, false);
+    byte[] b2 = encode(m2, schema, true);
+    assertEquals(0, compare(b1, b2, schema));
+    assertEquals(GenericData.get().hashCode(m1, schema), BinaryData.hashCode(b1, 0, b1.length, schema));
+    assertEquals(GenericData.get().hashCode(m1, schema), BinaryData.hashCode(b2, 0, b2.length, schema));
+
+    m2.get(new Utf8("key20")).put(new Utf8("k1"), -1);
+    b2 = encode(m2, schema, false);
+    assertTrue(compare(b1, b2, schema) > 0);
+    assertTrue(GenericData.get().compare(m1, m2, schema) > 0);
+
+    m2.remove(new Utf8("key20"));
+    b2 = encode(m2, schema, false);
+    assertTrue(compare(b1, b2, schema) < 0); // "key21" > "key20"
+    assertTrue(GenericData.get().compare(m1, m2, schema) < 0);
+
+    m1.remove(new Utf8("key20"));
+    m1.put(new Utf8("key99"), new LinkedHashMap<>());
+    b1 = encode(m1, schema, false);
+    assertTrue(compare(b1, b2, schema) > 0); // more entries
+    assertTrue(GenericData.get().compare(m1, m2, schema) > 0);
+  }
+
+  @Test
+  public void testRecursive() throws IOException {
+    GenericData.Record r1 = null;
+    GenericData.Record r2 = null;
+    for (int i = 0; i < 5; i++) {
+      GenericData.Record next1 = new GenericData.Record(LIST);
+      next1.put("value", i);
+      next1.put("next", r1);
+      r1 = next1;
+      GenericData.Record next2 = new GenericData.Record(LIST);
+      next2.put("value", i == 0 ? 1 : i);
+      next2.put("next", r2);
+      r2 = next2;
+    }
+    byte[] b1 = encode(r1, LIST, false);
+    byte[] b2 = encode(r2, LIST, false);
+    assertTrue(compare(b1, b2, LIST) < 0);
+    assertEquals(GenericData.get().hashCode(r2, LIST), BinaryData.hashCode(b2, 0, b2.length, LIST));
+  }
+
+  @Test
+  public void testCached() {
+    assertSame(BinaryComparator.get(SCHEMA), BinaryComparator.get(SCHEMA));
+    assertSame(SCHEMA, BinaryComparator.get(SCHEMA).getSchema());
+  }
+
+  @Test
+  public void testSchemaNotRetained() throws Exception {
+    Schema schema = new Schema.Parser().parse(LIST.toString());
+    BinaryComparator comparator = BinaryComparator.get(schema);
+    WeakReference<Schema> ref = new WeakReference<>(schema);
+    schema = null;
+    for (int i = 0; i < 50 && ref.get() != null; i++) {
+      System.gc();
+      Thread.sleep(10);
+    }
+    assertNull(ref.get());
+    assertNull(comparator.getSchema());
+  }
+}
@@ -19,6 +19,7 @@ import org.apache.aingle.generic.GenericDatumWriter;
 import org.apache.aingle.util.ByteBufferInputStream;
 import org.apache.aingle.util.ByteBufferOutputStream;
 import org.apache.aingle.util.RandomData;
+import org.apache.aingle.util.StringPool;
 import org.apache.aingle.util.Utf8;
 import org.junit.Assert;
 import org.junit.BeforeClass;
@@ -201,6 +202,56 @@ public class TestBinaryDecoder {
     }
   }
 
+  @Test
+  public void testDecodeFromByteBuffers() throws IOException {
+    GenericDatumReader<Object> reader = new GenericDatumReader<>();
+    reader.setSchema(schema);
+
+    ByteBuffer direct = ByteBuffer.allocateDirect(data.length + 30);
+    direct.position(15);
+    direct.put(data);
+    direct.flip();
+    direct.position(15);
+    ByteBuffer heap = ByteBuffer.wrap(data);
+
+    Decoder fromDirect = factory.binaryDecoder(direct, null);
+    Decoder fromReadOnly = factory.binaryDecoder(heap.asReadOnlyBuffer(), null);
+    Decoder fromHeap = factory.binaryDecoder(heap, null);
+    BinaryDecoder initOnArray = factory.binaryDecoder(direct, factory.binaryDecoder(new byte[50], 0, 30, null));
+
+    for (Object datum : records) {
+      Assert.assertEquals("Direct ByteBuffer based BinaryDecoder result does not match", datum,
+          reader.read(null, fromDirect));
+      Assert.assertEquals("Read-only ByteBuffer based BinaryDecoder result does not match", datum,
+          reader.read(null, fromReadOnly));
+      Assert.assertEquals("Heap ByteBuffer based BinaryDecoder result does not match", datum,
+          reader.read(null, fromHeap));
+      Assert.assertEquals("Array initialized ByteBuffer BinaryDecoder result does not match", datum,
+          reader.read(null, initOnArray));
+    }
+    Assert.assertTrue(((BinaryDecoder) fromDirect).isEnd());
+    // the buffers read from are left as they were
+    Assert.assertEquals(15, direct.position());
+    Assert.assertEquals(0, heap.position());
+  }
+
+  @Test
+  public void testDirectByteBufferEOF() throws IOException {
+    ByteBuffer empty = ByteBuffer.allocateDirect(0);
+    Assert.assertThrows(EOFException.class, () -> factory.binaryDecoder(empty, null).readBoolean());
+    Assert.assertThrows(EOFException.class, () -> factory.binaryDecoder(empty, null).readLong());
+    Assert.assertThrows(EOFException.class, () -> factory.binaryDecoder(empty, null).readDouble());
+    Assert.assertThrows(EOFException.class, () -> factory.binaryDecoder(empty, null).readString(null));
+    Assert.assertThrows(EOFException.class, () -> factory.binaryDecoder(empty, null).skipFixed(1));
+
+    ByteBuffer badint = ByteBuffer.allocateDirect(5);
+    while (badint.hasRemaining()) {
+      badint.put((byte) 0xff);
+    }
+    badint.flip();
+    Assert.assertThrows("Invalid int encoding", IOException.class, () -> factory.binaryDecoder(badint, null).readInt());
+  }
+
   @Test
   public void testInputStreamProxy() throws IOException {
     Decoder d = newDecoder(data);
@@ -465,6 +516,30 @@ public class TestBinaryDecoder {
     Assert.assertTrue(null != eof);
   }
 
+  @Test
+  public void testStringPool() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    BinaryEncoder encoder = e_factory.binaryEncoder(out, null);
+    String longString = "a string that is longer than the pool holds";
+    for (int i = 0; i < 3; i++) {
+      encoder.writeString("key");
+      encoder.writeString(longString);
+    }
+    encoder.flush();
+
+    factory.configureStringPool(new StringPool(16));
+    Decoder d = newDecoder(new ByteArrayInputStream(out.toByteArray()));
+    String key = d.readString();
+    String value = d.readString();
+    Utf8 utf8 = new Utf8();
+    for (int i = 1; i < 3; i++) {
+      Assert.assertSame(key, d.readString(utf8).toString());
+      String next = d.readString();
+      Assert.assertEquals(value, next);
+      Assert.assertNotSame(value, next);
+    }
+  }
+
   @Test(expected = EOFException.class)
   public void testEOF() throws IOException {
     ByteArrayOutputStream baos = new ByteArrayOutputStream();
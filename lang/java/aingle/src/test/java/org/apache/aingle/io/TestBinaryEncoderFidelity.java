@@ -6,8 +6,10 @@ package org.apache.aingle.io;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.List;
 import java.util.Random;
 
+import org.apache.aingle.util.PooledByteBufferAllocator;
 import org.apache.aingle.util.Utf8;
 import org.junit.Assert;
 import org.junit.BeforeClass;
@@ -165,6 +167,53 @@ public class TestBinaryEncoderFidelity {
     Assert.assertArrayEquals(complexdata, result2);
   }
 
+  @Test
+  public void testByteBufferBinaryEncoder() throws IOException {
+    // small chunks, so that values span several buffers
+    PooledByteBufferAllocator allocator = new PooledByteBufferAllocator(32, 64, true);
+    ByteBufferBinaryEncoder e = new EncoderFactory().configureBufferSize(32).byteBufferBinaryEncoder(allocator, null);
+    generateData(e, true);
+    Assert.assertEquals(legacydata.length, e.bytesBuffered());
+    List<ByteBuffer> buffers = e.getBufferList();
+    Assert.assertArrayEquals(legacydata, concat(buffers));
+    e.release(buffers);
+    Assert.assertEquals(0, e.bytesBuffered());
+
+    generateComplexData(e);
+    buffers = e.getBufferList();
+    Assert.assertArrayEquals(complexdata, concat(buffers));
+    e.release(buffers);
+    Assert.assertTrue(allocator.getRecycledCount() > 0);
+  }
+
+  @Test
+  public void testByteBufferBinaryEncoderPoolSize() throws IOException {
+    // chunks are of the pooled size, not of the factory's
+    PooledByteBufferAllocator allocator = new PooledByteBufferAllocator(64, 1024, false);
+    ByteBufferBinaryEncoder e = EncoderFactory.get().byteBufferBinaryEncoder(allocator, null);
+    generateComplexData(e);
+    List<ByteBuffer> buffers = e.getBufferList();
+    Assert.assertArrayEquals(complexdata, concat(buffers));
+    e.release(buffers);
+    long allocated = allocator.getAllocatedCount();
+
+    generateComplexData(e);
+    buffers = e.getBufferList();
+    Assert.assertArrayEquals(complexdata, concat(buffers));
+    e.release(buffers);
+    Assert.assertEquals(allocated, allocator.getAllocatedCount());
+  }
+
+  private static byte[] concat(List<ByteBuffer> buffers) {
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    for (ByteBuffer buffer : buffers) {
+      byte[] bytes = new byte[buffer.remaining()];
+      buffer.get(bytes);
+      baos.write(bytes, 0, bytes.length);
+    }
+    return baos.toByteArray();
+  }
+
   @Test
   public void testBlockingBinaryEncoder() throws IOException {
     ByteArrayOutputStream baos = new ByteArrayOutputStream();
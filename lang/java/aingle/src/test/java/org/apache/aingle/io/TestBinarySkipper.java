@@ -0,0 +1,139 @@
+/*
+
+ */
+package org.apache.aingle.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import org.apache.aingle.Schema;
+import org.apache.aingle.SchemaBuilder;
+import org.apache.aingle.generic.GenericData;
+import org.apache.aingle.generic.GenericDatumReader;
+import org.apache.aingle.generic.GenericDatumWriter;
+import org.apache.aingle.generic.GenericRecord;
+import org.apache.aingle.util.RandomData;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+@RunWith(Parameterized.class)
+public class TestBinarySkipper {
+  private static final Schema NODE = new Schema.Parser().parse("{\"type\":\"record\",\"name\":\"Node\",\"fields\":["
+      + "{\"name\":\"value\",\"type\":\"int\"},"
+      + "{\"name\":\"children\",\"type\":{\"type\":\"array\",\"items\":\"Node\"}},"
+      + "{\"name\":\"next\",\"type\":[\"null\",\"Node\"]}]}");
+
+  private static final Schema SCHEMA = SchemaBuilder.record("Wide").fields() //
+      .requiredDouble("d1") //
+      .requiredLong("l1") //
+      .requiredFloat("f1") //
+      .requiredBoolean("b1") //
+      .name("hash").type().fixed("Hash").size(16).noDefault() //
+      .requiredInt("i1") //
+      .requiredString("s1") //
+      .name("doubles").type().array().items().doubleType().noDefault() //
+      .name("points").type().array().items().record("Point").fields().requiredDouble("x").requiredDouble("y")
+      .endRecord().noDefault() //
+      .name("nulls").type().array().items().nullType().noDefault() //
+      .name("props").type().map().values().longType().noDefault() //
+      .name("ratios").type().map().values().floatType().noDefault() //
+      .name("choice").type().unionOf().nullType().and().stringType().and().doubleType().endUnion().noDefault() //
+      .name("kind").type().enumeration("Kind").symbols("A", "B").noDefault() //
+      .name("tree").type(NODE).noDefault() //
+      .requiredBytes("payload") //
+      .requiredLong("last") //
+      .endRecord();
+
+  @Parameterized.Parameters(name = "{index}: blocking={0}")
+  public static Collection<Object[]> data() {
+    return Arrays.asList(new Object[][] { { false }, { true } });
+  }
+
+  @Parameterized.Parameter
+  public boolean blocking;
+
+  private byte[] encode(Schema schema, Iterable<Object> data) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    EncoderFactory factory = new EncoderFactory().configureBlockSize(64);
+    BinaryEncoder encoder = blocking ? factory.blockingBinaryEncoder(out, null) : factory.binaryEncoder(out, null);
+    GenericDatumWriter<Object> writer = new GenericDatumWriter<>(schema);
+    for (Object datum : data) {
+      writer.write(datum, encoder);
+    }
+    encoder.flush();
+    return out.toByteArray();
+  }
+
+  @Test
+  public void testSkipRecords() throws IOException {
+    byte[] bytes = encode(SCHEMA, new RandomData(SCHEMA, 100, 7L));
+    BinarySkipper skipper = BinarySkipper.of(SCHEMA);
+    BinaryDecoder in = DecoderFactory.get().binaryDecoder(bytes, null);
+    for (int i = 0; i < 100; i++) {
+      skipper.skip(in);
+    }
+    assertTrue(in.isEnd());
+  }
+
+  @Test
+  public void testSkipFieldRuns() throws IOException {
+    byte[] bytes = encode(SCHEMA, new RandomData(SCHEMA, 100, 11L));
+    // skip everything but the last field, which is read and checked
+    List<Schema> skipped = new ArrayList<>();
+    for (Schema.Field field : SCHEMA.getFields().subList(0, SCHEMA.getFields().size() - 1)) {
+      skipped.add(field.schema());
+    }
+    BinarySkipper skipper = BinarySkipper.of(skipped);
+    BinaryDecoder in = DecoderFactory.get().binaryDecoder(bytes, null);
+    for (Object datum : new RandomData(SCHEMA, 100, 11L)) {
+      skipper.skip(in);
+      assertEquals(((GenericRecord) datum).get("last"), in.readLong());
+    }
+    assertTrue(in.isEnd());
+  }
+
+  @Test
+  public void testNonBinaryDecoder() throws IOException {
+    Schema schema = SCHEMA.getField("points").schema();
+    Object datum = new RandomData(schema, 1, 3L).iterator().next();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    JsonEncoder encoder = EncoderFactory.get().jsonEncoder(schema, out);
+    new GenericDatumWriter<>(schema).write(datum, encoder);
+    encoder.flush();
+    Decoder in = DecoderFactory.get().validatingDecoder(schema,
+        DecoderFactory.get().jsonDecoder(schema, out.toString("UTF-8")));
+    BinarySkipper.of(schema).skip(in);
+  }
+
+  @Test
+  public void testProjection() throws IOException {
+    Schema projection = SchemaBuilder.record("Wide").fields() //
+        .requiredLong("l1") //
+        .requiredString("s1") //
+        .requiredLong("last") //
+        .endRecord();
+    byte[] bytes = encode(SCHEMA, new RandomData(SCHEMA, 100, 5L));
+
+    for (boolean fast : new boolean[] { false, true }) {
+      GenericData data = new GenericData().setFastReaderEnabled(fast);
+      GenericDatumReader<GenericRecord> reader = new GenericDatumReader<>(SCHEMA, projection, data);
+      BinaryDecoder in = DecoderFactory.get().binaryDecoder(bytes, null);
+      for (Object datum : new RandomData(SCHEMA, 100, 5L)) {
+        GenericRecord expected = (GenericRecord) datum;
+        GenericRecord actual = reader.read(null, in);
+        assertEquals(expected.get("l1"), actual.get("l1"));
+        assertEquals(expected.get("s1").toString(), actual.get("s1").toString());
+        assertEquals(expected.get("last"), actual.get("last"));
+      }
+      assertTrue(in.isEnd());
+    }
+  }
+}
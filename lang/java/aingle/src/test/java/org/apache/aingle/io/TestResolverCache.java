@@ -0,0 +1,142 @@
+/*
+
+ */
+package org.apache.aingle.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.aingle.Schema;
+import org.apache.aingle.SchemaBuilder;
+import org.apache.aingle.generic.GenericData;
+import org.apache.aingle.generic.GenericDatumReader;
+import org.apache.aingle.generic.GenericDatumWriter;
+import org.apache.aingle.generic.GenericRecord;
+import org.junit.Test;
+
+public class TestResolverCache {
+  private static final String WRITER = "{\"type\":\"record\",\"name\":\"R\",\"fields\":["
+      + "{\"name\":\"a\",\"type\":\"int\"},{\"name\":\"b\",\"type\":\"string\"}]}";
+  private static final String READER = "{\"type\":\"record\",\"name\":\"R\",\"fields\":["
+      + "{\"name\":\"a\",\"type\":\"long\"},{\"name\":\"c\",\"type\":\"string\",\"default\":\"x\"}]}";
+
+  @Test
+  public void testSharedAcrossEqualSchemas() throws IOException {
+    ResolverCache cache = new ResolverCache(10);
+    Object resolver = cache.getResolver(parse(WRITER), parse(READER));
+    assertSame(resolver, cache.getResolver(parse(WRITER), parse(READER)));
+    assertEquals(1, cache.getHitCount());
+    assertEquals(1, cache.getMissCount());
+    assertEquals(1, cache.size());
+  }
+
+  @Test
+  public void testSameSchemas() throws IOException {
+    ResolverCache cache = new ResolverCache(10);
+    Schema writer = parse(WRITER);
+    Schema reader = parse(READER);
+    Object resolver = cache.getResolver(writer, reader);
+    assertSame(resolver, cache.getResolver(writer, reader));
+    assertSame(resolver, cache.getResolver(writer, reader));
+    assertEquals(2, cache.getHitCount());
+
+    cache.clear();
+    assertNotSame(resolver, cache.getResolver(writer, reader));
+    assertEquals(2, cache.getMissCount());
+  }
+
+  @Test
+  public void testDifferentDefaults() throws IOException {
+    ResolverCache cache = new ResolverCache(10);
+    Schema other = parse(READER.replace("\"x\"", "\"y\""));
+    assertNotSame(cache.getResolver(parse(WRITER), parse(READER)), cache.getResolver(parse(WRITER), other));
+    assertEquals(2, cache.size());
+  }
+
+  @Test
+  public void testEviction() throws IOException {
+    ResolverCache cache = new ResolverCache(2);
+    Schema writer = parse(WRITER);
+    Schema first = readerSchema(0);
+    Object resolver = cache.getResolver(writer, first);
+    cache.getResolver(writer, readerSchema(1));
+    cache.getResolver(writer, first); // most recently used
+    cache.getResolver(writer, readerSchema(2));
+    assertEquals(2, cache.size());
+    assertEquals(1, cache.getEvictionCount());
+    assertSame(resolver, cache.getResolver(writer, first));
+  }
+
+  @Test
+  public void testDisabled() throws IOException {
+    ResolverCache cache = new ResolverCache(0);
+    cache.getResolver(parse(WRITER), parse(READER));
+    cache.getResolver(parse(WRITER), parse(READER));
+    assertEquals(0, cache.size());
+    assertEquals(2, cache.getMissCount());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNegativeSize() {
+    new ResolverCache(-1);
+  }
+
+  @Test
+  public void testConcurrentReaders() throws Exception {
+    Schema writer = parse(WRITER);
+    Schema reader = parse(READER);
+    GenericData.Record record = new GenericData.Record(writer);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(out, null);
+    for (int i = 0; i < 1000; i++) {
+      record.put("a", i);
+      record.put("b", "value" + i);
+      new GenericDatumWriter<GenericData.Record>(writer).write(record, encoder);
+    }
+    encoder.flush();
+    byte[] bytes = out.toByteArray();
+
+    // one reader shared by several threads, none of them its creator
+    GenericDatumReader<GenericRecord> datumReader = new GenericDatumReader<>(writer, reader);
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<Long>> results = new ArrayList<>();
+      for (int t = 0; t < 8; t++) {
+        results.add(executor.submit((Callable<Long>) () -> {
+          BinaryDecoder in = DecoderFactory.get().binaryDecoder(bytes, null);
+          long sum = 0;
+          GenericRecord reuse = null;
+          for (int i = 0; i < 1000; i++) {
+            reuse = datumReader.read(reuse, in);
+            sum += (Long) reuse.get("a");
+            assertEquals("x", reuse.get("c").toString());
+          }
+          return sum;
+        }));
+      }
+      for (Future<Long> result : results) {
+        assertEquals(999L * 1000 / 2, (long) result.get());
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  private static Schema readerSchema(int i) {
+    return SchemaBuilder.record("R").fields().name("a").type().longType().longDefault(i).endRecord();
+  }
+
+  private static Schema parse(String json) {
+    return new Schema.Parser().parse(json);
+  }
+}
@@ -0,0 +1,236 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.aingle.message;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.aingle.AIngleRuntimeException;
+import org.apache.aingle.Schema;
+import org.apache.aingle.SchemaBuilder;
+import org.apache.aingle.SchemaNormalization;
+import org.apache.aingle.generic.GenericData;
+import org.apache.aingle.generic.GenericData.Record;
+import org.apache.aingle.generic.GenericRecordBuilder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TestCachingSchemaStore {
+  private static final Schema SCHEMA_V1 = SchemaBuilder.record("TestRecord").fields().requiredInt("id")
+      .optionalString("msg").endRecord();
+  private static final Schema SCHEMA_V2 = SchemaBuilder.record("TestRecord").fields().requiredLong("id")
+      .optionalString("msg").optionalDouble("data").endRecord();
+
+  @Rule
+  public TemporaryFolder tmp = new TemporaryFolder();
+
+  @Test
+  public void testLoadAndHit() {
+    CountingStore loader = new CountingStore();
+    loader.addSchema(SCHEMA_V1);
+    CachingSchemaStore store = new CachingSchemaStore(loader, 10);
+    long fp = SchemaNormalization.parsingFingerprint64(SCHEMA_V1);
+
+    assertSame(SCHEMA_V1, store.findByFingerprint(fp));
+    assertSame(SCHEMA_V1, store.findByFingerprint(fp));
+    assertEquals(1, loader.calls.get());
+    assertEquals(1, store.getHitCount());
+    assertEquals(1, store.getMissCount());
+    assertEquals(1, store.getLoadCount());
+  }
+
+  @Test
+  public void testNegativeCaching() {
+    CountingStore loader = new CountingStore();
+    CachingSchemaStore store = new CachingSchemaStore(loader, 10);
+    long fp = SchemaNormalization.parsingFingerprint64(SCHEMA_V1);
+    assertNull(store.findByFingerprint(fp));
+    assertNull(store.findByFingerprint(fp));
+    assertEquals(1, loader.calls.get());
+    assertEquals(1, store.getNegativeHitCount());
+
+    // without negative caching every lookup reaches the loader
+    store = new CachingSchemaStore(loader, 10, 0, TimeUnit.MILLISECONDS);
+    assertNull(store.findByFingerprint(fp));
+    assertNull(store.findByFingerprint(fp));
+    assertEquals(3, loader.calls.get());
+  }
+
+  @Test
+  public void testEviction() {
+    CachingSchemaStore store = new CachingSchemaStore(null, 2);
+    List<Schema> schemas = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      Schema schema = SchemaBuilder.record("R" + i).fields().requiredInt("id").endRecord();
+      schemas.add(schema);
+      store.addSchema(schema);
+      // keep the first schema the most recently used
+      store.findByFingerprint(SchemaNormalization.parsingFingerprint64(schemas.get(0)));
+    }
+    assertEquals(2, store.size());
+    assertEquals(1, store.getEvictionCount());
+    assertSame(schemas.get(0), store.findByFingerprint(SchemaNormalization.parsingFingerprint64(schemas.get(0))));
+    assertNull(store.findByFingerprint(SchemaNormalization.parsingFingerprint64(schemas.get(1))));
+  }
+
+  @Test
+  public void testSingleFlight() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    CountingStore loader = new CountingStore() {
+      @Override
+      public Schema findByFingerprint(long fingerprint) {
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          throw new AIngleRuntimeException(e);
+        }
+        return super.findByFingerprint(fingerprint);
+      }
+    };
+    loader.addSchema(SCHEMA_V1);
+    CachingSchemaStore store = new CachingSchemaStore(loader, 10);
+    long fp = SchemaNormalization.parsingFingerprint64(SCHEMA_V1);
+
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<Schema>> results = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        results.add(executor.submit(() -> store.findByFingerprint(fp)));
+      }
+      Thread.sleep(100);
+      release.countDown();
+      for (Future<Schema> result : results) {
+        assertSame(SCHEMA_V1, result.get());
+      }
+    } finally {
+      executor.shutdown();
+    }
+    assertEquals(1, loader.calls.get());
+  }
+
+  @Test
+  public void testLoadFailure() {
+    CachingSchemaStore store = new CachingSchemaStore(fingerprint -> {
+      throw new AIngleRuntimeException("unavailable");
+    }, 10);
+    try {
+      store.findByFingerprint(1L);
+      fail("Should have thrown");
+    } catch (AIngleRuntimeException e) {
+      assertEquals("unavailable", e.getMessage());
+    }
+    assertEquals(1, store.getLoadFailureCount());
+    // failures are not cached
+    assertEquals(0, store.size());
+  }
+
+  @Test(timeout = 10000)
+  public void testLoadErrorReleasesWaiters() throws Exception {
+    CountDownLatch loading = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    CachingSchemaStore store = new CachingSchemaStore(fingerprint -> {
+      loading.countDown();
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        throw new AIngleRuntimeException(e);
+      }
+      throw new StackOverflowError("loader");
+    }, 10);
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<Schema>> results = new ArrayList<>();
+      results.add(executor.submit(() -> store.findByFingerprint(1L)));
+      loading.await();
+      for (int i = 0; i < 3; i++) {
+        results.add(executor.submit(() -> store.findByFingerprint(1L)));
+      }
+      Thread.sleep(100);
+      release.countDown();
+      for (Future<Schema> result : results) {
+        try {
+          result.get();
+          fail("Should have thrown");
+        } catch (ExecutionException e) {
+          assertEquals(StackOverflowError.class, e.getCause().getClass());
+        }
+      }
+    } finally {
+      executor.shutdown();
+    }
+    assertEquals(1, store.getLoadFailureCount());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidSize() {
+    new CachingSchemaStore(null, 0);
+  }
+
+  @Test
+  public void testDirectoryStore() throws IOException {
+    DirectorySchemaStore directory = new DirectorySchemaStore(tmp.getRoot());
+    directory.addSchema(SCHEMA_V1);
+    long fp = SchemaNormalization.parsingFingerprint64(SCHEMA_V1);
+    assertEquals(SCHEMA_V1, directory.findByFingerprint(fp));
+    assertNull(directory.findByFingerprint(SchemaNormalization.parsingFingerprint64(SCHEMA_V2)));
+  }
+
+  @Test
+  public void testDecoderLoadsMissingSchema() throws IOException {
+    DirectorySchemaStore directory = new DirectorySchemaStore(tmp.getRoot());
+    directory.addSchema(SCHEMA_V1);
+    CachingSchemaStore store = new CachingSchemaStore(directory, 10);
+
+    Record v1 = new GenericRecordBuilder(SCHEMA_V1).set("id", 1).set("msg", "m-1").build();
+    ByteBuffer buffer = new BinaryMessageEncoder<Record>(GenericData.get(), SCHEMA_V1).encode(v1);
+
+    BinaryMessageDecoder<Record> decoder = new BinaryMessageDecoder<>(GenericData.get(), SCHEMA_V2, store);
+    Record v2 = decoder.decode(buffer);
+    assertEquals(1L, v2.get("id"));
+    assertEquals("m-1", v2.get("msg").toString());
+    assertEquals(1, store.getLoadCount());
+  }
+
+  private static class CountingStore extends SchemaStore.Cache {
+    final AtomicInteger calls = new AtomicInteger();
+
+    @Override
+    public Schema findByFingerprint(long fingerprint) {
+      calls.incrementAndGet();
+      return super.findByFingerprint(fingerprint);
+    }
+  }
+}
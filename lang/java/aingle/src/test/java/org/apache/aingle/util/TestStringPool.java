@@ -0,0 +1,60 @@
+/*
+
+ */
+package org.apache.aingle.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+public class TestStringPool {
+  @Test
+  public void testGet() {
+    StringPool pool = new StringPool(8);
+    byte[] bytes = "xxkeyxx".getBytes(StandardCharsets.UTF_8);
+    String key = pool.get(bytes, 2, 3);
+    assertEquals("key", key);
+    assertSame(key, pool.get("key".getBytes(StandardCharsets.UTF_8), 0, 3));
+    assertEquals("", pool.get(bytes, 0, 0));
+  }
+
+  @Test
+  public void testIntern() {
+    StringPool pool = new StringPool(8);
+    String first = pool.intern(new Utf8("héllo")).toString();
+    Utf8 u = new Utf8("héllo".getBytes(StandardCharsets.UTF_8));
+    assertSame(u, pool.intern(u));
+    assertSame(first, u.toString());
+    assertEquals(new Utf8("héllo").hashCode(), u.hashCode());
+
+    // a later change to the Utf8 drops the pooled string
+    u.set("other");
+    assertEquals("other", u.toString());
+  }
+
+  @Test
+  public void testMaxLength() {
+    StringPool pool = new StringPool(8, 4);
+    byte[] bytes = "abcde".getBytes(StandardCharsets.UTF_8);
+    assertSame(pool.get(bytes, 0, 4), pool.get(bytes, 0, 4));
+    assertNotSame(pool.get(bytes, 0, 5), pool.get(bytes, 0, 5));
+  }
+
+  @Test
+  public void testCollisions() {
+    StringPool pool = new StringPool(1);
+    for (int i = 0; i < 100; i++) {
+      String s = Integer.toString(i);
+      assertEquals(s, pool.get(s.getBytes(StandardCharsets.UTF_8), 0, s.length()));
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidCapacity() {
+    new StringPool(0);
+  }
+}
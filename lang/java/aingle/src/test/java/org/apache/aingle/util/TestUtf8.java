@@ -6,6 +6,8 @@ package org.apache.aingle.util;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 import java.nio.charset.StandardCharsets;
 
@@ -76,4 +78,63 @@ public class TestUtf8 {
     u.setByteLength(4);
     assertEquals(3198781, u.hashCode());
   }
+
+  @Test
+  public void testAsciiCharSequence() {
+    Utf8 u = new Utf8("hello".getBytes(StandardCharsets.UTF_8));
+    assertEquals(5, u.length());
+    assertEquals('e', u.charAt(1));
+    assertEquals("ell", u.subSequence(1, 4).toString());
+    u.setByteLength(2);
+    assertEquals(2, u.length());
+    assertEquals("he", u.toString());
+  }
+
+  @Test
+  public void testNonAsciiCharSequence() {
+    String s = "h\u00e9llo \ud83d\ude00";
+    Utf8 u = new Utf8(s.getBytes(StandardCharsets.UTF_8));
+    assertEquals(s.length(), u.length());
+    assertEquals('\u00e9', u.charAt(1));
+    assertEquals("\u00e9ll", u.subSequence(1, 4).toString());
+    u.set("abc");
+    assertEquals(3, u.length());
+    assertEquals('c', u.charAt(2));
+  }
+
+  @Test(expected = StringIndexOutOfBoundsException.class)
+  public void testAsciiCharAtOutOfBounds() {
+    Utf8 u = new Utf8(new byte[] { 'a', 'b', 'c', 'd' });
+    u.setByteLength(2);
+    u.charAt(2);
+  }
+
+  @Test
+  public void testCompareToCharSequence() {
+    String[] strings = { "", "a", "ab", "b", "abc", "\u00e9", "\u0800", "\uffff", "\ud800\udc00", "\ud83d\ude00", "a\ud800",
+        "a\udc00b", "?", "a?", "\u007f", "\u0080" };
+    for (String a : strings) {
+      Utf8 u = new Utf8(a);
+      for (String b : strings) {
+        int expected = Integer.signum(u.compareTo(new Utf8(b)));
+        assertEquals(a + " <> " + b, expected, Integer.signum(u.compareTo(b)));
+        assertEquals(a + " <> " + b, expected, Integer.signum(u.compareTo(new StringBuilder(b))));
+        assertEquals(a + " = " + b, expected == 0, u.contentEquals(b));
+      }
+    }
+  }
+
+  @Test
+  public void testContentEquals() {
+    Utf8 u = new Utf8("hello".getBytes(StandardCharsets.UTF_8));
+    assertTrue(u.contentEquals("hello"));
+    assertTrue(u.contentEquals(new Utf8("hello")));
+    assertFalse(u.contentEquals("hell"));
+    assertFalse(u.contentEquals("hello!"));
+    u.toString();
+    assertTrue(u.contentEquals("hello"));
+    u.setByteLength(4);
+    assertTrue(u.contentEquals("hell"));
+    assertFalse(u.contentEquals("hello"));
+  }
 }
@@ -0,0 +1,91 @@
+/*
+
+ */
+package org.apache.aingle.codegen;
+
+import java.io.IOException;
+
+import org.apache.aingle.Schema;
+import org.apache.aingle.generic.GenericData;
+import org.apache.aingle.io.DatumReader;
+import org.apache.aingle.io.Decoder;
+
+/**
+ * {@link DatumReader} that reads records with bytecode generated for its pair
+ * of schemas. Generated readers are shared by all instances reading with the
+ * same schemas and data model, so creating instances is cheap once the first
+ * one has read.
+ * <p/>
+ * Only {@link GenericData} and
+ * {@link org.apache.aingle.specific.SpecificData} are supported; other data
+ * models, and schemas that are not records, are read with the reader of the
+ * data model.
+ */
+public class CodegenDatumReader<D> implements DatumReader<D> {
+  private final GenericData data;
+  private Schema actual;
+  private Schema expected;
+  private DatumReader<Object> delegate;
+
+  public CodegenDatumReader() {
+    this(null, null, GenericData.get());
+  }
+
+  /** Construct where the writer's and reader's schemas are the same. */
+  public CodegenDatumReader(Schema schema) {
+    this(schema, schema, GenericData.get());
+  }
+
+  /** Construct given writer's and reader's schema. */
+  public CodegenDatumReader(Schema writer, Schema reader) {
+    this(writer, reader, GenericData.get());
+  }
+
+  public CodegenDatumReader(Schema writer, Schema reader, GenericData data) {
+    this.actual = writer;
+    this.expected = reader;
+    this.data = data;
+  }
+
+  /** Return the {@link GenericData} implementation. */
+  public GenericData getData() {
+    return data;
+  }
+
+  /** Return the writer's schema. */
+  public Schema getSchema() {
+    return actual;
+  }
+
+  /** Return the reader's schema. */
+  public Schema getExpected() {
+    return expected;
+  }
+
+  /** Set the reader's schema. */
+  public void setExpected(Schema reader) {
+    this.expected = reader;
+    this.delegate = null;
+  }
+
+  @Override
+  public void setSchema(Schema writer) {
+    this.actual = writer;
+    if (expected == null) {
+      expected = writer;
+    }
+    this.delegate = null;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public D read(D reuse, Decoder in) throws IOException {
+    if (delegate == null) {
+      if (actual == null) {
+        throw new IllegalStateException("No writer's schema set");
+      }
+      delegate = ReaderGenerator.getReader(actual, expected, data);
+    }
+    return (D) delegate.read(reuse, in);
+  }
+}
@@ -0,0 +1,62 @@
+/*
+
+ */
+package org.apache.aingle.codegen;
+
+import java.io.IOException;
+
+import org.apache.aingle.Schema;
+import org.apache.aingle.generic.GenericData;
+import org.apache.aingle.io.DatumWriter;
+import org.apache.aingle.io.Encoder;
+
+/**
+ * {@link DatumWriter} that writes records with bytecode generated for its
+ * schema. Generated writers are shared by all instances writing with the same
+ * schema and data model.
+ * <p/>
+ * Only {@link GenericData} and
+ * {@link org.apache.aingle.specific.SpecificData} are supported; other data
+ * models, and schemas that are not records, are written with the writer of the
+ * data model.
+ */
+public class CodegenDatumWriter<D> implements DatumWriter<D> {
+  private final GenericData data;
+  private Schema root;
+  private DatumWriter<Object> delegate;
+
+  public CodegenDatumWriter() {
+    this(null, GenericData.get());
+  }
+
+  public CodegenDatumWriter(Schema root) {
+    this(root, GenericData.get());
+  }
+
+  public CodegenDatumWriter(Schema root, GenericData data) {
+    this.root = root;
+    this.data = data;
+  }
+
+  /** Return the {@link GenericData} implementation. */
+  public GenericData getData() {
+    return data;
+  }
+
+  @Override
+  public void setSchema(Schema root) {
+    this.root = root;
+    this.delegate = null;
+  }
+
+  @Override
+  public void write(D datum, Encoder out) throws IOException {
+    if (delegate == null) {
+      if (root == null) {
+        throw new IllegalStateException("No schema set");
+      }
+      delegate = WriterGenerator.getWriter(root, data);
+    }
+    delegate.write(datum, out);
+  }
+}
@@ -0,0 +1,59 @@
+/*
+
+ */
+package org.apache.aingle.codegen;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.function.Function;
+
+/**
+ * A bounded cache of generated readers or writers, shared by all threads. When
+ * full, the least recently used entry is evicted, so that its data model and
+ * generated class can be collected once no longer used elsewhere.
+ */
+final class GeneratedCache<K, V> {
+  /** The number of readers, or of writers, kept. */
+  static final int MAX_SIZE = 1024;
+
+  private final int maxSize;
+  private final LinkedHashMap<K, V> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+  GeneratedCache(int maxSize) {
+    this.maxSize = maxSize;
+  }
+
+  /**
+   * Return the value of <i>key</i>, computing it if not cached. Values are
+   * computed without locking, and if two threads compute the same value, both
+   * get the first one cached.
+   */
+  V get(K key, Function<K, V> compute) {
+    synchronized (entries) {
+      V value = entries.get(key);
+      if (value != null) {
+        return value;
+      }
+    }
+    V value = compute.apply(key);
+    synchronized (entries) {
+      V previous = entries.putIfAbsent(key, value);
+      if (previous != null) {
+        return previous;
+      }
+      Iterator<V> i = entries.values().iterator();
+      while (entries.size() > maxSize) {
+        i.next();
+        i.remove();
+      }
+    }
+    return value;
+  }
+
+  /** Return the number of values held. */
+  int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+}
@@ -0,0 +1,28 @@
+/*
+
+ */
+package org.apache.aingle.codegen;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Defines a generated class. Each class gets a loader of its own, so that it
+ * can be unloaded once no longer used.
+ */
+final class GeneratedClassLoader extends ClassLoader {
+  private static final String PACKAGE = "org.apache.aingle.codegen.generated.";
+  private static final AtomicLong COUNTER = new AtomicLong();
+
+  private GeneratedClassLoader() {
+    super(GeneratedClassLoader.class.getClassLoader());
+  }
+
+  /** Return a new unique internal class name with the given prefix. */
+  static String newClassName(String prefix) {
+    return (PACKAGE + prefix + COUNTER.incrementAndGet()).replace('.', '/');
+  }
+
+  static Class<?> define(String internalName, byte[] bytes) {
+    return new GeneratedClassLoader().defineClass(internalName.replace('/', '.'), bytes, 0, bytes.length);
+  }
+}
@@ -0,0 +1,112 @@
+/*
+
+ */
+package org.apache.aingle.codegen;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.aingle.Conversion;
+import org.apache.aingle.Conversions;
+import org.apache.aingle.Schema;
+import org.apache.aingle.generic.GenericData;
+import org.apache.aingle.generic.IndexedRecord;
+import org.apache.aingle.io.BinarySkipper;
+import org.apache.aingle.io.DatumReader;
+import org.apache.aingle.io.Decoder;
+import org.apache.aingle.util.Utf8;
+
+/**
+ * Base class of the readers generated by {@link ReaderGenerator}. The generated
+ * code reads the fields of records itself, and relies on the methods of this
+ * class for what is specific to a schema or to the data model.
+ * <p/>
+ * Instances are bound to a writer's schema and are thread-safe.
+ */
+public abstract class GeneratedDatumReader implements DatumReader<Object> {
+  private final GenericData data;
+  private final Schema[] records;
+  private final GenericData.InstanceSupplier[] suppliers;
+  private final BinarySkipper[] skippers;
+  private final DatumReader<Object>[] readers;
+  private final Schema[] defaultSchemas;
+  private final Object[] defaults;
+  private final Schema[] convertedSchemas;
+  private final Conversion<?>[] conversions;
+
+  @SuppressWarnings({ "rawtypes", "unchecked" })
+  protected GeneratedDatumReader(Tables tables) {
+    this.data = tables.data;
+    this.records = tables.records.toArray(new Schema[0]);
+    this.suppliers = tables.suppliers.toArray(new GenericData.InstanceSupplier[0]);
+    this.skippers = tables.skippers.toArray(new BinarySkipper[0]);
+    this.readers = tables.readers.toArray(new DatumReader[0]);
+    this.defaultSchemas = tables.defaultSchemas.toArray(new Schema[0]);
+    this.defaults = tables.defaults.toArray();
+    this.convertedSchemas = tables.convertedSchemas.toArray(new Schema[0]);
+    this.conversions = tables.conversions.toArray(new Conversion[0]);
+  }
+
+  /** The writer's schema is fixed when the reader is generated. */
+  @Override
+  public void setSchema(Schema schema) {
+    throw new UnsupportedOperationException("Generated readers are bound to a writer schema");
+  }
+
+  /** Return the record to read the <i>record</i>th record schema into. */
+  protected final IndexedRecord newRecord(int record, Object old) {
+    return (IndexedRecord) suppliers[record].newInstance(old, records[record]);
+  }
+
+  /** Skip the <i>skipper</i>th run of fields. */
+  protected final void skip(int skipper, Decoder in) throws IOException {
+    skippers[skipper].skip(in);
+  }
+
+  /** Read a value with the <i>reader</i>th reader, for values without generated code. */
+  protected final Object read(int reader, Object old, Decoder in) throws IOException {
+    return readers[reader].read(old, in);
+  }
+
+  /** Return a copy of the <i>value</i>th default value. */
+  protected final Object defaultValue(int value) {
+    return data.deepCopy(defaultSchemas[value], defaults[value]);
+  }
+
+  /** Convert a value read for a field with the <i>conversion</i>th conversion. */
+  protected final Object convert(int conversion, Object value) {
+    Schema schema = convertedSchemas[conversion];
+    return Conversions.convertToLogicalType(value, schema, schema.getLogicalType(), conversions[conversion]);
+  }
+
+  protected static Utf8 readUtf8(Object old, Decoder in) throws IOException {
+    return in.readString(old instanceof Utf8 ? (Utf8) old : null);
+  }
+
+  protected static ByteBuffer readBytes(Object old, Decoder in) throws IOException {
+    return in.readBytes(old instanceof ByteBuffer ? (ByteBuffer) old : null);
+  }
+
+  /**
+   * The schemas, readers, values and conversions that generated code refers to
+   * by index.
+   * Filled by the generator.
+   */
+  public static final class Tables {
+    final GenericData data;
+    final List<Schema> records = new ArrayList<>();
+    final List<GenericData.InstanceSupplier> suppliers = new ArrayList<>();
+    final List<BinarySkipper> skippers = new ArrayList<>();
+    final List<DatumReader<Object>> readers = new ArrayList<>();
+    final List<Schema> defaultSchemas = new ArrayList<>();
+    final List<Object> defaults = new ArrayList<>();
+    final List<Schema> convertedSchemas = new ArrayList<>();
+    final List<Conversion<?>> conversions = new ArrayList<>();
+
+    Tables(GenericData data) {
+      this.data = data;
+    }
+  }
+}
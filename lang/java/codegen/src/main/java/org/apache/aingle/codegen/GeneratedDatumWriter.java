@@ -0,0 +1,61 @@
+/*
+
+ */
+package org.apache.aingle.codegen;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.aingle.Conversion;
+import org.apache.aingle.Conversions;
+import org.apache.aingle.Schema;
+import org.apache.aingle.io.DatumWriter;
+import org.apache.aingle.io.Encoder;
+
+/**
+ * Base class of the writers generated by {@link WriterGenerator}. The generated
+ * code writes the fields of records itself, and relies on the methods of this
+ * class for the values it has no code for.
+ * <p/>
+ * Instances are bound to a schema and are thread-safe.
+ */
+public abstract class GeneratedDatumWriter implements DatumWriter<Object> {
+  private final DatumWriter<Object>[] writers;
+  private final Schema[] convertedSchemas;
+  private final Conversion<?>[] conversions;
+
+  @SuppressWarnings({ "rawtypes", "unchecked" })
+  protected GeneratedDatumWriter(Tables tables) {
+    this.writers = tables.writers.toArray(new DatumWriter[0]);
+    this.convertedSchemas = tables.convertedSchemas.toArray(new Schema[0]);
+    this.conversions = tables.conversions.toArray(new Conversion[0]);
+  }
+
+  /** The schema is fixed when the writer is generated. */
+  @Override
+  public void setSchema(Schema schema) {
+    throw new UnsupportedOperationException("Generated writers are bound to a schema");
+  }
+
+  /** Write a value with the <i>writer</i>th writer, for values without generated code. */
+  protected final void write(int writer, Object datum, Encoder out) throws IOException {
+    writers[writer].write(datum, out);
+  }
+
+  /** Convert the value of a field to write with the <i>conversion</i>th conversion. */
+  protected final Object convert(int conversion, Object value) {
+    Schema schema = convertedSchemas[conversion];
+    return Conversions.convertToRawType(value, schema, schema.getLogicalType(), conversions[conversion]);
+  }
+
+  /**
+   * The writers and conversions that generated code refers to by index. Filled
+   * by the generator.
+   */
+  public static final class Tables {
+    final List<DatumWriter<Object>> writers = new ArrayList<>();
+    final List<Schema> convertedSchemas = new ArrayList<>();
+    final List<Conversion<?>> conversions = new ArrayList<>();
+  }
+}
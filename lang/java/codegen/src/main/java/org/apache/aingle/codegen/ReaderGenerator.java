@@ -0,0 +1,492 @@
+/*
+
+ */
+package org.apache.aingle.codegen;
+
+import static org.objectweb.asm.Opcodes.*;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.apache.aingle.AIngleRuntimeException;
+import org.apache.aingle.Conversion;
+import org.apache.aingle.Resolver;
+import org.apache.aingle.Schema;
+import org.apache.aingle.generic.GenericData;
+import org.apache.aingle.generic.IndexedRecord;
+import org.apache.aingle.io.BinarySkipper;
+import org.apache.aingle.io.DatumReader;
+import org.apache.aingle.io.Decoder;
+import org.apache.aingle.specific.SpecificData;
+import org.apache.aingle.specific.SpecificRecordBase;
+import org.apache.aingle.util.Utf8;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Type;
+
+/**
+ * Generates a {@link GeneratedDatumReader} for a pair of writer and reader
+ * record schemas. Each record is read by a method of its own, with one
+ * straight-line sequence of calls to the decoder per field, as resolved by
+ * {@link Resolver}:
+ * <ul>
+ * <li>primitive values, promotions, nested records and unions of null with one
+ * of those are read by generated code;</li>
+ * <li>each run of fields missing from the reader is skipped by a single
+ * {@link BinarySkipper};</li>
+ * <li>other values, and values with a logical type that the data model
+ * converts, are read by a {@link DatumReader} of the data model;</li>
+ * <li>fields that specific records convert themselves are read as values
+ * without a logical type, then converted.</li>
+ * </ul>
+ * Generated readers are cached for each writer schema, reader schema and data
+ * model, up to {@link GeneratedCache#MAX_SIZE} of them.
+ */
+final class ReaderGenerator {
+  private static final String BASE = Type.getInternalName(GeneratedDatumReader.class);
+  private static final String TABLES = Type.getInternalName(GeneratedDatumReader.Tables.class);
+  private static final String DECODER = Type.getInternalName(Decoder.class);
+  private static final String RECORD = Type.getInternalName(IndexedRecord.class);
+  private static final String READ_DESC = "(Ljava/lang/Object;L" + DECODER + ";)Ljava/lang/Object;";
+  private static final String[] EXCEPTIONS = { "java/io/IOException" };
+
+  // locals of record methods
+  private static final int THIS = 0;
+  private static final int OLD = 1;
+  private static final int IN = 2;
+  private static final int RESULT = 3;
+
+  /** Reads values that are converted by generated code. */
+  static final GenericData WITHOUT_CONVERSIONS = new GenericData();
+
+  private static final GeneratedCache<Key, DatumReader<Object>> CACHE = new GeneratedCache<>(
+      GeneratedCache.MAX_SIZE);
+
+  private final GenericData data;
+  private final GeneratedDatumReader.Tables tables;
+  private final String className;
+  private final ClassWriter cw;
+  private final Map<Resolver.RecordAdjust, String> methods = new IdentityHashMap<>();
+  private final Deque<Resolver.RecordAdjust> pending = new ArrayDeque<>();
+
+  private ReaderGenerator(GenericData data) {
+    this.data = data;
+    this.tables = new GeneratedDatumReader.Tables(data);
+    this.className = GeneratedClassLoader.newClassName("Reader");
+    this.cw = new ObjectFrameClassWriter();
+  }
+
+  /**
+   * Return a reader of data written with <i>writer</i> as data of
+   * <i>reader</i>, in the representation of <i>data</i>. If code cannot be
+   * generated for these schemas, this is the reader of the data model.
+   */
+  @SuppressWarnings("unchecked")
+  static DatumReader<Object> getReader(Schema writer, Schema reader, GenericData data) {
+    return CACHE.get(new Key(writer, reader, data), key -> {
+      Schema resolvedWriter = Schema.applyAliases(writer, reader);
+      Resolver.Action action = Resolver.resolve(resolvedWriter, reader, data);
+      if (isSupportedData(data) && action instanceof Resolver.RecordAdjust) {
+        return new ReaderGenerator(data).generate((Resolver.RecordAdjust) action);
+      }
+      return (DatumReader<Object>) data.createDatumReader(writer, reader);
+    });
+  }
+
+  /** Generated code reads records through {@link IndexedRecord}. */
+  static boolean isSupportedData(GenericData data) {
+    return data.getClass() == GenericData.class || data.getClass() == SpecificData.class;
+  }
+
+  private DatumReader<Object> generate(Resolver.RecordAdjust root) {
+    cw.visit(V1_8, ACC_PUBLIC | ACC_FINAL | ACC_SUPER, className, null, BASE, null);
+
+    MethodVisitor mv = cw.visitMethod(ACC_PUBLIC, "<init>", "(L" + TABLES + ";)V", null, null);
+    mv.visitCode();
+    mv.visitVarInsn(ALOAD, 0);
+    mv.visitVarInsn(ALOAD, 1);
+    mv.visitMethodInsn(INVOKESPECIAL, BASE, "<init>", "(L" + TABLES + ";)V", false);
+    mv.visitInsn(RETURN);
+    mv.visitMaxs(0, 0);
+    mv.visitEnd();
+
+    mv = cw.visitMethod(ACC_PUBLIC, "read", READ_DESC, null, EXCEPTIONS);
+    mv.visitCode();
+    mv.visitVarInsn(ALOAD, THIS);
+    mv.visitVarInsn(ALOAD, OLD);
+    mv.visitVarInsn(ALOAD, IN);
+    mv.visitMethodInsn(INVOKEVIRTUAL, className, methodFor(root), READ_DESC, false);
+    mv.visitInsn(ARETURN);
+    mv.visitMaxs(0, 0);
+    mv.visitEnd();
+
+    while (!pending.isEmpty()) {
+      generateRecordMethod(pending.poll());
+    }
+    cw.visitEnd();
+
+    try {
+      Class<?> c = GeneratedClassLoader.define(className, cw.toByteArray());
+      return c.asSubclass(GeneratedDatumReader.class).getConstructor(GeneratedDatumReader.Tables.class)
+          .newInstance(tables);
+    } catch (ReflectiveOperationException e) {
+      throw new AIngleRuntimeException("Cannot create generated reader", e);
+    }
+  }
+
+  /** The name of the method reading records of <i>action</i>. */
+  private String methodFor(Resolver.RecordAdjust action) {
+    return methods.computeIfAbsent(action, a -> {
+      pending.add(a);
+      return "record" + methods.size();
+    });
+  }
+
+  private void generateRecordMethod(Resolver.RecordAdjust action) {
+    MethodVisitor mv = cw.visitMethod(ACC_FINAL, methods.get(action), READ_DESC, null, EXCEPTIONS);
+    mv.visitCode();
+
+    tables.records.add(action.reader);
+    tables.suppliers.add(action.instanceSupplier);
+    mv.visitVarInsn(ALOAD, THIS);
+    push(mv, tables.records.size() - 1);
+    mv.visitVarInsn(ALOAD, OLD);
+    mv.visitMethodInsn(INVOKEVIRTUAL, BASE, "newRecord", "(ILjava/lang/Object;)L" + RECORD + ";", false);
+    mv.visitVarInsn(ASTORE, RESULT);
+
+    Conversion<?>[] conversions = fieldConversions(action.instanceSupplier.newInstance(null, action.reader),
+        action.reader);
+    Resolver.Action[] actions = action.fieldActions;
+    int readerField = 0;
+    for (int i = 0; i < actions.length;) {
+      if (actions[i] instanceof Resolver.Skip) {
+        List<Schema> skipped = new ArrayList<>();
+        for (; i < actions.length && actions[i] instanceof Resolver.Skip; i++) {
+          skipped.add(actions[i].writer);
+        }
+        tables.skippers.add(BinarySkipper.of(skipped));
+        mv.visitVarInsn(ALOAD, THIS);
+        push(mv, tables.skippers.size() - 1);
+        mv.visitVarInsn(ALOAD, IN);
+        mv.visitMethodInsn(INVOKEVIRTUAL, BASE, "skip", "(IL" + DECODER + ";)V", false);
+      } else {
+        int pos = action.readerOrder[readerField++].pos();
+        mv.visitVarInsn(ALOAD, RESULT);
+        push(mv, pos);
+        if (conversions[pos] != null) {
+          readConverted(mv, actions[i++], pos, conversions[pos]);
+        } else {
+          readValue(mv, actions[i++], pos);
+        }
+        mv.visitMethodInsn(INVOKEINTERFACE, RECORD, "put", "(ILjava/lang/Object;)V", true);
+      }
+    }
+
+    for (int i = action.firstDefault; i < action.readerOrder.length; i++) {
+      Schema.Field field = action.readerOrder[i];
+      tables.defaultSchemas.add(field.schema());
+      tables.defaults.add(action.defaults[i - action.firstDefault]);
+      mv.visitVarInsn(ALOAD, RESULT);
+      push(mv, field.pos());
+      mv.visitVarInsn(ALOAD, THIS);
+      push(mv, tables.defaults.size() - 1);
+      mv.visitMethodInsn(INVOKEVIRTUAL, BASE, "defaultValue", "(I)Ljava/lang/Object;", false);
+      mv.visitMethodInsn(INVOKEINTERFACE, RECORD, "put", "(ILjava/lang/Object;)V", true);
+    }
+
+    mv.visitVarInsn(ALOAD, RESULT);
+    mv.visitInsn(ARETURN);
+    mv.visitMaxs(0, 0);
+    mv.visitEnd();
+  }
+
+  /**
+   * Emit code pushing the value read for <i>action</i>. <i>pos</i> is the
+   * position of the field in the record, whose previous value may be reused.
+   */
+  private void readValue(MethodVisitor mv, Resolver.Action action, int pos) {
+    if (action.conversion != null) {
+      readWithDataModel(mv, action, pos);
+      return;
+    }
+    switch (action.type) {
+    case DO_NOTHING:
+      if (!readPrimitive(mv, action.reader, pos)) {
+        readWithDataModel(mv, action, pos);
+      }
+      break;
+    case PROMOTE:
+      if (!readPromoted(mv, action.writer.getType(), action.reader.getType())) {
+        readWithDataModel(mv, action, pos);
+      }
+      break;
+    case RECORD:
+      mv.visitVarInsn(ALOAD, THIS);
+      loadOld(mv, pos);
+      mv.visitVarInsn(ALOAD, IN);
+      mv.visitMethodInsn(INVOKEVIRTUAL, className, methodFor((Resolver.RecordAdjust) action), READ_DESC, false);
+      break;
+    case READER_UNION:
+      readValue(mv, ((Resolver.ReaderUnion) action).actualAction, pos);
+      break;
+    case WRITER_UNION:
+      if (!readNullable(mv, (Resolver.WriterUnion) action, pos)) {
+        readWithDataModel(mv, action, pos);
+      }
+      break;
+    default:
+      readWithDataModel(mv, action, pos);
+    }
+  }
+
+  /**
+   * Emit code pushing the value read for a field with a <i>conversion</i> of its
+   * own: the value without its logical type, converted as the record requires.
+   */
+  private void readConverted(MethodVisitor mv, Resolver.Action action, int pos, Conversion<?> conversion) {
+    tables.convertedSchemas.add(action.reader);
+    tables.conversions.add(conversion);
+    mv.visitVarInsn(ALOAD, THIS);
+    push(mv, tables.conversions.size() - 1);
+    boolean generated;
+    switch (action.type) {
+    case DO_NOTHING:
+      generated = readPrimitive(mv, action.reader, pos);
+      break;
+    case PROMOTE:
+      generated = readPromoted(mv, action.writer.getType(), action.reader.getType());
+      break;
+    default:
+      generated = false;
+    }
+    if (!generated) {
+      readWithDataModel(mv, action, pos, WITHOUT_CONVERSIONS);
+    }
+    mv.visitMethodInsn(INVOKEVIRTUAL, BASE, "convert", "(ILjava/lang/Object;)Ljava/lang/Object;", false);
+  }
+
+  private boolean readPrimitive(MethodVisitor mv, Schema schema, int pos) {
+    switch (schema.getType()) {
+    case NULL:
+      mv.visitVarInsn(ALOAD, IN);
+      mv.visitMethodInsn(INVOKEVIRTUAL, DECODER, "readNull", "()V", false);
+      mv.visitInsn(ACONST_NULL);
+      return true;
+    case BOOLEAN:
+      readBoxed(mv, "readBoolean", "Z", "java/lang/Boolean");
+      return true;
+    case INT:
+      readBoxed(mv, "readInt", "I", "java/lang/Integer");
+      return true;
+    case LONG:
+      readBoxed(mv, "readLong", "J", "java/lang/Long");
+      return true;
+    case FLOAT:
+      readBoxed(mv, "readFloat", "F", "java/lang/Float");
+      return true;
+    case DOUBLE:
+      readBoxed(mv, "readDouble", "D", "java/lang/Double");
+      return true;
+    case STRING:
+      if (schema.getProp(SpecificData.CLASS_PROP) != null) {
+        return false;
+      } else if (GenericData.StringType.String.name().equals(schema.getProp(GenericData.STRING_PROP))) {
+        mv.visitVarInsn(ALOAD, IN);
+        mv.visitMethodInsn(INVOKEVIRTUAL, DECODER, "readString", "()Ljava/lang/String;", false);
+      } else {
+        loadOld(mv, pos);
+        mv.visitVarInsn(ALOAD, IN);
+        mv.visitMethodInsn(INVOKESTATIC, BASE, "readUtf8",
+            "(Ljava/lang/Object;L" + DECODER + ";)" + Type.getDescriptor(Utf8.class), false);
+      }
+      return true;
+    case BYTES:
+      loadOld(mv, pos);
+      mv.visitVarInsn(ALOAD, IN);
+      mv.visitMethodInsn(INVOKESTATIC, BASE, "readBytes", "(Ljava/lang/Object;L" + DECODER + ";)Ljava/nio/ByteBuffer;",
+          false);
+      return true;
+    default:
+      return false;
+    }
+  }
+
+  private void readBoxed(MethodVisitor mv, String method, String primitive, String box) {
+    mv.visitVarInsn(ALOAD, IN);
+    mv.visitMethodInsn(INVOKEVIRTUAL, DECODER, method, "()" + primitive, false);
+    mv.visitMethodInsn(INVOKESTATIC, box, "valueOf", "(" + primitive + ")L" + box + ";", false);
+  }
+
+  private boolean readPromoted(MethodVisitor mv, Schema.Type writer, Schema.Type reader) {
+    String method;
+    String primitive;
+    switch (writer) {
+    case INT:
+      method = "readInt";
+      primitive = "I";
+      break;
+    case LONG:
+      method = "readLong";
+      primitive = "J";
+      break;
+    case FLOAT:
+      method = "readFloat";
+      primitive = "F";
+      break;
+    default:
+      return false;
+    }
+    int conversion;
+    String box;
+    String boxed;
+    switch (reader) {
+    case LONG:
+      conversion = I2L;
+      box = "java/lang/Long";
+      boxed = "J";
+      break;
+    case FLOAT:
+      conversion = writer == Schema.Type.INT ? I2F : L2F;
+      box = "java/lang/Float";
+      boxed = "F";
+      break;
+    case DOUBLE:
+      conversion = writer == Schema.Type.INT ? I2D : writer == Schema.Type.LONG ? L2D : F2D;
+      box = "java/lang/Double";
+      boxed = "D";
+      break;
+    default:
+      return false;
+    }
+    mv.visitVarInsn(ALOAD, IN);
+    mv.visitMethodInsn(INVOKEVIRTUAL, DECODER, method, "()" + primitive, false);
+    mv.visitInsn(conversion);
+    mv.visitMethodInsn(INVOKESTATIC, box, "valueOf", "(" + boxed + ")L" + box + ";", false);
+    return true;
+  }
+
+  /** Read a union of null and another type, written with the same union. */
+  private boolean readNullable(MethodVisitor mv, Resolver.WriterUnion action, int pos) {
+    if (!action.unionEquiv || action.actions.length != 2) {
+      return false;
+    }
+    int nullIndex;
+    if (action.writer.getTypes().get(0).getType() == Schema.Type.NULL) {
+      nullIndex = 0;
+    } else if (action.writer.getTypes().get(1).getType() == Schema.Type.NULL) {
+      nullIndex = 1;
+    } else {
+      return false;
+    }
+    Label notNull = new Label();
+    Label end = new Label();
+    mv.visitVarInsn(ALOAD, IN);
+    mv.visitMethodInsn(INVOKEVIRTUAL, DECODER, "readIndex", "()I", false);
+    push(mv, nullIndex);
+    mv.visitJumpInsn(IF_ICMPNE, notNull);
+    mv.visitInsn(ACONST_NULL);
+    mv.visitJumpInsn(GOTO, end);
+    mv.visitLabel(notNull);
+    readValue(mv, action.actions[1 - nullIndex], pos);
+    mv.visitLabel(end);
+    return true;
+  }
+
+  private void readWithDataModel(MethodVisitor mv, Resolver.Action action, int pos) {
+    readWithDataModel(mv, action, pos, data);
+  }
+
+  private void readWithDataModel(MethodVisitor mv, Resolver.Action action, int pos, GenericData model) {
+    @SuppressWarnings("unchecked")
+    DatumReader<Object> reader = (DatumReader<Object>) model.createDatumReader(action.writer, action.reader);
+    tables.readers.add(reader);
+    mv.visitVarInsn(ALOAD, THIS);
+    push(mv, tables.readers.size() - 1);
+    loadOld(mv, pos);
+    mv.visitVarInsn(ALOAD, IN);
+    mv.visitMethodInsn(INVOKEVIRTUAL, BASE, "read", "(ILjava/lang/Object;L" + DECODER + ";)Ljava/lang/Object;", false);
+  }
+
+  /** Push the previous value of the field at <i>pos</i>, to be reused. */
+  private static void loadOld(MethodVisitor mv, int pos) {
+    mv.visitVarInsn(ALOAD, RESULT);
+    push(mv, pos);
+    mv.visitMethodInsn(INVOKEINTERFACE, RECORD, "get", "(I)Ljava/lang/Object;", true);
+  }
+
+  /**
+   * The conversions that <i>record</i> applies to the fields of <i>schema</i>
+   * with a logical type, by position, as specific records generated with
+   * conversions do. Null where the data model converts, if at all.
+   */
+  static Conversion<?>[] fieldConversions(Object record, Schema schema) {
+    Conversion<?>[] conversions = new Conversion<?>[schema.getFields().size()];
+    if (record instanceof SpecificRecordBase) {
+      for (Schema.Field field : schema.getFields()) {
+        if (field.schema().getLogicalType() != null) {
+          conversions[field.pos()] = ((SpecificRecordBase) record).getConversion(field.pos());
+        }
+      }
+    }
+    return conversions;
+  }
+
+  static void push(MethodVisitor mv, int value) {
+    if (value >= -1 && value <= 5) {
+      mv.visitInsn(ICONST_0 + value);
+    } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+      mv.visitIntInsn(BIPUSH, value);
+    } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+      mv.visitIntInsn(SIPUSH, value);
+    } else {
+      mv.visitLdcInsn(value);
+    }
+  }
+
+  /**
+   * Computes frames without loading classes: values merged at branches are only
+   * ever used as plain objects.
+   */
+  static final class ObjectFrameClassWriter extends ClassWriter {
+    ObjectFrameClassWriter() {
+      super(ClassWriter.COMPUTE_FRAMES);
+    }
+
+    @Override
+    protected String getCommonSuperClass(String type1, String type2) {
+      return "java/lang/Object";
+    }
+  }
+
+  private static final class Key {
+    private final Schema writer;
+    private final Schema reader;
+    private final GenericData data;
+
+    Key(Schema writer, Schema reader, GenericData data) {
+      this.writer = writer;
+      this.reader = reader;
+      this.data = data;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key that = (Key) o;
+      return data == that.data && writer.equals(that.writer) && reader.equals(that.reader);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(writer, reader, System.identityHashCode(data));
+    }
+  }
+}
@@ -0,0 +1,347 @@
+/*
+
+ */
+package org.apache.aingle.codegen;
+
+import static org.objectweb.asm.Opcodes.*;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.apache.aingle.AIngleRuntimeException;
+import org.apache.aingle.Conversion;
+import org.apache.aingle.Schema;
+import org.apache.aingle.generic.GenericData;
+import org.apache.aingle.generic.GenericFixed;
+import org.apache.aingle.generic.IndexedRecord;
+import org.apache.aingle.io.DatumWriter;
+import org.apache.aingle.io.Encoder;
+import org.apache.aingle.specific.SpecificData;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Type;
+
+/**
+ * Generates a {@link GeneratedDatumWriter} for a record schema. Each record is
+ * written by a method of its own, with one straight-line sequence of calls to
+ * the encoder per field:
+ * <ul>
+ * <li>primitive values, fixed, nested records and unions of null with one of
+ * those are written by generated code;</li>
+ * <li>other values, and values with a logical type that the data model
+ * converts, are written by a {@link DatumWriter} of the data model;</li>
+ * <li>fields that specific records convert themselves are converted, then
+ * written as values without a logical type.</li>
+ * </ul>
+ * Null values of fields that are not nullable fail with a
+ * {@link NullPointerException} naming the field.
+ * Generated writers are cached for each schema and data model, up to
+ * {@link GeneratedCache#MAX_SIZE} of them.
+ */
+final class WriterGenerator {
+  private static final String BASE = Type.getInternalName(GeneratedDatumWriter.class);
+  private static final String TABLES = Type.getInternalName(GeneratedDatumWriter.Tables.class);
+  private static final String ENCODER = Type.getInternalName(Encoder.class);
+  private static final String RECORD = Type.getInternalName(IndexedRecord.class);
+  private static final String WRITE_DESC = "(Ljava/lang/Object;L" + ENCODER + ";)V";
+  private static final String[] EXCEPTIONS = { "java/io/IOException" };
+
+  // locals of record methods
+  private static final int THIS = 0;
+  private static final int DATUM = 1;
+  private static final int OUT = 2;
+  private static final int RECORD_VAR = 3;
+
+  private static final GeneratedCache<Key, DatumWriter<Object>> CACHE = new GeneratedCache<>(
+      GeneratedCache.MAX_SIZE);
+
+  private final GenericData data;
+  private final GeneratedDatumWriter.Tables tables = new GeneratedDatumWriter.Tables();
+  private final String className;
+  private final ClassWriter cw;
+  private final Map<Schema, String> methods = new IdentityHashMap<>();
+  private final Deque<Schema> pending = new ArrayDeque<>();
+  private int nextLocal;
+
+  private WriterGenerator(GenericData data) {
+    this.data = data;
+    this.className = GeneratedClassLoader.newClassName("Writer");
+    this.cw = new ReaderGenerator.ObjectFrameClassWriter();
+  }
+
+  /**
+   * Return a writer of data of <i>schema</i>, in the representation of
+   * <i>data</i>. If code cannot be generated for this schema, this is the writer
+   * of the data model.
+   */
+  @SuppressWarnings("unchecked")
+  static DatumWriter<Object> getWriter(Schema schema, GenericData data) {
+    return CACHE.get(new Key(schema, data), key -> {
+      if (ReaderGenerator.isSupportedData(data) && schema.getType() == Schema.Type.RECORD) {
+        return new WriterGenerator(data).generate(schema);
+      }
+      return (DatumWriter<Object>) data.createDatumWriter(schema);
+    });
+  }
+
+  private DatumWriter<Object> generate(Schema root) {
+    cw.visit(V1_8, ACC_PUBLIC | ACC_FINAL | ACC_SUPER, className, null, BASE, null);
+
+    MethodVisitor mv = cw.visitMethod(ACC_PUBLIC, "<init>", "(L" + TABLES + ";)V", null, null);
+    mv.visitCode();
+    mv.visitVarInsn(ALOAD, 0);
+    mv.visitVarInsn(ALOAD, 1);
+    mv.visitMethodInsn(INVOKESPECIAL, BASE, "<init>", "(L" + TABLES + ";)V", false);
+    mv.visitInsn(RETURN);
+    mv.visitMaxs(0, 0);
+    mv.visitEnd();
+
+    mv = cw.visitMethod(ACC_PUBLIC, "write", WRITE_DESC, null, EXCEPTIONS);
+    mv.visitCode();
+    mv.visitVarInsn(ALOAD, THIS);
+    mv.visitVarInsn(ALOAD, DATUM);
+    mv.visitVarInsn(ALOAD, OUT);
+    mv.visitMethodInsn(INVOKEVIRTUAL, className, methodFor(root), WRITE_DESC, false);
+    mv.visitInsn(RETURN);
+    mv.visitMaxs(0, 0);
+    mv.visitEnd();
+
+    while (!pending.isEmpty()) {
+      generateRecordMethod(pending.poll());
+    }
+    cw.visitEnd();
+
+    try {
+      Class<?> c = GeneratedClassLoader.define(className, cw.toByteArray());
+      return c.asSubclass(GeneratedDatumWriter.class).getConstructor(GeneratedDatumWriter.Tables.class)
+          .newInstance(tables);
+    } catch (ReflectiveOperationException e) {
+      throw new AIngleRuntimeException("Cannot create generated writer", e);
+    }
+  }
+
+  /** The name of the method writing records of <i>schema</i>. */
+  private String methodFor(Schema schema) {
+    return methods.computeIfAbsent(schema, s -> {
+      pending.add(s);
+      return "record" + methods.size();
+    });
+  }
+
+  private void generateRecordMethod(Schema schema) {
+    MethodVisitor mv = cw.visitMethod(ACC_FINAL, methods.get(schema), WRITE_DESC, null, EXCEPTIONS);
+    mv.visitCode();
+    nextLocal = RECORD_VAR + 1;
+
+    mv.visitVarInsn(ALOAD, DATUM);
+    mv.visitTypeInsn(CHECKCAST, RECORD);
+    mv.visitVarInsn(ASTORE, RECORD_VAR);
+    Conversion<?>[] conversions = ReaderGenerator.fieldConversions(data.newRecord(null, schema), schema);
+    for (Schema.Field field : schema.getFields()) {
+      int value = nextLocal++;
+      mv.visitVarInsn(ALOAD, RECORD_VAR);
+      ReaderGenerator.push(mv, field.pos());
+      mv.visitMethodInsn(INVOKEINTERFACE, RECORD, "get", "(I)Ljava/lang/Object;", true);
+      if (!isNullable(field.schema())) {
+        mv.visitLdcInsn("null of " + field.schema().getFullName() + " in field " + field.name() + " of "
+            + schema.getFullName());
+        mv.visitMethodInsn(INVOKESTATIC, "java/util/Objects", "requireNonNull",
+            "(Ljava/lang/Object;Ljava/lang/String;)Ljava/lang/Object;", false);
+      }
+      mv.visitVarInsn(ASTORE, value);
+
+      Conversion<?> conversion = conversions[field.pos()];
+      if (conversion != null) {
+        tables.convertedSchemas.add(field.schema());
+        tables.conversions.add(conversion);
+        int index = tables.conversions.size() - 1;
+        writeRaw(mv, field.schema(), () -> {
+          mv.visitVarInsn(ALOAD, THIS);
+          ReaderGenerator.push(mv, index);
+          mv.visitVarInsn(ALOAD, value);
+          mv.visitMethodInsn(INVOKEVIRTUAL, BASE, "convert", "(ILjava/lang/Object;)Ljava/lang/Object;", false);
+        }, ReaderGenerator.WITHOUT_CONVERSIONS);
+      } else {
+        writeValue(mv, field.schema(), () -> mv.visitVarInsn(ALOAD, value));
+      }
+    }
+
+    mv.visitInsn(RETURN);
+    mv.visitMaxs(0, 0);
+    mv.visitEnd();
+  }
+
+  private static boolean isNullable(Schema schema) {
+    if (schema.getType() == Schema.Type.UNION) {
+      for (Schema type : schema.getTypes()) {
+        if (type.getType() == Schema.Type.NULL) {
+          return true;
+        }
+      }
+      return false;
+    }
+    return schema.getType() == Schema.Type.NULL;
+  }
+
+  /** Emit code writing the value that <i>load</i> pushes. */
+  private void writeValue(MethodVisitor mv, Schema schema, Runnable load) {
+    if (schema.getLogicalType() != null && data.getConversionFor(schema.getLogicalType()) != null) {
+      writeWithDataModel(mv, schema, load, data);
+    } else {
+      writeRaw(mv, schema, load, data);
+    }
+  }
+
+  /**
+   * Emit code writing the value that <i>load</i> pushes, without converting it.
+   * Values without generated code are written by a writer of <i>model</i>.
+   */
+  private void writeRaw(MethodVisitor mv, Schema schema, Runnable load, GenericData model) {
+    switch (schema.getType()) {
+    case NULL:
+      mv.visitVarInsn(ALOAD, OUT);
+      mv.visitMethodInsn(INVOKEVIRTUAL, ENCODER, "writeNull", "()V", false);
+      break;
+    case BOOLEAN:
+      writeUnboxed(mv, load, "java/lang/Boolean", "booleanValue", "writeBoolean", "Z");
+      break;
+    case INT:
+      writeUnboxed(mv, load, "java/lang/Number", "intValue", "writeInt", "I");
+      break;
+    case LONG:
+      writeUnboxed(mv, load, "java/lang/Number", "longValue", "writeLong", "J");
+      break;
+    case FLOAT:
+      writeUnboxed(mv, load, "java/lang/Number", "floatValue", "writeFloat", "F");
+      break;
+    case DOUBLE:
+      writeUnboxed(mv, load, "java/lang/Number", "doubleValue", "writeDouble", "D");
+      break;
+    case STRING:
+      if (schema.getProp(SpecificData.CLASS_PROP) != null) {
+        writeWithDataModel(mv, schema, load, model);
+        break;
+      }
+      mv.visitVarInsn(ALOAD, OUT);
+      load.run();
+      mv.visitTypeInsn(CHECKCAST, "java/lang/CharSequence");
+      mv.visitMethodInsn(INVOKEVIRTUAL, ENCODER, "writeString", "(Ljava/lang/CharSequence;)V", false);
+      break;
+    case BYTES:
+      mv.visitVarInsn(ALOAD, OUT);
+      load.run();
+      mv.visitTypeInsn(CHECKCAST, "java/nio/ByteBuffer");
+      mv.visitMethodInsn(INVOKEVIRTUAL, ENCODER, "writeBytes", "(Ljava/nio/ByteBuffer;)V", false);
+      break;
+    case FIXED:
+      String fixed = Type.getInternalName(GenericFixed.class);
+      mv.visitVarInsn(ALOAD, OUT);
+      load.run();
+      mv.visitTypeInsn(CHECKCAST, fixed);
+      mv.visitMethodInsn(INVOKEINTERFACE, fixed, "bytes", "()[B", true);
+      mv.visitInsn(ICONST_0);
+      ReaderGenerator.push(mv, schema.getFixedSize());
+      mv.visitMethodInsn(INVOKEVIRTUAL, ENCODER, "writeFixed", "([BII)V", false);
+      break;
+    case RECORD:
+      mv.visitVarInsn(ALOAD, THIS);
+      load.run();
+      mv.visitVarInsn(ALOAD, OUT);
+      mv.visitMethodInsn(INVOKEVIRTUAL, className, methodFor(schema), WRITE_DESC, false);
+      break;
+    case UNION:
+      if (!writeNullable(mv, schema, load)) {
+        writeWithDataModel(mv, schema, load, model);
+      }
+      break;
+    default:
+      writeWithDataModel(mv, schema, load, model);
+    }
+  }
+
+  private static void writeUnboxed(MethodVisitor mv, Runnable load, String box, String unbox, String method,
+      String primitive) {
+    mv.visitVarInsn(ALOAD, OUT);
+    load.run();
+    mv.visitTypeInsn(CHECKCAST, box);
+    mv.visitMethodInsn(INVOKEVIRTUAL, box, unbox, "()" + primitive, false);
+    mv.visitMethodInsn(INVOKEVIRTUAL, ENCODER, method, "(" + primitive + ")V", false);
+  }
+
+  /** Write a union of null and another type. */
+  private boolean writeNullable(MethodVisitor mv, Schema union, Runnable load) {
+    List<Schema> types = union.getTypes();
+    if (types.size() != 2) {
+      return false;
+    }
+    int nullIndex;
+    if (types.get(0).getType() == Schema.Type.NULL) {
+      nullIndex = 0;
+    } else if (types.get(1).getType() == Schema.Type.NULL) {
+      nullIndex = 1;
+    } else {
+      return false;
+    }
+    int value = nextLocal++;
+    load.run();
+    mv.visitVarInsn(ASTORE, value);
+
+    Label notNull = new Label();
+    Label end = new Label();
+    mv.visitVarInsn(ALOAD, value);
+    mv.visitJumpInsn(IFNONNULL, notNull);
+    mv.visitVarInsn(ALOAD, OUT);
+    ReaderGenerator.push(mv, nullIndex);
+    mv.visitMethodInsn(INVOKEVIRTUAL, ENCODER, "writeIndex", "(I)V", false);
+    mv.visitVarInsn(ALOAD, OUT);
+    mv.visitMethodInsn(INVOKEVIRTUAL, ENCODER, "writeNull", "()V", false);
+    mv.visitJumpInsn(GOTO, end);
+    mv.visitLabel(notNull);
+    mv.visitVarInsn(ALOAD, OUT);
+    ReaderGenerator.push(mv, 1 - nullIndex);
+    mv.visitMethodInsn(INVOKEVIRTUAL, ENCODER, "writeIndex", "(I)V", false);
+    writeValue(mv, types.get(1 - nullIndex), () -> mv.visitVarInsn(ALOAD, value));
+    mv.visitLabel(end);
+    return true;
+  }
+
+  private void writeWithDataModel(MethodVisitor mv, Schema schema, Runnable load, GenericData model) {
+    @SuppressWarnings("unchecked")
+    DatumWriter<Object> writer = (DatumWriter<Object>) model.createDatumWriter(schema);
+    tables.writers.add(writer);
+    mv.visitVarInsn(ALOAD, THIS);
+    ReaderGenerator.push(mv, tables.writers.size() - 1);
+    load.run();
+    mv.visitVarInsn(ALOAD, OUT);
+    mv.visitMethodInsn(INVOKEVIRTUAL, BASE, "write", "(ILjava/lang/Object;L" + ENCODER + ";)V", false);
+  }
+
+  private static final class Key {
+    private final Schema schema;
+    private final GenericData data;
+
+    Key(Schema schema, GenericData data) {
+      this.schema = schema;
+      this.data = data;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key that = (Key) o;
+      return data == that.data && schema.equals(that.schema);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(schema, System.identityHashCode(data));
+    }
+  }
+}
@@ -0,0 +1,315 @@
+/*
+
+ */
+package org.apache.aingle.codegen;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.aingle.Conversion;
+import org.apache.aingle.Conversions;
+import org.apache.aingle.Schema;
+import org.apache.aingle.SchemaBuilder;
+import org.apache.aingle.data.TimeConversions;
+import org.apache.aingle.generic.GenericData;
+import org.apache.aingle.generic.GenericDatumReader;
+import org.apache.aingle.generic.GenericDatumWriter;
+import org.apache.aingle.generic.GenericRecord;
+import org.apache.aingle.generic.GenericRecordBuilder;
+import org.apache.aingle.io.BinaryDecoder;
+import org.apache.aingle.io.BinaryEncoder;
+import org.apache.aingle.io.DatumReader;
+import org.apache.aingle.io.DatumWriter;
+import org.apache.aingle.io.DecoderFactory;
+import org.apache.aingle.io.EncoderFactory;
+import org.apache.aingle.specific.SpecificData;
+import org.apache.aingle.specific.SpecificDatumWriter;
+import org.apache.aingle.specific.SpecificRecordBase;
+import org.apache.aingle.util.RandomData;
+import org.junit.Test;
+
+public class TestCodegenDatumReaderWriter {
+  private static final Schema NODE = new Schema.Parser().parse("{\"type\":\"record\",\"name\":\"Node\",\"fields\":["
+      + "{\"name\":\"value\",\"type\":\"int\"},"
+      + "{\"name\":\"children\",\"type\":{\"type\":\"array\",\"items\":\"Node\"}},"
+      + "{\"name\":\"next\",\"type\":[\"null\",\"Node\"]}]}");
+
+  private static final Schema SCHEMA = SchemaBuilder.record("Wide").fields() //
+      .requiredDouble("d1") //
+      .requiredLong("l1") //
+      .requiredFloat("f1") //
+      .requiredBoolean("b1") //
+      .name("hash").type().fixed("Hash").size(16).noDefault() //
+      .requiredInt("i1") //
+      .requiredString("s1") //
+      .optionalString("maybe") //
+      .nullableLong("count", 0) //
+      .name("point").type().record("Point").fields().requiredDouble("x").requiredDouble("y").endRecord().noDefault() //
+      .name("doubles").type().array().items().doubleType().noDefault() //
+      .name("props").type().map().values().longType().noDefault() //
+      .name("choice").type().unionOf().nullType().and().stringType().and().doubleType().endUnion().noDefault() //
+      .name("kind").type().enumeration("Kind").symbols("A", "B").noDefault() //
+      .name("tree").type(NODE).noDefault() //
+      .requiredBytes("payload") //
+      .endRecord();
+
+  private static final int COUNT = 200;
+
+  @Test
+  public void testRoundTrip() throws IOException {
+    List<Object> data = data(SCHEMA);
+    byte[] expected = write(new GenericDatumWriter<>(SCHEMA), data);
+    byte[] actual = write(new CodegenDatumWriter<>(SCHEMA), data);
+    assertArrayEquals(expected, actual);
+
+    assertEquals(read(new GenericDatumReader<>(SCHEMA), actual, data.size()),
+        read(new CodegenDatumReader<>(SCHEMA), actual, data.size()));
+  }
+
+  @Test
+  public void testReuse() throws IOException {
+    List<Object> data = data(SCHEMA);
+    byte[] bytes = write(new GenericDatumWriter<>(SCHEMA), data);
+    DatumReader<Object> reader = new CodegenDatumReader<>(SCHEMA);
+    BinaryDecoder in = DecoderFactory.get().binaryDecoder(bytes, null);
+    Object reuse = null;
+    for (Object expected : read(new GenericDatumReader<>(SCHEMA), bytes, data.size())) {
+      reuse = reader.read(reuse, in);
+      assertEquals(expected, reuse);
+    }
+  }
+
+  @Test
+  public void testProjection() throws IOException {
+    Schema reader = SchemaBuilder.record("Wide").fields() //
+        .requiredDouble("l1") //
+        .requiredInt("i1") //
+        .name("point").type().record("Point").fields().requiredDouble("y").endRecord().noDefault() //
+        .name("tree").type(NODE).noDefault() //
+        .name("extra").type().stringType().stringDefault("none") //
+        .name("ratio").type().doubleType().doubleDefault(0.5) //
+        .endRecord();
+    List<Object> data = data(SCHEMA);
+    byte[] bytes = write(new GenericDatumWriter<>(SCHEMA), data);
+
+    List<Object> expected = read(new GenericDatumReader<>(SCHEMA, reader), bytes, data.size());
+    List<Object> actual = read(new CodegenDatumReader<>(SCHEMA, reader), bytes, data.size());
+    assertEquals(expected, actual);
+    GenericRecord first = (GenericRecord) actual.get(0);
+    assertEquals("none", first.get("extra").toString());
+    assertEquals(0.5, first.get("ratio"));
+  }
+
+  @Test
+  public void testPromotionAndUnions() throws IOException {
+    Schema writer = SchemaBuilder.record("R").fields() //
+        .requiredInt("a") //
+        .requiredLong("b") //
+        .requiredFloat("c") //
+        .optionalInt("d") //
+        .requiredString("e") //
+        .endRecord();
+    Schema reader = SchemaBuilder.record("R").fields() //
+        .requiredLong("a") //
+        .requiredDouble("b") //
+        .requiredDouble("c") //
+        .optionalLong("d") //
+        .name("e").type().unionOf().nullType().and().stringType().endUnion().noDefault() //
+        .endRecord();
+    List<Object> data = data(writer);
+    byte[] bytes = write(new GenericDatumWriter<>(writer), data);
+    assertEquals(read(new GenericDatumReader<>(writer, reader), bytes, data.size()),
+        read(new CodegenDatumReader<>(writer, reader), bytes, data.size()));
+  }
+
+  @Test
+  public void testNull() throws IOException {
+    GenericRecord record = new GenericRecordBuilder(SchemaBuilder.record("R").fields() //
+        .optionalString("s") //
+        .requiredInt("i") //
+        .endRecord()).set("i", 3).build();
+    byte[] bytes = write(new CodegenDatumWriter<>(record.getSchema()), singletonList(record));
+    GenericRecord read = (GenericRecord) read(new CodegenDatumReader<>(record.getSchema()), bytes, 1).get(0);
+    assertNull(read.get("s"));
+    assertEquals(3, read.get("i"));
+  }
+
+  @Test
+  public void testNullNotNullable() throws IOException {
+    Schema schema = SchemaBuilder.record("R").fields().requiredString("s").endRecord();
+    try {
+      write(new CodegenDatumWriter<>(schema), singletonList(new GenericData.Record(schema)));
+      fail("Should have thrown");
+    } catch (NullPointerException e) {
+      assertEquals("null of string in field s of R", e.getMessage());
+    }
+  }
+
+  @Test
+  public void testFieldConversions() throws IOException {
+    SpecificData data = SpecificData.get();
+    assertTrue(WriterGenerator.getWriter(Dated.SCHEMA$, data) instanceof GeneratedDatumWriter);
+    List<Object> records = new ArrayList<>();
+    for (int i = 0; i < COUNT; i++) {
+      records.add(new Dated(LocalDate.ofEpochDay(i * 37), Instant.ofEpochMilli(i * 1234567L),
+          BigDecimal.valueOf(i * 101, 2), i));
+    }
+    byte[] expected = write(new SpecificDatumWriter<>(Dated.SCHEMA$, data), records);
+    byte[] actual = write(new CodegenDatumWriter<>(Dated.SCHEMA$, data), records);
+    assertArrayEquals(expected, actual);
+
+    List<Object> read = read(new CodegenDatumReader<>(Dated.SCHEMA$, Dated.SCHEMA$, data), actual, COUNT);
+    for (int i = 0; i < COUNT; i++) {
+      for (int field = 0; field < 4; field++) { // specific records compare converted fields as raw values
+        assertEquals(((Dated) records.get(i)).get(field), ((Dated) read.get(i)).get(field));
+      }
+    }
+  }
+
+  @Test
+  public void testCached() {
+    GenericData data = GenericData.get();
+    assertSame(ReaderGenerator.getReader(SCHEMA, SCHEMA, data), ReaderGenerator.getReader(SCHEMA, SCHEMA, data));
+    assertSame(WriterGenerator.getWriter(SCHEMA, data), WriterGenerator.getWriter(SCHEMA, data));
+    assertTrue(ReaderGenerator.getReader(SCHEMA, SCHEMA, data) instanceof GeneratedDatumReader);
+    assertTrue(WriterGenerator.getWriter(SCHEMA, data) instanceof GeneratedDatumWriter);
+  }
+
+  @Test
+  public void testCacheBounded() {
+    GeneratedCache<Integer, Object> cache = new GeneratedCache<>(2);
+    Object first = cache.get(1, key -> new Object());
+    cache.get(2, key -> new Object());
+    assertSame(first, cache.get(1, key -> new Object())); // most recently used
+    cache.get(3, key -> new Object());
+    assertEquals(2, cache.size());
+    assertSame(first, cache.get(1, key -> new Object()));
+  }
+
+  @Test
+  public void testNotRecord() throws IOException {
+    Schema schema = Schema.createArray(Schema.create(Schema.Type.LONG));
+    List<Object> data = data(schema);
+    byte[] bytes = write(new CodegenDatumWriter<>(schema), data);
+    assertEquals(data, read(new CodegenDatumReader<>(schema), bytes, data.size()));
+  }
+
+  /** A specific record that converts its fields itself, as generated. */
+  public static class Dated extends SpecificRecordBase {
+    static final Schema SCHEMA$ = new Schema.Parser().parse("{\"type\":\"record\",\"name\":\"Dated\","
+        + "\"namespace\":\"org.apache.aingle.codegen.TestCodegenDatumReaderWriter$\",\"fields\":["
+        + "{\"name\":\"day\",\"type\":{\"type\":\"int\",\"logicalType\":\"date\"}},"
+        + "{\"name\":\"at\",\"type\":{\"type\":\"long\",\"logicalType\":\"timestamp-millis\"}},"
+        + "{\"name\":\"amount\",\"type\":{\"type\":\"bytes\",\"logicalType\":\"decimal\",\"precision\":9,"
+        + "\"scale\":2}},{\"name\":\"count\",\"type\":\"int\"}]}");
+    private static final Conversion<?>[] CONVERSIONS = { new TimeConversions.DateConversion(),
+        new TimeConversions.TimestampMillisConversion(), new Conversions.DecimalConversion(), null };
+
+    private LocalDate day;
+    private Instant at;
+    private BigDecimal amount;
+    private int count;
+
+    public Dated() {
+    }
+
+    Dated(LocalDate day, Instant at, BigDecimal amount, int count) {
+      this.day = day;
+      this.at = at;
+      this.amount = amount;
+      this.count = count;
+    }
+
+    @Override
+    public Schema getSchema() {
+      return SCHEMA$;
+    }
+
+    @Override
+    public Conversion<?> getConversion(int field) {
+      return CONVERSIONS[field];
+    }
+
+    @Override
+    public Object get(int field) {
+      switch (field) {
+      case 0:
+        return day;
+      case 1:
+        return at;
+      case 2:
+        return amount;
+      case 3:
+        return count;
+      default:
+        throw new IndexOutOfBoundsException("Invalid index: " + field);
+      }
+    }
+
+    @Override
+    public void put(int field, Object value) {
+      switch (field) {
+      case 0:
+        day = (LocalDate) value;
+        break;
+      case 1:
+        at = (Instant) value;
+        break;
+      case 2:
+        amount = (BigDecimal) value;
+        break;
+      case 3:
+        count = (Integer) value;
+        break;
+      default:
+        throw new IndexOutOfBoundsException("Invalid index: " + field);
+      }
+    }
+  }
+
+  private static List<Object> singletonList(Object o) {
+    List<Object> list = new ArrayList<>();
+    list.add(o);
+    return list;
+  }
+
+  private static List<Object> data(Schema schema) {
+    List<Object> data = new ArrayList<>();
+    for (Object datum : new RandomData(schema, COUNT, 7L)) {
+      data.add(datum);
+    }
+    return data;
+  }
+
+  private static byte[] write(DatumWriter<Object> writer, List<Object> data) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(out, null);
+    for (Object datum : data) {
+      writer.write(datum, encoder);
+    }
+    encoder.flush();
+    return out.toByteArray();
+  }
+
+  private static List<Object> read(DatumReader<Object> reader, byte[] bytes, int count) throws IOException {
+    BinaryDecoder in = DecoderFactory.get().binaryDecoder(bytes, null);
+    List<Object> data = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      data.add(reader.read(null, in));
+    }
+    assertTrue(in.isEnd());
+    return data;
+  }
+}
@@ -0,0 +1,128 @@
+/*
+
+ */
+
+package org.apache.aingle.ipc.netty;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.concurrent.DefaultThreadFactory;
+
+/**
+ * How a {@link NettyServer} runs the requests it receives. A strategy provides
+ * an executor for each connection. A request that its executor rejects with a
+ * {@link RejectedExecutionException} is answered with an overload error, and
+ * counted by {@link NettyServer#getRejectedCount()}.
+ */
+public interface ExecutionStrategy {
+
+  /** Return the executor for the requests received on a new connection. */
+  Executor connectionExecutor(Channel channel);
+
+  /** Called once the server is closed, to release the threads it owns. */
+  default void shutdown() {
+  }
+
+  /**
+   * Run requests on the event loop that reads them. Suits cheap, non-blocking
+   * responders only, since the connections of the event loop wait meanwhile.
+   */
+  static ExecutionStrategy inline() {
+    return channel -> Runnable::run;
+  }
+
+  /**
+   * Run requests on an event loop of <i>group</i>, which queues them without
+   * bound. The group is not shut down with the server. This is the default, with
+   * a group of 16 threads.
+   */
+  static ExecutionStrategy eventLoopGroup(EventLoopGroup group) {
+    return channel -> group;
+  }
+
+  /**
+   * Run requests on a pool of <i>threads</i> threads, where at most
+   * <i>queueCapacity</i> requests wait for a thread. Further requests are
+   * rejected, so that a load spike is shed instead of growing the queue.
+   */
+  static ExecutionStrategy bounded(int threads, int queueCapacity) {
+    BlockingQueue<Runnable> queue = queueCapacity == 0 ? new SynchronousQueue<>()
+        : new ArrayBlockingQueue<>(queueCapacity);
+    ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, queue,
+        new DefaultThreadFactory("aingle-netty-server", true), new ThreadPoolExecutor.AbortPolicy());
+    executor.allowCoreThreadTimeOut(true);
+    return new ExecutionStrategy() {
+      @Override
+      public Executor connectionExecutor(Channel channel) {
+        return executor;
+      }
+
+      @Override
+      public void shutdown() {
+        executor.shutdown();
+      }
+    };
+  }
+
+  /**
+   * Run the requests of each connection one at a time, in the order they are
+   * received, with the executors of <i>strategy</i>. At most <i>maxPending</i>
+   * requests of a connection wait for the one running, further requests are
+   * rejected.
+   *
+   * @throws IllegalArgumentException if <i>maxPending</i> is negative
+   */
+  static ExecutionStrategy ordered(ExecutionStrategy strategy, int maxPending) {
+    if (maxPending < 0) {
+      throw new IllegalArgumentException("Negative maximum of pending requests: " + maxPending);
+    }
+    return new ExecutionStrategy() {
+      @Override
+      public Executor connectionExecutor(Channel channel) {
+        return new SerialExecutor(strategy.connectionExecutor(channel), maxPending);
+      }
+
+      @Override
+      public void shutdown() {
+        strategy.shutdown();
+      }
+    };
+  }
+
+  /**
+   * Run each request on a new virtual thread, which needs Java 21 or later.
+   *
+   * @throws UnsupportedOperationException on earlier Java versions
+   */
+  static ExecutionStrategy virtualThreads() {
+    ExecutorService executor;
+    try {
+      Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      executor = (ExecutorService) factory.invoke(null);
+    } catch (ReflectiveOperationException e) {
+      throw new UnsupportedOperationException("Virtual threads need Java 21 or later", e);
+    }
+    return new ExecutionStrategy() {
+      @Override
+      public Executor connectionExecutor(Channel channel) {
+        return executor;
+      }
+
+      @Override
+      public void shutdown() {
+        executor.shutdown();
+      }
+    };
+  }
+}
@@ -0,0 +1,100 @@
+/*
+
+ */
+
+package org.apache.aingle.ipc.netty;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.aingle.util.ByteBufferAllocator;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+
+/**
+ * A {@link ByteBufferAllocator} for a single response, whose buffers are views
+ * of {@link ByteBuf}s from a Netty {@link ByteBufAllocator}, so that the
+ * response is encoded into pooled memory and written from it without copying.
+ * Not thread-safe.
+ */
+final class NettyBufferAllocator implements ByteBufferAllocator {
+  private final ByteBufAllocator alloc;
+  private final List<ByteBuf> bufs = new ArrayList<>();
+  private final List<ByteBuffer> views = new ArrayList<>();
+
+  NettyBufferAllocator(ByteBufAllocator alloc) {
+    this.alloc = alloc;
+  }
+
+  @Override
+  public ByteBuffer allocate(int capacity) {
+    ByteBuf buf = alloc.ioBuffer(capacity);
+    ByteBuffer view = buf.nioBuffer(0, buf.capacity());
+    bufs.add(buf);
+    views.add(view);
+    return view;
+  }
+
+  @Override
+  public void release(ByteBuffer buffer) {
+    int i = indexOf(buffer);
+    if (i >= 0) {
+      views.remove(i);
+      bufs.remove(i).release();
+    }
+  }
+
+  /**
+   * Return a frame holding <i>buffers</i> as the single buffer of a pack, as
+   * {@link NettyTransportCodec.NettyFrameDecoder} reads it. The frame is a
+   * composite of the buffers allocated here, which it now owns, so that it is
+   * written with a gathering write and released once written. Buffers allocated
+   * here that the frame does not hold are released.
+   */
+  ByteBuf frame(int serial, List<ByteBuffer> buffers) {
+    CompositeByteBuf frame = alloc.compositeBuffer(buffers.size() + 1);
+    ByteBuf header = alloc.ioBuffer(12);
+    int length = 0;
+    for (ByteBuffer buffer : buffers) {
+      length += buffer.remaining();
+    }
+    header.writeInt(serial).writeInt(1).writeInt(length);
+    frame.addComponent(true, header);
+    for (ByteBuffer buffer : buffers) {
+      int i = indexOf(buffer);
+      ByteBuf buf;
+      if (i >= 0) {
+        views.remove(i);
+        buf = bufs.remove(i).setIndex(buffer.position(), buffer.limit());
+      } else { // not allocated here
+        buf = Unpooled.wrappedBuffer(buffer);
+      }
+      frame.addComponent(true, buf);
+    }
+    releaseAll();
+    return frame;
+  }
+
+  /** Release all buffers allocated here and not yet released. */
+  void releaseAll() {
+    for (ByteBuf buf : bufs) {
+      buf.release();
+    }
+    bufs.clear();
+    views.clear();
+  }
+
+  // ByteBuffer#equals compares content: look up by identity
+  private int indexOf(ByteBuffer buffer) {
+    for (int i = 0; i < views.size(); i++) {
+      if (views.get(i) == buffer) {
+        return i;
+      }
+    }
+    return -1;
+  }
+}
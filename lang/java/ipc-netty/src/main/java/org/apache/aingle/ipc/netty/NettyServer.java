@@ -9,9 +9,13 @@ import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 
+import org.apache.aingle.AIngleRuntimeException;
 import org.apache.aingle.ipc.Responder;
 import org.apache.aingle.ipc.Server;
 import org.apache.aingle.ipc.netty.NettyTransportCodec.NettyDataPack;
@@ -43,9 +47,11 @@ public class NettyServer implements Server {
   private final Channel serverChannel;
   private final EventLoopGroup bossGroup;
   private final EventLoopGroup workerGroup;
-  private final EventLoopGroup callerGroup;
+  private final ExecutionStrategy strategy;
   private final CountDownLatch closed = new CountDownLatch(1);
   private final AtomicInteger activeCount = new AtomicInteger(0);
+  private final AtomicInteger queueDepth = new AtomicInteger(0);
+  private final AtomicLong rejectedCount = new AtomicLong(0);
 
   public NettyServer(Responder responder, InetSocketAddress addr) throws InterruptedException {
     this(responder, addr, null);
@@ -53,20 +59,30 @@ public class NettyServer implements Server {
 
   public NettyServer(Responder responder, InetSocketAddress addr, final Consumer<SocketChannel> initializer)
       throws InterruptedException {
-    this(responder, addr, initializer, null, null, null, null);
+    this(responder, addr, initializer, null, null, null, (EventLoopGroup) null);
   }
 
   public NettyServer(Responder responder, InetSocketAddress addr, final Consumer<SocketChannel> initializer,
       final Consumer<ServerBootstrap> bootStrapInitialzier) throws InterruptedException {
-    this(responder, addr, initializer, bootStrapInitialzier, null, null, null);
+    this(responder, addr, initializer, bootStrapInitialzier, null, null, (EventLoopGroup) null);
   }
 
   public NettyServer(Responder responder, InetSocketAddress addr, final Consumer<SocketChannel> initializer,
       final Consumer<ServerBootstrap> bootStrapInitialzier, EventLoopGroup bossGroup, EventLoopGroup workerGroup,
       EventLoopGroup callerGroup) throws InterruptedException {
+    this(responder, addr, initializer, bootStrapInitialzier, bossGroup, workerGroup,
+        ExecutionStrategy.eventLoopGroup(callerGroup == null ? new DefaultEventLoopGroup(16) : callerGroup));
+  }
+
+  /**
+   * @param strategy how requests are run, see {@link ExecutionStrategy}
+   */
+  public NettyServer(Responder responder, InetSocketAddress addr, final Consumer<SocketChannel> initializer,
+      final Consumer<ServerBootstrap> bootStrapInitialzier, EventLoopGroup bossGroup, EventLoopGroup workerGroup,
+      ExecutionStrategy strategy) throws InterruptedException {
     this.bossGroup = bossGroup == null ? new NioEventLoopGroup(1) : bossGroup;
     this.workerGroup = workerGroup == null ? new NioEventLoopGroup(10) : workerGroup;
-    this.callerGroup = callerGroup == null ? new DefaultEventLoopGroup(16) : callerGroup;
+    this.strategy = strategy;
     this.responder = responder;
     ServerBootstrap bootstrap = new ServerBootstrap().group(this.bossGroup, this.workerGroup)
         .channel(NioServerSocketChannel.class).childHandler(new ChannelInitializer<SocketChannel>() {
@@ -75,7 +91,7 @@ public class NettyServer implements Server {
             if (initializer != null) {
               initializer.accept(ch);
             }
-            ch.pipeline().addLast("frameDecoder", new NettyFrameDecoder())
+            ch.pipeline().addLast("frameDecoder", new NettyFrameDecoder(true))
                 .addLast("frameEncoder", new NettyFrameEncoder()).addLast("handler", new NettyServerAIngleHandler());
           }
         }).option(ChannelOption.SO_BACKLOG, 1024).childOption(ChannelOption.TCP_NODELAY, true)
@@ -102,6 +118,7 @@ public class NettyServer implements Server {
       // TODO Auto-generated catch block
       e.printStackTrace();
     }
+    strategy.shutdown();
     closed.countDown();
   }
 
@@ -123,37 +140,68 @@ public class NettyServer implements Server {
     return activeCount.get();
   }
 
+  /**
+   * @return The number of requests received and waiting to be run.
+   */
+  public int getQueueDepth() {
+    return queueDepth.get();
+  }
+
+  /**
+   * @return The number of requests rejected with an overload error since this
+   *         server started.
+   */
+  public long getRejectedCount() {
+    return rejectedCount.get();
+  }
+
   /**
    * AIngle server handler for the Netty transport
    */
   class NettyServerAIngleHandler extends SimpleChannelInboundHandler<NettyDataPack> {
 
     private NettyTransceiver connectionMetadata = new NettyTransceiver();
+    private Executor executor;
 
     @Override
     public void channelActive(ChannelHandlerContext ctx) throws Exception {
       activeCount.incrementAndGet();
+      executor = strategy.connectionExecutor(ctx.channel());
       super.channelActive(ctx);
     }
 
     @Override
     protected void channelRead0(ChannelHandlerContext ctx, final NettyDataPack dataPack) throws Exception {
-      callerGroup.submit(new Runnable() {
-        @Override
-        public void run() {
-          List<ByteBuffer> req = dataPack.getDatas();
-          try {
-            List<ByteBuffer> res = responder.respond(req, connectionMetadata);
-            // response will be null for oneway messages.
-            if (res != null) {
-              dataPack.setDatas(res);
-              ctx.channel().writeAndFlush(dataPack);
-            }
-          } catch (IOException e) {
-            LOG.warn("unexpected error");
-          }
+      queueDepth.incrementAndGet();
+      try {
+        executor.execute(() -> {
+          queueDepth.decrementAndGet();
+          respond(ctx, dataPack, null);
+        });
+      } catch (RejectedExecutionException e) {
+        queueDepth.decrementAndGet();
+        rejectedCount.incrementAndGet();
+        respond(ctx, dataPack, new AIngleRuntimeException("Server overloaded, request rejected"));
+      }
+    }
+
+    private void respond(ChannelHandlerContext ctx, NettyDataPack dataPack, Exception rejection) {
+      List<ByteBuffer> req = dataPack.getDatas();
+      // the response is written from pooled buffers, which the frame owns
+      NettyBufferAllocator allocator = new NettyBufferAllocator(ctx.alloc());
+      try {
+        List<ByteBuffer> res = rejection == null ? responder.respond(req, connectionMetadata, allocator)
+            : responder.reject(req, connectionMetadata, allocator, rejection);
+        // response will be null for oneway messages.
+        if (res != null) {
+          ctx.channel().writeAndFlush(allocator.frame(dataPack.getSerial(), res));
         }
-      });
+      } catch (IOException e) {
+        LOG.warn("unexpected error");
+      } finally {
+        allocator.releaseAll();
+        dataPack.release();
+      }
     }
 
     @Override
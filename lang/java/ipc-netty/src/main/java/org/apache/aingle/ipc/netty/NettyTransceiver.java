@@ -31,6 +31,7 @@ import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandler;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelPromise;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.channel.nio.NioEventLoopGroup;
@@ -60,17 +61,20 @@ public class NettyTransceiver extends Transceiver {
   private final Bootstrap bootstrap;
   private final InetSocketAddress remoteAddr;
   private final EventLoopGroup workerGroup;
+  private final boolean ownsWorkerGroup;
+  private final boolean reconnect;
 
   volatile ChannelFuture channelFuture;
   volatile boolean stopping;
   private final Object channelFutureLock = new Object();
+  private ChannelPromise connectPromise; // Synchronized on channelFutureLock
 
   /**
    * Read lock must be acquired whenever using non-final state. Write lock must be
    * acquired whenever modifying state.
    */
   private final ReentrantReadWriteLock stateLock = new ReentrantReadWriteLock();
-  private Channel channel; // Synchronized on stateLock
+  private volatile Channel channel; // Modified under stateLock
   private Protocol remote; // Synchronized on stateLock
 
   NettyTransceiver() {
@@ -79,6 +83,8 @@ public class NettyTransceiver extends Transceiver {
     remoteAddr = null;
     channelFuture = null;
     workerGroup = null;
+    ownsWorkerGroup = false;
+    reconnect = true;
   }
 
   /**
@@ -153,12 +159,25 @@ public class NettyTransceiver extends Transceiver {
    */
   public NettyTransceiver(InetSocketAddress addr, Integer connectTimeoutMillis,
       final Consumer<SocketChannel> initializer, final Consumer<Bootstrap> bootStrapInitialzier) throws IOException {
+    this(addr, connectTimeoutMillis, initializer, bootStrapInitialzier, null, true);
+  }
+
+  /**
+   * Creates a NettyTransceiver whose channel runs on <i>group</i>, which is
+   * not shut down when it is closed, or on a group of its own if null.
+   * <p>
+   * Unless <i>reconnect</i> is true, it does not connect by itself: it is
+   * connected by {@link #connect()}, and requests fail while it is not.
+   */
+  NettyTransceiver(InetSocketAddress addr, Integer connectTimeoutMillis, final Consumer<SocketChannel> initializer,
+      final Consumer<Bootstrap> bootStrapInitialzier, EventLoopGroup group, boolean reconnect) throws IOException {
     // Set up.
     if (connectTimeoutMillis == null) {
       connectTimeoutMillis = DEFAULT_CONNECTION_TIMEOUT_MILLIS;
     }
     this.connectTimeoutMillis = connectTimeoutMillis;
-    workerGroup = new NioEventLoopGroup(new NettyTransceiverThreadFactory("aingle"));
+    ownsWorkerGroup = group == null;
+    workerGroup = ownsWorkerGroup ? new NioEventLoopGroup(new NettyTransceiverThreadFactory("aingle")) : group;
     bootstrap = new Bootstrap().group(workerGroup).channel(NioSocketChannel.class)
         .option(ChannelOption.SO_KEEPALIVE, true).option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMillis)
         .option(ChannelOption.TCP_NODELAY, DEFAULT_TCP_NODELAY_VALUE).handler(new ChannelInitializer<SocketChannel>() {
@@ -176,6 +195,10 @@ public class NettyTransceiver extends Transceiver {
     }
 
     remoteAddr = addr;
+    this.reconnect = reconnect;
+    if (!reconnect) {
+      return; // connected by connect()
+    }
 
     // Make a new connection.
     stateLock.readLock().lock();
@@ -187,7 +210,9 @@ public class NettyTransceiver extends Transceiver {
         channelFuture.channel().close();
       }
 
-      workerGroup.shutdownGracefully();
+      if (ownsWorkerGroup) {
+        workerGroup.shutdownGracefully();
+      }
 
       if (e instanceof IOException)
         throw (IOException) e;
@@ -219,6 +244,80 @@ public class NettyTransceiver extends Transceiver {
     return (channel != null) && channel.isOpen() && channel.isActive();
   }
 
+  /** Tests whether the channel is connected, without reconnecting or locking. */
+  boolean isChannelReady() {
+    return isChannelReady(channel);
+  }
+
+  /**
+   * Starts connecting, unless connected or connecting already, without waiting
+   * for the connection. Meant for transceivers that do not reconnect by
+   * themselves.
+   *
+   * @return a future completed once the channel is connected and used, or has
+   *         failed to connect.
+   * @throws IOException if this transceiver is closed.
+   */
+  ChannelFuture connect() throws IOException {
+    synchronized (channelFutureLock) {
+      Channel current = channel;
+      if (isChannelReady(current)) {
+        return current.newSucceededFuture();
+      }
+      if (stopping) {
+        throw new IOException(getClass().getSimpleName() + " closed");
+      }
+      if (connectPromise == null) {
+        LOG.debug("Connecting to {}", remoteAddr);
+        ChannelFuture future = bootstrap.connect(remoteAddr);
+        ChannelPromise promise = future.channel().newPromise();
+        channelFuture = future;
+        connectPromise = promise;
+        future.addListener((ChannelFutureListener) f -> connected(f, promise));
+      }
+      return connectPromise;
+    }
+  }
+
+  /**
+   * Closes the channel, failing its pending requests with <i>cause</i>, without
+   * closing this transceiver: {@link #connect()} connects again.
+   */
+  void disconnect(IOException cause) {
+    disconnect(false, true, cause);
+  }
+
+  /** Uses the channel of a connection started by {@link #connect()}. */
+  private void connected(ChannelFuture future, ChannelPromise promise) {
+    synchronized (channelFutureLock) {
+      if (channelFuture == future) {
+        channelFuture = null;
+      }
+      connectPromise = null;
+    }
+    if (!future.isSuccess()) {
+      promise.tryFailure(new IOException("Error connecting to " + remoteAddr, future.cause()));
+      return;
+    }
+    boolean used = false;
+    stateLock.writeLock().lock();
+    try {
+      if (!stopping) { // else not closed by close()
+        channel = future.channel();
+        remote = null;
+        used = true;
+      }
+    } finally {
+      stateLock.writeLock().unlock();
+    }
+    if (used) {
+      promise.trySuccess();
+    } else {
+      future.channel().close();
+      promise.tryFailure(new IOException(getClass().getSimpleName() + " closed"));
+    }
+  }
+
   /**
    * Gets the Netty channel. If the channel is not connected, first attempts to
    * connect. NOTE: The stateLock read lock *must* be acquired before calling this
@@ -229,6 +328,9 @@ public class NettyTransceiver extends Transceiver {
    */
   private Channel getChannel() throws IOException {
     if (!isChannelReady(channel)) {
+      if (!reconnect) {
+        throw new IOException("Not connected to " + remoteAddr);
+      }
       // Need to reconnect
       // Upgrade to write lock
       stateLock.readLock().unlock();
@@ -385,7 +487,7 @@ public class NettyTransceiver extends Transceiver {
       disconnect(awaitCompletion, true, null);
     } finally {
       // Shut down all thread pools to exit.
-      if (workerGroup != null) {
+      if (workerGroup != null && ownsWorkerGroup) {
         workerGroup.shutdownGracefully();
       }
     }
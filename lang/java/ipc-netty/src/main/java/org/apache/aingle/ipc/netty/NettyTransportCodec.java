@@ -27,6 +27,7 @@ public class NettyTransportCodec {
   public static class NettyDataPack {
     private int serial; // to track each call in client side
     private List<ByteBuffer> datas;
+    private ByteBuf buffer; // pooled memory that datas are views of, if any
 
     public NettyDataPack() {
     }
@@ -52,6 +53,17 @@ public class NettyTransportCodec {
       return datas;
     }
 
+    /**
+     * Release the pooled memory that this pack's buffers are views of, if any.
+     * The buffers must no longer be used.
+     */
+    public void release() {
+      if (buffer != null) {
+        buffer.release();
+        buffer = null;
+      }
+    }
+
   }
 
   /**
@@ -98,16 +110,28 @@ public class NettyTransportCodec {
   /**
    * Protocol decoder which converts Netty's ChannelBuffer to NettyDataPack which
    * contains a List&lt;ByteBuffer&gt; needed by AIngle Responder.
+   * <p>
+   * A pooled decoder copies the buffers of each pack into a single buffer from
+   * the channel's allocator instead of the heap, and emits packs holding a view
+   * of it, which must be {@link NettyDataPack#release() released} once read.
    */
   public static class NettyFrameDecoder extends ByteToMessageDecoder {
     private boolean packHeaderRead = false;
     private int listSize;
     private NettyDataPack dataPack;
     private final long maxMem;
+    private final boolean pooled;
+    private ByteBuf body;
+    private int bodyCount;
     private static final long SIZEOF_REF = 8L; // mem usage of 64-bit pointer
 
     public NettyFrameDecoder() {
+      this(false);
+    }
+
+    public NettyFrameDecoder(boolean pooled) {
       maxMem = Runtime.getRuntime().maxMemory();
+      this.pooled = pooled;
     }
 
     /**
@@ -165,6 +189,22 @@ public class NettyTransportCodec {
         return false;
       }
 
+      if (pooled) {
+        if (body == null) {
+          body = ctx.alloc().ioBuffer(length);
+        }
+        body.ensureWritable(length);
+        buffer.readBytes(body, length);
+        if (++bodyCount < listSize) {
+          return false;
+        }
+        dataPack.getDatas().add(body.nioBuffer());
+        dataPack.buffer = body;
+        body = null;
+        bodyCount = 0;
+        return true;
+      }
+
       ByteBuffer bb = ByteBuffer.allocate(length);
       buffer.readBytes(bb);
       ((Buffer) bb).flip();
@@ -173,6 +213,14 @@ public class NettyTransportCodec {
       return dataPack.getDatas().size() == listSize;
     }
 
+    @Override
+    protected void handlerRemoved0(ChannelHandlerContext ctx) throws Exception {
+      if (body != null) { // a partial pack
+        body.release();
+        body = null;
+      }
+    }
+
   }
 
 }
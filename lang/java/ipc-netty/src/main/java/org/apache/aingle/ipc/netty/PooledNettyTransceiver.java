@@ -0,0 +1,495 @@
+/*
+
+ */
+
+package org.apache.aingle.ipc.netty;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.apache.aingle.Protocol;
+import org.apache.aingle.io.BinaryDecoder;
+import org.apache.aingle.io.DecoderFactory;
+import org.apache.aingle.io.Encoder;
+import org.apache.aingle.io.EncoderFactory;
+import org.apache.aingle.ipc.CallFuture;
+import org.apache.aingle.ipc.Callback;
+import org.apache.aingle.ipc.HandshakeMatch;
+import org.apache.aingle.ipc.HandshakeRequest;
+import org.apache.aingle.ipc.HandshakeResponse;
+import org.apache.aingle.ipc.MD5;
+import org.apache.aingle.ipc.Transceiver;
+import org.apache.aingle.ipc.netty.NettyTransceiver.NettyTransceiverThreadFactory;
+import org.apache.aingle.specific.SpecificDatumReader;
+import org.apache.aingle.specific.SpecificDatumWriter;
+import org.apache.aingle.util.ByteBufferInputStream;
+import org.apache.aingle.util.ByteBufferOutputStream;
+
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link Transceiver} that spreads requests over a pool of Netty connections
+ * to the same server, each a {@link NettyTransceiver}, so that a client is not
+ * limited by the throughput of a single connection.
+ * <p>
+ * The handshake of the first request is done on one connection. Further
+ * connections, and connections that were lost, are reconnected and handshaken
+ * in the background, each independently of the others and without blocking a
+ * thread: requests go to the connections that are ready meanwhile, and fail
+ * only if none is. At most a given number of requests are outstanding on each
+ * connection, further requests fail with an {@link IOException}.
+ */
+public class PooledNettyTransceiver extends Transceiver {
+  private static final Logger LOG = LoggerFactory.getLogger(PooledNettyTransceiver.class.getName());
+
+  /** How a request is assigned to a connection. */
+  public enum Balancing {
+    /** Each connection in turn. */
+    ROUND_ROBIN,
+    /** The connection with the fewest outstanding requests. */
+    LEAST_OUTSTANDING
+  }
+
+  private static final SpecificDatumReader<HandshakeRequest> HANDSHAKE_REQUEST_READER = new SpecificDatumReader<>(
+      HandshakeRequest.class);
+  private static final SpecificDatumWriter<HandshakeRequest> HANDSHAKE_WRITER = new SpecificDatumWriter<>(
+      HandshakeRequest.class);
+  private static final SpecificDatumReader<HandshakeResponse> HANDSHAKE_READER = new SpecificDatumReader<>(
+      HandshakeResponse.class);
+
+  /** A connection of the pool. */
+  private static final class Member {
+    final NettyTransceiver transceiver;
+    final AtomicInteger outstanding = new AtomicInteger();
+    final AtomicBoolean maintaining = new AtomicBoolean();
+
+    Member(NettyTransceiver transceiver) {
+      this.transceiver = transceiver;
+    }
+  }
+
+  private final InetSocketAddress remoteAddr;
+  private final Member[] members;
+  private final int maxOutstanding;
+  private final Balancing balancing;
+  private final EventLoopGroup workerGroup;
+  private final long connectTimeoutMillis;
+  private final AtomicInteger next = new AtomicInteger();
+  private final AtomicLong rejectedCount = new AtomicLong();
+  private final AtomicLong reconnectCount = new AtomicLong();
+
+  private volatile Protocol remote;
+  private volatile String remoteName; // of the last connection asked
+  private volatile HandshakeRequest handshake; // as sent by the requestor
+  private volatile Member handshaker; // where it was sent
+  private volatile boolean closed;
+
+  /**
+   * Creates a pool of <i>poolSize</i> connections to the given address, with no
+   * limit on outstanding requests, balanced by
+   * {@link Balancing#LEAST_OUTSTANDING}.
+   *
+   * @throws IOException if an error occurs connecting to the given address.
+   */
+  public PooledNettyTransceiver(InetSocketAddress addr, int poolSize) throws IOException {
+    this(addr, poolSize, Integer.MAX_VALUE, Balancing.LEAST_OUTSTANDING,
+        NettyTransceiver.DEFAULT_CONNECTION_TIMEOUT_MILLIS, null);
+  }
+
+  /**
+   * Creates a pool of connections to the given address.
+   *
+   * @param addr                 the address to connect to.
+   * @param poolSize             the number of connections.
+   * @param maxOutstanding       the maximum number of outstanding requests on a
+   *                             connection.
+   * @param balancing            how requests are assigned to connections.
+   * @param connectTimeoutMillis maximum amount of time to wait for connection
+   *                             establishment in milliseconds, or null to use
+   *                             {@link NettyTransceiver#DEFAULT_CONNECTION_TIMEOUT_MILLIS}.
+   * @param initializer          Consumer function to apply initial setup to each
+   *                             SocketChannel, or null.
+   * @throws IOException if an error occurs connecting to the given address.
+   */
+  public PooledNettyTransceiver(InetSocketAddress addr, int poolSize, int maxOutstanding, Balancing balancing,
+      Integer connectTimeoutMillis, Consumer<SocketChannel> initializer) throws IOException {
+    if (poolSize < 1) {
+      throw new IllegalArgumentException("Invalid pool size: " + poolSize);
+    }
+    if (maxOutstanding < 1) {
+      throw new IllegalArgumentException("Invalid maximum of outstanding requests: " + maxOutstanding);
+    }
+    this.remoteAddr = addr;
+    this.maxOutstanding = maxOutstanding;
+    this.balancing = balancing;
+    this.connectTimeoutMillis = connectTimeoutMillis != null ? connectTimeoutMillis
+        : NettyTransceiver.DEFAULT_CONNECTION_TIMEOUT_MILLIS;
+    this.workerGroup = new NioEventLoopGroup(new NettyTransceiverThreadFactory("aingle-pool"));
+    this.members = new Member[poolSize];
+    try {
+      // connect all at once, and wait for them
+      ChannelFuture[] connects = new ChannelFuture[poolSize];
+      for (int i = 0; i < poolSize; i++) {
+        members[i] = new Member(new NettyTransceiver(addr, connectTimeoutMillis, initializer, null, workerGroup, false));
+        connects[i] = members[i].transceiver.connect();
+      }
+      for (ChannelFuture connect : connects) {
+        if (!connect.awaitUninterruptibly(this.connectTimeoutMillis)) {
+          throw new IOException("Timed out connecting to " + addr);
+        }
+        if (!connect.isSuccess()) {
+          throw new IOException("Error connecting to " + addr, connect.cause());
+        }
+      }
+    } catch (IOException | RuntimeException e) {
+      close();
+      throw e;
+    }
+  }
+
+  /** Return the number of connections of this pool. */
+  public int getPoolSize() {
+    return members.length;
+  }
+
+  /** Return the number of connections that are ready to take requests. */
+  public int getReadyConnections() {
+    int ready = 0;
+    for (Member member : members) {
+      if (isReady(member)) {
+        ready++;
+      }
+    }
+    return ready;
+  }
+
+  /** Return the number of requests sent and not yet answered. */
+  public int getOutstandingRequests() {
+    int outstanding = 0;
+    for (Member member : members) {
+      outstanding += member.outstanding.get();
+    }
+    return outstanding;
+  }
+
+  /** Return the number of requests that failed as no connection could take them. */
+  public long getRejectedCount() {
+    return rejectedCount.get();
+  }
+
+  /** Return the number of connections that were established again. */
+  public long getReconnectCount() {
+    return reconnectCount.get();
+  }
+
+  /**
+   * Returns the name of a connected peer. If no connection is ready, returns
+   * the last name returned, or else the name of the remote address. Never
+   * connects.
+   */
+  @Override
+  public String getRemoteName() {
+    for (Member member : members) {
+      if (member.transceiver.isChannelReady()) {
+        try {
+          remoteName = member.transceiver.getRemoteName();
+          return remoteName;
+        } catch (IOException e) {
+          // lost meanwhile
+        }
+      }
+    }
+    String name = remoteName;
+    return name != null ? name : remoteAddr.toString();
+  }
+
+  @Override
+  public List<ByteBuffer> transceive(List<ByteBuffer> request) throws IOException {
+    CallFuture<List<ByteBuffer>> future = new CallFuture<>();
+    transceive(request, future);
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt(); // Reset interrupt flag
+      throw new IOException("Interrupted while waiting for a response", e);
+    } catch (ExecutionException e) {
+      throw new IOException("Error waiting for a response", e.getCause());
+    }
+  }
+
+  @Override
+  public void transceive(List<ByteBuffer> request, Callback<List<ByteBuffer>> callback) throws IOException {
+    Member member = acquire();
+    try {
+      if (remote == null) { // the requestor is handshaking
+        handshake = readHandshake(request);
+        handshaker = member;
+      }
+      member.transceiver.transceive(request, new Callback<List<ByteBuffer>>() {
+        @Override
+        public void handleResult(List<ByteBuffer> result) {
+          member.outstanding.decrementAndGet();
+          callback.handleResult(result);
+        }
+
+        @Override
+        public void handleError(Throwable error) {
+          member.outstanding.decrementAndGet();
+          callback.handleError(error);
+        }
+      });
+    } catch (IOException | RuntimeException e) {
+      member.outstanding.decrementAndGet();
+      throw e;
+    }
+  }
+
+  @Override
+  public void writeBuffers(List<ByteBuffer> buffers) throws IOException {
+    Member member = acquire();
+    try {
+      member.transceiver.writeBuffers(buffers);
+    } finally {
+      member.outstanding.decrementAndGet();
+    }
+  }
+
+  @Override
+  public List<ByteBuffer> readBuffers() throws IOException {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public Protocol getRemote() {
+    return remote;
+  }
+
+  @Override
+  public boolean isConnected() {
+    return remote != null;
+  }
+
+  @Override
+  public void setRemote(Protocol protocol) {
+    Member member = handshaker;
+    if (member != null) {
+      member.transceiver.setRemote(protocol);
+    }
+    this.remote = protocol;
+    for (Member other : members) { // handshake the other connections
+      maintain(other);
+    }
+  }
+
+  /**
+   * Closes all connections of this pool. Cancels all pending RPCs and sends an
+   * IOException to all pending callbacks.
+   */
+  @Override
+  public void close() {
+    closed = true;
+    for (Member member : members) {
+      if (member != null) {
+        member.transceiver.close();
+      }
+    }
+    workerGroup.shutdownGracefully();
+  }
+
+  /** A connection is ready once connected and, if required, handshaken. */
+  private boolean isReady(Member member) {
+    return member.transceiver.isChannelReady() && (remote == null || member.transceiver.isConnected());
+  }
+
+  /**
+   * Choose a ready connection for a request and count it as outstanding there.
+   * Connections that are not ready are maintained in the background.
+   */
+  private Member acquire() throws IOException {
+    if (closed) {
+      throw new IOException(getClass().getSimpleName() + " closed");
+    }
+    int start = balancing == Balancing.ROUND_ROBIN ? next.getAndIncrement() & Integer.MAX_VALUE : 0;
+    for (int attempt = 0; attempt < members.length; attempt++) {
+      Member best = null;
+      for (int i = 0; i < members.length; i++) {
+        Member member = members[(start + i) % members.length];
+        if (!isReady(member)) {
+          maintain(member);
+        } else if (balancing == Balancing.ROUND_ROBIN) {
+          if (tryAcquire(member)) {
+            return member;
+          }
+        } else if (best == null || member.outstanding.get() < best.outstanding.get()) {
+          best = member;
+        }
+      }
+      if (best == null) {
+        break;
+      }
+      if (tryAcquire(best)) {
+        return best;
+      }
+    }
+    rejectedCount.incrementAndGet();
+    throw new IOException("No connection to " + remoteAddr + " can take a request");
+  }
+
+  private boolean tryAcquire(Member member) {
+    for (;;) {
+      int outstanding = member.outstanding.get();
+      if (outstanding >= maxOutstanding) {
+        return false;
+      }
+      if (member.outstanding.compareAndSet(outstanding, outstanding + 1)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Reconnect and handshake a connection in the background, unless pending. Each
+   * connection is maintained on its own, by callbacks on its event loop.
+   */
+  private void maintain(Member member) {
+    if (closed || isReady(member) || !member.maintaining.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      if (member.transceiver.isChannelReady()) {
+        handshake(member);
+        return;
+      }
+      member.transceiver.connect().addListener((ChannelFutureListener) future -> {
+        if (future.isSuccess()) {
+          reconnectCount.incrementAndGet();
+          handshake(member);
+        } else {
+          LOG.debug("Error connecting to {}", remoteAddr, future.cause());
+          member.maintaining.set(false);
+        }
+      });
+    } catch (IOException | RuntimeException e) { // closed
+      member.maintaining.set(false);
+    }
+  }
+
+  /**
+   * Handshake a connection as the requestor did, expecting the server to know
+   * its protocol, and without a message: the server only answers the handshake.
+   * Ends the maintenance of the connection once answered or timed out.
+   */
+  private void handshake(Member member) {
+    Protocol protocol = remote;
+    HandshakeRequest sent = handshake;
+    if (protocol == null || sent == null || member.transceiver.isConnected()) {
+      member.maintaining.set(false);
+      return;
+    }
+    MD5 serverHash = new MD5();
+    serverHash.bytes(protocol.getMD5());
+    HandshakeRequest request = new HandshakeRequest();
+    request.setClientHash(sent.getClientHash());
+    request.setClientProtocol(sent.getClientProtocol());
+    request.setServerHash(serverHash);
+    request.setMeta(sent.getMeta());
+
+    AtomicBoolean done = new AtomicBoolean();
+    try {
+      ByteBufferOutputStream bbo = new ByteBufferOutputStream();
+      Encoder out = EncoderFactory.get().directBinaryEncoder(bbo, null);
+      HANDSHAKE_WRITER.write(request, out);
+      out.writeInt(0); // empty metadata
+      out.writeString(""); // bogus message name
+      member.transceiver.transceive(bbo.getBufferList(), new Callback<List<ByteBuffer>>() {
+        @Override
+        public void handleResult(List<ByteBuffer> response) {
+          if (done.compareAndSet(false, true)) {
+            try {
+              handshaken(member, protocol, response);
+            } catch (IOException | RuntimeException e) {
+              LOG.debug("Error handshaking with {}", remoteAddr, e);
+            } finally {
+              member.maintaining.set(false);
+            }
+          }
+        }
+
+        @Override
+        public void handleError(Throwable error) {
+          if (done.compareAndSet(false, true)) {
+            LOG.debug("Error handshaking with {}", remoteAddr, error);
+            member.maintaining.set(false);
+          }
+        }
+      });
+      workerGroup.schedule(() -> {
+        if (done.compareAndSet(false, true)) {
+          LOG.debug("Timed out handshaking with {}", remoteAddr);
+          member.maintaining.set(false);
+        }
+      }, connectTimeoutMillis, TimeUnit.MILLISECONDS);
+    } catch (IOException | RejectedExecutionException e) {
+      if (done.compareAndSet(false, true)) {
+        LOG.debug("Error handshaking with {}", remoteAddr, e);
+        member.maintaining.set(false);
+      }
+    }
+  }
+
+  private void handshaken(Member member, Protocol protocol, List<ByteBuffer> response) throws IOException {
+    BinaryDecoder in = DecoderFactory.get().binaryDecoder(new ByteBufferInputStream(response), null);
+    HandshakeResponse handshakeResponse = HANDSHAKE_READER.read(null, in);
+    if (handshakeResponse.getMatch() == HandshakeMatch.NONE) {
+      // e.g. the server restarted: once no connection is handshaken, the
+      // requestor can handshake again, sending its protocol
+      boolean handshaken = false;
+      for (Member other : members) {
+        handshaken |= other.transceiver.isConnected();
+      }
+      if (!handshaken) {
+        remote = null;
+      }
+      throw new IOException("Server " + remoteAddr + " does not know the client protocol");
+    }
+    if (handshakeResponse.getMatch() == HandshakeMatch.CLIENT) {
+      // the server has another protocol, e.g. after an upgrade: the requestor
+      // handshakes again to learn it, on a connection the server did not take
+      // as handshaken already
+      if (remote == protocol) {
+        remote = null;
+      }
+      IOException e = new IOException("Server " + remoteAddr + " has changed its protocol");
+      member.transceiver.disconnect(e);
+      throw e;
+    }
+    member.transceiver.setRemote(protocol);
+  }
+
+  /** Read the handshake request at the start of a request, leaving it intact. */
+  private static HandshakeRequest readHandshake(List<ByteBuffer> request) throws IOException {
+    List<ByteBuffer> buffers = new ArrayList<>(request.size());
+    for (ByteBuffer buffer : request) {
+      buffers.add(buffer.duplicate());
+    }
+    BinaryDecoder in = DecoderFactory.get().binaryDecoder(new ByteBufferInputStream(buffers), null);
+    return HANDSHAKE_REQUEST_READER.read(null, in);
+  }
+}
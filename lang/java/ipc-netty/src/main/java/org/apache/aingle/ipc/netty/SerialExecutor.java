@@ -0,0 +1,83 @@
+/*
+
+ */
+
+package org.apache.aingle.ipc.netty;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/** Runs tasks one at a time, in order, with another executor. */
+final class SerialExecutor implements Executor {
+  private static final Logger LOG = LoggerFactory.getLogger(SerialExecutor.class);
+
+  private final Executor executor;
+  private final int maxPending;
+  private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+  private boolean running;
+
+  SerialExecutor(Executor executor, int maxPending) {
+    this.executor = executor;
+    this.maxPending = maxPending;
+  }
+
+  @Override
+  public synchronized void execute(Runnable task) {
+    if (running && tasks.size() >= maxPending) { // only tasks waiting count
+      throw new RejectedExecutionException("Too many pending requests: " + tasks.size());
+    }
+    tasks.add(task);
+    if (!running) {
+      running = true;
+      try {
+        executor.execute(this::drain);
+      } catch (RejectedExecutionException e) {
+        running = false;
+        tasks.clear(); // only this task
+        throw e;
+      }
+    }
+  }
+
+  private void drain() {
+    boolean drained = false;
+    try {
+      for (;;) {
+        Runnable task;
+        synchronized (this) {
+          task = tasks.poll();
+          if (task == null) {
+            running = false;
+            drained = true;
+            return;
+          }
+        }
+        try {
+          task.run();
+        } catch (RuntimeException e) {
+          LOG.warn("Unexpected exception running a request", e);
+        }
+      }
+    } finally {
+      if (!drained) { // a task threw an Error
+        restart();
+      }
+    }
+  }
+
+  /** Run the tasks left with a new drain, so that they are not stuck. */
+  private synchronized void restart() {
+    running = !tasks.isEmpty();
+    if (running) {
+      try {
+        executor.execute(this::drain);
+      } catch (RejectedExecutionException e) {
+        running = false;
+      }
+    }
+  }
+}
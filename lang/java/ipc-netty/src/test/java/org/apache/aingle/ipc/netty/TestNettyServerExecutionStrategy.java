@@ -0,0 +1,222 @@
+/*
+
+ */
+
+package org.apache.aingle.ipc.netty;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.aingle.AIngleRuntimeException;
+import org.apache.aingle.ipc.CallFuture;
+import org.apache.aingle.ipc.Transceiver;
+import org.apache.aingle.ipc.specific.SpecificRequestor;
+import org.apache.aingle.ipc.specific.SpecificResponder;
+import org.apache.aingle.test.Simple;
+import org.apache.aingle.test.TestError;
+import org.apache.aingle.test.TestRecord;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Test;
+
+public class TestNettyServerExecutionStrategy {
+  private NettyServer server;
+  private Transceiver transceiver;
+
+  @After
+  public void cleanUpAfter() throws Exception {
+    if (transceiver != null) {
+      transceiver.close();
+    }
+    if (server != null) {
+      server.close();
+    }
+  }
+
+  private Simple.Callback start(SimpleImpl impl, ExecutionStrategy strategy) throws Exception {
+    server = new NettyServer(new SpecificResponder(Simple.class, impl), new InetSocketAddress(0), null, null, null,
+        null, strategy);
+    transceiver = new NettyTransceiver(new InetSocketAddress(server.getPort()), TestNettyServer.CONNECT_TIMEOUT_MILLIS);
+    Simple.Callback client = SpecificRequestor.getClient(Simple.Callback.class, transceiver);
+    assertEquals(3, client.add(1, 2)); // handshake
+    return client;
+  }
+
+  @Test(timeout = 30000)
+  public void testBoundedRejects() throws Exception {
+    SimpleImpl impl = new SimpleImpl();
+    Simple.Callback client = start(impl, ExecutionStrategy.bounded(1, 0));
+
+    CallFuture<String> waiting = new CallFuture<>();
+    client.hello("wait", waiting);
+    impl.waiting.await();
+    try {
+      client.hello("rejected");
+      fail("Expected an overload error");
+    } catch (AIngleRuntimeException e) {
+      assertTrue(e.getMessage(), e.getMessage().contains("overloaded"));
+    }
+    assertEquals(1, server.getRejectedCount());
+
+    impl.ack.countDown();
+    assertEquals("wait", waiting.get());
+    assertEquals("accepted", client.hello("accepted"));
+    assertEquals(1, server.getRejectedCount());
+    assertEquals(0, server.getQueueDepth());
+  }
+
+  @Test(timeout = 30000)
+  public void testOrdered() throws Exception {
+    SimpleImpl impl = new SimpleImpl();
+    Simple.Callback client = start(impl, ExecutionStrategy.ordered(ExecutionStrategy.bounded(4, 100), 100));
+
+    List<CallFuture<String>> futures = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      CallFuture<String> future = new CallFuture<>();
+      client.hello(Integer.toString(i), future);
+      futures.add(future);
+    }
+    for (int i = 0; i < 50; i++) {
+      assertEquals(Integer.toString(i), futures.get(i).get());
+    }
+    List<String> expected = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      expected.add(Integer.toString(i));
+    }
+    assertEquals(expected, impl.greetings);
+  }
+
+  @Test(timeout = 30000)
+  public void testOrderedRejects() throws Exception {
+    SimpleImpl impl = new SimpleImpl();
+    Simple.Callback client = start(impl, ExecutionStrategy.ordered(ExecutionStrategy.bounded(4, 100), 0));
+
+    CallFuture<String> waiting = new CallFuture<>();
+    client.hello("wait", waiting);
+    impl.waiting.await();
+    try {
+      client.hello("rejected"); // would wait behind the running request
+      fail("Expected an overload error");
+    } catch (AIngleRuntimeException e) {
+      assertTrue(e.getMessage(), e.getMessage().contains("overloaded"));
+    }
+    assertEquals(1, server.getRejectedCount());
+
+    impl.ack.countDown();
+    assertEquals("wait", waiting.get());
+    assertEquals("accepted", client.hello("accepted"));
+    assertEquals(1, server.getRejectedCount());
+  }
+
+  @Test(timeout = 30000)
+  public void testSerialExecutorError() throws Exception {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      SerialExecutor serial = new SerialExecutor(executor, 10);
+      serial.execute(() -> {
+        throw new AssertionError("task");
+      });
+      CountDownLatch queued = new CountDownLatch(1);
+      serial.execute(queued::countDown); // may wait behind the failing task
+      assertTrue(queued.await(10, TimeUnit.SECONDS));
+      CountDownLatch next = new CountDownLatch(1);
+      serial.execute(next::countDown);
+      assertTrue(next.await(10, TimeUnit.SECONDS));
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testOrderedNegativePending() {
+    ExecutionStrategy.ordered(ExecutionStrategy.inline(), -1);
+  }
+
+  @Test(timeout = 30000)
+  public void testInline() throws Exception {
+    Simple.Callback client = start(new SimpleImpl(), ExecutionStrategy.inline());
+    assertEquals("inline", client.hello("inline"));
+  }
+
+  @Test(timeout = 30000)
+  public void testVirtualThreads() throws Exception {
+    ExecutionStrategy strategy;
+    try {
+      strategy = ExecutionStrategy.virtualThreads();
+    } catch (UnsupportedOperationException e) {
+      Assume.assumeNoException(e); // before Java 21
+      return;
+    }
+    SimpleImpl impl = new SimpleImpl();
+    Simple.Callback client = start(impl, strategy);
+
+    // a blocked request does not hold up the others
+    CallFuture<String> waiting = new CallFuture<>();
+    client.hello("wait", waiting);
+    impl.waiting.await();
+    assertEquals("virtual", client.hello("virtual"));
+    assertTrue((Boolean) Thread.class.getMethod("isVirtual").invoke(impl.thread));
+
+    impl.ack.countDown();
+    assertEquals("wait", waiting.get());
+  }
+
+  private static class SimpleImpl implements Simple {
+    final CountDownLatch waiting = new CountDownLatch(1);
+    final CountDownLatch ack = new CountDownLatch(1);
+    final List<String> greetings = Collections.synchronizedList(new ArrayList<>());
+    volatile Thread thread; // of the last greeting
+
+    @Override
+    public int add(int arg1, int arg2) {
+      return arg1 + arg2;
+    }
+
+    @Override
+    public String hello(String greeting) {
+      if (greeting.equals("wait")) {
+        waiting.countDown();
+        try {
+          ack.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      } else {
+        greetings.add(greeting);
+        thread = Thread.currentThread();
+      }
+      return greeting;
+    }
+
+    @Override
+    public void ack() {
+      ack.countDown();
+    }
+
+    @Override
+    public TestRecord echo(TestRecord record) {
+      return record;
+    }
+
+    @Override
+    public ByteBuffer echoBytes(ByteBuffer data) {
+      return data;
+    }
+
+    @Override
+    public void error() throws TestError {
+      throw new TestError("TestError");
+    }
+  }
+}
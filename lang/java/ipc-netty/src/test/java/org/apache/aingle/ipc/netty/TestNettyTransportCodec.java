@@ -0,0 +1,99 @@
+/*
+
+ */
+
+package org.apache.aingle.ipc.netty;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.aingle.ipc.netty.NettyTransportCodec.NettyDataPack;
+import org.apache.aingle.ipc.netty.NettyTransportCodec.NettyFrameDecoder;
+import org.apache.aingle.ipc.netty.NettyTransportCodec.NettyFrameEncoder;
+import org.junit.Test;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+
+public class TestNettyTransportCodec {
+
+  private static List<ByteBuffer> buffers(int... sizes) {
+    List<ByteBuffer> buffers = new ArrayList<>();
+    byte b = 0;
+    for (int size : sizes) {
+      ByteBuffer buffer = ByteBuffer.allocate(size);
+      while (buffer.hasRemaining())
+        buffer.put(b++);
+      ((Buffer) buffer).flip();
+      buffers.add(buffer);
+    }
+    return buffers;
+  }
+
+  private static byte[] concat(List<ByteBuffer> buffers) {
+    ByteBuffer all = ByteBuffer.allocate(buffers.stream().mapToInt(ByteBuffer::remaining).sum());
+    for (ByteBuffer buffer : buffers)
+      all.put(buffer.duplicate());
+    return all.array();
+  }
+
+  private static ByteBuf encode(NettyDataPack pack) {
+    EmbeddedChannel encoder = new EmbeddedChannel(new NettyFrameEncoder());
+    encoder.writeOutbound(pack);
+    return encoder.readOutbound();
+  }
+
+  @Test
+  public void testPooledMultipleBuffers() {
+    List<ByteBuffer> datas = buffers(10, 8192, 1, 3000);
+    byte[] expected = concat(datas);
+    EmbeddedChannel decoder = new EmbeddedChannel(new NettyFrameDecoder(true));
+    decoder.writeInbound(encode(new NettyDataPack(7, datas)));
+
+    NettyDataPack pack = decoder.readInbound();
+    assertEquals(7, pack.getSerial());
+    assertEquals(1, pack.getDatas().size());
+    assertArrayEquals(expected, concat(pack.getDatas()));
+    pack.release();
+    assertNull(decoder.readInbound());
+  }
+
+  @Test
+  public void testPooledSplitFrames() {
+    List<ByteBuffer> first = buffers(100, 20000, 5);
+    List<ByteBuffer> second = buffers(1, 2);
+    ByteBuf wire = encode(new NettyDataPack(1, first));
+    wire = Unpooled.wrappedBuffer(wire, encode(new NettyDataPack(2, second)));
+
+    EmbeddedChannel decoder = new EmbeddedChannel(new NettyFrameDecoder(true));
+    while (wire.isReadable()) // arrive in small chunks
+      decoder.writeInbound(wire.readRetainedSlice(Math.min(777, wire.readableBytes())));
+    wire.release();
+
+    for (List<ByteBuffer> datas : Arrays.asList(first, second)) {
+      NettyDataPack pack = decoder.readInbound();
+      assertArrayEquals(concat(datas), concat(pack.getDatas()));
+      pack.release();
+    }
+    assertNull(decoder.readInbound());
+  }
+
+  @Test
+  public void testCopying() {
+    List<ByteBuffer> datas = buffers(10, 8192, 1);
+    EmbeddedChannel decoder = new EmbeddedChannel(new NettyFrameDecoder());
+    decoder.writeInbound(encode(new NettyDataPack(3, datas)));
+
+    NettyDataPack pack = decoder.readInbound();
+    assertEquals(3, pack.getDatas().size());
+    assertArrayEquals(concat(datas), concat(pack.getDatas()));
+  }
+}
@@ -0,0 +1,198 @@
+/*
+
+ */
+
+package org.apache.aingle.ipc.netty;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.aingle.AIngleRuntimeException;
+import org.apache.aingle.Protocol;
+import org.apache.aingle.ipc.CallFuture;
+import org.apache.aingle.ipc.specific.SpecificRequestor;
+import org.apache.aingle.ipc.specific.SpecificResponder;
+import org.apache.aingle.test.Simple;
+import org.apache.aingle.test.TestError;
+import org.apache.aingle.test.TestRecord;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestPooledNettyTransceiver {
+  private NettyServer server;
+  private PooledNettyTransceiver transceiver;
+
+  @Before
+  public void setUp() throws Exception {
+    server = new NettyServer(new SpecificResponder(Simple.class, new SimpleImpl()), new InetSocketAddress(0));
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    if (transceiver != null) {
+      transceiver.close();
+    }
+    server.close();
+  }
+
+  private static void awaitReady(PooledNettyTransceiver transceiver) throws InterruptedException {
+    for (int i = 0; i < 100 && transceiver.getReadyConnections() < transceiver.getPoolSize(); i++) {
+      Thread.sleep(100);
+    }
+  }
+
+  private void testCalls(PooledNettyTransceiver.Balancing balancing) throws Exception {
+    transceiver = new PooledNettyTransceiver(new InetSocketAddress(server.getPort()), 3, 1000, balancing,
+        TestNettyServer.CONNECT_TIMEOUT_MILLIS, null);
+    Simple.Callback client = SpecificRequestor.getClient(Simple.Callback.class, transceiver);
+    assertEquals("hello", client.hello("hello")); // handshake
+    awaitReady(transceiver);
+    assertEquals(3, transceiver.getReadyConnections());
+
+    List<CallFuture<Integer>> futures = new ArrayList<>();
+    for (int i = 0; i < 300; i++) {
+      CallFuture<Integer> future = new CallFuture<>();
+      client.add(i, 1, future);
+      futures.add(future);
+    }
+    for (int i = 0; i < 300; i++) {
+      assertEquals(i + 1, (int) futures.get(i).get());
+    }
+    assertEquals(0, transceiver.getOutstandingRequests());
+    assertEquals(0, transceiver.getRejectedCount());
+  }
+
+  @Test(timeout = 30000)
+  public void testLeastOutstanding() throws Exception {
+    testCalls(PooledNettyTransceiver.Balancing.LEAST_OUTSTANDING);
+  }
+
+  @Test(timeout = 30000)
+  public void testRoundRobin() throws Exception {
+    testCalls(PooledNettyTransceiver.Balancing.ROUND_ROBIN);
+  }
+
+  @Test(timeout = 30000)
+  public void testReconnect() throws Exception {
+    transceiver = new PooledNettyTransceiver(new InetSocketAddress(server.getPort()), 2);
+    Simple client = SpecificRequestor.getClient(Simple.class, transceiver);
+    assertEquals(3, client.add(1, 2));
+    awaitReady(transceiver);
+
+    int port = server.getPort();
+    server.close();
+    server = new NettyServer(new SpecificResponder(Simple.class, new SimpleImpl()), new InetSocketAddress(port));
+    for (int i = 0; i < 100 && transceiver.getReconnectCount() < 2; i++) {
+      try {
+        client.add(1, 2);
+      } catch (Exception e) {
+        // not reconnected yet
+      }
+      Thread.sleep(100);
+    }
+    awaitReady(transceiver);
+    assertTrue(transceiver.getReconnectCount() >= 2);
+    assertEquals(5, client.add(2, 3));
+  }
+
+  private static Protocol changeDoc(String doc) {
+    return Protocol.parse(Simple.PROTOCOL.toString().replace("Protocol used for testing.", doc));
+  }
+
+  @Test(timeout = 30000)
+  public void testServerProtocolChanged() throws Exception {
+    // the client sends its protocol to a server with another one, and so also to
+    // the upgraded server, which then answers that only the client matches
+    Protocol before = changeDoc("Before.");
+    Protocol after = changeDoc("After.");
+    int port = server.getPort();
+    server.close();
+    server = new NettyServer(new SpecificResponder(before, new SimpleImpl()), new InetSocketAddress(port));
+    transceiver = new PooledNettyTransceiver(new InetSocketAddress(port), 2);
+    Simple client = SpecificRequestor.getClient(Simple.class, transceiver);
+    assertEquals(3, client.add(1, 2));
+    awaitReady(transceiver);
+    assertEquals(before.toString(), transceiver.getRemote().toString());
+
+    server.close();
+    server = new NettyServer(new SpecificResponder(after, new SimpleImpl()), new InetSocketAddress(port));
+    for (int i = 0; i < 100 && !after.toString().equals(String.valueOf(transceiver.getRemote())); i++) {
+      try {
+        client.add(1, 2);
+      } catch (Exception e) {
+        // not reconnected yet
+      }
+      Thread.sleep(100);
+    }
+    assertEquals(after.toString(), transceiver.getRemote().toString());
+    for (int i = 0; i < 100 && transceiver.getReadyConnections() < 2; i++) {
+      client.add(1, 2); // handshakes the other connection
+      Thread.sleep(100);
+    }
+    assertEquals(2, transceiver.getReadyConnections());
+    for (int i = 0; i < 10; i++) {
+      assertEquals(5, client.add(2, 3));
+    }
+    assertEquals(after.toString(), transceiver.getRemote().toString());
+  }
+
+  @Test(timeout = 30000)
+  public void testServerDown() throws Exception {
+    transceiver = new PooledNettyTransceiver(new InetSocketAddress(server.getPort()), 2);
+    Simple client = SpecificRequestor.getClient(Simple.class, transceiver);
+    assertEquals(3, client.add(1, 2));
+    String remoteName = transceiver.getRemoteName();
+
+    server.close();
+    for (int i = 0; i < 100 && transceiver.getReadyConnections() > 0; i++) {
+      Thread.sleep(100);
+    }
+    assertEquals(0, transceiver.getReadyConnections());
+    // neither connects on the caller's thread
+    assertEquals(remoteName, transceiver.getRemoteName());
+    try {
+      client.add(1, 2);
+      fail("Should have thrown");
+    } catch (AIngleRuntimeException e) {
+      assertTrue(transceiver.getRejectedCount() > 0);
+    }
+  }
+
+  private static class SimpleImpl implements Simple {
+    @Override
+    public String hello(String greeting) {
+      return greeting;
+    }
+
+    @Override
+    public TestRecord echo(TestRecord record) {
+      return record;
+    }
+
+    @Override
+    public int add(int arg1, int arg2) {
+      return arg1 + arg2;
+    }
+
+    @Override
+    public ByteBuffer echoBytes(ByteBuffer data) {
+      return data;
+    }
+
+    @Override
+    public void error() throws TestError {
+      throw new TestError("TestError");
+    }
+
+    @Override
+    public void ack() {
+    }
+  }
+}
@@ -0,0 +1,428 @@
+/*
+
+ */
+
+package org.apache.aingle.ipc;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.apache.aingle.Protocol;
+
+/**
+ * A {@link Server} that serves many connections from a few I/O threads, each
+ * polling its connections with a {@link Selector}, and runs requests on a pool
+ * of worker threads. It uses the wire protocol of {@link SocketTransceiver}.
+ * <p>
+ * The requests of a connection are run one at a time, in order: a connection
+ * is not read while its request runs, nor while its response is written.
+ */
+public class NioSocketServer implements Server {
+  private static final Logger LOG = LoggerFactory.getLogger(NioSocketServer.class);
+
+  /** The number of I/O threads by default. */
+  public static final int DEFAULT_IO_THREADS = 1;
+  /** The number of worker threads by default. */
+  public static final int DEFAULT_WORKER_THREADS = 16;
+  /** The maximum length of a request by default, in bytes. */
+  public static final int DEFAULT_MAX_REQUEST_LENGTH = 64 * 1024 * 1024;
+
+  /** How long accepting pauses after it failed, e.g. out of file descriptors. */
+  private static final long ACCEPT_PAUSE_MILLIS = 100;
+
+  private final Responder responder;
+  private final ServerSocketChannel channel;
+  private final Loop[] loops;
+  private final ExecutorService workers;
+  private final int maxRequestLength;
+  private final AtomicInteger next = new AtomicInteger();
+  private final AtomicInteger connectionCount = new AtomicInteger();
+  private volatile boolean closed;
+
+  public NioSocketServer(Responder responder, SocketAddress addr) throws IOException {
+    this(responder, addr, DEFAULT_IO_THREADS, DEFAULT_WORKER_THREADS);
+  }
+
+  public NioSocketServer(Responder responder, SocketAddress addr, int ioThreads, int workerThreads)
+      throws IOException {
+    this(responder, addr, ioThreads, workerThreads, DEFAULT_MAX_REQUEST_LENGTH);
+  }
+
+  /**
+   * @param maxRequestLength the maximum length of a request, in bytes;
+   *                         connections sending longer requests are closed
+   */
+  public NioSocketServer(Responder responder, SocketAddress addr, int ioThreads, int workerThreads,
+      int maxRequestLength) throws IOException {
+    if (ioThreads < 1)
+      throw new IllegalArgumentException("Invalid number of I/O threads: " + ioThreads);
+    String name = "NioSocketServer on " + addr;
+    this.responder = responder;
+    this.maxRequestLength = maxRequestLength;
+    this.channel = ServerSocketChannel.open();
+    channel.socket().bind(addr);
+    channel.configureBlocking(false);
+    this.loops = new Loop[ioThreads];
+    for (int i = 0; i < ioThreads; i++)
+      loops[i] = new Loop(name + " I/O " + (i + 1));
+    channel.register(loops[0].selector, SelectionKey.OP_ACCEPT);
+    AtomicInteger workerCount = new AtomicInteger();
+    this.workers = Executors.newFixedThreadPool(workerThreads, r -> {
+      Thread thread = new Thread(r, name + " worker " + workerCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  @Override
+  public int getPort() {
+    return channel.socket().getLocalPort();
+  }
+
+  /** Return the number of open connections. */
+  public int getConnectionCount() {
+    return connectionCount.get();
+  }
+
+  @Override
+  public void start() {
+    LOG.info("starting " + channel.socket().getInetAddress());
+    for (Loop loop : loops)
+      loop.start();
+  }
+
+  @Override
+  public void close() {
+    closed = true;
+    for (Loop loop : loops)
+      loop.selector.wakeup();
+    workers.shutdownNow();
+  }
+
+  @Override
+  public void join() throws InterruptedException {
+    for (Loop loop : loops)
+      loop.join();
+  }
+
+  /** An I/O thread: polls connections, reads requests and writes responses. */
+  private class Loop extends Thread {
+    final Selector selector;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private long acceptPausedUntil; // or zero, when accepting
+
+    Loop(String name) throws IOException {
+      this.selector = Selector.open();
+      setName(name);
+      setDaemon(true);
+    }
+
+    /** Run a task on this thread. */
+    void execute(Runnable task) {
+      tasks.add(task);
+      selector.wakeup();
+    }
+
+    @Override
+    public void run() {
+      try {
+        while (!closed) {
+          selector.select(acceptPausedUntil == 0 ? 0 : Math.max(1, acceptPausedUntil - System.currentTimeMillis()));
+          if (acceptPausedUntil != 0 && System.currentTimeMillis() >= acceptPausedUntil)
+            resumeAccept();
+          for (Runnable task = tasks.poll(); task != null; task = tasks.poll()) {
+            try {
+              task.run();
+            } catch (RuntimeException e) {
+              LOG.warn("unexpected error", e);
+            }
+          }
+          Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+          while (keys.hasNext()) {
+            SelectionKey key = keys.next();
+            keys.remove();
+            if (key.attachment() instanceof Connection)
+              handle(key, (Connection) key.attachment());
+            else if (key.isValid() && key.isAcceptable())
+              accept(key);
+          }
+        }
+      } catch (IOException e) {
+        LOG.warn("unexpected error", e);
+      } finally {
+        shutdown();
+      }
+    }
+
+    private void handle(SelectionKey key, Connection connection) {
+      try {
+        if (key.isReadable())
+          connection.read();
+        if (key.isValid() && key.isWritable())
+          connection.write();
+      } catch (IOException | RuntimeException e) { // e.g. a key cancelled by close
+        LOG.debug("closing connection", e);
+        connection.close();
+      }
+    }
+
+    private void accept(SelectionKey key) {
+      SocketChannel accepted = null;
+      try {
+        while ((accepted = channel.accept()) != null) {
+          accepted.configureBlocking(false);
+          accepted.socket().setTcpNoDelay(true);
+          loops[(next.getAndIncrement() & Integer.MAX_VALUE) % loops.length].add(accepted);
+          accepted = null;
+        }
+      } catch (IOException e) { // e.g. too many open files: retry later, not at once
+        LOG.warn("failed to accept connections, pausing", e);
+        if (accepted != null)
+          closeQuietly(accepted);
+        key.interestOps(0);
+        acceptPausedUntil = System.currentTimeMillis() + ACCEPT_PAUSE_MILLIS;
+      }
+    }
+
+    private void resumeAccept() {
+      acceptPausedUntil = 0;
+      SelectionKey key = channel.keyFor(selector);
+      if (key != null && key.isValid())
+        key.interestOps(SelectionKey.OP_ACCEPT);
+    }
+
+    /** Serve a connection on this thread. */
+    private void add(SocketChannel accepted) {
+      execute(() -> register(accepted));
+    }
+
+    private void register(SocketChannel accepted) {
+      try {
+        Connection connection = new Connection(this, accepted);
+        connection.key = accepted.register(selector, SelectionKey.OP_READ, connection);
+        connectionCount.incrementAndGet();
+      } catch (IOException e) {
+        LOG.warn("unexpected error", e);
+        closeQuietly(accepted);
+      }
+    }
+
+    private void closeQuietly(SocketChannel accepted) {
+      try {
+        accepted.close();
+      } catch (IOException ignored) {
+      }
+    }
+
+    private void shutdown() {
+      if (this == loops[0]) {
+        LOG.info("stopping " + channel.socket().getInetAddress());
+        try {
+          channel.close();
+        } catch (IOException e) {
+        }
+      }
+      for (SelectionKey key : selector.keys())
+        if (key.attachment() instanceof Connection)
+          ((Connection) key.attachment()).close();
+      try {
+        selector.close();
+      } catch (IOException e) {
+      }
+    }
+  }
+
+  /**
+   * A connection, which holds the handshake state that the {@link Responder}
+   * keeps through {@link Transceiver}. Used only by the thread of its loop, but
+   * for the request that it hands to a worker.
+   */
+  private class Connection extends Transceiver {
+    private final Loop loop;
+    private final SocketChannel channel;
+    private final String remoteName;
+    private final ByteBuffer header = ByteBuffer.allocate(4);
+    private SelectionKey key;
+    private List<ByteBuffer> request = new ArrayList<>();
+    private int requestLength;
+    private ByteBuffer body;
+    private ByteBuffer[] response;
+    private int responseIndex;
+    private volatile Protocol remote;
+
+    Connection(Loop loop, SocketChannel channel) {
+      this.loop = loop;
+      this.channel = channel;
+      this.remoteName = String.valueOf(channel.socket().getRemoteSocketAddress());
+    }
+
+    /** Read what is available of a request, and run it once complete. */
+    void read() throws IOException {
+      while (true) {
+        if (body == null) {
+          if (channel.read(header) < 0) {
+            close();
+            return;
+          }
+          if (header.hasRemaining())
+            return;
+          ((Buffer) header).flip();
+          int length = header.getInt();
+          ((Buffer) header).clear();
+          if (length == 0) { // end of buffers
+            run();
+            return;
+          }
+          if (length < 0)
+            throw new IOException("Invalid buffer length: " + length);
+          if (length > maxRequestLength - requestLength)
+            throw new IOException("Request longer than " + maxRequestLength + " bytes");
+          requestLength += length;
+          body = ByteBuffer.allocate(length);
+        }
+        if (channel.read(body) < 0) {
+          close();
+          return;
+        }
+        if (body.hasRemaining())
+          return;
+        ((Buffer) body).flip();
+        request.add(body);
+        body = null;
+      }
+    }
+
+    private void run() {
+      List<ByteBuffer> buffers = request;
+      request = new ArrayList<>();
+      requestLength = 0;
+      key.interestOps(0); // until responded
+      try {
+        workers.execute(() -> respond(buffers));
+      } catch (RejectedExecutionException e) { // closed
+        close();
+      }
+    }
+
+    /** Run a request. Called by a worker. */
+    private void respond(List<ByteBuffer> buffers) {
+      try {
+        List<ByteBuffer> buffersOut = responder.respond(buffers, this);
+        ByteBuffer[] frame = buffersOut == null ? null : frame(buffersOut);
+        loop.execute(() -> send(frame));
+      } catch (IOException | RuntimeException e) {
+        LOG.warn("unexpected error", e);
+        loop.execute(this::close);
+      }
+    }
+
+    private void send(ByteBuffer[] frame) {
+      if (!channel.isOpen())
+        return;
+      response = frame;
+      responseIndex = 0;
+      try {
+        write();
+      } catch (IOException e) {
+        LOG.debug("closing connection", e);
+        close();
+      }
+    }
+
+    /** Write what can be of the response, and read the next request once done. */
+    void write() throws IOException {
+      if (response != null) {
+        channel.write(response, responseIndex, response.length - responseIndex);
+        while (responseIndex < response.length && !response[responseIndex].hasRemaining())
+          responseIndex++;
+        if (responseIndex < response.length) {
+          key.interestOps(SelectionKey.OP_WRITE);
+          return;
+        }
+        response = null;
+      }
+      key.interestOps(SelectionKey.OP_READ);
+    }
+
+    /** Return each buffer prefixed by its length, then a zero length. */
+    private ByteBuffer[] frame(List<ByteBuffer> buffers) {
+      List<ByteBuffer> frame = new ArrayList<>(buffers.size() * 2 + 1);
+      for (ByteBuffer buffer : buffers) {
+        if (!buffer.hasRemaining())
+          continue;
+        frame.add(length(buffer.remaining()));
+        frame.add(buffer);
+      }
+      frame.add(length(0)); // null-terminate
+      return frame.toArray(new ByteBuffer[0]);
+    }
+
+    private ByteBuffer length(int length) {
+      ByteBuffer buffer = ByteBuffer.allocate(4);
+      buffer.putInt(length);
+      ((Buffer) buffer).flip();
+      return buffer;
+    }
+
+    @Override
+    public String getRemoteName() {
+      return remoteName;
+    }
+
+    @Override
+    public List<ByteBuffer> readBuffers() throws IOException {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void writeBuffers(List<ByteBuffer> buffers) throws IOException {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean isConnected() {
+      return remote != null;
+    }
+
+    @Override
+    public void setRemote(Protocol remote) {
+      this.remote = remote;
+    }
+
+    @Override
+    public Protocol getRemote() {
+      return remote;
+    }
+
+    @Override
+    public void close() {
+      if (!channel.isOpen())
+        return;
+      if (key != null)
+        key.cancel();
+      try {
+        channel.close();
+      } catch (IOException e) {
+      }
+      connectionCount.decrementAndGet();
+    }
+  }
+}
@@ -0,0 +1,69 @@
+/*
+
+ */
+
+package org.apache.aingle.ipc;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+import org.apache.aingle.Protocol;
+
+/**
+ * A bounded cache of protocols by MD5 hash, that several {@link Responder}s may
+ * share, so that a client protocol learned by one is known to the others and
+ * its text is not sent again on their connections.
+ * <p>
+ * When more than the maximum number of protocols are cached, the least recently
+ * used are evicted. This class is thread-safe.
+ *
+ * @see Responder#setProtocolCache(ProtocolCache)
+ */
+public class ProtocolCache {
+  private final int maxSize;
+  private final LinkedHashMap<MD5, Protocol> protocols = new LinkedHashMap<>(16, 0.75f, true);
+
+  /**
+   * Creates a cache holding at most <i>maxSize</i> protocols.
+   *
+   * @param maxSize the maximum number of protocols held
+   */
+  public ProtocolCache(int maxSize) {
+    if (maxSize <= 0) {
+      throw new IllegalArgumentException("Cache size must be positive: " + maxSize);
+    }
+    this.maxSize = maxSize;
+  }
+
+  /** Returns the protocol with the given hash, or null. */
+  public synchronized Protocol get(MD5 hash) {
+    return protocols.get(hash);
+  }
+
+  /**
+   * Adds a protocol with the given hash, unless one is already cached. Returns
+   * the cached protocol.
+   */
+  public synchronized Protocol put(MD5 hash, Protocol protocol) {
+    Protocol known = protocols.putIfAbsent(hash, protocol);
+    if (known != null) {
+      return known;
+    }
+    Iterator<Protocol> i = protocols.values().iterator();
+    while (protocols.size() > maxSize) {
+      i.next();
+      i.remove();
+    }
+    return protocol;
+  }
+
+  /** Returns the number of protocols held. */
+  public synchronized int size() {
+    return protocols.size();
+  }
+
+  /** Returns the maximum number of protocols held. */
+  public int getMaxSize() {
+    return maxSize;
+  }
+}
@@ -184,6 +184,8 @@ public abstract class Requestor {
 
   private static final ConcurrentMap<String, MD5> REMOTE_HASHES = new ConcurrentHashMap<>();
   private static final ConcurrentMap<MD5, Protocol> REMOTE_PROTOCOLS = new ConcurrentHashMap<>();
+  /** The last server hash seen by clients of a protocol, by its hash. */
+  private static final ConcurrentMap<MD5, MD5> SERVER_HASHES = new ConcurrentHashMap<>();
 
   private static final SpecificDatumWriter<HandshakeRequest> HANDSHAKE_WRITER = new SpecificDatumWriter<>(
       HandshakeRequest.class);
@@ -198,6 +200,8 @@ public abstract class Requestor {
     localHash.bytes(local.getMD5());
     String remoteName = transceiver.getRemoteName();
     MD5 remoteHash = REMOTE_HASHES.get(remoteName);
+    if (remoteHash == null) // a new server: guess it is like the last one
+      remoteHash = SERVER_HASHES.get(localHash);
     if (remoteHash == null) { // guess remote is local
       remoteHash = localHash;
       remote = local;
@@ -256,10 +260,19 @@ public abstract class Requestor {
   }
 
   private void setRemote(HandshakeResponse handshake) throws IOException {
-    remote = Protocol.parse(handshake.getServerProtocol().toString());
     MD5 remoteHash = handshake.getServerHash();
+    Protocol known = REMOTE_PROTOCOLS.get(remoteHash);
+    if (known == null) { // parse each server protocol once
+      known = Protocol.parse(handshake.getServerProtocol().toString());
+      Protocol prior = REMOTE_PROTOCOLS.putIfAbsent(remoteHash, known);
+      if (prior != null)
+        known = prior;
+    }
+    remote = known;
     REMOTE_HASHES.put(transceiver.getRemoteName(), remoteHash);
-    REMOTE_PROTOCOLS.putIfAbsent(remoteHash, remote);
+    MD5 localHash = new MD5();
+    localHash.bytes(local.getMD5());
+    SERVER_HASHES.put(localHash, remoteHash);
   }
 
   /** Return the remote protocol. Force a handshake if required. */
@@ -9,6 +9,7 @@ import java.nio.ByteBuffer;
 
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -20,13 +21,14 @@ import org.apache.aingle.UnresolvedUnionException;
 import org.apache.aingle.Protocol;
 import org.apache.aingle.Schema;
 import org.apache.aingle.Protocol.Message;
+import org.apache.aingle.util.ByteBufferAllocator;
 import org.apache.aingle.util.ByteBufferInputStream;
 import org.apache.aingle.util.ByteBufferOutputStream;
 import org.apache.aingle.util.Utf8;
 import org.apache.aingle.generic.GenericDatumReader;
 import org.apache.aingle.generic.GenericDatumWriter;
 import org.apache.aingle.io.DecoderFactory;
-import org.apache.aingle.io.BinaryEncoder;
+import org.apache.aingle.io.ByteBufferBinaryEncoder;
 import org.apache.aingle.io.Decoder;
 import org.apache.aingle.io.Encoder;
 import org.apache.aingle.io.EncoderFactory;
@@ -43,7 +45,27 @@ public abstract class Responder {
 
   private static final ThreadLocal<Protocol> REMOTE = new ThreadLocal<>();
 
+  /** Allocates heap buffers, left to the garbage collector once released. */
+  private static final ByteBufferAllocator HEAP = new ByteBufferAllocator() {
+    @Override
+    public ByteBuffer allocate(int capacity) {
+      return ByteBuffer.allocate(capacity);
+    }
+
+    @Override
+    public void release(ByteBuffer buffer) {
+    }
+  };
+
+  /**
+   * Encodes heap responses into buffers as large as those of
+   * {@link ByteBufferOutputStream}, as most servers send a frame per buffer.
+   */
+  private static final EncoderFactory HEAP_ENCODERS = new EncoderFactory()
+      .configureBufferSize(ByteBufferOutputStream.BUFFER_SIZE);
+
   private final Map<MD5, Protocol> protocols = new ConcurrentHashMap<>();
+  private volatile ProtocolCache protocolCache;
 
   private final Protocol local;
   private final MD5 localHash;
@@ -70,6 +92,16 @@ public abstract class Responder {
     return local;
   }
 
+  /**
+   * Shares the client protocols learned by this responder with others using the
+   * same <i>cache</i>, so that a client need not send its protocol again to
+   * each of them. By default a responder only knows the protocols that clients
+   * sent it.
+   */
+  public void setProtocolCache(ProtocolCache cache) {
+    this.protocolCache = cache;
+  }
+
   /**
    * Adds a new plugin to manipulate per-call metadata. Plugins are executed in
    * the order that they are added.
@@ -94,9 +126,37 @@ public abstract class Responder {
    * status of connection.
    */
   public List<ByteBuffer> respond(List<ByteBuffer> buffers, Transceiver connection) throws IOException {
-    Decoder in = DecoderFactory.get().binaryDecoder(new ByteBufferInputStream(buffers), null);
-    ByteBufferOutputStream bbo = new ByteBufferOutputStream();
-    BinaryEncoder out = EncoderFactory.get().binaryEncoder(bbo, null);
+    return respond(buffers, connection, HEAP);
+  }
+
+  /**
+   * Like {@link #respond(List, Transceiver)}, but serializes the response into
+   * buffers obtained from <i>allocator</i>, such as pooled or direct buffers, so
+   * that a server can write them without copying. The caller owns the returned
+   * buffers, and gives them back to <i>allocator</i> once they are written.
+   */
+  public List<ByteBuffer> respond(List<ByteBuffer> buffers, Transceiver connection, ByteBufferAllocator allocator)
+      throws IOException {
+    return respond(buffers, connection, allocator, null);
+  }
+
+  /**
+   * Called by a server that will not handle a request, e.g. when overloaded, to
+   * answer it with a system error carrying <i>rejection</i>. The handshake is
+   * completed, but the message is not called. Returns null for a one-way message,
+   * which is dropped.
+   */
+  public List<ByteBuffer> reject(List<ByteBuffer> buffers, Transceiver connection, ByteBufferAllocator allocator,
+      Exception rejection) throws IOException {
+    return respond(buffers, connection, allocator, rejection);
+  }
+
+  private List<ByteBuffer> respond(List<ByteBuffer> buffers, Transceiver connection, ByteBufferAllocator allocator,
+      Exception rejection) throws IOException {
+    Decoder in = buffers.size() == 1 ? DecoderFactory.get().binaryDecoder(buffers.get(0), null)
+        : DecoderFactory.get().binaryDecoder(new ByteBufferInputStream(buffers), null);
+    EncoderFactory encoders = allocator == HEAP ? HEAP_ENCODERS : EncoderFactory.get();
+    ByteBufferBinaryEncoder out = encoders.byteBufferBinaryEncoder(allocator, null);
     Exception error = null;
     RPCContext context = new RPCContext();
     List<ByteBuffer> payload = null;
@@ -104,10 +164,9 @@ public abstract class Responder {
     boolean wasConnected = connection != null && connection.isConnected();
     try {
       Protocol remote = handshake(in, out, connection);
-      out.flush();
       if (remote == null) // handshake failed
-        return bbo.getBufferList();
-      handshake = bbo.getBufferList();
+        return out.getBufferList();
+      handshake = out.getBufferList();
 
       // read request using remote protocol specification
       context.setRequestCallMeta(META_READER.read(null, in));
@@ -120,6 +179,13 @@ public abstract class Responder {
       Message m = getLocal().getMessages().get(messageName);
       if (m == null)
         throw new AIngleRuntimeException("No message named " + messageName + " in " + getLocal());
+      if (rejection != null) {
+        if (m.isOneWay() && wasConnected) { // no response data
+          out.release(handshake);
+          return null;
+        }
+        throw rejection;
+      }
 
       Object request = readRequest(rm.getRequest(), m.getRequest(), in);
 
@@ -146,8 +212,10 @@ public abstract class Responder {
         REMOTE.set(null);
       }
 
-      if (m.isOneWay() && wasConnected) // no response data
+      if (m.isOneWay() && wasConnected) { // no response data
+        out.release(handshake);
         return null;
+      }
 
       out.writeBoolean(error != null);
       if (error == null)
@@ -159,18 +227,17 @@ public abstract class Responder {
           throw error;
         }
     } catch (Exception e) { // system error
-      LOG.warn("system error", e);
+      if (e != rejection)
+        LOG.warn("system error", e);
       context.setError(e);
-      bbo = new ByteBufferOutputStream();
-      out = EncoderFactory.get().binaryEncoder(bbo, null);
+      out.reset();
       out.writeBoolean(true);
       writeError(Protocol.SYSTEM_ERRORS, new Utf8(e.toString()), out);
       if (null == handshake) {
-        handshake = new ByteBufferOutputStream().getBufferList();
+        handshake = new ArrayList<>();
       }
     }
-    out.flush();
-    payload = bbo.getBufferList();
+    payload = out.getBufferList();
 
     // Grab meta-data from plugins
     context.setResponsePayload(payload);
@@ -178,12 +245,11 @@ public abstract class Responder {
       plugin.serverSendResponse(context);
     }
     META_WRITER.write(context.responseCallMeta(), out);
-    out.flush();
     // Prepend handshake and append payload
-    bbo.prepend(handshake);
-    bbo.append(payload);
-
-    return bbo.getBufferList();
+    List<ByteBuffer> result = new ArrayList<>(handshake);
+    result.addAll(out.getBufferList());
+    result.addAll(payload);
+    return result;
   }
 
   private SpecificDatumWriter<HandshakeResponse> handshakeWriter = new SpecificDatumWriter<>(HandshakeResponse.class);
@@ -194,8 +260,16 @@ public abstract class Responder {
       return connection.getRemote();
     HandshakeRequest request = handshakeReader.read(null, in);
     Protocol remote = protocols.get(request.getClientHash());
+    ProtocolCache cache = protocolCache;
+    if (remote == null && cache != null) {
+      remote = cache.get(request.getClientHash());
+      if (remote != null)
+        protocols.put(request.getClientHash(), remote);
+    }
     if (remote == null && request.getClientProtocol() != null) {
       remote = Protocol.parse(request.getClientProtocol().toString());
+      if (cache != null)
+        remote = cache.put(request.getClientHash(), remote);
       protocols.put(request.getClientHash(), remote);
     }
     HandshakeResponse response = new HandshakeResponse();
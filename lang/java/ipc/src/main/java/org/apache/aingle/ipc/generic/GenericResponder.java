@@ -5,6 +5,10 @@
 package org.apache.aingle.ipc.generic;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 import org.apache.aingle.AIngleRemoteException;
 import org.apache.aingle.Protocol;
@@ -20,7 +24,18 @@ import org.apache.aingle.ipc.Responder;
 
 /** {@link Responder} implementation for generic Java data. */
 public abstract class GenericResponder extends Responder {
+  /** The maximum number of request readers kept. */
+  private static final int MAX_READERS = 256;
+
   private GenericData data;
+  /** Request readers, by the remote and local schemas they resolve. */
+  private final Map<List<Schema>, DatumReader<Object>> readers = new LinkedHashMap<List<Schema>, DatumReader<Object>>(
+      16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<List<Schema>, DatumReader<Object>> eldest) {
+      return size() > MAX_READERS;
+    }
+  };
 
   public GenericResponder(Protocol local) {
     this(local, GenericData.get());
@@ -40,13 +55,29 @@ public abstract class GenericResponder extends Responder {
     return new GenericDatumWriter<>(schema, data);
   }
 
+  /**
+   * Returns a reader for requests written with <i>actual</i> and read as
+   * <i>expected</i>. The reader is kept, and used by every thread that reads
+   * such requests, so it must be thread-safe.
+   */
   protected DatumReader<Object> getDatumReader(Schema actual, Schema expected) {
     return new GenericDatumReader<>(actual, expected, data);
   }
 
   @Override
   public Object readRequest(Schema actual, Schema expected, Decoder in) throws IOException {
-    return getDatumReader(actual, expected).read(null, in);
+    List<Schema> key = Arrays.asList(actual, expected);
+    DatumReader<Object> reader;
+    synchronized (readers) {
+      reader = readers.get(key);
+    }
+    if (reader == null) {
+      reader = getDatumReader(actual, expected);
+      synchronized (readers) {
+        readers.put(key, reader);
+      }
+    }
+    return reader.read(null, in);
   }
 
   @Override
@@ -0,0 +1,97 @@
+/*
+
+ */
+package org.apache.aingle.ipc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.aingle.Protocol;
+import org.apache.aingle.Protocol.Message;
+import org.apache.aingle.generic.GenericData;
+import org.apache.aingle.generic.GenericRecord;
+import org.apache.aingle.ipc.generic.GenericRequestor;
+import org.apache.aingle.ipc.generic.GenericResponder;
+import org.junit.Test;
+
+public class TestHandshakeCache {
+  private static final Protocol SERVER = Protocol.parse("{\"protocol\": \"Cached\", \"messages\": {"
+      + " \"m\": {\"request\": [{\"name\": \"x\", \"type\": \"int\"}], \"response\": \"int\"} } }");
+  // another protocol, that the server must learn
+  private static final Protocol CLIENT = Protocol.parse("{\"protocol\": \"Cached\", \"messages\": {"
+      + " \"m\": {\"request\": [{\"name\": \"x\", \"type\": \"int\"}], \"response\": \"int\"},"
+      + " \"n\": {\"request\": [], \"response\": \"null\"} } }");
+
+  private static class EchoResponder extends GenericResponder {
+    final List<RPCContext> handshakes = new ArrayList<>();
+
+    EchoResponder(ProtocolCache cache) {
+      super(SERVER);
+      setProtocolCache(cache);
+      addRPCPlugin(new RPCPlugin() {
+        @Override
+        public void serverConnecting(RPCContext context) {
+          handshakes.add(context);
+        }
+      });
+    }
+
+    @Override
+    public Object respond(Message message, Object request) {
+      return ((GenericRecord) request).get("x");
+    }
+  }
+
+  private static Object request(Responder responder) throws Exception {
+    GenericRequestor requestor = new GenericRequestor(CLIENT, new LocalTransceiver(responder));
+    GenericRecord params = new GenericData.Record(CLIENT.getMessages().get("m").getRequest());
+    params.put("x", 42);
+    return requestor.request("m", params);
+  }
+
+  @Test
+  public void testClientProtocolShared() throws Exception {
+    ProtocolCache cache = new ProtocolCache(10);
+    EchoResponder first = new EchoResponder(cache);
+    assertEquals(42, request(first));
+    assertEquals(HandshakeMatch.NONE, first.handshakes.get(0).getHandshakeResponse().getMatch());
+    assertEquals(1, cache.size());
+
+    // a new responder and a new requestor: no protocol is sent
+    EchoResponder second = new EchoResponder(cache);
+    assertEquals(42, request(second));
+    assertEquals(1, second.handshakes.size());
+    RPCContext handshake = second.handshakes.get(0);
+    assertNull(handshake.getHandshakeRequest().getClientProtocol());
+    assertEquals(HandshakeMatch.BOTH, handshake.getHandshakeResponse().getMatch());
+  }
+
+  @Test
+  public void testClientProtocolNotShared() throws Exception {
+    assertEquals(42, request(new EchoResponder(null)));
+
+    // without a cache, a new responder must be sent the protocol
+    EchoResponder second = new EchoResponder(null);
+    assertEquals(42, request(second));
+    assertEquals(HandshakeMatch.NONE, second.handshakes.get(0).getHandshakeResponse().getMatch());
+    assertNotNull(second.handshakes.get(1).getHandshakeRequest().getClientProtocol());
+  }
+
+  @Test
+  public void testEviction() {
+    ProtocolCache cache = new ProtocolCache(1);
+    MD5 serverHash = new MD5(SERVER.getMD5());
+    MD5 clientHash = new MD5(CLIENT.getMD5());
+    assertSame(SERVER, cache.put(serverHash, SERVER));
+    assertSame(SERVER, cache.put(serverHash, Protocol.parse(SERVER.toString())));
+    cache.put(clientHash, CLIENT);
+    assertEquals(1, cache.size());
+    assertNull(cache.get(serverHash));
+    assertSame(CLIENT, cache.get(clientHash));
+  }
+}
@@ -4,6 +4,13 @@
 package org.apache.aingle.ipc;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import org.apache.aingle.AIngleRemoteException;
 import org.apache.aingle.Protocol;
@@ -12,6 +19,7 @@ import org.apache.aingle.generic.GenericData;
 import org.apache.aingle.generic.GenericRecord;
 import org.apache.aingle.ipc.generic.GenericRequestor;
 import org.apache.aingle.ipc.generic.GenericResponder;
+import org.apache.aingle.util.ByteBufferOutputStream;
 import org.apache.aingle.util.Utf8;
 import org.junit.Test;
 
@@ -44,4 +52,37 @@ public class TestLocalTransceiver {
       assertEquals(new Utf8("there"), r.request("m", params));
   }
 
+  @Test
+  public void testResponseBuffers() throws Exception {
+    char[] chars = new char[20000];
+    Arrays.fill(chars, 'x');
+    Utf8 large = new Utf8(new String(chars));
+    List<List<ByteBuffer>> responses = new ArrayList<>();
+    Transceiver t = new LocalTransceiver(new TestResponder(protocol) {
+      @Override
+      public Object respond(Message message, Object request) {
+        return large;
+      }
+    }) {
+      @Override
+      public List<ByteBuffer> transceive(List<ByteBuffer> request) throws IOException {
+        List<ByteBuffer> response = super.transceive(request);
+        responses.add(response);
+        return response;
+      }
+    };
+    GenericRecord params = new GenericData.Record(protocol.getMessages().get("m").getRequest());
+    params.put("x", new Utf8("hello"));
+    GenericRequestor r = new GenericRequestor(protocol, t);
+    r.request("m", params);
+    assertEquals(large, r.request("m", params));
+
+    // as many buffers as ByteBufferOutputStream would use, read by now
+    List<ByteBuffer> response = responses.get(1);
+    int length = 0;
+    for (ByteBuffer buffer : response)
+      length += buffer.limit();
+    assertTrue(response.toString(), response.size() <= length / ByteBufferOutputStream.BUFFER_SIZE + 3);
+  }
+
 }
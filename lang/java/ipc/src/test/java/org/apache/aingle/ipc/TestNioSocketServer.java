@@ -0,0 +1,23 @@
+/*
+
+ */
+package org.apache.aingle.ipc;
+
+import java.net.InetSocketAddress;
+
+import org.apache.aingle.TestProtocolSpecific;
+
+/**
+ * Protocol test with a selector-based server and a socket transceiver.
+ */
+public class TestNioSocketServer extends TestProtocolSpecific {
+  @Override
+  public Server createServer(Responder testResponder) throws Exception {
+    return new NioSocketServer(testResponder, new InetSocketAddress(0), 2, 4);
+  }
+
+  @Override
+  public Transceiver createTransceiver() throws Exception {
+    return new SocketTransceiver(new InetSocketAddress(server.getPort()));
+  }
+}
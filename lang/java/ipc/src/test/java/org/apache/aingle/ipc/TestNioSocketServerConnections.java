@@ -0,0 +1,104 @@
+/*
+
+ */
+package org.apache.aingle.ipc;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.DataOutputStream;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.aingle.TestProtocolSpecific;
+import org.apache.aingle.ipc.specific.SpecificRequestor;
+import org.apache.aingle.ipc.specific.SpecificResponder;
+import org.apache.aingle.test.Simple;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests a selector-based server with many connections, most of them idle, and
+ * with clients that misbehave.
+ */
+public class TestNioSocketServerConnections {
+  private NioSocketServer server;
+  private final List<Socket> sockets = new ArrayList<>();
+
+  private void start(int maxRequestLength) throws Exception {
+    server = new NioSocketServer(new SpecificResponder(Simple.class, new TestProtocolSpecific.TestImpl()),
+        new InetSocketAddress(0), 2, 4, maxRequestLength);
+    server.start();
+  }
+
+  @After
+  public void stop() throws Exception {
+    for (Socket socket : sockets)
+      socket.close();
+    if (server != null)
+      server.close();
+  }
+
+  private void awaitConnectionCount(int count) throws InterruptedException {
+    for (int i = 0; i < 500 && server.getConnectionCount() != count; i++)
+      Thread.sleep(10);
+    assertEquals(count, server.getConnectionCount());
+  }
+
+  @Test(timeout = 60000)
+  public void testManyConnections() throws Exception {
+    start(NioSocketServer.DEFAULT_MAX_REQUEST_LENGTH);
+    for (int i = 0; i < 1000; i++) // idle
+      sockets.add(new Socket("localhost", server.getPort()));
+
+    int clients = 50;
+    ExecutorService executor = Executors.newFixedThreadPool(clients);
+    try {
+      List<Future<Integer>> sums = new ArrayList<>();
+      for (int i = 0; i < clients; i++) {
+        int n = i;
+        sums.add(executor.submit(() -> {
+          try (Transceiver transceiver = new SocketTransceiver(new InetSocketAddress(server.getPort()))) {
+            Simple proxy = SpecificRequestor.getClient(Simple.class, transceiver);
+            int sum = 0;
+            for (int j = 0; j < 20; j++)
+              sum = proxy.add(sum, n);
+            return sum;
+          }
+        }));
+      }
+      for (int i = 0; i < clients; i++)
+        assertEquals(20 * i, (int) sums.get(i).get());
+    } finally {
+      executor.shutdown();
+    }
+    awaitConnectionCount(1000);
+
+    for (Socket socket : sockets)
+      socket.close();
+    sockets.clear();
+    awaitConnectionCount(0);
+  }
+
+  @Test(timeout = 60000)
+  public void testRequestTooLong() throws Exception {
+    start(1024);
+    Socket socket = new Socket("localhost", server.getPort());
+    sockets.add(socket);
+    DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+    out.writeInt(Integer.MAX_VALUE); // not allocated
+    out.flush();
+    InputStream in = socket.getInputStream();
+    assertEquals(-1, in.read()); // closed by the server
+    awaitConnectionCount(0);
+
+    try (Transceiver transceiver = new SocketTransceiver(new InetSocketAddress(server.getPort()))) {
+      assertEquals(3, SpecificRequestor.getClient(Simple.class, transceiver).add(1, 2));
+    }
+  }
+}
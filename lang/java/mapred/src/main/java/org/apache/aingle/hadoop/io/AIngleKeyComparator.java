@@ -20,7 +20,7 @@ package org.apache.aingle.hadoop.io;
 
 import org.apache.aingle.Schema;
 import org.apache.aingle.generic.GenericData;
-import org.apache.aingle.io.BinaryData;
+import org.apache.aingle.io.BinaryComparator;
 import org.apache.aingle.mapred.AIngleKey;
 import org.apache.aingle.mapreduce.AIngleJob;
 import org.apache.hadoop.conf.Configuration;
@@ -38,6 +38,7 @@ import org.apache.hadoop.io.RawComparator;
 public class AIngleKeyComparator<T> extends Configured implements RawComparator<AIngleKey<T>> {
   /** The schema of the AIngle data in the key to compare. */
   private Schema mSchema;
+  private BinaryComparator mBinaryComparator;
   private GenericData mDataModel;
 
   /** {@inheritDoc} */
@@ -49,6 +50,7 @@ public class AIngleKeyComparator<T> extends Configured implements RawComparator<
       // output from the map phase, so use the schema defined for the map output key
       // and the data model non-raw compare() implementation.
       mSchema = AIngleJob.getMapOutputKeySchema(conf);
+      mBinaryComparator = BinaryComparator.get(mSchema);
       mDataModel = AIngleSerialization.createDataModel(conf);
     }
   }
@@ -56,7 +58,7 @@ public class AIngleKeyComparator<T> extends Configured implements RawComparator<
   /** {@inheritDoc} */
   @Override
   public int compare(byte[] b1, int s1, int l1, byte[] b2, int s2, int l2) {
-    return BinaryData.compare(b1, s1, b2, s2, mSchema);
+    return mBinaryComparator.compare(b1, s1, l1, b2, s2, l2);
   }
 
   /** {@inheritDoc} */
@@ -11,6 +11,7 @@ import org.apache.hadoop.conf.Configured;
 import org.apache.hadoop.conf.Configuration;
 
 import org.apache.aingle.Schema;
+import org.apache.aingle.io.BinaryComparator;
 import org.apache.aingle.io.BinaryData;
 import org.apache.aingle.mapred.AIngleJob;
 
@@ -18,17 +19,22 @@ import org.apache.aingle.mapred.AIngleJob;
 class TetherKeyComparator extends Configured implements RawComparator<TetherData> {
 
   private Schema schema;
+  private BinaryComparator binaryComparator;
 
   @Override
   public void setConf(Configuration conf) {
     super.setConf(conf);
-    if (conf != null)
+    if (conf != null) {
       schema = AIngleJob.getMapOutputSchema(conf);
+      binaryComparator = BinaryComparator.get(schema);
+    }
   }
 
   @Override
   public int compare(byte[] b1, int s1, int l1, byte[] b2, int s2, int l2) {
-    int diff = BinaryData.compare(b1, BinaryData.skipLong(b1, s1), l1, b2, BinaryData.skipLong(b2, s2), l2, schema);
+    int d1 = BinaryData.skipLong(b1, s1) - s1;
+    int d2 = BinaryData.skipLong(b2, s2) - s2;
+    int diff = binaryComparator.compare(b1, s1 + d1, l1 - d1, b2, s2 + d2, l2 - d2);
     return diff == 0 ? -1 : diff;
   }
 
@@ -12,6 +12,7 @@ import org.apache.commons.cli.HelpFormatter;
 import org.apache.commons.cli.Option;
 import org.apache.commons.cli.Options;
 import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.profile.GCProfiler;
 import org.openjdk.jmh.runner.Runner;
 import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
 import org.openjdk.jmh.runner.options.OptionsBuilder;
@@ -37,6 +38,9 @@ public final class Perf {
     options.addOption(
         Option.builder().argName("test").longOpt("test").hasArg().desc("The performance tests to run").build());
 
+    options.addOption(Option.builder().argName("gc").longOpt("gc")
+        .desc("Flag to report allocation rates with the GC profiler").build());
+
     options.addOption(Option.builder().argName("help").longOpt("help").desc("Print the help menu").build());
 
     final CommandLine cmd = new DefaultParser().parse(options, args);
@@ -65,6 +69,10 @@ public final class Perf {
       runOpt.warmupMode(WarmupMode.BULK);
     }
 
+    if (cmd.hasOption("gc")) {
+      runOpt.addProfiler(GCProfiler.class);
+    }
+
     for (final String test : tests) {
       runOpt.include(test);
     }
@@ -0,0 +1,64 @@
+/*
+
+ */
+
+package org.apache.aingle.perf.test.file;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.apache.aingle.file.CodecFactory;
+import org.apache.aingle.file.DataFileConstants;
+import org.apache.aingle.file.DataFileStream;
+import org.apache.aingle.file.DataFileWriter;
+import org.apache.aingle.generic.GenericDatumReader;
+import org.apache.aingle.generic.GenericDatumWriter;
+import org.apache.aingle.perf.test.BasicState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Copies a container file with {@link DataFileWriter#appendAllFrom}, either
+ * copying its blocks as they are or recompressing them. The difference is the
+ * cost of decompressing and compressing the blocks with the codec.
+ */
+public class AppendAllFromTest {
+
+  @Benchmark
+  @OperationsPerInvocation(BasicState.BATCH_SIZE)
+  public void appendAllFrom(final TestState state) throws IOException {
+    state.out.reset();
+    try (DataFileWriter<Object> writer = new DataFileWriter<>(new GenericDatumWriter<>(FileState.SCHEMA));
+        DataFileStream<Object> in = new DataFileStream<>(new ByteArrayInputStream(state.file),
+            new GenericDatumReader<>())) {
+      writer.setCodec(state.codec).create(FileState.SCHEMA, state.out);
+      writer.appendAllFrom(in, state.recompress);
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class TestState extends FileState {
+
+    @Param({ "null", "deflate", "snappy", "zstandard", "xz", "bzip2" })
+    public String codecName;
+
+    @Param({ "false", "true" })
+    public boolean recompress;
+
+    private CodecFactory codec;
+    private byte[] file;
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    @Setup(Level.Trial)
+    public void doSetupTrial() throws IOException {
+      this.codec = CodecFactory.fromString(codecName);
+      this.file = newFile(codecName, DataFileConstants.DEFAULT_SYNC_INTERVAL);
+    }
+  }
+}
@@ -0,0 +1,65 @@
+/*
+
+ */
+
+package org.apache.aingle.perf.test.file;
+
+import java.io.IOException;
+
+import org.apache.aingle.file.DataFileReader;
+import org.apache.aingle.file.SeekableByteArrayInput;
+import org.apache.aingle.generic.GenericDatumReader;
+import org.apache.aingle.perf.test.BasicState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/** Reads all records of a container file, for each codec and sync interval. */
+public class DataFileReadTest {
+
+  @Benchmark
+  @OperationsPerInvocation(BasicState.BATCH_SIZE)
+  public void read(final Blackhole blackhole, final TestState state) throws IOException {
+    try (DataFileReader<Object> reader = new DataFileReader<>(new SeekableByteArrayInput(state.file),
+        new GenericDatumReader<>(FileState.SCHEMA))) {
+      Object record = null;
+      while (reader.hasNext()) {
+        record = reader.next(record);
+        blackhole.consume(record);
+      }
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BasicState.BATCH_SIZE)
+  public void readWithoutReuse(final Blackhole blackhole, final TestState state) throws IOException {
+    try (DataFileReader<Object> reader = new DataFileReader<>(new SeekableByteArrayInput(state.file),
+        new GenericDatumReader<>(FileState.SCHEMA))) {
+      while (reader.hasNext()) {
+        blackhole.consume(reader.next());
+      }
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class TestState extends FileState {
+
+    @Param({ "null", "deflate", "snappy", "zstandard", "xz", "bzip2" })
+    public String codecName;
+
+    @Param({ "16000", "64000", "1048576" })
+    public int syncInterval;
+
+    private byte[] file;
+
+    @Setup(Level.Trial)
+    public void doSetupTrial() throws IOException {
+      this.file = newFile(codecName, syncInterval);
+    }
+  }
+}
@@ -0,0 +1,74 @@
+/*
+
+ */
+
+package org.apache.aingle.perf.test.file;
+
+import java.io.IOException;
+import java.util.Random;
+
+import org.apache.aingle.file.DataFileReader;
+import org.apache.aingle.file.SeekableByteArrayInput;
+import org.apache.aingle.generic.GenericDatumReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Seeks to random positions of a container file with
+ * {@link DataFileReader#sync(long)} and reads the record that follows, as split
+ * readers do.
+ */
+public class DataFileSyncTest {
+
+  private static final int SEEKS = 100;
+
+  @Benchmark
+  @OperationsPerInvocation(SEEKS)
+  public void sync(final Blackhole blackhole, final TestState state) throws IOException {
+    final DataFileReader<Object> reader = state.reader;
+    Object record = null;
+    for (final long position : state.positions) {
+      reader.sync(position);
+      if (reader.hasNext()) {
+        record = reader.next(record);
+        blackhole.consume(record);
+      }
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class TestState extends FileState {
+
+    @Param({ "null", "deflate", "snappy", "zstandard" })
+    public String codecName;
+
+    @Param({ "16000", "64000", "1048576" })
+    public int syncInterval;
+
+    private DataFileReader<Object> reader;
+    private long[] positions;
+
+    @Setup(Level.Trial)
+    public void doSetupTrial() throws IOException {
+      final byte[] file = newFile(codecName, syncInterval);
+      this.reader = new DataFileReader<>(new SeekableByteArrayInput(file), new GenericDatumReader<>(SCHEMA));
+      this.positions = new long[SEEKS];
+      final Random r = super.getRandom();
+      for (int i = 0; i < SEEKS; i++) {
+        positions[i] = (long) (r.nextDouble() * file.length);
+      }
+    }
+
+    @TearDown(Level.Trial)
+    public void doTearDownTrial() throws IOException {
+      reader.close();
+    }
+  }
+}
@@ -0,0 +1,56 @@
+/*
+
+ */
+
+package org.apache.aingle.perf.test.file;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.apache.aingle.file.CodecFactory;
+import org.apache.aingle.file.DataFileWriter;
+import org.apache.aingle.generic.GenericDatumWriter;
+import org.apache.aingle.perf.test.BasicState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** Writes records to a container file, for each codec and sync interval. */
+public class DataFileWriteTest {
+
+  @Benchmark
+  @OperationsPerInvocation(BasicState.BATCH_SIZE)
+  public void write(final TestState state) throws IOException {
+    state.out.reset();
+    try (DataFileWriter<Object> writer = new DataFileWriter<>(new GenericDatumWriter<>(FileState.SCHEMA))) {
+      writer.setCodec(state.codec).setSyncInterval(state.syncInterval).create(FileState.SCHEMA, state.out);
+      for (final Object record : state.records) {
+        writer.append(record);
+      }
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class TestState extends FileState {
+
+    @Param({ "null", "deflate", "snappy", "zstandard", "xz", "bzip2" })
+    public String codecName;
+
+    @Param({ "16000", "64000", "1048576" })
+    public int syncInterval;
+
+    private CodecFactory codec;
+    private Object[] records;
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    @Setup(Level.Trial)
+    public void doSetupTrial() {
+      this.codec = CodecFactory.fromString(codecName);
+      this.records = getRecords();
+    }
+  }
+}
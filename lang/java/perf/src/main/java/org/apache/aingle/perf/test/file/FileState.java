@@ -0,0 +1,58 @@
+/*
+
+ */
+
+package org.apache.aingle.perf.test.file;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.apache.aingle.Schema;
+import org.apache.aingle.file.CodecFactory;
+import org.apache.aingle.file.DataFileWriter;
+import org.apache.aingle.generic.GenericDatumWriter;
+import org.apache.aingle.perf.test.BasicState;
+import org.apache.aingle.util.RandomData;
+
+/**
+ * Records and container files shared by the file benchmarks. Records are
+ * generated by {@link RandomData} from a schema resembling an event log.
+ */
+public abstract class FileState extends BasicState {
+
+  public static final Schema SCHEMA = new Schema.Parser().parse("{\"type\":\"record\",\"name\":\"Event\",\"fields\":["
+      + "{\"name\":\"id\",\"type\":\"long\"}," + "{\"name\":\"timestamp\",\"type\":\"long\"},"
+      + "{\"name\":\"user\",\"type\":\"string\"}," + "{\"name\":\"session\",\"type\":[\"null\",\"string\"]},"
+      + "{\"name\":\"type\",\"type\":{\"type\":\"enum\",\"name\":\"Type\",\"symbols\":[\"VIEW\",\"CLICK\",\"BUY\"]}},"
+      + "{\"name\":\"amount\",\"type\":\"double\"}," + "{\"name\":\"valid\",\"type\":\"boolean\"},"
+      + "{\"name\":\"tags\",\"type\":{\"type\":\"array\",\"items\":\"string\"}},"
+      + "{\"name\":\"attributes\",\"type\":{\"type\":\"map\",\"values\":\"string\"}},"
+      + "{\"name\":\"payload\",\"type\":\"bytes\"}]}");
+
+  private Object[] records;
+
+  /** Return the records, generated once. */
+  protected Object[] getRecords() {
+    if (records == null) {
+      records = new Object[getBatchSize()];
+      int i = 0;
+      for (Object record : new RandomData(SCHEMA, records.length, 13L)) {
+        records[i++] = record;
+      }
+    }
+    return records;
+  }
+
+  /** Return a container file of the records. */
+  protected byte[] newFile(String codec, int syncInterval) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (DataFileWriter<Object> writer = new DataFileWriter<>(new GenericDatumWriter<>(SCHEMA))) {
+      writer.setCodec(CodecFactory.fromString(codec)).setSyncInterval(syncInterval).create(SCHEMA, out);
+      for (Object record : getRecords()) {
+        writer.append(record);
+      }
+    }
+    return out.toByteArray();
+  }
+
+}
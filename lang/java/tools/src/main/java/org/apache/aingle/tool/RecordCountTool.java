@@ -20,8 +20,10 @@ package org.apache.aingle.tool;
 import com.google.common.collect.ImmutableList;
 import joptsimple.OptionParser;
 import joptsimple.OptionSet;
+import org.apache.aingle.file.DataFileReader;
 import org.apache.aingle.file.DataFileStream;
 import org.apache.aingle.generic.GenericDatumReader;
+import org.apache.aingle.mapred.FsInput;
 import org.apache.hadoop.fs.Path;
 
 import java.io.InputStream;
@@ -59,9 +61,7 @@ public class RecordCountTool implements Tool {
       count = countRecords(stdin);
     } else {
       for (Path file : Util.getFiles(nargs)) {
-        try (final InputStream inStream = Util.openFromFS(file)) {
-          count += countRecords(inStream);
-        }
+        count += countRecords(file);
       }
     }
     out.println(count);
@@ -80,6 +80,17 @@ public class RecordCountTool implements Tool {
     return count;
   }
 
+  /**
+   * Count the records of a file from its block index, or from the headers of its
+   * blocks if it has none, without reading the records.
+   */
+  private long countRecords(Path file) throws java.io.IOException {
+    try (FsInput input = Util.openSeekableFromFS(file.toString());
+        DataFileReader<Object> reader = new DataFileReader<>(input, new GenericDatumReader<>())) {
+      return reader.getRecordCount();
+    }
+  }
+
   private void printHelp(PrintStream ps) {
     ps.println(getName() + " [input-files...]");
     ps.println();
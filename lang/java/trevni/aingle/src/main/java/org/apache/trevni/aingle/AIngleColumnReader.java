@@ -12,12 +12,15 @@ import java.util.Iterator;
 import java.util.Map;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
 
+import org.apache.trevni.BlockFilter;
 import org.apache.trevni.ColumnMetaData;
 import org.apache.trevni.ColumnFileReader;
 import org.apache.trevni.ColumnValues;
 import org.apache.trevni.Input;
 import org.apache.trevni.InputFile;
+import org.apache.trevni.RowRanges;
 import org.apache.trevni.TrevniRuntimeException;
 
 import org.apache.aingle.Schema;
@@ -41,6 +44,8 @@ public class AIngleColumnReader<D> implements Iterator<D>, Iterable<D>, Closeabl
   private ColumnValues[] values;
   private int[] arrayWidths;
   private int column; // current index in values
+  private RowRanges rows; // to read, or null for all
+  private long row; // the next to read, or -1 if none
 
   private Map<String, Map<String, Object>> defaults = new HashMap<>();
 
@@ -49,6 +54,9 @@ public class AIngleColumnReader<D> implements Iterator<D>, Iterable<D>, Closeabl
     Input input;
     Schema schema;
     GenericData model = GenericData.get();
+    ExecutorService executor;
+    int prefetchBlocks;
+    BlockFilter filter;
 
     /** Construct reading from a file. */
     public Params(File file) throws IOException {
@@ -71,15 +79,46 @@ public class AIngleColumnReader<D> implements Iterator<D>, Iterable<D>, Closeabl
       this.model = model;
       return this;
     }
+
+    /**
+     * Read and decompress the blocks of the projected columns on
+     * <i>executor</i>, up to <i>prefetchBlocks</i> ahead. Records are still
+     * assembled by the reading thread. See
+     * {@link ColumnFileReader#setParallelRead(ExecutorService, int)}.
+     */
+    public Params setParallelRead(ExecutorService executor, int prefetchBlocks) {
+      this.executor = executor;
+      this.prefetchBlocks = prefetchBlocks;
+      return this;
+    }
+
+    /**
+     * Only read the rows that <i>filter</i> keeps, skipping the blocks of
+     * columns that hold none of them. Columns are named as by
+     * {@link AIngleColumnator}, e.g., "name" for a field of the top-level record
+     * and "address#city" for a nested one. Returned records may still not match,
+     * so the caller must test them.
+     */
+    public Params setBlockFilter(BlockFilter filter) {
+      this.filter = filter;
+      return this;
+    }
   }
 
   /** Construct a reader for a file. */
   public AIngleColumnReader(Params params) throws IOException {
     this.reader = new ColumnFileReader(params.input);
+    reader.setParallelRead(params.executor, params.prefetchBlocks);
     this.model = params.model;
     this.fileSchema = new Schema.Parser().parse(reader.getMetaData().getString(AIngleColumnWriter.SCHEMA_KEY));
     this.readSchema = params.schema == null ? fileSchema : params.schema;
     initialize();
+    if (params.filter != null) {
+      this.rows = reader.getRowRanges(params.filter);
+      this.row = rows.nextRow(0);
+      if (row > 0)
+        skip(row);
+    }
   }
 
   /** Return the schema for data in this file. */
@@ -165,6 +204,8 @@ public class AIngleColumnReader<D> implements Iterator<D>, Iterable<D>, Closeabl
 
   @Override
   public boolean hasNext() {
+    if (rows != null)
+      return row >= 0;
     return values[0].hasNext();
   }
 
@@ -180,12 +221,46 @@ public class AIngleColumnReader<D> implements Iterator<D>, Iterable<D>, Closeabl
         if (value != null)
           value.startRow();
       this.column = 0;
-      return (D) read(readSchema);
+      D result = (D) read(readSchema);
+      if (rows != null)
+        nextRow();
+      return result;
     } catch (IOException e) {
       throw new TrevniRuntimeException(e);
     }
   }
 
+  private void nextRow() throws IOException {
+    long next = rows.nextRow(row + 1);
+    if (next > row + 1)
+      skip(next - row - 1);
+    row = next;
+  }
+
+  // skip rows in every top-level column
+  private void skip(long n) throws IOException {
+    for (int i = 0; i < values.length; i += arrayWidths[i]) {
+      if (values[i] == null)
+        continue;
+      if (arrayWidths[i] == 1) { // seek past skipped blocks
+        values[i].seek(values[i].getRow() + n);
+        continue;
+      }
+      for (long r = 0; r < n; r++) { // lengths are only in the parent
+        for (int j = i; j < i + arrayWidths[i]; j++)
+          values[j].startRow();
+        skipValues(i, 1);
+      }
+    }
+  }
+
+  // skip values of a column and the corresponding ones of its children
+  private void skipValues(int column, long n) throws IOException {
+    long count = values[column].skipValues(n);
+    for (int child = column + 1; child < column + arrayWidths[column]; child += arrayWidths[child])
+      skipValues(child, count);
+  }
+
   private Object read(Schema s) throws IOException {
     if (isSimple(s))
       return nextValue(s, column++);
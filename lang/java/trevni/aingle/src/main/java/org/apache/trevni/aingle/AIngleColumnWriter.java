@@ -3,6 +3,7 @@
  */
 package org.apache.trevni.aingle;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.File;
 import java.io.OutputStream;
@@ -30,9 +31,10 @@ import static org.apache.trevni.aingle.AIngleColumnator.isSimple;
  * <p>
  * Output is buffered until {@link #writeTo(OutputStream)} is called. The
  * {@link #sizeEstimate()} indicates both the amount of data buffered and the
- * size of the file that will be written.
+ * size of the file that will be written, unless a
+ * {@link #setSpillDirectory(File) spill directory} is set.
  */
-public class AIngleColumnWriter<D> {
+public class AIngleColumnWriter<D> implements Closeable {
   private Schema schema;
   private GenericData model;
   private ColumnFileWriter writer;
@@ -63,6 +65,28 @@ public class AIngleColumnWriter<D> {
     return writer.sizeEstimate();
   }
 
+  /**
+   * Write completed blocks to temporary files in <i>directory</i> rather than
+   * buffering them in memory. Must be called before any record is written.
+   *
+   * @see ColumnFileWriter#setSpillDirectory(File)
+   */
+  public AIngleColumnWriter<D> setSpillDirectory(File directory) {
+    writer.setSpillDirectory(directory);
+    return this;
+  }
+
+  /** Return the approximate number of bytes held in memory. */
+  public long bufferedSize() {
+    return writer.bufferedSize();
+  }
+
+  /** Delete the temporary files of spilled blocks, if any. */
+  @Override
+  public void close() throws IOException {
+    writer.close();
+  }
+
   /** Write all rows added to the named output stream. */
   public void writeTo(OutputStream out) throws IOException {
     writer.writeTo(out);
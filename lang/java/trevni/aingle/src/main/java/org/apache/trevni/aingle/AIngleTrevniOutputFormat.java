@@ -4,6 +4,7 @@
 
 package org.apache.trevni.aingle;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
@@ -34,6 +35,12 @@ import org.apache.trevni.ColumnFileMetaData;
  * block. To reduce the number of files, increase the default filesystem block
  * size for the job. Each task also requires enough memory to buffer a
  * filesystem block.
+ *
+ * <p>
+ * Alternately, when a spill directory is set with
+ * {@link #setSpillDirectory(JobConf, String)}, each task writes a single file,
+ * buffering its data in temporary files in that local directory rather than in
+ * memory.
  */
 public class AIngleTrevniOutputFormat<T> extends FileOutputFormat<AIngleWrapper<T>, NullWritable> {
 
@@ -42,11 +49,22 @@ public class AIngleTrevniOutputFormat<T> extends FileOutputFormat<AIngleWrapper<
 
   public static final String META_PREFIX = "trevni.meta.";
 
+  /** The local directory to spill buffered output to, if any. */
+  public static final String SPILL_DIR_KEY = "trevni.spill.dir";
+
   /** Add metadata to job output files. */
   public static void setMeta(JobConf job, String key, String value) {
     job.set(META_PREFIX + key, value);
   }
 
+  /**
+   * Write a single file per task, spilling its data to temporary files in the
+   * local <i>directory</i> rather than buffering it in memory.
+   */
+  public static void setSpillDirectory(JobConf job, String directory) {
+    job.set(SPILL_DIR_KEY, directory);
+  }
+
   @Override
   public RecordWriter<AIngleWrapper<T>, NullWritable> getRecordWriter(FileSystem ignore, final JobConf job,
       final String name, Progressable prog) throws IOException {
@@ -61,23 +79,33 @@ public class AIngleTrevniOutputFormat<T> extends FileOutputFormat<AIngleWrapper<
     if (!fs.mkdirs(dir))
       throw new IOException("Failed to create directory: " + dir);
     final long blockSize = fs.getDefaultBlockSize(dir);
+    final String spillDir = job.get(SPILL_DIR_KEY);
 
     return new RecordWriter<AIngleWrapper<T>, NullWritable>() {
       private int part = 0;
 
-      private AIngleColumnWriter<T> writer = new AIngleColumnWriter<>(schema, meta, ReflectData.get());
+      private AIngleColumnWriter<T> writer = newWriter();
+
+      private AIngleColumnWriter<T> newWriter() throws IOException {
+        AIngleColumnWriter<T> result = new AIngleColumnWriter<>(schema, meta, ReflectData.get());
+        if (spillDir != null)
+          result.setSpillDirectory(new File(spillDir));
+        return result;
+      }
 
       private void flush() throws IOException {
         try (OutputStream out = fs.create(new Path(dir, "part-" + (part++) + EXT))) {
           writer.writeTo(out);
+        } finally {
+          writer.close();
         }
-        writer = new AIngleColumnWriter<>(schema, meta, ReflectData.get());
+        writer = newWriter();
       }
 
       @Override
       public void write(AIngleWrapper<T> wrapper, NullWritable ignore) throws IOException {
         writer.write(wrapper.datum());
-        if (writer.sizeEstimate() >= blockSize) // block full
+        if (spillDir == null && writer.sizeEstimate() >= blockSize) // block full
           flush();
       }
 
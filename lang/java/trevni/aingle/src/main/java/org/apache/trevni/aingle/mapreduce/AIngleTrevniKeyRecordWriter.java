@@ -33,7 +33,7 @@ public class AIngleTrevniKeyRecordWriter<T> extends AIngleTrevniRecordWriterBase
   @Override
   public void write(AIngleKey<T> key, NullWritable value) throws IOException, InterruptedException {
     writer.write(key.datum());
-    if (writer.sizeEstimate() >= blockSize) // block full
+    if (isFull()) // block full
       flush();
   }
 
@@ -68,7 +68,7 @@ public class AIngleTrevniKeyValueRecordWriter<K, V>
     keyValueRecord.setKey(key.datum());
     keyValueRecord.setValue(value.datum());
     writer.write(keyValueRecord.get());
-    if (writer.sizeEstimate() >= blockSize) // block full
+    if (isFull()) // block full
       flush();
   }
 
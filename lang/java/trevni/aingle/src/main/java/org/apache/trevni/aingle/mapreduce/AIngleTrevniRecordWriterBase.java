@@ -4,6 +4,7 @@
 
 package org.apache.trevni.aingle.mapreduce;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
@@ -37,6 +38,12 @@ public abstract class AIngleTrevniRecordWriterBase<K, V, T> extends RecordWriter
   /** prefix of job configs that we care about */
   public static final String META_PREFIX = "trevni.meta.";
 
+  /**
+   * The local directory to spill buffered output to, if any. When set, a single
+   * file is written per task rather than one per filesystem block.
+   */
+  public static final String SPILL_DIR_KEY = "trevni.spill.dir";
+
   /**
    * Counter that increments as new trevni files are create because the current
    * file has exceeded the block size
@@ -61,6 +68,9 @@ public abstract class AIngleTrevniRecordWriterBase<K, V, T> extends RecordWriter
   /** meta data to be stored in the output file. */
   protected ColumnFileMetaData meta;
 
+  /** The local directory to spill buffered output to, or null. */
+  final String spillDir;
+
   /**
    * Constructor.
    * 
@@ -71,7 +81,8 @@ public abstract class AIngleTrevniRecordWriterBase<K, V, T> extends RecordWriter
 
     schema = initSchema(context);
     meta = filterMetadata(context.getConfiguration());
-    writer = new AIngleColumnWriter<>(schema, meta, ReflectData.get());
+    spillDir = context.getConfiguration().get(SPILL_DIR_KEY);
+    writer = newWriter();
 
     Path outputPath = FileOutputFormat.getOutputPath(context);
 
@@ -90,6 +101,21 @@ public abstract class AIngleTrevniRecordWriterBase<K, V, T> extends RecordWriter
    */
   abstract protected Schema initSchema(TaskAttemptContext context);
 
+  private AIngleColumnWriter<T> newWriter() throws IOException {
+    AIngleColumnWriter<T> result = new AIngleColumnWriter<>(schema, meta, ReflectData.get());
+    if (spillDir != null)
+      result.setSpillDirectory(new File(spillDir));
+    return result;
+  }
+
+  /**
+   * Return true if the current file has reached the block size and should be
+   * flushed. Never true when spilling to a local directory.
+   */
+  protected boolean isFull() {
+    return spillDir == null && writer.sizeEstimate() >= blockSize;
+  }
+
   /**
    * A Trevni flush will close the current file and prep a new writer
    * 
@@ -98,8 +124,10 @@ public abstract class AIngleTrevniRecordWriterBase<K, V, T> extends RecordWriter
   public void flush() throws IOException {
     try (OutputStream out = fs.create(new Path(dirPath, "part-" + (part++) + EXT))) {
       writer.writeTo(out);
+    } finally {
+      writer.close();
     }
-    writer = new AIngleColumnWriter<>(schema, meta, ReflectData.get());
+    writer = newWriter();
   }
 
   /** {@inheritDoc} */
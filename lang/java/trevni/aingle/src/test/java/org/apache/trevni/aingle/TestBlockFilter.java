@@ -0,0 +1,98 @@
+/*
+
+ */
+
+package org.apache.trevni.aingle;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.aingle.Schema;
+import org.apache.aingle.generic.GenericData;
+import org.apache.aingle.generic.GenericRecord;
+import org.apache.trevni.BlockFilter;
+import org.apache.trevni.ColumnFileMetaData;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestBlockFilter {
+
+  private static final File FILE = new File("target", "test-filter.trv");
+  private static final int COUNT = 100000;
+
+  private static final Schema ITEM = new Schema.Parser().parse("{\"type\":\"record\",\"name\":\"Item\",\"fields\":["
+      + "{\"name\":\"a\",\"type\":\"int\"},{\"name\":\"b\",\"type\":{\"type\":\"array\",\"items\":\"long\"}}]}");
+  private static final Schema SCHEMA = new Schema.Parser().parse("{\"type\":\"record\",\"name\":\"R\",\"fields\":["
+      + "{\"name\":\"id\",\"type\":\"long\"}," + "{\"name\":\"name\",\"type\":\"string\"},"
+      + "{\"name\":\"tags\",\"type\":{\"type\":\"array\",\"items\":\"string\"}},"
+      + "{\"name\":\"opt\",\"type\":[\"null\",\"int\"]}," + "{\"name\":\"m\",\"type\":{\"type\":\"map\",\"values\":\"int\"}},"
+      + "{\"name\":\"items\",\"type\":{\"type\":\"array\",\"items\":" + ITEM + "}}]}");
+
+  private static GenericRecord record(long id) {
+    GenericRecord r = new GenericData.Record(SCHEMA);
+    r.put("id", id);
+    r.put("name", "name" + id);
+    List<String> tags = new ArrayList<>();
+    for (int i = 0; i < id % 3; i++)
+      tags.add("t" + i);
+    r.put("tags", new GenericData.Array<>(Schema.createArray(Schema.create(Schema.Type.STRING)), tags));
+    r.put("opt", id % 4 == 0 ? null : (int) id);
+    Map<String, Integer> m = new HashMap<>();
+    for (int i = 0; i < id % 2; i++)
+      m.put("k" + i, i);
+    r.put("m", m);
+    List<GenericRecord> items = new ArrayList<>();
+    for (int i = 0; i < id % 3; i++) {
+      GenericRecord item = new GenericData.Record(ITEM);
+      item.put("a", i);
+      item.put("b", new GenericData.Array<>(Schema.createArray(Schema.create(Schema.Type.LONG)),
+          i == 0 ? Collections.<Long>emptyList() : Arrays.asList(id, (long) i)));
+      items.add(item);
+    }
+    r.put("items", new GenericData.Array<>(SCHEMA.getField("items").schema(), items));
+    return r;
+  }
+
+  private static void write() throws Exception {
+    AIngleColumnWriter<GenericRecord> writer = new AIngleColumnWriter<>(SCHEMA,
+        new ColumnFileMetaData().hasStatistics(true));
+    for (long id = 0; id < COUNT; id++)
+      writer.write(record(id));
+    writer.writeTo(FILE);
+  }
+
+  private static long check(BlockFilter filter, long... ids) throws Exception {
+    long count = 0;
+    List<Long> found = new ArrayList<>();
+    try (AIngleColumnReader<GenericRecord> reader = new AIngleColumnReader<>(
+        new AIngleColumnReader.Params(FILE).setBlockFilter(filter))) {
+      for (GenericRecord r : reader) {
+        long id = (Long) r.get("id");
+        assertEquals(record(id).toString(), r.toString());
+        found.add(id);
+        count++;
+      }
+    }
+    for (long id : ids)
+      assertTrue(found.contains(id));
+    return count;
+  }
+
+  @Test
+  public void testFilter() throws Exception {
+    write();
+    assertEquals(COUNT, check(BlockFilter.isNull("opt/int")));
+    long count = check(BlockFilter.between("id", 50000L, 50010L), 50000L, 50010L);
+    assertTrue(count < COUNT / 2);
+    assertTrue(check(BlockFilter.or(BlockFilter.equalTo("id", 10L), BlockFilter.equalTo("id", 90000L)), 10L,
+        90000L) < COUNT / 2);
+    assertEquals(0, check(BlockFilter.equalTo("id", -1L)));
+  }
+
+}
@@ -25,6 +25,8 @@ class ArrayColumnOutputBuffer extends ColumnOutputBuffer {
     assert this.length == 0;
     assert l >= 0;
     this.length = l;
+    if (l == 0)
+      addNull();
     if (l == runValue) {
       runLength++; // continue a run
       return;
@@ -42,6 +44,7 @@ class ArrayColumnOutputBuffer extends ColumnOutputBuffer {
   public void writeValue(Object value) throws IOException {
     assert length > 0;
     if (getMeta().getType() != ValueType.NULL) {
+      addStatistics(value);
       flushRun();
       getBuffer().writeValue(value, getMeta().getType());
     }
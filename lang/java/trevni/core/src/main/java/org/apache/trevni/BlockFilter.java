@@ -0,0 +1,84 @@
+/*
+
+ */
+package org.apache.trevni;
+
+import java.io.IOException;
+import java.util.function.Predicate;
+
+/**
+ * Selects the rows of a file that may be of interest, using the
+ * {@link BlockStatistics} of its columns. Blocks of different columns hold
+ * different rows, so the blocks kept for each column are combined as ranges of
+ * rows. Rows of a kept range still need to be tested by the caller.
+ */
+@FunctionalInterface
+public interface BlockFilter {
+
+  /** Return the rows of <i>reader</i> that may be of interest. */
+  RowRanges select(ColumnFileReader reader) throws IOException;
+
+  /**
+   * Keep the rows of the blocks of <i>column</i> that <i>test</i> accepts. All
+   * rows are kept if the column has no statistics.
+   */
+  static BlockFilter blocks(String column, Predicate<BlockStatistics> test) {
+    return reader -> {
+      BlockStatistics[] blocks = reader.getBlockStatistics(column);
+      if (blocks == null)
+        return RowRanges.all(reader.getRowCount());
+      RowRanges.Builder builder = new RowRanges.Builder();
+      for (BlockStatistics block : blocks)
+        if (test.test(block))
+          builder.add(block.getFirstRow(), block.getFirstRow() + block.getRowCount());
+      return builder.build();
+    };
+  }
+
+  /**
+   * Keep rows in blocks that may hold a value of <i>column</i> between
+   * <i>min</i> and <i>max</i>, inclusive. Bounds are of the column's type, as
+   * returned by {@link ColumnValues}. A null bound is unbounded.
+   */
+  static BlockFilter between(String column, Comparable min, Comparable max) {
+    return blocks(column, block -> {
+      Comparable blockMin = block.getMin();
+      if (blockMin == null) // no values
+        return false;
+      return (max == null || blockMin.compareTo(max) <= 0) && (min == null || block.getMax().compareTo(min) >= 0);
+    });
+  }
+
+  /** Keep rows in blocks that may hold <i>value</i> in <i>column</i>. */
+  static BlockFilter equalTo(String column, Comparable value) {
+    if (value == null)
+      return isNull(column);
+    return between(column, value, value);
+  }
+
+  /** Keep rows in blocks that may hold rows without a value in <i>column</i>. */
+  static BlockFilter isNull(String column) {
+    return blocks(column, block -> block.getNullCount() > 0);
+  }
+
+  /** Keep rows that all of <i>filters</i> keep. */
+  static BlockFilter and(BlockFilter... filters) {
+    return reader -> {
+      RowRanges result = RowRanges.all(reader.getRowCount());
+      for (BlockFilter filter : filters)
+        result = result.and(filter.select(reader));
+      return result;
+    };
+  }
+
+  /** Keep rows that any of <i>filters</i> keep. */
+  static BlockFilter or(BlockFilter... filters) {
+    return reader -> {
+      RowRanges result = new RowRanges.Builder().build();
+      for (BlockFilter filter : filters)
+        result = result.or(filter.select(reader));
+      return result;
+    };
+  }
+
+}
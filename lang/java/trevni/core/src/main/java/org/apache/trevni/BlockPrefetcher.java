@@ -0,0 +1,134 @@
+/*
+
+ */
+package org.apache.trevni;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+
+/**
+ * Reads and decompresses the blocks of a column ahead of their use, on an
+ * executor. Consecutive blocks are read together, with a single positioned read
+ * of up to {@link #MAX_READ} bytes, then each is decompressed by a separate
+ * task.
+ */
+final class BlockPrefetcher {
+  static final int MAX_READ = 8 * 1024 * 1024;
+
+  private final ColumnDescriptor column;
+  private final Executor executor;
+  private final int prefetchBlocks;
+  private final int checksumSize;
+
+  // codecs and checksums are not thread-safe: each task takes one of its own
+  private final Queue<Codec> codecs = new ConcurrentLinkedQueue<>();
+  private final Queue<Checksum> checksums = new ConcurrentLinkedQueue<>();
+
+  private final ArrayDeque<Future<ByteBuffer>> pending = new ArrayDeque<>();
+  private int first; // the block of the first pending
+  private int next; // the next block to read
+
+  BlockPrefetcher(ColumnDescriptor column, Executor executor, int prefetchBlocks) {
+    this.column = column;
+    this.executor = executor;
+    this.prefetchBlocks = prefetchBlocks;
+    this.checksumSize = Checksum.get(column.metaData).size();
+  }
+
+  /**
+   * Return the decompressed data of a block. Reading blocks in order uses the
+   * blocks read ahead; reading any other block drops them.
+   */
+  ByteBuffer get(int block) throws IOException {
+    if (pending.isEmpty() || block != first) {
+      cancel();
+      first = next = block;
+    }
+    fill();
+    Future<ByteBuffer> data = pending.poll();
+    first++;
+    fill();
+    try {
+      return data.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      cancel();
+      throw new InterruptedIOException("Interrupted while reading block " + block + " of " + column.metaData);
+    } catch (ExecutionException e) {
+      cancel();
+      Throwable cause = e.getCause();
+      if (cause instanceof UncheckedIOException)
+        throw ((UncheckedIOException) cause).getCause();
+      if (cause instanceof RuntimeException)
+        throw (RuntimeException) cause;
+      throw new TrevniRuntimeException(cause);
+    }
+  }
+
+  /** Drop the blocks read ahead. */
+  void cancel() {
+    for (Future<ByteBuffer> data : pending)
+      data.cancel(false);
+    pending.clear();
+  }
+
+  private void fill() {
+    int blockCount = column.blockCount();
+    while (pending.size() < prefetchBlocks && next < blockCount) {
+      final int start = next;
+      int count = 0;
+      long size = 0;
+      while (pending.size() + count < prefetchBlocks && start + count < blockCount) {
+        long blockSize = column.blocks[start + count].compressedSize + checksumSize;
+        if (count > 0 && size + blockSize > MAX_READ)
+          break;
+        size += blockSize;
+        count++;
+      }
+      final int length = (int) size;
+      CompletableFuture<byte[]> raw = CompletableFuture.supplyAsync(() -> read(start, length), executor);
+      for (int i = 0; i < count; i++) {
+        final int block = start + i;
+        final int offset = (int) (column.blockStarts[block] - column.blockStarts[start]);
+        pending.add(raw.thenApplyAsync(bytes -> decompress(bytes, offset, block), executor));
+      }
+      next = start + count;
+    }
+  }
+
+  private byte[] read(int start, int length) {
+    try {
+      byte[] bytes = new byte[length];
+      new InputBuffer(column.file, column.blockStarts[start]).readFully(bytes);
+      return bytes;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private ByteBuffer decompress(byte[] raw, int offset, int block) {
+    Codec codec = codecs.poll();
+    if (codec == null)
+      codec = Codec.get(column.metaData);
+    Checksum checksum = checksums.poll();
+    if (checksum == null)
+      checksum = Checksum.get(column.metaData);
+    try {
+      return ColumnValues.decompress(raw, offset, column.blocks[block].compressedSize, codec, checksum);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } finally {
+      codecs.offer(codec);
+      checksums.offer(checksum);
+    }
+  }
+}
@@ -0,0 +1,59 @@
+/*
+
+ */
+package org.apache.trevni;
+
+/**
+ * The statistics of a block of a column that
+ * {@link ColumnMetaData#hasStatistics(boolean) has statistics}.
+ */
+public final class BlockStatistics {
+  private final long firstRow;
+  private final int rowCount;
+  private final int nullCount;
+  private final Comparable min;
+  private final Comparable max;
+
+  BlockStatistics(long firstRow, int rowCount, int nullCount, Comparable min, Comparable max) {
+    this.firstRow = firstRow;
+    this.rowCount = rowCount;
+    this.nullCount = nullCount;
+    this.min = min;
+    this.max = max;
+  }
+
+  /** Return the number of the first row of the block within the file. */
+  public long getFirstRow() {
+    return firstRow;
+  }
+
+  /** Return the number of rows in the block. */
+  public int getRowCount() {
+    return rowCount;
+  }
+
+  /**
+   * Return the number of rows of the block without a value. Only rows of array
+   * columns, of length zero, have no value.
+   */
+  public int getNullCount() {
+    return nullCount;
+  }
+
+  /** Return the least value in the block, or null if it has none. */
+  public <T extends Comparable> T getMin() {
+    return (T) min;
+  }
+
+  /** Return the greatest value in the block, or null if it has none. */
+  public <T extends Comparable> T getMax() {
+    return (T) max;
+  }
+
+  @Override
+  public String toString() {
+    return "{firstRow=" + firstRow + " rowCount=" + rowCount + " nullCount=" + nullCount + " min=" + min + " max="
+        + max + "}";
+  }
+
+}
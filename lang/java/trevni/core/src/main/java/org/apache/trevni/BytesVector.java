@@ -0,0 +1,111 @@
+/*
+
+ */
+package org.apache.trevni;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A {@link ColumnVector} of string and bytes values. The bytes of all values
+ * are held in a single array, value <i>i</i> from
+ * {@link #getOffsets() offsets[i]} to offsets[i+1]. Strings are UTF-8.
+ */
+public final class BytesVector extends ColumnVector {
+  private byte[] bytes;
+  private int[] offsets;
+
+  /** Construct with room for a default number of values. */
+  public BytesVector() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /** Construct with room for <i>capacity</i> values. */
+  public BytesVector(int capacity) {
+    this.bytes = new byte[capacity * 16];
+    this.offsets = new int[capacity + 1];
+  }
+
+  /** Return a value of the batch, sharing the bytes of the vector. */
+  public ByteBuffer get(int i) {
+    if (i >= size)
+      throw new IndexOutOfBoundsException(i + " >= " + size);
+    return ByteBuffer.wrap(bytes, offsets[i], offsets[i + 1] - offsets[i]);
+  }
+
+  /** Return a value of the batch as a string. */
+  public String getString(int i) {
+    if (i >= size)
+      throw new IndexOutOfBoundsException(i + " >= " + size);
+    return new String(bytes, offsets[i], offsets[i + 1] - offsets[i], StandardCharsets.UTF_8);
+  }
+
+  /** Return the bytes of all values. */
+  public byte[] getBytes() {
+    return bytes;
+  }
+
+  /**
+   * Return the offset of each value in {@link #getBytes()}, followed by the end
+   * of the last. Only the first {@link #size()} + 1 are of the batch.
+   */
+  public int[] getOffsets() {
+    return offsets;
+  }
+
+  @Override
+  void reset() {
+    super.reset();
+    offsets[0] = 0;
+  }
+
+  private void ensure(int n) {
+    if (size + n + 1 > offsets.length)
+      offsets = Arrays.copyOf(offsets, grow(offsets.length, size + n + 1));
+  }
+
+  private void ensureBytes(int n) {
+    int end = offsets[size] + n;
+    if (end > bytes.length)
+      bytes = Arrays.copyOf(bytes, grow(bytes.length, end));
+  }
+
+  @Override
+  boolean supports(ValueType type) {
+    return type == ValueType.STRING || type == ValueType.BYTES;
+  }
+
+  @Override
+  void read(InputBuffer in, ValueType type, int n) throws IOException {
+    ensure(n);
+    for (int i = 0; i < n; i++) {
+      int length = in.readInt();
+      ensureBytes(length);
+      int start = offsets[size];
+      in.readFully(bytes, start, length);
+      offsets[++size] = start + length;
+    }
+  }
+
+  @Override
+  void read(ColumnDecoder decoder, int n) throws IOException {
+    for (int i = 0; i < n; i++)
+      add(decoder.readValue());
+  }
+
+  @Override
+  void add(Object value) {
+    ensure(1);
+    if (value instanceof String)
+      value = ByteBuffer.wrap(((String) value).getBytes(StandardCharsets.UTF_8));
+    ByteBuffer buffer = ((ByteBuffer) value).duplicate();
+    int length = buffer.remaining();
+    ensureBytes(length);
+    int start = offsets[size];
+    buffer.get(bytes, start, length);
+    offsets[++size] = start + length;
+  }
+
+}
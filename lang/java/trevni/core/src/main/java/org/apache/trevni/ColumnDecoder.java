@@ -0,0 +1,232 @@
+/*
+
+ */
+package org.apache.trevni;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Reads the values of a block written by a {@link ColumnEncoder}, directly from
+ * their encoded form.
+ */
+abstract class ColumnDecoder {
+
+  /** Return a decoder for a column, or null if its values are plain. */
+  static ColumnDecoder get(ColumnMetaData meta) {
+    switch (meta.getEncoding()) {
+    case PLAIN:
+      return null;
+    case DICTIONARY:
+      return new Dictionary(meta.getType());
+    case RUN_LENGTH:
+      return new RunLength(meta.getType());
+    case DELTA:
+      return new Delta();
+    default:
+      throw new TrevniRuntimeException("Unknown encoding: " + meta.getEncoding());
+    }
+  }
+
+  /** Start reading a block from <i>in</i>. */
+  abstract void startBlock(InputBuffer in) throws IOException;
+
+  /** Read the next value of the block. */
+  abstract <T extends Comparable> T readValue() throws IOException;
+
+  /** Skip the next <i>n</i> values of the block. */
+  abstract void skip(long n) throws IOException;
+
+  /** Read the next value of the block as a long, booleans as one or zero. */
+  long readLong() throws IOException {
+    Object value = readValue();
+    if (value instanceof Boolean)
+      return (Boolean) value ? 1 : 0;
+    return ((Number) value).longValue();
+  }
+
+  /** Reads values written by {@link ColumnEncoder.IntRuns}. */
+  static final class IntRuns {
+    private InputBuffer in;
+    private long[] packed = new long[ColumnEncoder.IntRuns.MAX_PACKED];
+    private int packedPosition;
+    private boolean run;
+    private int value; // of the run
+    private long remaining; // in the group
+
+    void start(InputBuffer in) {
+      this.in = in;
+      this.remaining = 0;
+    }
+
+    int read() throws IOException {
+      if (remaining == 0)
+        readGroup();
+      remaining--;
+      return run ? value : (int) packed[packedPosition++];
+    }
+
+    void skip(long n) throws IOException {
+      while (n > 0) {
+        if (remaining == 0)
+          readGroup();
+        long skipped = Math.min(n, remaining);
+        if (!run)
+          packedPosition += (int) skipped;
+        remaining -= skipped;
+        n -= skipped;
+      }
+    }
+
+    private void readGroup() throws IOException {
+      int header = in.readInt();
+      int count = header >>> 1;
+      if (count == 0)
+        throw new TrevniRuntimeException("Invalid run header: " + header);
+      run = (header & 1) == 0;
+      remaining = count;
+      if (run) {
+        value = in.readInt();
+        return;
+      }
+      int width = in.read();
+      if (width > 32)
+        throw new TrevniRuntimeException("Invalid bit width: " + width);
+      if (count > packed.length)
+        packed = new long[count];
+      in.readPacked(packed, count, width);
+      packedPosition = 0;
+    }
+  }
+
+  /** Reads values written by {@link ColumnEncoder.Dictionary}. */
+  static final class Dictionary extends ColumnDecoder {
+    private final ValueType type;
+    private final IntRuns ids = new IntRuns();
+    private Comparable[] values = new Comparable[0];
+
+    Dictionary(ValueType type) {
+      this.type = type;
+    }
+
+    @Override
+    void startBlock(InputBuffer in) throws IOException {
+      int size = in.readInt();
+      if (size < 0)
+        throw new TrevniRuntimeException("Invalid dictionary size: " + size);
+      values = new Comparable[size];
+      for (int i = 0; i < size; i++)
+        values[i] = in.readValue(type);
+      ids.start(in);
+    }
+
+    @Override
+    <T extends Comparable> T readValue() throws IOException {
+      int id = ids.read();
+      if (id < 0 || id >= values.length)
+        throw new TrevniRuntimeException("Invalid dictionary index: " + id);
+      Comparable value = values[id];
+      if (value instanceof ByteBuffer) // shared by all rows with this value
+        value = ((ByteBuffer) value).duplicate();
+      return (T) value;
+    }
+
+    @Override
+    void skip(long n) throws IOException {
+      ids.skip(n);
+    }
+  }
+
+  /** Reads values written by {@link ColumnEncoder.RunLength}. */
+  static final class RunLength extends ColumnDecoder {
+    private final ValueType type;
+    private final IntRuns runs = new IntRuns();
+
+    RunLength(ValueType type) {
+      this.type = type;
+    }
+
+    @Override
+    void startBlock(InputBuffer in) {
+      runs.start(in);
+    }
+
+    @Override
+    <T extends Comparable> T readValue() throws IOException {
+      int n = runs.read();
+      if (type == ValueType.BOOLEAN)
+        return (T) Boolean.valueOf(n != 0);
+      return (T) Integer.valueOf((n >>> 1) ^ -(n & 1));
+    }
+
+    @Override
+    long readLong() throws IOException {
+      int n = runs.read();
+      if (type == ValueType.BOOLEAN)
+        return n != 0 ? 1 : 0;
+      return (n >>> 1) ^ -(n & 1);
+    }
+
+    @Override
+    void skip(long n) throws IOException {
+      runs.skip(n);
+    }
+  }
+
+  /** Reads values written by {@link ColumnEncoder.Delta}. */
+  static final class Delta extends ColumnDecoder {
+    private final long[] deltas = new long[ColumnEncoder.Delta.GROUP_SIZE];
+    private InputBuffer in;
+    private boolean started;
+    private long previous;
+    private long min; // of the group
+    private int position; // in the group
+    private int count; // of the group
+
+    @Override
+    void startBlock(InputBuffer in) {
+      this.in = in;
+      this.started = false;
+      this.position = 0;
+      this.count = 0;
+    }
+
+    @Override
+    <T extends Comparable> T readValue() throws IOException {
+      return (T) Long.valueOf(next());
+    }
+
+    @Override
+    long readLong() throws IOException {
+      return next();
+    }
+
+    private long next() throws IOException {
+      if (!started) {
+        started = true;
+        return previous = in.readLong();
+      }
+      if (position == count)
+        readGroup();
+      return previous += min + deltas[position++];
+    }
+
+    @Override
+    void skip(long n) throws IOException {
+      for (long i = 0; i < n; i++)
+        next();
+    }
+
+    private void readGroup() throws IOException {
+      count = in.readInt();
+      if (count <= 0 || count > deltas.length)
+        throw new TrevniRuntimeException("Invalid delta group size: " + count);
+      min = in.readLong();
+      int width = in.read();
+      if (width > 64)
+        throw new TrevniRuntimeException("Invalid bit width: " + width);
+      in.readPacked(deltas, count, width);
+      position = 0;
+    }
+  }
+}
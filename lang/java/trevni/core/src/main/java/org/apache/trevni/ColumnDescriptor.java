@@ -19,6 +19,7 @@ class ColumnDescriptor<T extends Comparable> {
   long[] blockStarts; // for random access
   long[] firstRows; // for binary searches
   T[] firstValues; // for binary searches
+  BlockStatistics[] statistics; // for block filters
 
   public ColumnDescriptor(Input file, ColumnMetaData metaData) {
     this.file = file;
@@ -59,11 +60,26 @@ class ColumnDescriptor<T extends Comparable> {
     BlockDescriptor[] blocks = new BlockDescriptor[blockCount];
     if (metaData.hasIndexValues())
       firstValues = (T[]) new Comparable[blockCount];
+    int[] nullCounts = null;
+    Comparable[] mins = null;
+    Comparable[] maxes = null;
+    if (metaData.hasStatistics()) {
+      nullCounts = new int[blockCount];
+      mins = new Comparable[blockCount];
+      maxes = new Comparable[blockCount];
+    }
 
     for (int i = 0; i < blockCount; i++) {
       blocks[i] = BlockDescriptor.read(in);
       if (metaData.hasIndexValues())
         firstValues[i] = in.readValue(metaData.getType());
+      if (metaData.hasStatistics()) {
+        nullCounts[i] = in.readFixed32();
+        if (nullCounts[i] < blocks[i].rowCount) { // has values
+          mins[i] = in.readValue(metaData.getType());
+          maxes[i] = in.readValue(metaData.getType());
+        }
+      }
     }
     dataStart = in.tell();
 
@@ -80,6 +96,11 @@ class ColumnDescriptor<T extends Comparable> {
       startPosition += b.compressedSize + checksum.size();
       row += b.rowCount;
     }
+    if (metaData.hasStatistics()) {
+      statistics = new BlockStatistics[blockCount];
+      for (int i = 0; i < blockCount; i++)
+        statistics[i] = new BlockStatistics(firstRows[i], blocks[i].rowCount, nullCounts[i], mins[i], maxes[i]);
+    }
     this.blocks = blocks;
   }
 
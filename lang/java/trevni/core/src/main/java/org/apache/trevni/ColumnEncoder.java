@@ -0,0 +1,260 @@
+/*
+
+ */
+package org.apache.trevni;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encodes the values of a block of a column with an encoding other than
+ * {@link ColumnEncoding#PLAIN}. Each block is encoded independently, so that it
+ * can be read without the preceding ones.
+ */
+abstract class ColumnEncoder {
+  /** The most rows in a block, for columns whose values may take no space. */
+  static final int MAX_BLOCK_ROWS = 1 << 20;
+
+  /** Return an encoder for a column, or null if its values are plain. */
+  static ColumnEncoder get(ColumnMetaData meta) {
+    switch (meta.getEncoding()) {
+    case PLAIN:
+      return null;
+    case DICTIONARY:
+      return new Dictionary(meta.getType());
+    case RUN_LENGTH:
+      return new RunLength(meta.getType());
+    case DELTA:
+      return new Delta();
+    default:
+      throw new TrevniRuntimeException("Unknown encoding: " + meta.getEncoding());
+    }
+  }
+
+  /** Add a value to the current block. */
+  abstract void write(Object value) throws IOException;
+
+  /** Return an estimate of the size of the current block, once written. */
+  abstract long size();
+
+  /** Write the current block to <i>out</i> and start a new one. */
+  abstract void writeBlock(OutputBuffer out) throws IOException;
+
+  /**
+   * Writes non-negative ints as runs of a repeated value and bit-packed groups
+   * of values between runs. Each group starts with an int header: the count of
+   * values shifted left by one, plus one for a bit-packed group. A run is
+   * followed by its value as an int, a bit-packed group by the width of its
+   * values as a byte, then the values.
+   */
+  static final class IntRuns {
+    static final int MIN_RUN = 8;
+    static final int MAX_RUN = 1 << 29;
+    static final int MAX_PACKED = 512;
+
+    private final OutputBuffer out = new OutputBuffer();
+    private final long[] packed = new long[MAX_PACKED];
+    private int packedCount;
+    private int runValue;
+    private int runLength;
+
+    void write(int value) {
+      if (runLength > 0 && value == runValue && runLength < MAX_RUN) {
+        runLength++;
+        return;
+      }
+      endRun();
+      runValue = value;
+      runLength = 1;
+    }
+
+    private void endRun() {
+      if (runLength >= MIN_RUN) {
+        flushPacked();
+        out.writeInt(runLength << 1);
+        out.writeInt(runValue);
+      } else {
+        for (int i = 0; i < runLength; i++) {
+          if (packedCount == MAX_PACKED)
+            flushPacked();
+          packed[packedCount++] = runValue & 0xFFFFFFFFL;
+        }
+      }
+      runLength = 0;
+    }
+
+    private void flushPacked() {
+      if (packedCount == 0)
+        return;
+      long bits = 0;
+      for (int i = 0; i < packedCount; i++)
+        bits |= packed[i];
+      int width = 64 - Long.numberOfLeadingZeros(bits);
+      out.writeInt((packedCount << 1) | 1);
+      out.write(width);
+      out.writePacked(packed, packedCount, width);
+      packedCount = 0;
+    }
+
+    long size() {
+      return out.size() + (packedCount + Math.min(runLength, MIN_RUN)) * 5L + 10;
+    }
+
+    /** Write the values to <i>to</i> and start again. */
+    void writeTo(OutputBuffer to) throws IOException {
+      endRun();
+      flushPacked();
+      out.writeTo(to);
+      out.reset();
+    }
+  }
+
+  /** The values of a block as a dictionary followed by {@link IntRuns}. */
+  static final class Dictionary extends ColumnEncoder {
+    private final ValueType type;
+    private final Map<Object, Integer> ids = new HashMap<>();
+    private final List<Object> values = new ArrayList<>();
+    private final IntRuns runs = new IntRuns();
+    private long valuesSize;
+
+    Dictionary(ValueType type) {
+      this.type = type;
+    }
+
+    @Override
+    void write(Object value) {
+      Object key = value;
+      if (value instanceof byte[])
+        key = ByteBuffer.wrap((byte[]) value);
+      Integer id = ids.get(key);
+      if (id == null) {
+        if (key instanceof ByteBuffer) { // may be reused by the caller
+          ByteBuffer buffer = (ByteBuffer) key;
+          byte[] copy = new byte[buffer.remaining()];
+          buffer.duplicate().get(copy);
+          key = ByteBuffer.wrap(copy);
+        }
+        id = values.size();
+        ids.put(key, id);
+        values.add(key);
+        valuesSize += OutputBuffer.size(key, type);
+      }
+      runs.write(id);
+    }
+
+    @Override
+    long size() {
+      return 5 + valuesSize + runs.size();
+    }
+
+    @Override
+    void writeBlock(OutputBuffer out) throws IOException {
+      out.writeInt(values.size());
+      for (Object value : values)
+        out.writeValue(value, type);
+      runs.writeTo(out);
+      ids.clear();
+      values.clear();
+      valuesSize = 0;
+    }
+  }
+
+  /**
+   * Boolean and int values as {@link IntRuns}, ints zig-zag encoded so that
+   * small negative values stay small.
+   */
+  static final class RunLength extends ColumnEncoder {
+    private final ValueType type;
+    private final IntRuns runs = new IntRuns();
+
+    RunLength(ValueType type) {
+      this.type = type;
+    }
+
+    @Override
+    void write(Object value) {
+      if (type == ValueType.BOOLEAN) {
+        runs.write((Boolean) value ? 1 : 0);
+      } else {
+        int n = (Integer) value;
+        runs.write((n << 1) ^ (n >> 31));
+      }
+    }
+
+    @Override
+    long size() {
+      return runs.size();
+    }
+
+    @Override
+    void writeBlock(OutputBuffer out) throws IOException {
+      runs.writeTo(out);
+    }
+  }
+
+  /**
+   * Long values as the first value of the block, as a long, followed by groups
+   * of the differences between consecutive values. Each group has the count of
+   * its differences as an int, their minimum as a long, then the width of their
+   * distance to the minimum as a byte and these distances, bit-packed.
+   */
+  static final class Delta extends ColumnEncoder {
+    static final int GROUP_SIZE = 128;
+
+    private final OutputBuffer out = new OutputBuffer();
+    private final long[] deltas = new long[GROUP_SIZE];
+    private int deltaCount;
+    private boolean started;
+    private long previous;
+
+    @Override
+    void write(Object value) throws IOException {
+      long n = (Long) value;
+      if (!started) {
+        out.writeLong(n);
+        started = true;
+      } else {
+        if (deltaCount == GROUP_SIZE)
+          flushGroup();
+        deltas[deltaCount++] = n - previous;
+      }
+      previous = n;
+    }
+
+    private void flushGroup() throws IOException {
+      if (deltaCount == 0)
+        return;
+      long min = Long.MAX_VALUE;
+      for (int i = 0; i < deltaCount; i++)
+        min = Math.min(min, deltas[i]);
+      long bits = 0;
+      for (int i = 0; i < deltaCount; i++) {
+        deltas[i] -= min;
+        bits |= deltas[i];
+      }
+      int width = 64 - Long.numberOfLeadingZeros(bits);
+      out.writeInt(deltaCount);
+      out.writeLong(min);
+      out.write(width);
+      out.writePacked(deltas, deltaCount, width);
+      deltaCount = 0;
+    }
+
+    @Override
+    long size() {
+      return out.size() + deltaCount * 10L + 16;
+    }
+
+    @Override
+    void writeBlock(OutputBuffer to) throws IOException {
+      flushGroup();
+      out.writeTo(to);
+      out.reset();
+      started = false;
+    }
+  }
+}
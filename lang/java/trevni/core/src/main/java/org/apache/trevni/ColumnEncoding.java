@@ -0,0 +1,62 @@
+/*
+
+ */
+package org.apache.trevni;
+
+/**
+ * The encodings of the values of a column within its blocks, before the codec
+ * is applied.
+ */
+public enum ColumnEncoding {
+  /** Each value serialized according to the column's type. */
+  PLAIN,
+  /**
+   * The distinct values of a block followed by the index of each value among
+   * them, run-length encoded. For low-cardinality string and bytes columns.
+   */
+  DICTIONARY,
+  /**
+   * Runs of repeated values, and bit-packed groups of values between them. For
+   * boolean columns and int columns of small values.
+   */
+  RUN_LENGTH,
+  /**
+   * The first value of a block followed by the differences between consecutive
+   * values, bit-packed in groups. For sorted or slowly changing long columns,
+   * such as timestamps.
+   */
+  DELTA;
+
+  private final String name;
+
+  private ColumnEncoding() {
+    this.name = this.name().toLowerCase();
+  }
+
+  /** Return the name of this encoding. */
+  public String getName() {
+    return name;
+  }
+
+  /** Return true if values of <i>type</i> can be written with this encoding. */
+  public boolean supports(ValueType type) {
+    switch (this) {
+    case PLAIN:
+      return true;
+    case DICTIONARY:
+      return type == ValueType.STRING || type == ValueType.BYTES;
+    case RUN_LENGTH:
+      return type == ValueType.BOOLEAN || type == ValueType.INT;
+    case DELTA:
+      return type == ValueType.LONG;
+    default:
+      return false;
+    }
+  }
+
+  /** Return an encoding given its name. */
+  public static ColumnEncoding forName(String name) {
+    return valueOf(name.toUpperCase());
+  }
+
+}
@@ -8,6 +8,19 @@ import java.io.IOException;
 /** File-level metadata. */
 public class ColumnFileMetaData extends MetaData<ColumnFileMetaData> {
 
+  /**
+   * Set whether block statistics are recorded for every column that permits
+   * them. See {@link ColumnMetaData#hasStatistics(boolean)}.
+   */
+  public ColumnFileMetaData hasStatistics(boolean statistics) {
+    return setReservedBoolean(ColumnMetaData.STATISTICS_KEY, statistics);
+  }
+
+  /** Get whether block statistics are recorded for every column that permits them. */
+  public boolean hasStatistics() {
+    return getBoolean(ColumnMetaData.STATISTICS_KEY);
+  }
+
   static ColumnFileMetaData read(InputBuffer in) throws IOException {
     ColumnFileMetaData result = new ColumnFileMetaData();
     MetaData.read(in, result);
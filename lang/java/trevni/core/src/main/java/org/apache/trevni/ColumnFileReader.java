@@ -11,6 +11,7 @@ import java.util.Map;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.concurrent.ExecutorService;
 
 /** Reads data from a column file. */
 public class ColumnFileReader implements Closeable {
@@ -21,6 +22,8 @@ public class ColumnFileReader implements Closeable {
   private ColumnFileMetaData metaData;
   private ColumnDescriptor[] columns;
   private Map<String, ColumnDescriptor> columnsByName;
+  private ExecutorService executor;
+  private int prefetchBlocks;
 
   /** Construct reading from the named file. */
   public ColumnFileReader(File file) throws IOException {
@@ -33,6 +36,29 @@ public class ColumnFileReader implements Closeable {
     readHeader();
   }
 
+  /**
+   * Read and decompress the blocks of each column on <i>executor</i>, up to
+   * <i>prefetchBlocks</i> ahead of the block being read, so that the columns of
+   * a row are decompressed in parallel while rows are assembled by the calling
+   * thread. Consecutive blocks of a column are read together. Applies to the
+   * values returned by later calls to {@link #getValues(String)}. The
+   * {@link Input} must support concurrent positioned reads, as
+   * {@link InputFile} does. The executor is not shut down by this reader. Pass
+   * null to read sequentially again.
+   */
+  public ColumnFileReader setParallelRead(ExecutorService executor, int prefetchBlocks) {
+    if (executor != null && prefetchBlocks < 1)
+      throw new IllegalArgumentException("prefetchBlocks must be positive: " + prefetchBlocks);
+    this.executor = executor;
+    this.prefetchBlocks = prefetchBlocks;
+    return this;
+  }
+
+  /** Return true if blocks are read on an executor. */
+  public boolean isParallelRead() {
+    return executor != null;
+  }
+
   /** Return the number of rows in this file. */
   public long getRowCount() {
     return rowCount;
@@ -123,14 +149,33 @@ public class ColumnFileReader implements Closeable {
       columns[i].start = in.readFixed64();
   }
 
+  /**
+   * Return the statistics of each block of the named column, or null if the
+   * column {@link ColumnMetaData#hasStatistics() has no statistics}.
+   */
+  public BlockStatistics[] getBlockStatistics(String columnName) throws IOException {
+    ColumnDescriptor column = getColumn(columnName);
+    column.ensureBlocksRead();
+    return column.statistics == null ? null : column.statistics.clone();
+  }
+
+  /**
+   * Return the rows that <i>filter</i> keeps. Reading only these rows, by
+   * {@link ColumnValues#seek(long) seeking} each column to the start of each
+   * range, skips the blocks that cannot be of interest.
+   */
+  public RowRanges getRowRanges(BlockFilter filter) throws IOException {
+    return filter.select(this);
+  }
+
   /** Return an iterator over values in the named column. */
   public <T extends Comparable> ColumnValues<T> getValues(String columnName) throws IOException {
-    return new ColumnValues<>(getColumn(columnName));
+    return new ColumnValues<>(getColumn(columnName), executor, prefetchBlocks);
   }
 
   /** Return an iterator over values in a column. */
   public <T extends Comparable> ColumnValues<T> getValues(int column) throws IOException {
-    return new ColumnValues<>(columns[column]);
+    return new ColumnValues<>(columns[column], executor, prefetchBlocks);
   }
 
   @Override
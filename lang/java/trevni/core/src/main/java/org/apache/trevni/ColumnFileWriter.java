@@ -3,6 +3,7 @@
  */
 package org.apache.trevni;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.File;
 import java.io.FileOutputStream;
@@ -12,9 +13,10 @@ import java.util.HashSet;
 
 /**
  * Writes data to a column file. All data is buffered until
- * {@link #writeTo(File)} is called.
+ * {@link #writeTo(File)} is called, in memory unless a
+ * {@link #setSpillDirectory(File) spill directory} is set.
  */
-public class ColumnFileWriter {
+public class ColumnFileWriter implements Closeable {
 
   static final byte[] MAGIC_0 = new byte[] { 'T', 'r', 'v', 0 };
   static final byte[] MAGIC_1 = new byte[] { 'T', 'r', 'v', 1 };
@@ -26,6 +28,7 @@ public class ColumnFileWriter {
   private long rowCount;
   private int columnCount;
   private long size;
+  private File spillDirectory;
 
   /** Construct given metadata for each column in the file. */
   public ColumnFileWriter(ColumnFileMetaData fileMeta, ColumnMetaData... columnMeta) throws IOException {
@@ -36,6 +39,8 @@ public class ColumnFileWriter {
     for (int i = 0; i < columnCount; i++) {
       ColumnMetaData c = columnMeta[i];
       c.setDefaults(metaData);
+      if (metaData.hasStatistics() && c.getType() != ValueType.NULL && c.getParent() == null)
+        c.hasStatistics(true);
       columns[i] = c.isArray() ? new ArrayColumnOutputBuffer(this, c) : new ColumnOutputBuffer(this, c);
       size += OutputBuffer.BLOCK_SIZE; // over-estimate
     }
@@ -54,6 +59,26 @@ public class ColumnFileWriter {
     }
   }
 
+  /**
+   * Write the completed blocks of each column to a temporary file in
+   * <i>directory</i> rather than holding them in memory, so that memory use is
+   * bounded by the block size and the number of columns rather than by the size
+   * of the file. {@link #writeTo(File)} then copies each column from its
+   * temporary file, without going through the heap when the output is a file.
+   * The temporary files are deleted by {@link #close()}. Must be called before
+   * any row is added.
+   */
+  public ColumnFileWriter setSpillDirectory(File directory) {
+    if (rowCount > 0)
+      throw new TrevniRuntimeException("Rows already added");
+    this.spillDirectory = directory;
+    return this;
+  }
+
+  File getSpillDirectory() {
+    return spillDirectory;
+  }
+
   void incrementSize(int n) {
     size += n;
   }
@@ -61,13 +86,28 @@ public class ColumnFileWriter {
   /**
    * Return the approximate size of the file that will be written. Tries to
    * slightly over-estimate. Indicates both the size in memory of the buffered
-   * data as well as the size of the file that will be written by
+   * data, unless a {@link #setSpillDirectory(File) spill directory} is set, as
+   * well as the size of the file that will be written by
    * {@link #writeTo(OutputStream)}.
    */
   public long sizeEstimate() {
     return size;
   }
 
+  /**
+   * Return the approximate number of bytes held in memory. This is the
+   * {@link #sizeEstimate()} unless a {@link #setSpillDirectory(File) spill
+   * directory} is set.
+   */
+  public long bufferedSize() {
+    if (spillDirectory == null)
+      return size;
+    long result = 0;
+    for (ColumnOutputBuffer column : columns)
+      result += column.bufferedSize();
+    return result;
+  }
+
   /** Return this file's metadata. */
   public ColumnFileMetaData getMetaData() {
     return metaData;
@@ -132,6 +172,22 @@ public class ColumnFileWriter {
       columns[column].writeTo(out);
   }
 
+  /** Delete the temporary files of spilled blocks, if any. */
+  @Override
+  public void close() throws IOException {
+    IOException failure = null;
+    for (ColumnOutputBuffer column : columns) {
+      try {
+        column.close();
+      } catch (IOException e) {
+        if (failure == null)
+          failure = e;
+      }
+    }
+    if (failure != null)
+      throw failure;
+  }
+
   private void writeHeader(OutputStream out) throws IOException {
     OutputBuffer header = new OutputBuffer();
 
@@ -15,6 +15,8 @@ public class ColumnMetaData extends MetaData<ColumnMetaData> {
   static final String VALUES_KEY = RESERVED_KEY_PREFIX + "values";
   static final String PARENT_KEY = RESERVED_KEY_PREFIX + "parent";
   static final String ARRAY_KEY = RESERVED_KEY_PREFIX + "array";
+  static final String ENCODING_KEY = RESERVED_KEY_PREFIX + "encoding";
+  static final String STATISTICS_KEY = RESERVED_KEY_PREFIX + "statistics";
 
   // cache these values for better performance
   private String name;
@@ -22,6 +24,8 @@ public class ColumnMetaData extends MetaData<ColumnMetaData> {
   private boolean values;
   private ColumnMetaData parent;
   private boolean isArray;
+  private ColumnEncoding encoding = ColumnEncoding.PLAIN;
+  private boolean statistics;
 
   private transient List<ColumnMetaData> children = new ArrayList<>(0);
   private transient int number = -1;
@@ -88,6 +92,10 @@ public class ColumnMetaData extends MetaData<ColumnMetaData> {
       throw new TrevniRuntimeException("Parent is not an array: " + parent);
     if (values)
       throw new TrevniRuntimeException("Array column cannot have index: " + this);
+    if (encoding != ColumnEncoding.PLAIN)
+      throw new TrevniRuntimeException("Array column cannot be encoded: " + this);
+    if (statistics)
+      throw new TrevniRuntimeException("Child column cannot have statistics: " + this);
     this.parent = parent;
     parent.children.add(this);
     return setReserved(PARENT_KEY, parent.getName());
@@ -97,6 +105,8 @@ public class ColumnMetaData extends MetaData<ColumnMetaData> {
   public ColumnMetaData isArray(boolean isArray) {
     if (values)
       throw new TrevniRuntimeException("Array column cannot have index: " + this);
+    if (isArray && encoding != ColumnEncoding.PLAIN)
+      throw new TrevniRuntimeException("Array column cannot be encoded: " + this);
     this.isArray = isArray;
     return setReservedBoolean(ARRAY_KEY, isArray);
   }
@@ -106,6 +116,57 @@ public class ColumnMetaData extends MetaData<ColumnMetaData> {
     return getBoolean(VALUES_KEY);
   }
 
+  /**
+   * Set the encoding of this column's values. Encodings other than
+   * {@link ColumnEncoding#PLAIN} are only permitted for the types they
+   * {@link ColumnEncoding#supports(ValueType) support}, and not for array columns
+   * or columns that specify a parent.
+   */
+  public ColumnMetaData setEncoding(ColumnEncoding encoding) {
+    if (encoding != ColumnEncoding.PLAIN) {
+      if (!encoding.supports(type))
+        throw new TrevniRuntimeException("Cannot use " + encoding.getName() + " encoding for " + type.getName()
+            + " column: " + this);
+      if (isArray || parent != null)
+        throw new TrevniRuntimeException("Array column cannot be encoded: " + this);
+    }
+    this.encoding = encoding;
+    if (encoding == ColumnEncoding.PLAIN) {
+      remove(ENCODING_KEY);
+      return this;
+    }
+    return setReserved(ENCODING_KEY, encoding.getName());
+  }
+
+  /** Return the encoding of this column's values. */
+  public ColumnEncoding getEncoding() {
+    return encoding;
+  }
+
+  /**
+   * Set whether the descriptor of each block of this column records the least
+   * and greatest value of the block and the number of its rows without a value,
+   * so that readers can skip blocks with a {@link BlockFilter}. Rows without a
+   * value are those of length zero in array columns. Not permitted for null
+   * columns or columns that specify a parent, whose rows are not those of the
+   * file.
+   */
+  public ColumnMetaData hasStatistics(boolean statistics) {
+    if (statistics) {
+      if (type == ValueType.NULL)
+        throw new TrevniRuntimeException("Null column cannot have statistics: " + this);
+      if (parent != null)
+        throw new TrevniRuntimeException("Child column cannot have statistics: " + this);
+    }
+    this.statistics = statistics;
+    return setReservedBoolean(STATISTICS_KEY, statistics);
+  }
+
+  /** Get whether this column's blocks record statistics. */
+  public boolean hasStatistics() {
+    return statistics;
+  }
+
   static ColumnMetaData read(InputBuffer in, ColumnFileReader file) throws IOException {
     ColumnMetaData result = new ColumnMetaData();
     MetaData.read(in, result);
@@ -113,6 +174,10 @@ public class ColumnMetaData extends MetaData<ColumnMetaData> {
     result.type = ValueType.forName(result.getString(TYPE_KEY));
     result.values = result.getBoolean(VALUES_KEY);
     result.isArray = result.getBoolean(ARRAY_KEY);
+    String encoding = result.getString(ENCODING_KEY);
+    if (encoding != null)
+      result.encoding = ColumnEncoding.forName(encoding);
+    result.statistics = result.getBoolean(STATISTICS_KEY);
 
     String parentName = result.getString(PARENT_KEY);
     if (parentName != null)
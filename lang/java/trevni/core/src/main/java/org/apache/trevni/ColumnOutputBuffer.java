@@ -3,9 +3,16 @@
  */
 package org.apache.trevni;
 
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -15,9 +22,16 @@ class ColumnOutputBuffer {
   private Codec codec;
   private Checksum checksum;
   private OutputBuffer buffer;
+  private ColumnEncoder encoder;
   private List<BlockDescriptor> blockDescriptors;
   private List<byte[]> blockData;
+  private FileChannel spill; // holds block data instead of blockData if not null
+  private long spilled; // bytes of block data spilled
   private List<byte[]> firstValues;
+  private List<byte[]> statistics;
+  private Comparable min; // of the current block
+  private Comparable max; // of the current block
+  private int nullCount; // of the current block
   private int rowCount;
   private long size = 4; // room for block count
 
@@ -27,10 +41,13 @@ class ColumnOutputBuffer {
     this.codec = Codec.get(meta);
     this.checksum = Checksum.get(meta);
     this.buffer = new OutputBuffer();
+    this.encoder = ColumnEncoder.get(meta);
     this.blockDescriptors = new ArrayList<>();
     this.blockData = new ArrayList<>();
     if (meta.hasIndexValues())
       this.firstValues = new ArrayList<>();
+    if (meta.hasStatistics())
+      this.statistics = new ArrayList<>();
   }
 
   public ColumnMetaData getMeta() {
@@ -42,7 +59,8 @@ class ColumnOutputBuffer {
   }
 
   public void startRow() throws IOException {
-    if (buffer.isFull())
+    if (encoder == null ? buffer.isFull()
+        : encoder.size() >= OutputBuffer.BLOCK_SIZE || rowCount >= ColumnEncoder.MAX_BLOCK_ROWS)
       flushBuffer();
   }
 
@@ -51,6 +69,16 @@ class ColumnOutputBuffer {
   }
 
   public void writeValue(Object value) throws IOException {
+    addStatistics(value);
+    if (encoder != null) {
+      encoder.write(value);
+      if (meta.hasIndexValues() && rowCount == 0) {
+        OutputBuffer first = new OutputBuffer();
+        first.writeValue(value, meta.getType());
+        firstValues.add(first.toByteArray());
+      }
+      return;
+    }
     buffer.writeValue(value, meta.getType());
     if (meta.hasIndexValues() && rowCount == 0)
       firstValues.add(buffer.toByteArray());
@@ -60,23 +88,71 @@ class ColumnOutputBuffer {
     rowCount++;
   }
 
+  /** Include a value in the statistics of the current block, if kept. */
+  void addStatistics(Object value) {
+    if (statistics == null)
+      return;
+    Comparable v = value instanceof byte[] ? ByteBuffer.wrap((byte[]) value) : (Comparable) value;
+    if (min == null || v.compareTo(min) < 0)
+      min = copy(v);
+    if (max == null || v.compareTo(max) > 0)
+      max = copy(v);
+  }
+
+  private static Comparable copy(Comparable value) {
+    if (!(value instanceof ByteBuffer)) // immutable
+      return value;
+    ByteBuffer buffer = (ByteBuffer) value; // may be reused by the caller
+    byte[] copy = new byte[buffer.remaining()];
+    buffer.duplicate().get(copy);
+    return ByteBuffer.wrap(copy);
+  }
+
+  /** Count a row without a value in the statistics of the current block. */
+  void addNull() {
+    if (statistics != null)
+      nullCount++;
+  }
+
   void flushBuffer() throws IOException {
     if (rowCount == 0)
       return;
+    if (encoder != null)
+      encoder.writeBlock(buffer);
     ByteBuffer raw = buffer.asByteBuffer();
+    ByteBuffer sum = checksum.compute(raw); // before the null codec's output is consumed
     ByteBuffer c = codec.compress(raw);
 
     blockDescriptors.add(new BlockDescriptor(rowCount, raw.remaining(), c.remaining()));
 
     ByteBuffer data = ByteBuffer.allocate(c.remaining() + checksum.size());
     data.put(c);
-    data.put(checksum.compute(raw));
-    blockData.add(data.array());
+    data.put(sum);
+    if (writer.getSpillDirectory() != null) {
+      spill(data.array());
+    } else {
+      blockData.add(data.array());
+    }
+
+    if (statistics != null) {
+      OutputBuffer stats = new OutputBuffer();
+      stats.writeFixed32(nullCount);
+      if (min != null) {
+        stats.writeValue(min, meta.getType());
+        stats.writeValue(max, meta.getType());
+      }
+      statistics.add(stats.toByteArray());
+      min = max = null;
+      nullCount = 0;
+    }
 
     int sizeIncrement = (4 * 3) // descriptor
         + (firstValues != null // firstValue
             ? firstValues.get(firstValues.size() - 1).length
             : 0)
+        + (statistics != null // statistics
+            ? statistics.get(statistics.size() - 1).length
+            : 0)
         + data.position(); // data
 
     writer.incrementSize(sizeIncrement);
@@ -86,23 +162,59 @@ class ColumnOutputBuffer {
     rowCount = 0;
   }
 
+  private void spill(byte[] data) throws IOException {
+    if (spill == null) {
+      Path file = Files.createTempFile(writer.getSpillDirectory().toPath(), "trevni-", ".col");
+      spill = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+          StandardOpenOption.DELETE_ON_CLOSE);
+    }
+    ByteBuffer buffer = ByteBuffer.wrap(data);
+    while (buffer.hasRemaining())
+      spill.write(buffer);
+    spilled += data.length;
+  }
+
+  /** Return the approximate number of bytes held in memory. */
+  long bufferedSize() {
+    return size - spilled + buffer.size();
+  }
+
+  /** Delete the spilled block data, if any. */
+  void close() throws IOException {
+    if (spill != null) {
+      spill.close();
+      spill = null;
+    }
+  }
+
   public long size() throws IOException {
     flushBuffer();
     return size;
   }
 
   public void writeTo(OutputStream out) throws IOException {
+    if (spilled > 0 && spill == null)
+      throw new TrevniRuntimeException("Writer closed: " + meta);
     OutputBuffer header = new OutputBuffer();
     header.writeFixed32(blockDescriptors.size());
     for (int i = 0; i < blockDescriptors.size(); i++) {
       blockDescriptors.get(i).writeTo(header);
       if (meta.hasIndexValues())
         header.write(firstValues.get(i));
+      if (meta.hasStatistics())
+        header.write(statistics.get(i));
     }
     header.writeTo(out);
 
     for (byte[] data : blockData)
       out.write(data);
+
+    if (spill != null) {
+      WritableByteChannel target = out instanceof FileOutputStream ? ((FileOutputStream) out).getChannel()
+          : Channels.newChannel(out);
+      for (long position = 0; position < spilled;)
+        position += spill.transferTo(position, spilled - position, target);
+    }
   }
 
 }
@@ -6,6 +6,7 @@ package org.apache.trevni;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.Iterator;
+import java.util.concurrent.ExecutorService;
 
 /** An iterator over column values. */
 public class ColumnValues<T extends Comparable> implements Iterator<T>, Iterable<T> {
@@ -15,20 +16,30 @@ public class ColumnValues<T extends Comparable> implements Iterator<T>, Iterable
   private final Codec codec;
   private final Checksum checksum;
   private final InputBuffer in;
+  private final ColumnDecoder decoder;
+  private final BlockPrefetcher prefetcher;
 
   private InputBuffer values;
   private int block = -1;
   private long row = 0;
   private T previous;
+  private T pending; // pushed back by a seek to a value in an encoded column
+  private boolean hasPending;
 
   private int arrayLength;
 
   ColumnValues(ColumnDescriptor column) throws IOException {
+    this(column, null, 0);
+  }
+
+  ColumnValues(ColumnDescriptor column, ExecutorService executor, int prefetchBlocks) throws IOException {
     this.column = column;
     this.type = column.metaData.getType();
     this.codec = Codec.get(column.metaData);
     this.checksum = Checksum.get(column.metaData);
     this.in = new InputBuffer(column.file);
+    this.decoder = ColumnDecoder.get(column.metaData);
+    this.prefetcher = executor == null ? null : new BlockPrefetcher(column, executor, prefetchBlocks);
 
     column.ensureBlocksRead();
   }
@@ -42,13 +53,52 @@ public class ColumnValues<T extends Comparable> implements Iterator<T>, Iterable
   public void seek(long r) throws IOException {
     if (r < row || r >= column.lastRow(block)) // not in current block
       startBlock(column.findBlock(r)); // seek to block start
+    if (decoder != null && r > row) { // skip within block
+      if (hasPending) {
+        hasPending = false;
+        row++;
+      }
+      long n = Math.min(r, column.lastRow(block)) - row;
+      decoder.skip(n);
+      row += n;
+    }
     while (r > row && hasNext()) { // skip within block
-      values.skipValue(type);
+      skipRow();
       row++;
     }
     previous = null;
   }
 
+  private long skipRow() throws IOException {
+    if (decoder != null) {
+      if (hasPending)
+        hasPending = false;
+      else
+        decoder.skip(1);
+      return 1;
+    }
+    if (!column.metaData.isArray()) {
+      values.skipValue(type);
+      return 1;
+    }
+    int length = values.readLength();
+    for (int i = 0; i < length; i++)
+      values.skipValue(type);
+    return length;
+  }
+
+  /**
+   * Expert: Skip the next <i>n</i> values of the current row. Returns the number
+   * of values skipped in each child column: for an array column, the sum of the
+   * lengths skipped, otherwise <i>n</i>.
+   */
+  public long skipValues(long n) throws IOException {
+    long count = 0;
+    for (long i = 0; i < n; i++)
+      count += skipRow();
+    return count;
+  }
+
   /** Seek to the named value. */
   public void seek(T v) throws IOException {
     if (!column.metaData.hasIndexValues())
@@ -62,8 +112,14 @@ public class ColumnValues<T extends Comparable> implements Iterator<T>, Iterable
     while (hasNext()) { // scan block
       long savedPosition = values.tell();
       T savedPrevious = previous;
-      if (next().compareTo(v) >= 0) {
-        values.seek(savedPosition);
+      T value = next();
+      if (value.compareTo(v) >= 0) {
+        if (decoder != null) {
+          pending = value;
+          hasPending = true;
+        } else {
+          values.seek(savedPosition);
+        }
         previous = savedPrevious;
         row--;
         return;
@@ -75,14 +131,36 @@ public class ColumnValues<T extends Comparable> implements Iterator<T>, Iterable
     this.block = block;
     this.row = column.firstRows[block];
 
-    in.seek(column.blockStarts[block]);
-    int end = column.blocks[block].compressedSize;
-    byte[] raw = new byte[end + checksum.size()];
-    in.readFully(raw);
-    ByteBuffer data = codec.decompress(ByteBuffer.wrap(raw, 0, end));
-    if (!checksum.compute(data).equals(ByteBuffer.wrap(raw, end, checksum.size())))
-      throw new IOException("Checksums mismatch.");
+    ByteBuffer data;
+    if (prefetcher != null) {
+      data = prefetcher.get(block);
+    } else {
+      in.seek(column.blockStarts[block]);
+      int end = column.blocks[block].compressedSize;
+      byte[] raw = new byte[end + checksum.size()];
+      in.readFully(raw);
+      data = decompress(raw, 0, end, codec, checksum);
+    }
     values = new InputBuffer(new InputBytes(data));
+    hasPending = false;
+    if (decoder != null)
+      decoder.startBlock(values);
+  }
+
+  /**
+   * Decompress the block of <i>size</i> bytes at <i>offset</i> in <i>raw</i> and
+   * verify its checksum, which follows it.
+   */
+  static ByteBuffer decompress(byte[] raw, int offset, int size, Codec codec, Checksum checksum) throws IOException {
+    ByteBuffer data = codec.decompress(ByteBuffer.wrap(raw, offset, size));
+    if (!checksum.compute(data).equals(ByteBuffer.wrap(raw, offset + size, checksum.size())))
+      throw new IOException("Checksums mismatch.");
+    if (data.arrayOffset() + data.position() != 0) { // read from the start of its array
+      byte[] copy = new byte[data.remaining()];
+      data.duplicate().get(copy);
+      data = ByteBuffer.wrap(copy);
+    }
+    return data;
   }
 
   @Override
@@ -120,6 +198,52 @@ public class ColumnValues<T extends Comparable> implements Iterator<T>, Iterable
     row++;
   }
 
+  /**
+   * Read the values of up to <i>max</i> rows into <i>vector</i>, replacing its
+   * contents, and return the number of rows read, zero at the end of the column.
+   * Values are read straight from the decompressed block, without boxing. For
+   * array columns, the number of values of each row is also set in the
+   * vector's {@link ColumnVector#getLengths() lengths}. Not permitted for
+   * columns that specify a parent.
+   */
+  public int readBatch(ColumnVector vector, int max) throws IOException {
+    if (column.metaData.getParent() != null)
+      throw new TrevniRuntimeException("Column has parent: " + column.metaData.getName());
+    if (!vector.supports(type))
+      throw new TrevniRuntimeException("Cannot read " + type.getName() + " column into "
+          + vector.getClass().getSimpleName() + ": " + column.metaData.getName());
+    boolean isArray = column.metaData.isArray();
+    vector.reset();
+    int rows = 0;
+    while (rows < max && hasNext()) {
+      if (row >= column.lastRow(block))
+        startBlock(block + 1);
+      int n = (int) Math.min(max - rows, column.lastRow(block) - row);
+      if (isArray) {
+        for (int i = 0; i < n; i++) {
+          int length = values.readLength();
+          vector.setLength(rows + i, length);
+          vector.read(values, type, length);
+        }
+      } else if (decoder != null) {
+        if (hasPending) { // pushed back by a seek
+          hasPending = false;
+          vector.add(pending);
+          vector.read(decoder, n - 1);
+        } else {
+          vector.read(decoder, n);
+        }
+      } else {
+        vector.read(values, type, n);
+      }
+      row += n;
+      rows += n;
+    }
+    vector.setRowCount(rows);
+    previous = null;
+    return rows;
+  }
+
   /** Expert: Returns the next length in an array column. */
   public int nextLength() throws IOException {
     if (!column.metaData.isArray())
@@ -131,7 +255,13 @@ public class ColumnValues<T extends Comparable> implements Iterator<T>, Iterable
   /** Expert: Returns the next value in a column. */
   public T nextValue() throws IOException {
     arrayLength--;
-    return previous = values.readValue(type);
+    if (decoder == null)
+      return previous = values.readValue(type);
+    if (hasPending) {
+      hasPending = false;
+      return previous = pending;
+    }
+    return previous = decoder.readValue();
   }
 
   @Override
@@ -0,0 +1,70 @@
+/*
+
+ */
+package org.apache.trevni;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A batch of values of a column, filled by
+ * {@link ColumnValues#readBatch(ColumnVector, int)} without boxing each value.
+ * The arrays of a vector are reused by later batches, growing as needed.
+ */
+public abstract class ColumnVector {
+  static final int DEFAULT_CAPACITY = 1024;
+
+  int size; // of values
+  private int rowCount;
+  private int[] lengths = new int[0];
+
+  /** Return the number of values in the batch. */
+  public int size() {
+    return size;
+  }
+
+  /** Return the number of rows in the batch. */
+  public int getRowCount() {
+    return rowCount;
+  }
+
+  /**
+   * Return the number of values of each row of an array column. Only the first
+   * {@link #getRowCount()} are of the batch.
+   */
+  public int[] getLengths() {
+    return lengths;
+  }
+
+  void reset() {
+    size = 0;
+    rowCount = 0;
+  }
+
+  void setRowCount(int rowCount) {
+    this.rowCount = rowCount;
+  }
+
+  void setLength(int row, int length) {
+    if (row == lengths.length)
+      lengths = Arrays.copyOf(lengths, Math.max(DEFAULT_CAPACITY, row * 2));
+    lengths[row] = length;
+  }
+
+  /** Return true if values of <i>type</i> can be read into this vector. */
+  abstract boolean supports(ValueType type);
+
+  /** Add <i>n</i> values serialized according to <i>type</i>. */
+  abstract void read(InputBuffer in, ValueType type, int n) throws IOException;
+
+  /** Add the next <i>n</i> values of <i>decoder</i>. */
+  abstract void read(ColumnDecoder decoder, int n) throws IOException;
+
+  /** Add a value as returned by {@link ColumnValues#next()}. */
+  abstract void add(Object value);
+
+  static int grow(int capacity, int needed) {
+    return Math.max(needed, Math.max(DEFAULT_CAPACITY, capacity * 2));
+  }
+
+}
@@ -0,0 +1,77 @@
+/*
+
+ */
+package org.apache.trevni;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/** A {@link ColumnVector} of float and double values, as doubles. */
+public final class DoubleVector extends ColumnVector {
+  private double[] values;
+
+  /** Construct with room for a default number of values. */
+  public DoubleVector() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /** Construct with room for <i>capacity</i> values. */
+  public DoubleVector(int capacity) {
+    this.values = new double[capacity];
+  }
+
+  /** Return a value of the batch. */
+  public double get(int i) {
+    if (i >= size)
+      throw new IndexOutOfBoundsException(i + " >= " + size);
+    return values[i];
+  }
+
+  /** Return the values. Only the first {@link #size()} are of the batch. */
+  public double[] getValues() {
+    return values;
+  }
+
+  private void ensure(int n) {
+    if (size + n > values.length)
+      values = Arrays.copyOf(values, grow(values.length, size + n));
+  }
+
+  @Override
+  boolean supports(ValueType type) {
+    return type == ValueType.FLOAT || type == ValueType.DOUBLE;
+  }
+
+  @Override
+  void read(InputBuffer in, ValueType type, int n) throws IOException {
+    ensure(n);
+    double[] values = this.values;
+    int end = size + n;
+    switch (type) {
+    case FLOAT:
+      for (int i = size; i < end; i++)
+        values[i] = in.readFloat();
+      break;
+    case DOUBLE:
+      for (int i = size; i < end; i++)
+        values[i] = in.readDouble();
+      break;
+    default:
+      throw new TrevniRuntimeException("Not a double type: " + type);
+    }
+    size = end;
+  }
+
+  @Override
+  void read(ColumnDecoder decoder, int n) throws IOException {
+    for (int i = 0; i < n; i++)
+      add(decoder.readValue());
+  }
+
+  @Override
+  void add(Object value) {
+    ensure(1);
+    values[size++] = ((Number) value).doubleValue();
+  }
+
+}
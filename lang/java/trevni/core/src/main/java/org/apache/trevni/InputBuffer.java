@@ -331,6 +331,29 @@ class InputBuffer {
     seek(tell() + length);
   }
 
+  /**
+   * Read <i>n</i> values of <i>width</i> bits written by
+   * {@link OutputBuffer#writePacked(long[], int, int)} into <i>values</i>.
+   */
+  public void readPacked(long[] values, int n, int width) throws IOException {
+    int bits = 8; // bits consumed in the current byte
+    int current = 0;
+    for (int i = 0; i < n; i++) {
+      long value = 0;
+      for (int shift = 0; shift < width;) {
+        if (bits == 8) {
+          current = read();
+          bits = 0;
+        }
+        int take = Math.min(width - shift, 8 - bits);
+        value |= (long) ((current >>> bits) & ((1 << take) - 1)) << shift;
+        bits += take;
+        shift += take;
+      }
+      values[i] = value;
+    }
+  }
+
   public int read() throws IOException {
     if (pos >= limit) {
       limit = readInput(buf, 0, buf.length);
@@ -0,0 +1,102 @@
+/*
+
+ */
+package org.apache.trevni;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A {@link ColumnVector} of int, long, fixed32, fixed64 and boolean values, as
+ * longs. Booleans are one for true and zero for false.
+ */
+public final class LongVector extends ColumnVector {
+  private long[] values;
+
+  /** Construct with room for a default number of values. */
+  public LongVector() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /** Construct with room for <i>capacity</i> values. */
+  public LongVector(int capacity) {
+    this.values = new long[capacity];
+  }
+
+  /** Return a value of the batch. */
+  public long get(int i) {
+    if (i >= size)
+      throw new IndexOutOfBoundsException(i + " >= " + size);
+    return values[i];
+  }
+
+  /** Return the values. Only the first {@link #size()} are of the batch. */
+  public long[] getValues() {
+    return values;
+  }
+
+  private void ensure(int n) {
+    if (size + n > values.length)
+      values = Arrays.copyOf(values, grow(values.length, size + n));
+  }
+
+  @Override
+  boolean supports(ValueType type) {
+    switch (type) {
+    case INT:
+    case LONG:
+    case FIXED32:
+    case FIXED64:
+    case BOOLEAN:
+      return true;
+    default:
+      return false;
+    }
+  }
+
+  @Override
+  void read(InputBuffer in, ValueType type, int n) throws IOException {
+    ensure(n);
+    long[] values = this.values;
+    int end = size + n;
+    switch (type) {
+    case INT:
+      for (int i = size; i < end; i++)
+        values[i] = in.readInt();
+      break;
+    case LONG:
+      for (int i = size; i < end; i++)
+        values[i] = in.readLong();
+      break;
+    case FIXED32:
+      for (int i = size; i < end; i++)
+        values[i] = in.readFixed32();
+      break;
+    case FIXED64:
+      for (int i = size; i < end; i++)
+        values[i] = in.readFixed64();
+      break;
+    case BOOLEAN:
+      for (int i = size; i < end; i++)
+        values[i] = in.readBoolean() ? 1 : 0;
+      break;
+    default:
+      throw new TrevniRuntimeException("Not a long type: " + type);
+    }
+    size = end;
+  }
+
+  @Override
+  void read(ColumnDecoder decoder, int n) throws IOException {
+    ensure(n);
+    for (int i = 0; i < n; i++)
+      values[size++] = decoder.readLong();
+  }
+
+  @Override
+  void add(Object value) {
+    ensure(1);
+    values[size++] = value instanceof Boolean ? ((Boolean) value ? 1 : 0) : ((Number) value).longValue();
+  }
+
+}
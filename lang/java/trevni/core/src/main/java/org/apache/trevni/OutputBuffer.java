@@ -201,6 +201,33 @@ class OutputBuffer extends ByteArrayOutputStream {
     buf[count++] = (byte) n;
   }
 
+  /**
+   * Write the low <i>width</i> bits of each of the first <i>n</i> values, packed
+   * least-significant bit first, padded to a whole number of bytes.
+   */
+  public void writePacked(long[] values, int n, int width) {
+    ensure((int) (((long) n * width + 7) >> 3));
+    int bits = 0; // bits used in the current byte
+    int current = 0;
+    for (int i = 0; i < n; i++) {
+      long value = values[i];
+      for (int w = width; w > 0;) {
+        int take = Math.min(w, 8 - bits);
+        current |= (int) (value & ((1L << take) - 1)) << bits;
+        value >>>= take;
+        bits += take;
+        w -= take;
+        if (bits == 8) {
+          buf[count++] = (byte) current;
+          bits = 0;
+          current = 0;
+        }
+      }
+    }
+    if (bits > 0)
+      buf[count++] = (byte) current;
+  }
+
   private void ensure(int n) {
     if (count + n > buf.length)
       buf = Arrays.copyOf(buf, Math.max(buf.length << 1, count + n));
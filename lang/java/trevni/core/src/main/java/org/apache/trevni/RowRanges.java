@@ -0,0 +1,152 @@
+/*
+
+ */
+package org.apache.trevni;
+
+import java.util.Arrays;
+
+/**
+ * An ordered set of ranges of rows of a file. Each range is given by its first
+ * row and the row after its last. Ranges neither overlap nor touch.
+ */
+public final class RowRanges {
+  private final long[] starts;
+  private final long[] ends;
+
+  private RowRanges(long[] starts, long[] ends) {
+    this.starts = starts;
+    this.ends = ends;
+  }
+
+  /** Return the ranges holding every row of a file of <i>rowCount</i> rows. */
+  public static RowRanges all(long rowCount) {
+    return new Builder().add(0, rowCount).build();
+  }
+
+  /** Return the number of ranges. */
+  public int size() {
+    return starts.length;
+  }
+
+  /** Return the first row of a range. */
+  public long getStart(int range) {
+    return starts[range];
+  }
+
+  /** Return the row after the last row of a range. */
+  public long getEnd(int range) {
+    return ends[range];
+  }
+
+  /** Return the number of rows in all ranges. */
+  public long getRowCount() {
+    long result = 0;
+    for (int i = 0; i < starts.length; i++)
+      result += ends[i] - starts[i];
+    return result;
+  }
+
+  /** Return true if a range holds <i>row</i>. */
+  public boolean contains(long row) {
+    return nextRow(row) == row;
+  }
+
+  /**
+   * Return the first row held by a range that is not before <i>row</i>, or -1
+   * if there is none.
+   */
+  public long nextRow(long row) {
+    int range = Arrays.binarySearch(ends, row);
+    range = range < 0 ? -range - 1 : range + 1; // the first that ends after row
+    if (range == ends.length)
+      return -1;
+    return Math.max(row, starts[range]);
+  }
+
+  /** Return the rows held by both these and <i>other</i> ranges. */
+  public RowRanges and(RowRanges other) {
+    Builder builder = new Builder();
+    int i = 0, j = 0;
+    while (i < starts.length && j < other.starts.length) {
+      builder.add(Math.max(starts[i], other.starts[j]), Math.min(ends[i], other.ends[j]));
+      if (ends[i] < other.ends[j])
+        i++;
+      else
+        j++;
+    }
+    return builder.build();
+  }
+
+  /** Return the rows held by either these or <i>other</i> ranges. */
+  public RowRanges or(RowRanges other) {
+    Builder builder = new Builder();
+    int i = 0, j = 0;
+    while (i < starts.length || j < other.starts.length) {
+      if (j == other.starts.length || (i < starts.length && starts[i] <= other.starts[j])) {
+        builder.add(starts[i], ends[i]);
+        i++;
+      } else {
+        builder.add(other.starts[j], other.ends[j]);
+        j++;
+      }
+    }
+    return builder.build();
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (!(o instanceof RowRanges))
+      return false;
+    RowRanges that = (RowRanges) o;
+    return Arrays.equals(starts, that.starts) && Arrays.equals(ends, that.ends);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * Arrays.hashCode(starts) + Arrays.hashCode(ends);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder();
+    builder.append('[');
+    for (int i = 0; i < starts.length; i++) {
+      if (i > 0)
+        builder.append(", ");
+      builder.append(starts[i]).append('-').append(ends[i]);
+    }
+    return builder.append(']').toString();
+  }
+
+  /**
+   * Builds ranges added in order of their first row, merging those that
+   * overlap or touch and dropping empty ones.
+   */
+  static class Builder {
+    private long[] starts = new long[8];
+    private long[] ends = new long[8];
+    private int size;
+
+    Builder add(long start, long end) {
+      if (start >= end)
+        return this;
+      if (size > 0 && start <= ends[size - 1]) {
+        ends[size - 1] = Math.max(end, ends[size - 1]);
+        return this;
+      }
+      if (size == starts.length) {
+        starts = Arrays.copyOf(starts, size * 2);
+        ends = Arrays.copyOf(ends, size * 2);
+      }
+      starts[size] = start;
+      ends[size] = end;
+      size++;
+      return this;
+    }
+
+    RowRanges build() {
+      return new RowRanges(Arrays.copyOf(starts, size), Arrays.copyOf(ends, size));
+    }
+  }
+
+}
@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.trevni;
+
+import java.io.File;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestBlockStatistics {
+
+  private static final File FILE = new File("target", "test-statistics.trv");
+  private static final int COUNT = 1024 * 64;
+
+  private String[] strings = new String[COUNT];
+
+  private ColumnFileReader write() throws Exception {
+    FILE.delete();
+    ColumnFileWriter out = new ColumnFileWriter(new ColumnFileMetaData().setCodec("deflate").hasStatistics(true),
+        new ColumnMetaData("a", ValueType.LONG), new ColumnMetaData("b", ValueType.STRING),
+        new ColumnMetaData("c", ValueType.INT).isArray(true), new ColumnMetaData("n", ValueType.NULL));
+    Random random = TestUtil.createRandom();
+    for (int i = 0; i < COUNT; i++) {
+      strings[i] = TestUtil.randomString(random);
+      out.startRow();
+      out.writeValue((long) i, 0);
+      out.writeValue(strings[i], 1);
+      int length = i % 3;
+      out.writeLength(length, 2);
+      for (int j = 0; j < length; j++)
+        out.writeValue(i + j, 2);
+      out.writeValue(null, 3);
+      out.endRow();
+    }
+    out.writeTo(FILE);
+    return new ColumnFileReader(FILE);
+  }
+
+  @Test
+  public void testStatistics() throws Exception {
+    try (ColumnFileReader in = write()) {
+      Assert.assertTrue(in.getColumnMetaData("a").hasStatistics());
+      Assert.assertFalse(in.getColumnMetaData("n").hasStatistics());
+      Assert.assertNull(in.getBlockStatistics("n"));
+
+      BlockStatistics[] a = in.getBlockStatistics("a");
+      Assert.assertTrue(a.length > 1);
+      long row = 0;
+      for (BlockStatistics block : a) {
+        Assert.assertEquals(row, block.getFirstRow());
+        Assert.assertEquals(0, block.getNullCount());
+        Assert.assertEquals(row, (long) block.getMin());
+        Assert.assertEquals(row + block.getRowCount() - 1, (long) block.getMax());
+        row += block.getRowCount();
+      }
+      Assert.assertEquals(COUNT, row);
+
+      for (BlockStatistics block : in.getBlockStatistics("b")) {
+        String min = null;
+        String max = null;
+        for (long i = block.getFirstRow(); i < block.getFirstRow() + block.getRowCount(); i++) {
+          String s = strings[(int) i];
+          if (min == null || s.compareTo(min) < 0)
+            min = s;
+          if (max == null || s.compareTo(max) > 0)
+            max = s;
+        }
+        Assert.assertEquals(min, block.getMin());
+        Assert.assertEquals(max, block.getMax());
+      }
+
+      for (BlockStatistics block : in.getBlockStatistics("c")) {
+        int nulls = 0;
+        for (long i = block.getFirstRow(); i < block.getFirstRow() + block.getRowCount(); i++)
+          if (i % 3 == 0)
+            nulls++;
+        Assert.assertEquals(nulls, block.getNullCount());
+        Assert.assertTrue((int) block.getMin() <= (int) block.getMax());
+      }
+    }
+  }
+
+  @Test
+  public void testFilter() throws Exception {
+    try (ColumnFileReader in = write()) {
+      long min = COUNT / 3;
+      long max = min + 10;
+      RowRanges rows = in.getRowRanges(BlockFilter.between("a", min, max));
+      Assert.assertEquals(1, rows.size());
+      Assert.assertTrue(rows.getStart(0) <= min && rows.getEnd(0) > max);
+      Assert.assertTrue(rows.getRowCount() < COUNT / 2);
+
+      ColumnValues<Long> a = in.getValues("a");
+      ColumnValues<String> b = in.getValues("b");
+      ColumnValues<Integer> c = in.getValues("c");
+      long start = rows.getStart(0);
+      a.seek(start);
+      b.seek(start);
+      c.seek(start);
+      for (long row = start; row < rows.getEnd(0); row++) {
+        Assert.assertEquals(row, (long) a.next());
+        Assert.assertEquals(strings[(int) row], b.next());
+        c.startRow();
+        int length = c.nextLength();
+        Assert.assertEquals(row % 3, length);
+        for (int j = 0; j < length; j++)
+          Assert.assertEquals(row + j, (long) (int) c.nextValue());
+      }
+
+      Assert.assertEquals(0, in.getRowRanges(BlockFilter.equalTo("a", (long) COUNT)).size());
+      Assert.assertEquals(COUNT, in.getRowRanges(BlockFilter.isNull("c")).getRowCount());
+      Assert.assertEquals(0, in.getRowRanges(BlockFilter.isNull("a")).size());
+      Assert.assertEquals(COUNT, in.getRowRanges(BlockFilter.equalTo("n", null)).getRowCount());
+      Assert.assertEquals(rows,
+          in.getRowRanges(BlockFilter.and(BlockFilter.between("a", min, null), BlockFilter.between("a", null, max))));
+      RowRanges both = in.getRowRanges(BlockFilter.or(BlockFilter.equalTo("a", 0L), BlockFilter.equalTo("a", min)));
+      Assert.assertEquals(0, both.getStart(0));
+      Assert.assertTrue(both.contains(min));
+    }
+  }
+
+  @Test
+  public void testRowRanges() {
+    RowRanges x = new RowRanges.Builder().add(0, 10).add(10, 20).add(30, 40).add(35, 50).add(60, 60).build();
+    Assert.assertEquals("[0-20, 30-50]", x.toString());
+    Assert.assertEquals(40, x.getRowCount());
+    Assert.assertEquals(0, x.nextRow(0));
+    Assert.assertEquals(19, x.nextRow(19));
+    Assert.assertEquals(30, x.nextRow(20));
+    Assert.assertEquals(-1, x.nextRow(50));
+    Assert.assertTrue(x.contains(45));
+    Assert.assertFalse(x.contains(25));
+
+    RowRanges y = new RowRanges.Builder().add(15, 35).add(45, 70).build();
+    Assert.assertEquals("[15-20, 30-35, 45-50]", x.and(y).toString());
+    Assert.assertEquals("[0-70]", x.or(y).toString());
+    Assert.assertEquals(x, x.and(RowRanges.all(100)));
+  }
+
+  @Test(expected = TrevniRuntimeException.class)
+  public void testNullColumn() {
+    new ColumnMetaData("n", ValueType.NULL).hasStatistics(true);
+  }
+
+  @Test(expected = TrevniRuntimeException.class)
+  public void testChildColumn() {
+    ColumnMetaData parent = new ColumnMetaData("p", ValueType.NULL).isArray(true);
+    new ColumnMetaData("c", ValueType.INT).hasStatistics(true).setParent(parent);
+  }
+
+}
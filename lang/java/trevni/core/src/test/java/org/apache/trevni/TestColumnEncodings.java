@@ -0,0 +1,220 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * 
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.trevni;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(value = Parameterized.class)
+public class TestColumnEncodings {
+
+  private static final File FILE = new File("target", "test-encodings.trv");
+  private static final int COUNT = 1024 * 64;
+  private static final String[] NAMES = { "click", "view", "purchase", "login", "logout", "" };
+
+  private String codec;
+
+  public TestColumnEncodings(String codec) {
+    this.codec = codec;
+  }
+
+  @Parameters
+  public static Collection<Object[]> codecs() {
+    Object[][] data = new Object[][] { { "null" }, { "deflate" } };
+    return Arrays.asList(data);
+  }
+
+  private ColumnFileMetaData createFileMeta() {
+    return new ColumnFileMetaData().setCodec(codec).setChecksum("crc32");
+  }
+
+  private long write(ColumnMetaData column, Object[] values) throws Exception {
+    ColumnFileWriter out = new ColumnFileWriter(createFileMeta(), column);
+    for (Object value : values)
+      out.writeRow(value);
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    out.writeTo(bytes);
+    FILE.getParentFile().mkdirs();
+    out.writeTo(FILE);
+    return bytes.size();
+  }
+
+  private long plainSize(String name, ValueType type, Object[] values) throws Exception {
+    return write(new ColumnMetaData(name, type), values);
+  }
+
+  /** Check the size of encoded values, without a codec to blur it. */
+  private void checkSmaller(long encoded, long plain, int factor) {
+    if ("null".equals(codec))
+      Assert.assertTrue(encoded + " vs " + plain, encoded * factor < plain);
+  }
+
+  private void check(Object[] values, ColumnEncoding encoding) throws Exception {
+    try (ColumnFileReader in = new ColumnFileReader(FILE)) {
+      Assert.assertEquals(values.length, in.getRowCount());
+      Assert.assertEquals(encoding, in.getColumnMetaData(0).getEncoding());
+      int count = 0;
+      for (Object value : in.getValues(0))
+        Assert.assertEquals(values[count++], value);
+      Assert.assertEquals(values.length, count);
+
+      Random random = TestUtil.createRandom();
+      ColumnValues<Comparable> v = in.getValues(0);
+      for (int i = 0; i < 100; i++) {
+        int row = random.nextInt(values.length);
+        v.seek(row);
+        Assert.assertEquals(row, v.getRow());
+        Assert.assertEquals(values[row], v.next());
+      }
+    }
+  }
+
+  @Test
+  public void testDictionaryStrings() throws Exception {
+    Random random = TestUtil.createRandom();
+    String[] values = new String[COUNT];
+    for (int i = 0; i < COUNT; i++)
+      values[i] = i % 1000 < 900 ? NAMES[random.nextInt(NAMES.length)] : NAMES[0];
+    long plain = plainSize("event", ValueType.STRING, values);
+    long encoded = write(new ColumnMetaData("event", ValueType.STRING).setEncoding(ColumnEncoding.DICTIONARY), values);
+    check(values, ColumnEncoding.DICTIONARY);
+    checkSmaller(encoded, plain, 2);
+  }
+
+  @Test
+  public void testDictionaryHighCardinality() throws Exception {
+    Random random = TestUtil.createRandom();
+    String[] values = new String[COUNT];
+    for (int i = 0; i < COUNT; i++)
+      values[i] = TestUtil.randomString(random);
+    write(new ColumnMetaData("s", ValueType.STRING).setEncoding(ColumnEncoding.DICTIONARY), values);
+    check(values, ColumnEncoding.DICTIONARY);
+  }
+
+  @Test
+  public void testDictionaryBytes() throws Exception {
+    Random random = TestUtil.createRandom();
+    ByteBuffer[] values = new ByteBuffer[COUNT];
+    for (int i = 0; i < COUNT; i++)
+      values[i] = ByteBuffer.wrap(new byte[] { (byte) random.nextInt(4), 42 });
+    write(new ColumnMetaData("b", ValueType.BYTES).setEncoding(ColumnEncoding.DICTIONARY), values);
+    check(values, ColumnEncoding.DICTIONARY);
+  }
+
+  @Test
+  public void testRunLengthBooleans() throws Exception {
+    Random random = TestUtil.createRandom();
+    Boolean[] values = new Boolean[COUNT];
+    for (int i = 0; i < COUNT; i++)
+      values[i] = i < COUNT / 2 ? random.nextBoolean() : (i / 1000) % 2 == 0;
+    long plain = plainSize("flag", ValueType.BOOLEAN, values);
+    long encoded = write(new ColumnMetaData("flag", ValueType.BOOLEAN).setEncoding(ColumnEncoding.RUN_LENGTH), values);
+    check(values, ColumnEncoding.RUN_LENGTH);
+    checkSmaller(encoded, plain, 1);
+  }
+
+  @Test
+  public void testRunLengthInts() throws Exception {
+    Random random = TestUtil.createRandom();
+    Integer[] values = new Integer[COUNT];
+    for (int i = 0; i < COUNT; i++) {
+      if (i % 10000 < 5000)
+        values[i] = random.nextInt(8) - 2;
+      else if (i % 10000 < 9990)
+        values[i] = 3;
+      else
+        values[i] = random.nextInt();
+    }
+    values[0] = Integer.MIN_VALUE;
+    values[1] = Integer.MAX_VALUE;
+    long plain = plainSize("code", ValueType.INT, values);
+    long encoded = write(new ColumnMetaData("code", ValueType.INT).setEncoding(ColumnEncoding.RUN_LENGTH), values);
+    check(values, ColumnEncoding.RUN_LENGTH);
+    checkSmaller(encoded, plain, 2);
+  }
+
+  @Test
+  public void testDeltaLongs() throws Exception {
+    Random random = TestUtil.createRandom();
+    Long[] values = new Long[COUNT];
+    long time = 1_600_000_000_000L;
+    for (int i = 0; i < COUNT; i++)
+      values[i] = time += random.nextInt(50);
+    long plain = plainSize("ts", ValueType.LONG, values);
+    long encoded = write(new ColumnMetaData("ts", ValueType.LONG).setEncoding(ColumnEncoding.DELTA), values);
+    check(values, ColumnEncoding.DELTA);
+    checkSmaller(encoded, plain, 4);
+  }
+
+  @Test
+  public void testDeltaRandomLongs() throws Exception {
+    Random random = TestUtil.createRandom();
+    Long[] values = new Long[COUNT];
+    for (int i = 0; i < COUNT; i++)
+      values[i] = random.nextLong();
+    values[10] = Long.MIN_VALUE;
+    values[11] = Long.MAX_VALUE;
+    values[12] = Long.MIN_VALUE;
+    write(new ColumnMetaData("l", ValueType.LONG).setEncoding(ColumnEncoding.DELTA), values);
+    check(values, ColumnEncoding.DELTA);
+  }
+
+  @Test
+  public void testSeekValues() throws Exception {
+    Long[] values = new Long[COUNT];
+    for (int i = 0; i < COUNT; i++)
+      values[i] = i * 3L;
+    write(new ColumnMetaData("ts", ValueType.LONG).setEncoding(ColumnEncoding.DELTA).hasIndexValues(true), values);
+    try (ColumnFileReader in = new ColumnFileReader(FILE)) {
+      ColumnValues<Long> v = in.getValues("ts");
+      v.seek(Long.valueOf(3000));
+      Assert.assertEquals(1000, v.getRow());
+      Assert.assertEquals(Long.valueOf(3000), v.next());
+      v.seek(Long.valueOf(3001));
+      Assert.assertEquals(Long.valueOf(3003), v.next());
+      v.seek(Long.valueOf(30));
+      Assert.assertEquals(10, v.getRow());
+      v.seek(11L); // a row, past the value the seek read ahead
+      Assert.assertEquals(Long.valueOf(33), v.next());
+      v.seek(Long.valueOf(COUNT * 3L - 3));
+      Assert.assertEquals(Long.valueOf(COUNT * 3L - 3), v.next());
+      Assert.assertFalse(v.hasNext());
+    }
+  }
+
+  @Test(expected = TrevniRuntimeException.class)
+  public void testUnsupportedType() {
+    new ColumnMetaData("s", ValueType.STRING).setEncoding(ColumnEncoding.DELTA);
+  }
+
+  @Test(expected = TrevniRuntimeException.class)
+  public void testArrayColumn() {
+    new ColumnMetaData("a", ValueType.INT).isArray(true).setEncoding(ColumnEncoding.RUN_LENGTH);
+  }
+
+}
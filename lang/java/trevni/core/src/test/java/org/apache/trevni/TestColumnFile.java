@@ -17,13 +17,18 @@
  */
 package org.apache.trevni;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.nio.file.Files;
 import java.util.Random;
 import java.util.Collection;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -251,4 +256,192 @@ public class TestColumnFile {
 
   }
 
+  @Test
+  public void testSpill() throws Exception {
+    File dir = new File("target", "spill");
+    dir.mkdirs();
+    ColumnMetaData[] columns = { new ColumnMetaData("a", ValueType.LONG), new ColumnMetaData("b", ValueType.STRING) };
+    ColumnFileWriter buffered = new ColumnFileWriter(createFileMeta(), columns);
+    ColumnFileWriter spilled = new ColumnFileWriter(createFileMeta(), columns).setSpillDirectory(dir);
+    Random random = TestUtil.createRandom();
+    for (int i = 0; i < COUNT; i++) {
+      Object[] row = { random.nextLong(), TestUtil.randomString(random) };
+      buffered.writeRow(row);
+      spilled.writeRow(row);
+    }
+    Assert.assertEquals(buffered.sizeEstimate(), spilled.sizeEstimate());
+    Assert.assertTrue(spilled.bufferedSize() < buffered.bufferedSize() / 4);
+
+    File expected = new File("target", "test-buffered.trv");
+    buffered.writeTo(expected);
+    FILE.delete();
+    spilled.writeTo(FILE);
+    ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    spilled.writeTo(stream);
+    spilled.close();
+    Assert.assertEquals(0, dir.list().length);
+
+    byte[] bytes = Files.readAllBytes(expected.toPath());
+    Assert.assertArrayEquals(bytes, Files.readAllBytes(FILE.toPath()));
+    Assert.assertArrayEquals(bytes, stream.toByteArray());
+    ColumnFileReader in = new ColumnFileReader(FILE);
+    Assert.assertEquals(COUNT, in.getRowCount());
+    random = TestUtil.createRandom();
+    Iterator<Long> a = in.getValues("a");
+    Iterator<String> b = in.getValues("b");
+    while (a.hasNext()) {
+      Assert.assertEquals(random.nextLong(), (long) a.next());
+      Assert.assertEquals(TestUtil.randomString(random), b.next());
+    }
+    in.close();
+  }
+
+  @Test
+  public void testParallelRead() throws Exception {
+    FILE.delete();
+    ColumnFileWriter out = new ColumnFileWriter(createFileMeta(), new ColumnMetaData("a", ValueType.LONG),
+        new ColumnMetaData("b", ValueType.STRING), new ColumnMetaData("c", ValueType.INT));
+    Random random = TestUtil.createRandom();
+    long[] longs = new long[COUNT];
+    String[] strings = new String[COUNT];
+    for (int i = 0; i < COUNT; i++) {
+      longs[i] = random.nextLong();
+      strings[i] = TestUtil.randomString(random);
+      out.writeRow(longs[i], strings[i], i);
+    }
+    out.writeTo(FILE);
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try (ColumnFileReader in = new ColumnFileReader(FILE)) {
+      Assert.assertFalse(in.isParallelRead());
+      Assert.assertTrue(in.setParallelRead(executor, 3).isParallelRead());
+      ColumnValues<Long> a = in.getValues("a");
+      ColumnValues<String> b = in.getValues("b");
+      ColumnValues<Integer> c = in.getValues("c");
+      int count = 0;
+      while (a.hasNext()) {
+        Assert.assertEquals(longs[count], (long) a.next());
+        Assert.assertEquals(strings[count], b.next());
+        Assert.assertEquals(count, (int) c.next());
+        count++;
+      }
+      Assert.assertEquals(COUNT, count);
+
+      for (int row : new int[] { COUNT - 1, 0, COUNT / 2, 17, COUNT / 2 + 1 }) {
+        a.seek(row);
+        b.seek(row);
+        Assert.assertEquals(longs[row], (long) a.next());
+        Assert.assertEquals(strings[row], b.next());
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testParallelReadNoPrefetch() throws Exception {
+    FILE.delete();
+    ColumnFileWriter out = new ColumnFileWriter(createFileMeta(), new ColumnMetaData("a", ValueType.INT));
+    out.writeRow(1);
+    out.writeTo(FILE);
+    try (ColumnFileReader in = new ColumnFileReader(FILE)) {
+      in.setParallelRead(ForkJoinPool.commonPool(), 0);
+    }
+  }
+
+  @Test
+  public void testReadBatch() throws Exception {
+    FILE.delete();
+    ColumnFileWriter out = new ColumnFileWriter(createFileMeta(), new ColumnMetaData("long", ValueType.LONG),
+        new ColumnMetaData("delta", ValueType.LONG).setEncoding(ColumnEncoding.DELTA).hasIndexValues(true),
+        new ColumnMetaData("double", ValueType.DOUBLE), new ColumnMetaData("string", ValueType.STRING),
+        new ColumnMetaData("dictionary", ValueType.STRING).setEncoding(ColumnEncoding.DICTIONARY),
+        new ColumnMetaData("boolean", ValueType.BOOLEAN).setEncoding(ColumnEncoding.RUN_LENGTH),
+        new ColumnMetaData("array", ValueType.INT).isArray(true));
+    Random random = TestUtil.createRandom();
+    long[] longs = new long[COUNT];
+    double[] doubles = new double[COUNT];
+    String[] strings = new String[COUNT];
+    for (int i = 0; i < COUNT; i++) {
+      longs[i] = random.nextLong();
+      doubles[i] = random.nextDouble();
+      strings[i] = TestUtil.randomString(random);
+      out.startRow();
+      out.writeValue(longs[i], 0);
+      out.writeValue((long) i * 3, 1);
+      out.writeValue(doubles[i], 2);
+      out.writeValue(strings[i], 3);
+      out.writeValue("s" + (i % 7), 4);
+      out.writeValue(i % 5 == 0, 5);
+      out.writeLength(i % 3, 6);
+      for (int j = 0; j < i % 3; j++)
+        out.writeValue(i + j, 6);
+      out.endRow();
+    }
+    out.writeTo(FILE);
+
+    try (ColumnFileReader in = new ColumnFileReader(FILE)) {
+      ColumnValues<Long> longValues = in.getValues("long");
+      ColumnValues<Long> deltaValues = in.getValues("delta");
+      ColumnValues<Double> doubleValues = in.getValues("double");
+      ColumnValues<String> stringValues = in.getValues("string");
+      ColumnValues<String> dictionaryValues = in.getValues("dictionary");
+      ColumnValues<Boolean> booleanValues = in.getValues("boolean");
+      ColumnValues<Integer> arrayValues = in.getValues("array");
+      LongVector longVector = new LongVector(10);
+      LongVector deltaVector = new LongVector();
+      DoubleVector doubleVector = new DoubleVector();
+      BytesVector stringVector = new BytesVector(1);
+      BytesVector dictionaryVector = new BytesVector();
+      LongVector booleanVector = new LongVector();
+      LongVector arrayVector = new LongVector();
+      int max = 1000;
+      int row = 0;
+      while (row < COUNT) {
+        int n = longValues.readBatch(longVector, max);
+        Assert.assertEquals(Math.min(max, COUNT - row), n);
+        Assert.assertEquals(n, longVector.size());
+        Assert.assertEquals(n, deltaValues.readBatch(deltaVector, max));
+        Assert.assertEquals(n, doubleValues.readBatch(doubleVector, max));
+        Assert.assertEquals(n, stringValues.readBatch(stringVector, max));
+        Assert.assertEquals(n, dictionaryValues.readBatch(dictionaryVector, max));
+        Assert.assertEquals(n, booleanValues.readBatch(booleanVector, max));
+        Assert.assertEquals(n, arrayValues.readBatch(arrayVector, max));
+        int value = 0;
+        for (int i = 0; i < n; i++, row++) {
+          Assert.assertEquals(longs[row], longVector.get(i));
+          Assert.assertEquals(row * 3L, deltaVector.get(i));
+          Assert.assertEquals(doubles[row], doubleVector.get(i), 0);
+          Assert.assertEquals(strings[row], stringVector.getString(i));
+          Assert.assertEquals("s" + (row % 7), dictionaryVector.getString(i));
+          Assert.assertEquals(row % 5 == 0 ? 1 : 0, booleanVector.get(i));
+          Assert.assertEquals(row % 3, arrayVector.getLengths()[i]);
+          for (int j = 0; j < row % 3; j++)
+            Assert.assertEquals(row + j, arrayVector.get(value++));
+        }
+        Assert.assertEquals(value, arrayVector.size());
+        Assert.assertEquals(n, arrayVector.getRowCount());
+        max = max * 3 / 2;
+      }
+      Assert.assertEquals(0, longValues.readBatch(longVector, max));
+      Assert.assertEquals(0, longVector.size());
+
+      deltaValues.seek(Long.valueOf(COUNT * 3L / 2));
+      Assert.assertEquals(2, deltaValues.readBatch(deltaVector, 2));
+      Assert.assertEquals(COUNT * 3L / 2, deltaVector.get(0));
+      Assert.assertEquals(COUNT * 3L / 2 + 3, deltaVector.get(1));
+    }
+  }
+
+  @Test(expected = TrevniRuntimeException.class)
+  public void testReadBatchWrongVector() throws Exception {
+    FILE.delete();
+    ColumnFileWriter out = new ColumnFileWriter(createFileMeta(), new ColumnMetaData("a", ValueType.STRING));
+    out.writeRow("x");
+    out.writeTo(FILE);
+    try (ColumnFileReader in = new ColumnFileReader(FILE)) {
+      in.getValues("a").readBatch(new LongVector(), 1);
+    }
+  }
+
 }